@@ -0,0 +1,6 @@
+package ru.practicum.shareit.booking.controller;
+
+public enum BatchMode {
+    ALL_OR_NOTHING,
+    BEST_EFFORT
+}
@@ -2,13 +2,17 @@ package ru.practicum.shareit.booking.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
 import ru.practicum.shareit.booking.dto.BookingOutputDto;
 import ru.practicum.shareit.booking.service.api.BookingService;
+import ru.practicum.shareit.utils.PageCursor;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
@@ -36,6 +40,26 @@ public class BookingController {
         return new ResponseEntity<>(savedBooking, HttpStatus.CREATED);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<BookingBatchResultDto>> addBookings(
+            @RequestBody List<BookingInputDto> bookingInputDtos,
+            @RequestParam(value = "mode", defaultValue = "ALL_OR_NOTHING") String modeParam,
+            @RequestHeader(value = "X-Sharer-User-Id") long bookerId
+    ) {
+        log.info("BookingController: receive POST request for add {} bookings with bookerId={}, mode={}",
+                bookingInputDtos.size(), bookerId, modeParam);
+        BatchMode mode;
+        try {
+            mode = BatchMode.valueOf(modeParam);
+        } catch (IllegalArgumentException e) {
+            log.error("Unknown batch mode: {}", modeParam);
+            throw new IllegalArgumentException(String.format("Unknown batch mode: %s", modeParam));
+        }
+        List<BookingBatchResultDto> results = bookingService.addBookings(bookingInputDtos, bookerId, mode);
+        boolean anyAdded = results.stream().anyMatch(result -> result.getBooking() != null);
+        return new ResponseEntity<>(results, anyAdded ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST);
+    }
+
     @PatchMapping("/{bookingId}")
     ResponseEntity<BookingOutputDto> patchBooking(@PathVariable(value = "bookingId") long bookingId,
                                                   @RequestParam(value = "approved") boolean isApproved,
@@ -45,6 +69,16 @@ public class BookingController {
         return new ResponseEntity<>(patchedBookingDto, HttpStatus.OK);
     }
 
+    @PatchMapping("/bulk")
+    ResponseEntity<List<BookingBatchResultDto>> patchBookings(@RequestBody List<BookingDecisionDto> decisions,
+                                                              @RequestHeader(value = "X-Sharer-User-Id") long ownerId
+    ) {
+        log.info("BookingController: receive PATCH request for update {} bookings with ownerId={}",
+                decisions.size(), ownerId);
+        List<BookingBatchResultDto> results = bookingService.updateBookings(decisions, ownerId);
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
     @GetMapping("/{bookingId}")
     ResponseEntity<BookingOutputDto> getBooking(@PathVariable(value = "bookingId") long bookingId,
                                                 @RequestHeader(value = "X-Sharer-User-Id") long userId
@@ -60,10 +94,11 @@ public class BookingController {
             @RequestHeader(value = "X-Sharer-User-Id") long bookerId,
             @RequestParam(value = "state", defaultValue = "ALL") String stateParam,
             @RequestParam(value = "from", defaultValue = DEFAULT_FROM) @PositiveOrZero int from,
-            @RequestParam(value = "size", defaultValue = DEFAULT_SIZE) @Positive int size
+            @RequestParam(value = "size", defaultValue = DEFAULT_SIZE) @Positive int size,
+            @RequestParam(value = "cursor", required = false) String cursor
     ) {
-        log.info("receive GET request for return all bookings for bookerId={}, state={}, from={}, size={}",
-                bookerId, stateParam, from, size);
+        log.info("receive GET request for return all bookings for bookerId={}, state={}, from={}, size={}, cursor={}",
+                bookerId, stateParam, from, size, cursor);
         State state;
         try {
             state = State.valueOf(stateParam);
@@ -71,8 +106,10 @@ public class BookingController {
             log.error("Unknown state: {}", stateParam);
             throw new IllegalArgumentException(String.format("Unknown state: %s", stateParam));
         }
-        List<BookingOutputDto> bookingOutputDto = bookingService.getAllUsersBookings(bookerId, state, from, size);
-        return new ResponseEntity<>(bookingOutputDto, HttpStatus.OK);
+        List<BookingOutputDto> bookingOutputDto = cursor == null
+                ? bookingService.getAllUsersBookings(bookerId, state, from, size)
+                : bookingService.getAllUsersBookings(bookerId, state, PageCursor.decode(cursor), size);
+        return new ResponseEntity<>(bookingOutputDto, nextCursorHeaders(bookingOutputDto, size), HttpStatus.OK);
     }
 
 
@@ -81,10 +118,11 @@ public class BookingController {
             @RequestHeader(value = "X-Sharer-User-Id") long ownerId,
             @RequestParam(value = "state", defaultValue = "ALL") String stateParam,
             @RequestParam(value = "from", defaultValue = DEFAULT_FROM) @PositiveOrZero int from,
-            @RequestParam(value = "size", defaultValue = DEFAULT_SIZE) @Positive int size
+            @RequestParam(value = "size", defaultValue = DEFAULT_SIZE) @Positive int size,
+            @RequestParam(value = "cursor", required = false) String cursor
     ) {
-        log.info("receive GET request for return all bookings for owner={}, state={}, from={}, size={}",
-                ownerId, stateParam, from, size);
+        log.info("receive GET request for return all bookings for owner={}, state={}, from={}, size={}, cursor={}",
+                ownerId, stateParam, from, size, cursor);
         State state;
         try {
             state = State.valueOf(stateParam);
@@ -93,7 +131,14 @@ public class BookingController {
             throw new IllegalArgumentException("Unknown state: UNSUPPORTED_STATUS");
         }
 
-        List<BookingOutputDto> bookingsOutputDto = bookingService.getAllOwnersBookings(ownerId, state, from, size);
-        return new ResponseEntity<>(bookingsOutputDto, HttpStatus.OK);
+        List<BookingOutputDto> bookingsOutputDto = cursor == null
+                ? bookingService.getAllOwnersBookings(ownerId, state, from, size)
+                : bookingService.getAllOwnersBookings(ownerId, state, PageCursor.decode(cursor), size);
+        return new ResponseEntity<>(bookingsOutputDto, nextCursorHeaders(bookingsOutputDto, size), HttpStatus.OK);
+    }
+
+    private HttpHeaders nextCursorHeaders(List<BookingOutputDto> bookings, int size) {
+        return PageCursor.nextCursorHeaders(bookings, size,
+                booking -> PageCursor.of(booking.getStart(), booking.getId()));
     }
 }
\ No newline at end of file
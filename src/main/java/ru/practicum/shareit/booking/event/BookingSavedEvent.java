@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.event;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+
+/**
+ * Published after a booking is added or its status changes.
+ */
+@Value
+public class BookingSavedEvent {
+    long bookingId;
+    long itemId;
+    Status status;
+
+    public static BookingSavedEvent of(Booking booking) {
+        return new BookingSavedEvent(booking.getId(), booking.getItem().getId(), booking.getStatus());
+    }
+}
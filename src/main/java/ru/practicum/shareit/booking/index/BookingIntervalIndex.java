@@ -0,0 +1,126 @@
+package ru.practicum.shareit.booking.index;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.api.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * In-memory index of APPROVED bookings per item. The tree of an item is warmed from the database
+ * on first access and then kept current by {@link #onBookingSaved(Booking)}. At most max-items trees are
+ * kept, the least recently used ones are dropped and warmed again when needed.
+ * <p>
+ * The index is local to the node: bookings approved on other nodes show up once the tree is warmed again,
+ * at most ttl after it was loaded. Admission decisions and item availability are therefore read from the database,
+ * the index only answers the windows it already knows to be booked and the window searches that tolerate the ttl.
+ */
+@Slf4j
+@Component
+public class BookingIntervalIndex {
+    private static final int VERSION_STRIPES = 1024;
+    private final BookingRepository bookingRepository;
+    private final Cache<Long, BookingIntervalTree> trees;
+    /**
+     * Commit counters of the items, striped by item id. A tree loaded while a booking of its stripe committed
+     * may miss that booking and is not kept.
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    public BookingIntervalIndex(BookingRepository bookingRepository,
+                                @Value("${shareit.booking-index.max-items:100000}") long maxItems,
+                                @Value("${shareit.booking-index.ttl:1m}") Duration ttl) {
+        this.bookingRepository = bookingRepository;
+        this.trees = Caffeine.newBuilder()
+                .maximumSize(maxItems)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public boolean isBooked(long itemId, LocalDateTime start, LocalDateTime end) {
+        return getTree(itemId).overlaps(start, end);
+    }
+
+    /**
+     * Applies the booking to the item's tree. After completion the item's version is bumped, and a tree that
+     * replaced the updated one in between (after an eviction, loaded before the commit) is dropped.
+     */
+    public void onBookingSaved(Booking booking) {
+        long itemId = booking.getItem().getId();
+        BookingIntervalTree tree = getTree(itemId);
+        boolean approved = booking.getStatus() == Status.APPROVED;
+        if (approved) {
+            tree.add(booking.getId(), booking.getStart(), booking.getEnd());
+        } else {
+            tree.remove(booking.getId(), booking.getStart());
+        }
+        runAfterCompletion(committed -> {
+            if (!committed && approved) {
+                tree.remove(booking.getId(), booking.getStart());
+            }
+            versions.incrementAndGet(stripe(itemId));
+            trees.asMap().computeIfPresent(itemId, (id, cached) -> cached == tree ? cached : null);
+        });
+    }
+
+    /**
+     * The tree is loaded outside of the cache, so a slow load does not block other items. When two threads
+     * load the same item the first tree put wins, and updates only ever go to the tree held by the cache.
+     * A tree whose item version changed while it was loaded is returned to the caller but not kept.
+     */
+    private BookingIntervalTree getTree(long itemId) {
+        BookingIntervalTree tree = trees.getIfPresent(itemId);
+        if (tree != null) {
+            return tree;
+        }
+        long loadedAt = versions.get(stripe(itemId));
+        BookingIntervalTree loaded = load(itemId);
+        tree = trees.asMap().putIfAbsent(itemId, loaded);
+        if (tree != null) {
+            return tree;
+        }
+        if (versions.get(stripe(itemId)) != loadedAt) {
+            trees.asMap().remove(itemId, loaded);
+        }
+        return loaded;
+    }
+
+    private static int stripe(long itemId) {
+        return Long.hashCode(itemId) & (VERSION_STRIPES - 1);
+    }
+
+    private BookingIntervalTree load(long itemId) {
+        BookingIntervalTree tree = new BookingIntervalTree();
+        List<Booking> approvedBookings = bookingRepository.findAllByItem_IdAndStatus(itemId, Status.APPROVED);
+        approvedBookings.forEach(booking -> tree.add(booking.getId(), booking.getStart(), booking.getEnd()));
+        log.debug("bookingIntervalIndex: warmed {} approved bookings for itemId={}", tree.size(), itemId);
+        return tree;
+    }
+
+    /**
+     * Runs the action with whether the transaction committed, or right away as committed without one.
+     */
+    private void runAfterCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+}
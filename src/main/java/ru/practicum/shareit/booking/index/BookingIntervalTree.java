@@ -0,0 +1,196 @@
+package ru.practicum.shareit.booking.index;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Interval tree over the bookings of one item: a treap ordered by (start, bookingId),
+ * every node keeps the latest end of its subtree, so an overlap lookup is O(log n).
+ * Intervals are half-open: [start, end).
+ */
+public class BookingIntervalTree {
+    private Node root;
+    private int size;
+
+    public synchronized void add(long bookingId, LocalDateTime start, LocalDateTime end) {
+        root = insert(root, new Node(bookingId, start, end, ThreadLocalRandom.current().nextInt()));
+    }
+
+    public synchronized boolean remove(long bookingId, LocalDateTime start) {
+        int sizeBefore = size;
+        root = delete(root, bookingId, start);
+        return size < sizeBefore;
+    }
+
+    public synchronized boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        Node node = root;
+        while (node != null) {
+            if (!node.maxEnd.isAfter(start)) {
+                return false;
+            }
+            if (node.start.isBefore(end) && node.end.isAfter(start)) {
+                return true;
+            }
+            if (node.left != null && node.left.maxEnd.isAfter(start)) {
+                node = node.left;
+            } else if (!node.start.isBefore(end)) {
+                return false;
+            } else {
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Busy time inside [from, to): overlapping intervals merged and clipped to the window, in start order.
+     */
+    public synchronized List<TimeRange> busyRanges(LocalDateTime from, LocalDateTime to) {
+        List<TimeRange> ranges = new ArrayList<>();
+        collectBusy(root, from, to, ranges);
+        return ranges;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private static void collectBusy(Node node, LocalDateTime from, LocalDateTime to, List<TimeRange> ranges) {
+        if (node == null || !node.maxEnd.isAfter(from)) {
+            return;
+        }
+        collectBusy(node.left, from, to, ranges);
+        if (!node.start.isBefore(to)) {
+            return;
+        }
+        if (node.end.isAfter(from)) {
+            LocalDateTime start = node.start.isAfter(from) ? node.start : from;
+            LocalDateTime end = node.end.isBefore(to) ? node.end : to;
+            TimeRange last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && !start.isAfter(last.getEnd())) {
+                if (end.isAfter(last.getEnd())) {
+                    ranges.set(ranges.size() - 1, new TimeRange(last.getStart(), end));
+                }
+            } else {
+                ranges.add(new TimeRange(start, end));
+            }
+        }
+        collectBusy(node.right, from, to, ranges);
+    }
+
+    private Node insert(Node node, Node newNode) {
+        if (node == null) {
+            size++;
+            return newNode;
+        }
+        int cmp = compare(newNode.start, newNode.bookingId, node);
+        if (cmp == 0) {
+            newNode.left = node.left;
+            newNode.right = node.right;
+            newNode.priority = node.priority;
+            update(newNode);
+            return newNode;
+        }
+        if (cmp < 0) {
+            node.left = insert(node.left, newNode);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, newNode);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node delete(Node node, long bookingId, LocalDateTime start) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, bookingId, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, bookingId, start);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, bookingId, start);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int compare(LocalDateTime start, long bookingId, Node node) {
+        int cmp = start.compareTo(node.start);
+        return cmp != 0 ? cmp : Long.compare(bookingId, node.bookingId);
+    }
+
+    private static final class Node {
+        private final long bookingId;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private int priority;
+        private LocalDateTime maxEnd;
+        private Node left;
+        private Node right;
+
+        private Node(long bookingId, LocalDateTime start, LocalDateTime end, int priority) {
+            this.bookingId = bookingId;
+            this.start = start;
+            this.end = end;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+    }
+}
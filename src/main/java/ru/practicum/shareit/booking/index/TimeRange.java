@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.index;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class TimeRange {
+    LocalDateTime start;
+    LocalDateTime end;
+}
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.*;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Booking that ended long ago, moved out of the bookings table by the archiver. Rows are copied with their ids
+ * and never change afterwards.
+ */
+@Data
+@Entity
+@Table(name = "bookings_archive")
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArchivedBooking {
+    @Id
+    long id;
+
+    @Column(name = "start_date", nullable = false)
+    LocalDateTime start;
+
+    @Column(name = "end_date", nullable = false)
+    LocalDateTime end;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    Item item;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    User booker;
+
+    @Enumerated(EnumType.STRING)
+    Status status;
+
+    /**
+     * Detached booking for the booking mappers, it must not be saved.
+     */
+    public Booking toBooking() {
+        return new Booking(id, start, end, item, booker, status);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.api.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.repository.api.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.time.LocalDateTime.now;
+
+/**
+ * Moves approved and canceled bookings that ended more than the configured number of months ago from bookings
+ * to bookings_archive, one batch per transaction. Waiting and rejected bookings stay, their state lists read
+ * the bookings table only.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.booking-archive.enabled", havingValue = "true")
+public class BookingArchiver {
+    private static final List<String> STATUSES = List.of(Status.APPROVED.toString(), Status.CANCELED.toString());
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final TransactionTemplate transaction;
+    private final int months;
+    private final int batchSize;
+
+    public BookingArchiver(BookingRepository bookingRepository,
+                           ArchivedBookingRepository archivedBookingRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${shareit.booking-archive.months:6}") int months,
+                           @Value("${shareit.booking-archive.batch-size:500}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.months = months;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${shareit.booking-archive.interval:PT1H}",
+            fixedDelayString = "${shareit.booking-archive.interval:PT1H}")
+    public void archive() {
+        LocalDateTime before = now().minusMonths(months);
+        int archived = 0;
+        int moved;
+        do {
+            moved = transaction.execute(status -> archiveBatch(before));
+            archived += moved;
+        } while (moved == batchSize);
+        if (archived > 0) {
+            log.info("bookingArchiver: archived {} bookings ended before {}", archived, before);
+        }
+    }
+
+    int archiveBatch(LocalDateTime before) {
+        List<Long> ids = bookingRepository.findIdsToArchive(before, STATUSES, batchSize).stream()
+                .map(Number::longValue)
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedBookingRepository.copyFromBookings(ids);
+        bookingRepository.deleteAllByIdIn(ids);
+        return ids.size();
+    }
+}
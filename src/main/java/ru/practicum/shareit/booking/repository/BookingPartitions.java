@@ -0,0 +1,113 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates the monthly partitions of the PostgreSQL bookings table ahead of time. Bookings of a month without
+ * a partition are kept in bookings_default and moved to the month partition once it is created. Nodes starting
+ * together create partitions one at a time under a transaction-level advisory lock.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.booking-partitions.enabled", havingValue = "true")
+public class BookingPartitions {
+    private static final String DEFAULT_PARTITION = "bookings_default";
+    // unique among the advisory lock keys of the application
+    private static final long LOCK_KEY = 0x5348_4152_4549_5402L;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final int monthsAhead;
+
+    public BookingPartitions(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${shareit.booking-partitions.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+    }
+
+    /**
+     * Failures are logged and retried on the next run; until then bookings of the missing months stay in the
+     * default partition.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${shareit.booking-partitions.cron:0 0 3 * * *}")
+    public void createAhead() {
+        try {
+            createMissing(YearMonth.now());
+        } catch (DataAccessException | TransactionException e) {
+            log.error("bookingPartitions: can not create partitions, bookings stay in {}", DEFAULT_PARTITION, e);
+        }
+    }
+
+    void createMissing(YearMonth current) {
+        Set<String> existing = attachedPartitions();
+        for (YearMonth month : monthsFrom(current, monthsAhead)) {
+            if (!existing.contains(partitionName(month))
+                    && Boolean.TRUE.equals(transaction.execute(status -> create(month)))) {
+                log.info("bookingPartitions: created partition {}", partitionName(month));
+            }
+        }
+    }
+
+    private Set<String> attachedPartitions() {
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = 'bookings'", String.class));
+    }
+
+    /**
+     * The partition is filled with the rows of its month from the default partition before it is attached,
+     * attaching fails while the default partition holds rows of the new range. The default partition is locked
+     * against writes until then. False when another node attached the partition while this one waited for
+     * the lock.
+     */
+    private boolean create(YearMonth month) {
+        String name = partitionName(month);
+        String from = month.atDay(1).atStartOfDay().toString();
+        String to = month.plusMonths(1).atDay(1).atStartOfDay().toString();
+        jdbcTemplate.execute(String.format("SELECT pg_advisory_xact_lock(%d)", LOCK_KEY));
+        if (attachedPartitions().contains(name)) {
+            return false;
+        }
+        jdbcTemplate.execute(String.format("CREATE TABLE IF NOT EXISTS %s " +
+                "(LIKE bookings INCLUDING DEFAULTS INCLUDING CONSTRAINTS)", name));
+        jdbcTemplate.execute(String.format("LOCK TABLE %s IN EXCLUSIVE MODE", DEFAULT_PARTITION));
+        jdbcTemplate.update(String.format("WITH moved AS (DELETE FROM %s " +
+                "WHERE start_date >= CAST(? AS TIMESTAMP) AND start_date < CAST(? AS TIMESTAMP) RETURNING *) " +
+                "INSERT INTO %s SELECT * FROM moved", DEFAULT_PARTITION, name), from, to);
+        jdbcTemplate.execute(String.format("ALTER TABLE bookings ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')",
+                name, from, to));
+        return true;
+    }
+
+    static List<YearMonth> monthsFrom(YearMonth current, int monthsAhead) {
+        List<YearMonth> months = new ArrayList<>();
+        for (int i = 0; i <= monthsAhead; i++) {
+            months.add(current.plusMonths(i));
+        }
+        return months;
+    }
+
+    static String partitionName(YearMonth month) {
+        return String.format("bookings_y%04dm%02d", month.getYear(), month.getMonthValue());
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.booking.repository.api;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Every archived booking ended before now, so the archive has no PAST variants of the queries: ALL and PAST
+ * read the same archived rows.
+ */
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+    @Query("SELECT b FROM ArchivedBooking b WHERE b.booker.id = :bookerId")
+    List<ArchivedBooking> findAllByBookerId(@Param("bookerId") Long bookerId, Pageable pageable);
+
+    @Query("SELECT b FROM ArchivedBooking b WHERE b.item.owner.id = :ownerId")
+    List<ArchivedBooking> findAllByItemOwnerId(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    @Query("SELECT b FROM ArchivedBooking b " +
+            "WHERE b.booker.id = :bookerId " +
+            "AND b.start <= :start AND (b.start < :start OR b.id < :id) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<ArchivedBooking> seekAllByBookerId(@Param("bookerId") Long bookerId,
+                                            @Param("start") LocalDateTime start,
+                                            @Param("id") long id,
+                                            Pageable pageable);
+
+    @Query("SELECT b FROM ArchivedBooking b " +
+            "WHERE b.item.owner.id = :ownerId " +
+            "AND b.start <= :start AND (b.start < :start OR b.id < :id) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<ArchivedBooking> seekAllByItemOwnerId(@Param("ownerId") Long ownerId,
+                                               @Param("start") LocalDateTime start,
+                                               @Param("id") long id,
+                                               Pageable pageable);
+
+    @Query("SELECT CASE WHEN COUNT(b) > 0 THEN TRUE ELSE FALSE END FROM ArchivedBooking b " +
+            "WHERE b.item.id = :itemId AND b.booker.id = :bookerId AND b.end < :date")
+    boolean existsByItemIdAndBookerIdAndEndBefore(@Param("itemId") Long itemId,
+                                                  @Param("bookerId") Long bookerId,
+                                                  @Param("date") LocalDateTime date);
+
+    @Modifying
+    @Query(value = "INSERT INTO bookings_archive (id, start_date, end_date, item_id, booker_id, status) " +
+            "SELECT id, start_date, end_date, item_id, booker_id, status FROM bookings WHERE id IN :ids",
+            nativeQuery = true)
+    int copyFromBookings(@Param("ids") Collection<Long> ids);
+}
@@ -2,64 +2,242 @@ package ru.practicum.shareit.booking.repository.api;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Lookups filter on the foreign key paths (b.booker.id, b.item.owner.id) in JPQL: derived queries left join the
+ * referenced table and filter on its id, which keeps the database from using the foreign key indexes. PAST
+ * queries repeat the end bound on start_date, which bookings are partitioned by in PostgreSQL, so that partitions
+ * starting after now are pruned.
+ */
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findAllByBooker_Id(Long bookerId, Pageable pageable);
-
-    List<Booking> findAllByBooker_IdAndEndBefore(Long bookerId, LocalDateTime now, Pageable pageable);
-
-    List<Booking> findAllByBooker_IdAndStartAfter(Long bookerId, LocalDateTime now, Pageable pageable);
-
-    List<Booking> findAllByBooker_IdAndStartBeforeAndEndAfter(Long bookerId,
-                                                              LocalDateTime now1,
-                                                              LocalDateTime now2,
+    @Query("SELECT b FROM Booking b WHERE b.booker.id = :bookerId")
+    List<Booking> findAllByBooker_Id(@Param("bookerId") Long bookerId, Pageable pageable);
+
+    @Query("SELECT b FROM Booking b WHERE b.booker.id = :bookerId AND b.start < :now AND b.end < :now")
+    List<Booking> findAllByBooker_IdAndEndBefore(@Param("bookerId") Long bookerId,
+                                                 @Param("now") LocalDateTime now,
+                                                 Pageable pageable);
+
+    @Query("SELECT b FROM Booking b WHERE b.booker.id = :bookerId AND b.start > :now")
+    List<Booking> findAllByBooker_IdAndStartAfter(@Param("bookerId") Long bookerId,
+                                                  @Param("now") LocalDateTime now,
+                                                  Pageable pageable);
+
+    @Query("SELECT b FROM Booking b WHERE b.booker.id = :bookerId AND b.start < :now1 AND b.end > :now2")
+    List<Booking> findAllByBooker_IdAndStartBeforeAndEndAfter(@Param("bookerId") Long bookerId,
+                                                              @Param("now1") LocalDateTime now1,
+                                                              @Param("now2") LocalDateTime now2,
                                                               Pageable pageable);
 
-    List<Booking> findAllByBooker_IdAndStatus(Long bookerId, Status status, Pageable pageable);
+    @Query("SELECT b FROM Booking b WHERE b.booker.id = :bookerId AND b.status = :status")
+    List<Booking> findAllByBooker_IdAndStatus(@Param("bookerId") Long bookerId,
+                                              @Param("status") Status status,
+                                              Pageable pageable);
 
-    List<Booking> findAllByItemOwnerId(Long ownerId, Pageable pageable);
+    @Query("SELECT b FROM Booking b WHERE b.item.owner.id = :ownerId")
+    List<Booking> findAllByItemOwnerId(@Param("ownerId") Long ownerId, Pageable pageable);
 
-    List<Booking> findAllByItemOwnerIdAndEndBefore(Long ownerId, LocalDateTime now, Pageable pageable);
+    @Query("SELECT b FROM Booking b WHERE b.item.owner.id = :ownerId AND b.start < :now AND b.end < :now")
+    List<Booking> findAllByItemOwnerIdAndEndBefore(@Param("ownerId") Long ownerId,
+                                                   @Param("now") LocalDateTime now,
+                                                   Pageable pageable);
 
-    List<Booking> findAllByItemOwnerIdAndStartAfter(Long ownerId, LocalDateTime now, Pageable pageable);
+    @Query("SELECT b FROM Booking b WHERE b.item.owner.id = :ownerId AND b.start > :now")
+    List<Booking> findAllByItemOwnerIdAndStartAfter(@Param("ownerId") Long ownerId,
+                                                    @Param("now") LocalDateTime now,
+                                                    Pageable pageable);
 
-    List<Booking> findAllByItem_Owner_IdAndStartBeforeAndEndAfter(Long ownerId,
-                                                                  LocalDateTime now1,
-                                                                  LocalDateTime now2,
+    @Query("SELECT b FROM Booking b WHERE b.item.owner.id = :ownerId AND b.start < :now1 AND b.end > :now2")
+    List<Booking> findAllByItem_Owner_IdAndStartBeforeAndEndAfter(@Param("ownerId") Long ownerId,
+                                                                  @Param("now1") LocalDateTime now1,
+                                                                  @Param("now2") LocalDateTime now2,
                                                                   Pageable pageable);
 
-    List<Booking> findAllByItemOwnerIdAndStatus(Long ownerId, Status status, Pageable pageable);
-
-    @Query(value = "SELECT DISTINCT ON(item_id) * FROM bookings b " +
+    @Query("SELECT b FROM Booking b WHERE b.item.owner.id = :ownerId AND b.status = :status")
+    List<Booking> findAllByItemOwnerIdAndStatus(@Param("ownerId") Long ownerId,
+                                                @Param("status") Status status,
+                                                Pageable pageable);
+
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.booker.id = :bookerId " +
+            "AND b.start <= :start AND (b.start < :start OR b.id < :id) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> seekAllByBookerId(@Param("bookerId") Long bookerId,
+                                    @Param("start") LocalDateTime start,
+                                    @Param("id") long id,
+                                    Pageable pageable);
+
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.booker.id = :bookerId AND b.start < :now AND b.end < :now " +
+            "AND b.start <= :start AND (b.start < :start OR b.id < :id) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> seekAllByBookerIdAndEndBefore(@Param("bookerId") Long bookerId,
+                                                @Param("now") LocalDateTime now,
+                                                @Param("start") LocalDateTime start,
+                                                @Param("id") long id,
+                                                Pageable pageable);
+
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.booker.id = :bookerId AND b.start > :now " +
+            "AND b.start <= :start AND (b.start < :start OR b.id < :id) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> seekAllByBookerIdAndStartAfter(@Param("bookerId") Long bookerId,
+                                                 @Param("now") LocalDateTime now,
+                                                 @Param("start") LocalDateTime start,
+                                                 @Param("id") long id,
+                                                 Pageable pageable);
+
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.booker.id = :bookerId AND b.start < :now AND b.end > :now " +
+            "AND b.start <= :start AND (b.start < :start OR b.id < :id) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> seekAllByBookerIdAndCurrent(@Param("bookerId") Long bookerId,
+                                              @Param("now") LocalDateTime now,
+                                              @Param("start") LocalDateTime start,
+                                              @Param("id") long id,
+                                              Pageable pageable);
+
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.booker.id = :bookerId AND b.status = :status " +
+            "AND b.start <= :start AND (b.start < :start OR b.id < :id) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> seekAllByBookerIdAndStatus(@Param("bookerId") Long bookerId,
+                                             @Param("status") Status status,
+                                             @Param("start") LocalDateTime start,
+                                             @Param("id") long id,
+                                             Pageable pageable);
+
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = :ownerId " +
+            "AND b.start <= :start AND (b.start < :start OR b.id < :id) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> seekAllByItemOwnerId(@Param("ownerId") Long ownerId,
+                                       @Param("start") LocalDateTime start,
+                                       @Param("id") long id,
+                                       Pageable pageable);
+
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = :ownerId AND b.start < :now AND b.end < :now " +
+            "AND b.start <= :start AND (b.start < :start OR b.id < :id) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> seekAllByItemOwnerIdAndEndBefore(@Param("ownerId") Long ownerId,
+                                                   @Param("now") LocalDateTime now,
+                                                   @Param("start") LocalDateTime start,
+                                                   @Param("id") long id,
+                                                   Pageable pageable);
+
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = :ownerId AND b.start > :now " +
+            "AND b.start <= :start AND (b.start < :start OR b.id < :id) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> seekAllByItemOwnerIdAndStartAfter(@Param("ownerId") Long ownerId,
+                                                    @Param("now") LocalDateTime now,
+                                                    @Param("start") LocalDateTime start,
+                                                    @Param("id") long id,
+                                                    Pageable pageable);
+
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = :ownerId AND b.start < :now AND b.end > :now " +
+            "AND b.id < :id " +
+            "ORDER BY b.id DESC")
+    List<Booking> seekAllByItemOwnerIdAndCurrent(@Param("ownerId") Long ownerId,
+                                                 @Param("now") LocalDateTime now,
+                                                 @Param("id") long id,
+                                                 Pageable pageable);
+
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = :ownerId AND b.status = :status " +
+            "AND b.start <= :start AND (b.start < :start OR b.id < :id) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> seekAllByItemOwnerIdAndStatus(@Param("ownerId") Long ownerId,
+                                                @Param("status") Status status,
+                                                @Param("start") LocalDateTime start,
+                                                @Param("id") long id,
+                                                Pageable pageable);
+
+    /**
+     * Latest booking started before the date for every item. Uses row_number() rather than DISTINCT ON so the
+     * query runs on H2 as well, and is served by ix_bookings_item_status_dates.
+     */
+    @Query(value = "SELECT id, start_date, end_date, item_id, booker_id, status FROM (" +
+            "SELECT b.*, ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.start_date DESC, b.id DESC) AS rn " +
+            "FROM bookings b " +
             "WHERE b.item_id IN :itemIds " +
             "AND b.status = :status " +
-            "AND b.start_date < :date " +
-            "ORDER BY item_id, b.start_date DESC", nativeQuery = true)
+            "AND b.start_date < :date) ranked " +
+            "WHERE ranked.rn = 1", nativeQuery = true)
     List<Booking> findLastBookingsForItems(@Param("itemIds") List<Long> itemIds,
-                                                       @Param("status") String status,
-                                                       @Param("date") LocalDateTime date);
+                                           @Param("status") String status,
+                                           @Param("date") LocalDateTime date);
 
-    @Query(value = "SELECT DISTINCT ON(item_id) * FROM bookings b " +
+    /**
+     * Earliest booking starting at or after the date for every item.
+     */
+    @Query(value = "SELECT id, start_date, end_date, item_id, booker_id, status FROM (" +
+            "SELECT b.*, ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.start_date ASC, b.id ASC) AS rn " +
+            "FROM bookings b " +
             "WHERE b.item_id IN :itemIds " +
             "AND b.status = :status " +
-            "AND b.start_date >= :date " +
-            "ORDER BY item_id, b.start_date ASC ;", nativeQuery = true)
+            "AND b.start_date >= :date) ranked " +
+            "WHERE ranked.rn = 1", nativeQuery = true)
     List<Booking> findNextBookingsForItems(@Param("itemIds") List<Long> itemIds,
                                            @Param("status") String status,
                                            @Param("date") LocalDateTime date);
 
-    Booking findFirstByItem_IdAndBooker_IdAndEndBefore(Long itemId, Long bookerId, LocalDateTime date);
-
-    Optional<Booking> findFirstByItem_IdAndEndAfterAndStartBeforeAndStatus(Long itemId,
-                                                                           LocalDateTime after,
-                                                                           LocalDateTime before,
-                                                                           Status status);
+    @Query("SELECT CASE WHEN COUNT(b) > 0 THEN TRUE ELSE FALSE END FROM Booking b " +
+            "WHERE b.item.id = :itemId AND b.booker.id = :bookerId AND b.end < :date")
+    boolean existsByItemIdAndBookerIdAndEndBefore(@Param("itemId") Long itemId,
+                                                  @Param("bookerId") Long bookerId,
+                                                  @Param("date") LocalDateTime date);
+
+    @Query("SELECT b FROM Booking b WHERE b.item.id = :itemId AND b.status = :status")
+    List<Booking> findAllByItem_IdAndStatus(@Param("itemId") Long itemId, @Param("status") Status status);
+
+    boolean existsByItem_IdAndStatusAndStartBeforeAndEndAfter(Long itemId,
+                                                               Status status,
+                                                               LocalDateTime before,
+                                                               LocalDateTime after);
+
+    @Query("SELECT b.item.id FROM Booking b WHERE b.id = :id")
+    Optional<Long> findItemIdById(@Param("id") long id);
+
+    @Query("SELECT DISTINCT b.item.id FROM Booking b WHERE b.id IN :ids AND b.item.owner.id = :ownerId")
+    List<Long> findItemIdsByIdInAndItemOwnerId(@Param("ids") Collection<Long> ids, @Param("ownerId") long ownerId);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker " +
+            "WHERE b.id IN :ids AND i.owner.id = :ownerId")
+    List<Booking> findAllByIdInAndItemOwnerId(@Param("ids") Collection<Long> ids, @Param("ownerId") long ownerId);
+
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.id IN :itemIds AND b.status = :status AND b.start < :before AND b.end > :after")
+    List<Booking> findAllByItem_IdInAndStatusAndStartBeforeAndEndAfter(@Param("itemIds") Collection<Long> itemIds,
+                                                                       @Param("status") Status status,
+                                                                       @Param("before") LocalDateTime before,
+                                                                       @Param("after") LocalDateTime after);
+
+    /**
+     * Bookings of the statuses that ended before the date, oldest first. Bookings that are the last booking of
+     * an item stay, item cards read them through items.last_booking_id.
+     */
+    @Query(value = "SELECT b.id FROM bookings b " +
+            "WHERE b.start_date < :date AND b.end_date < :date AND b.status IN :statuses " +
+            "AND NOT EXISTS (SELECT 1 FROM items i WHERE i.last_booking_id = b.id) " +
+            "ORDER BY b.id LIMIT :limit", nativeQuery = true)
+    List<Number> findIdsToArchive(@Param("date") LocalDateTime date,
+                                  @Param("statuses") Collection<String> statuses,
+                                  @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM bookings WHERE id IN :ids", nativeQuery = true)
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 }
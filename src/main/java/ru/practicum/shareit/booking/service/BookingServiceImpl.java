@@ -2,18 +2,27 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.booking.controller.BatchMode;
 import ru.practicum.shareit.booking.controller.State;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
 import ru.practicum.shareit.booking.dto.BookingOutputDto;
 import ru.practicum.shareit.booking.dto.mapper.BookingMapper;
+import ru.practicum.shareit.booking.event.BookingSavedEvent;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.index.BookingIntervalTree;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.api.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.repository.api.BookingRepository;
 import ru.practicum.shareit.booking.service.api.BookingService;
 import ru.practicum.shareit.exception.NotAvailableException;
@@ -22,27 +31,41 @@ import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.api.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.api.UserRepository;
+import ru.practicum.shareit.utils.PageCursor;
 import ru.practicum.shareit.utils.PageRequestUtil;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    private static final int MAX_BATCH_SIZE = 100;
+    /**
+     * Same order as the seek queries, so an X-Next-Cursor taken from an offset page continues it exactly.
+     */
+    private static final Sort START_DESC = Sort.by(Sort.Direction.DESC, "start")
+            .and(Sort.by(Sort.Direction.DESC, "id"));
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
     private final BookingMapper bookingMapper;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     @Override
     public BookingOutputDto addBooking(BookingInputDto bookingInputDto, long bookerId) {
         validateBookingData(bookingInputDto);
-        Item item = findItemById(bookingInputDto.getItemId());
+        Item item = lockItemById(bookingInputDto.getItemId());
         if (!item.getAvailable()) {
             log.error("BookingService: item with id={} not available", item.getId());
             throw new NotAvailableException(
@@ -61,14 +84,61 @@ public class BookingServiceImpl implements BookingService {
         User booker = findUserById(bookerId);
         Booking newBooking = bookingMapper.toBooking(bookingInputDto, item, booker);
         Booking addedBooking = bookingRepository.save(newBooking);
+        onBookingSaved(addedBooking);
         log.info("bookingService: was add booking={}", addedBooking);
         return bookingMapper.toBookingOutputDto(addedBooking);
     }
 
+    @Transactional
+    @Override
+    public List<BookingBatchResultDto> addBookings(List<BookingInputDto> bookingInputDtos,
+                                                   long bookerId,
+                                                   BatchMode mode) {
+        checkBatchSize(bookingInputDtos.size());
+        User booker = findUserById(bookerId);
+        Set<Long> itemIds = bookingInputDtos.stream()
+                .filter(Objects::nonNull)
+                .map(BookingInputDto::getItemId)
+                .collect(Collectors.toSet());
+        Map<Long, Item> items = lockItems(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        List<BookingBatchResultDto> results = new ArrayList<>();
+        List<Booking> newBookings = new ArrayList<>();
+        for (int i = 0; i < bookingInputDtos.size(); i++) {
+            BookingInputDto bookingInputDto = bookingInputDtos.get(i);
+            String error = checkBatchEntry(bookingInputDto, items, bookerId);
+            results.add(BookingBatchResultDto.builder().index(i).error(error).build());
+            if (error == null) {
+                newBookings.add(bookingMapper.toBooking(bookingInputDto, items.get(bookingInputDto.getItemId()), booker));
+            }
+        }
+        if (newBookings.size() < bookingInputDtos.size() && mode == BatchMode.ALL_OR_NOTHING) {
+            log.error("BookingService: batch of {} bookings for bookerId={} rejected, {} entries failed",
+                    bookingInputDtos.size(), bookerId, bookingInputDtos.size() - newBookings.size());
+            return results;
+        }
+
+        Iterator<Booking> addedBookings = bookingRepository.saveAll(newBookings).iterator();
+        for (BookingBatchResultDto result : results) {
+            if (result.getError() == null) {
+                Booking addedBooking = addedBookings.next();
+                onBookingSaved(addedBooking);
+                result.setBooking(bookingMapper.toBookingOutputDto(addedBooking));
+            }
+        }
+        log.info("bookingService: was add {} of {} bookings for bookerId={}",
+                newBookings.size(), bookingInputDtos.size(), bookerId);
+        return results;
+    }
+
     @Transactional
     @Override
     public BookingOutputDto updateBooking(long bookingId, long ownerId, boolean isApproved) {
         findUserById(ownerId);
+        long itemId = bookingRepository.findItemIdById(bookingId).orElseThrow(() ->
+                new NotFoundException(String.format("booking with id=%d not found", bookingId)));
+        lockItemById(itemId);
         Booking booking = findBookingById(bookingId);
         if (booking.getItem().getOwner().getId() != ownerId) {
             log.error("BookingService: only owner have access to item");
@@ -78,10 +148,63 @@ public class BookingServiceImpl implements BookingService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     String.format("BookingService: booking with bookingId=%d not WAITING status", bookingId));
         }
+        if (isApproved && hasApprovedOverlap(booking)) {
+            log.error("BookingService: booking with id={} overlaps approved booking", bookingId);
+            throw new NotAvailableException(
+                    String.format("Item with id=%d already booked for this time", booking.getItem().getId()));
+        }
         Status newStatus = isApproved ? Status.APPROVED : Status.REJECTED;
         booking.setStatus(newStatus);
+        Booking updatedBooking = bookingRepository.save(booking);
+        onBookingSaved(updatedBooking);
 
-        return bookingMapper.toBookingOutputDto(bookingRepository.save(booking));
+        return bookingMapper.toBookingOutputDto(updatedBooking);
+    }
+
+    @Transactional
+    @Override
+    public List<BookingBatchResultDto> updateBookings(List<BookingDecisionDto> decisions, long ownerId) {
+        checkBatchSize(decisions.size());
+        findUserById(ownerId);
+        Set<Long> bookingIds = decisions.stream()
+                .filter(decision -> decision != null && decision.getBookingId() != null)
+                .map(BookingDecisionDto::getBookingId)
+                .collect(Collectors.toSet());
+        Map<Long, Booking> bookings = new HashMap<>();
+        if (!bookingIds.isEmpty()) {
+            lockItems(bookingRepository.findItemIdsByIdInAndItemOwnerId(bookingIds, ownerId));
+            bookingRepository.findAllByIdInAndItemOwnerId(bookingIds, ownerId)
+                    .forEach(booking -> bookings.put(booking.getId(), booking));
+        }
+        Map<Long, BookingIntervalTree> approvedTrees = loadApprovedTrees(decisions, bookings);
+
+        List<BookingBatchResultDto> results = new ArrayList<>();
+        List<Booking> updatedBookings = new ArrayList<>();
+        Set<Long> seenIds = new HashSet<>();
+        for (int i = 0; i < decisions.size(); i++) {
+            BookingDecisionDto decision = decisions.get(i);
+            String error = checkDecisionEntry(decision, seenIds, bookings, approvedTrees);
+            BookingBatchResultDto result = BookingBatchResultDto.builder().index(i).error(error).build();
+            if (error == null) {
+                Booking booking = bookings.get(decision.getBookingId());
+                booking.setStatus(decision.getApproved() ? Status.APPROVED : Status.REJECTED);
+                updatedBookings.add(booking);
+            }
+            results.add(result);
+        }
+
+        // managed entities are flushed as one JDBC batch of UPDATEs (hibernate.order_updates, jdbc.batch_size)
+        Iterator<Booking> savedBookings = bookingRepository.saveAll(updatedBookings).iterator();
+        for (BookingBatchResultDto result : results) {
+            if (result.getError() == null) {
+                Booking savedBooking = savedBookings.next();
+                onBookingSaved(savedBooking);
+                result.setBooking(bookingMapper.toBookingOutputDto(savedBooking));
+            }
+        }
+        log.info("bookingService: was update {} of {} bookings for ownerId={}",
+                updatedBookings.size(), decisions.size(), ownerId);
+        return results;
     }
 
     @Transactional(readOnly = true)
@@ -98,14 +221,23 @@ public class BookingServiceImpl implements BookingService {
     public List<BookingOutputDto> getAllUsersBookings(Long bookerId, State state, int from, int size) {
         findUserById(bookerId);
         List<Booking> allUsersBookings = new ArrayList<>();
-        Pageable sortedByStart = PageRequestUtil.of(from, size, Sort.by(Sort.Direction.DESC, "start"));
+        Pageable sortedByStart = PageRequestUtil.of(from, size, START_DESC);
+        Pageable upToPage = PageRequestUtil.of(0, from + size, START_DESC);
         LocalDateTime now = LocalDateTime.now();
+        List<ArchivedBooking> archived;
         switch (state) {
             case ALL:
-                allUsersBookings = bookingRepository.findAllByBooker_Id(bookerId, sortedByStart);
+                archived = archivedBookingRepository.findAllByBookerId(bookerId, upToPage);
+                allUsersBookings = archived.isEmpty()
+                        ? bookingRepository.findAllByBooker_Id(bookerId, sortedByStart)
+                        : merge(bookingRepository.findAllByBooker_Id(bookerId, upToPage), archived, from, size);
                 break;
             case PAST:
-                allUsersBookings = bookingRepository.findAllByBooker_IdAndEndBefore(bookerId, now, sortedByStart);
+                archived = archivedBookingRepository.findAllByBookerId(bookerId, upToPage);
+                allUsersBookings = archived.isEmpty()
+                        ? bookingRepository.findAllByBooker_IdAndEndBefore(bookerId, now, sortedByStart)
+                        : merge(bookingRepository.findAllByBooker_IdAndEndBefore(bookerId, now, upToPage),
+                        archived, from, size);
                 break;
             case FUTURE:
                 allUsersBookings = bookingRepository.findAllByBooker_IdAndStartAfter(bookerId, now, sortedByStart);
@@ -133,14 +265,23 @@ public class BookingServiceImpl implements BookingService {
     public List<BookingOutputDto> getAllOwnersBookings(Long ownerId, State state, int from, int size) {
         findUserById(ownerId);
         List<Booking> allUsersBookings = new ArrayList<>();
-        Pageable sortedByStart = PageRequestUtil.of(from, size, Sort.by(Sort.Direction.DESC, "start"));
+        Pageable sortedByStart = PageRequestUtil.of(from, size, START_DESC);
+        Pageable upToPage = PageRequestUtil.of(0, from + size, START_DESC);
         LocalDateTime now = LocalDateTime.now();
+        List<ArchivedBooking> archived;
         switch (state) {
             case ALL:
-                allUsersBookings = bookingRepository.findAllByItemOwnerId(ownerId, sortedByStart);
+                archived = archivedBookingRepository.findAllByItemOwnerId(ownerId, upToPage);
+                allUsersBookings = archived.isEmpty()
+                        ? bookingRepository.findAllByItemOwnerId(ownerId, sortedByStart)
+                        : merge(bookingRepository.findAllByItemOwnerId(ownerId, upToPage), archived, from, size);
                 break;
             case PAST:
-                allUsersBookings = bookingRepository.findAllByItemOwnerIdAndEndBefore(ownerId, now, sortedByStart);
+                archived = archivedBookingRepository.findAllByItemOwnerId(ownerId, upToPage);
+                allUsersBookings = archived.isEmpty()
+                        ? bookingRepository.findAllByItemOwnerIdAndEndBefore(ownerId, now, sortedByStart)
+                        : merge(bookingRepository.findAllByItemOwnerIdAndEndBefore(ownerId, now, upToPage),
+                        archived, from, size);
                 break;
             case FUTURE:
                 allUsersBookings =
@@ -168,8 +309,108 @@ public class BookingServiceImpl implements BookingService {
         return allBookingsDto;
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingOutputDto> getAllUsersBookings(Long bookerId, State state, PageCursor cursor, int size) {
+        findUserById(bookerId);
+        List<Booking> allUsersBookings = new ArrayList<>();
+        Pageable limit = PageRequestUtil.first(size);
+        LocalDateTime start = cursor.requireTime();
+        long id = cursor.getId();
+        LocalDateTime now = LocalDateTime.now();
+        switch (state) {
+            case ALL:
+                allUsersBookings = merge(bookingRepository.seekAllByBookerId(bookerId, start, id, limit),
+                        archivedBookingRepository.seekAllByBookerId(bookerId, start, id, limit), 0, size);
+                break;
+            case PAST:
+                allUsersBookings = merge(
+                        bookingRepository.seekAllByBookerIdAndEndBefore(bookerId, now, start, id, limit),
+                        archivedBookingRepository.seekAllByBookerId(bookerId, start, id, limit), 0, size);
+                break;
+            case FUTURE:
+                allUsersBookings = bookingRepository.seekAllByBookerIdAndStartAfter(bookerId, now, start, id, limit);
+                break;
+            case CURRENT:
+                allUsersBookings = bookingRepository.seekAllByBookerIdAndCurrent(bookerId, now, start, id, limit);
+                break;
+            case WAITING:
+                allUsersBookings =
+                        bookingRepository.seekAllByBookerIdAndStatus(bookerId, Status.WAITING, start, id, limit);
+                break;
+            case REJECTED:
+                allUsersBookings =
+                        bookingRepository.seekAllByBookerIdAndStatus(bookerId, Status.REJECTED, start, id, limit);
+                break;
+        }
+        List<BookingOutputDto> allBookingsDto = bookingMapper.map(allUsersBookings);
+        log.info("bookingService: was returned {} bookings for bookerId={} after cursor={}",
+                allBookingsDto.size(), bookerId, cursor);
+        return allBookingsDto;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingOutputDto> getAllOwnersBookings(Long ownerId, State state, PageCursor cursor, int size) {
+        findUserById(ownerId);
+        List<Booking> allUsersBookings = new ArrayList<>();
+        Pageable limit = PageRequestUtil.first(size);
+        long id = cursor.getId();
+        LocalDateTime now = LocalDateTime.now();
+        switch (state) {
+            case ALL:
+                allUsersBookings = merge(
+                        bookingRepository.seekAllByItemOwnerId(ownerId, cursor.requireTime(), id, limit),
+                        archivedBookingRepository.seekAllByItemOwnerId(ownerId, cursor.requireTime(), id, limit),
+                        0, size);
+                break;
+            case PAST:
+                allUsersBookings = merge(bookingRepository.seekAllByItemOwnerIdAndEndBefore(
+                                ownerId, now, cursor.requireTime(), id, limit),
+                        archivedBookingRepository.seekAllByItemOwnerId(ownerId, cursor.requireTime(), id, limit),
+                        0, size);
+                break;
+            case FUTURE:
+                allUsersBookings = bookingRepository.seekAllByItemOwnerIdAndStartAfter(
+                        ownerId, now, cursor.requireTime(), id, limit);
+                break;
+            case CURRENT:
+                allUsersBookings = bookingRepository.seekAllByItemOwnerIdAndCurrent(ownerId, now, id, limit);
+                break;
+            case WAITING:
+                allUsersBookings = bookingRepository.seekAllByItemOwnerIdAndStatus(
+                        ownerId, Status.WAITING, cursor.requireTime(), id, limit);
+                break;
+            case REJECTED:
+                allUsersBookings = bookingRepository.seekAllByItemOwnerIdAndStatus(
+                        ownerId, Status.REJECTED, cursor.requireTime(), id, limit);
+                break;
+        }
+        List<BookingOutputDto> allBookingsDto = bookingMapper.map(allUsersBookings);
+        log.info("bookingService: was returned {} bookings for ownerId={} after cursor={}",
+                allBookingsDto.size(), ownerId, cursor);
+        return allBookingsDto;
+    }
+
+    /**
+     * Merges a page of bookings with the archived bookings of the same page and takes the page in start_date
+     * order. Both lists hold every row up to the end of the page.
+     */
+    private static List<Booking> merge(List<Booking> bookings, List<ArchivedBooking> archived, int from, int size) {
+        if (archived.isEmpty()) {
+            return bookings;
+        }
+        return Stream.concat(bookings.stream(), archived.stream().map(ArchivedBooking::toBooking))
+                .sorted(Comparator.comparing(Booking::getStart).thenComparing(Booking::getId).reversed())
+                .skip(from)
+                .limit(size)
+                .collect(Collectors.toList());
+    }
+
     private Booking findBookingByIdAndUserId(Long bookingId, Long userId) {
-        Booking booking = findBookingById(bookingId);
+        Booking booking = bookingRepository.findById(bookingId)
+                .or(() -> archivedBookingRepository.findById(bookingId).map(ArchivedBooking::toBooking))
+                .orElseThrow(() -> new NotFoundException(String.format("booking with id=%d not found", bookingId)));
         if (booking.getBooker().getId().equals(userId) ||
                 booking.getItem().getOwner().getId().equals(userId)) {
             return booking;
@@ -179,6 +420,103 @@ public class BookingServiceImpl implements BookingService {
                 userId));
     }
 
+    private String checkBatchEntry(BookingInputDto bookingInputDto, Map<Long, Item> items, long bookerId) {
+        if (bookingInputDto == null) {
+            return "booking must not be null";
+        }
+        String violations = validate(bookingInputDto);
+        if (violations != null) {
+            return violations;
+        }
+        if (!bookingInputDto.getEnd().isAfter(bookingInputDto.getStart())) {
+            return "end date must be after start date";
+        }
+        Item item = items.get(bookingInputDto.getItemId());
+        if (item == null) {
+            return String.format("item with id=%d not found", bookingInputDto.getItemId());
+        }
+        if (!item.getAvailable() || isAlreadyBooked(bookingInputDto)) {
+            return String.format("Item with id=%d not available", item.getId());
+        }
+        if (item.getOwner().getId() == bookerId) {
+            return String.format("bookerId=%d equals ownerId of item with id=%d", bookerId, item.getId());
+        }
+        return null;
+    }
+
+    private String checkDecisionEntry(BookingDecisionDto decision,
+                                      Set<Long> seenIds,
+                                      Map<Long, Booking> bookings,
+                                      Map<Long, BookingIntervalTree> approvedTrees) {
+        if (decision == null) {
+            return "decision must not be null";
+        }
+        String violations = validate(decision);
+        if (violations != null) {
+            return violations;
+        }
+        if (!seenIds.add(decision.getBookingId())) {
+            return String.format("booking with id=%d is repeated in batch", decision.getBookingId());
+        }
+        Booking booking = bookings.get(decision.getBookingId());
+        if (booking == null) {
+            return String.format("booking with id=%d not found", decision.getBookingId());
+        }
+        if (booking.getStatus() != Status.WAITING) {
+            return String.format("booking with bookingId=%d not WAITING status", booking.getId());
+        }
+        if (decision.getApproved()) {
+            BookingIntervalTree approved = approvedTrees.computeIfAbsent(
+                    booking.getItem().getId(), itemId -> new BookingIntervalTree());
+            if (approved.overlaps(booking.getStart(), booking.getEnd())) {
+                return String.format("Item with id=%d already booked for this time", booking.getItem().getId());
+            }
+            approved.add(booking.getId(), booking.getStart(), booking.getEnd());
+        }
+        return null;
+    }
+
+    private Map<Long, BookingIntervalTree> loadApprovedTrees(List<BookingDecisionDto> decisions,
+                                                            Map<Long, Booking> bookings) {
+        List<Booking> toApprove = decisions.stream()
+                .filter(decision -> decision != null && Boolean.TRUE.equals(decision.getApproved()))
+                .map(decision -> bookings.get(decision.getBookingId()))
+                .filter(booking -> booking != null && booking.getStatus() == Status.WAITING)
+                .collect(Collectors.toList());
+        Map<Long, BookingIntervalTree> approvedTrees = new HashMap<>();
+        if (toApprove.isEmpty()) {
+            return approvedTrees;
+        }
+        Set<Long> itemIds = toApprove.stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet());
+        LocalDateTime from = toApprove.stream().map(Booking::getStart).min(Comparator.naturalOrder()).get();
+        LocalDateTime to = toApprove.stream().map(Booking::getEnd).max(Comparator.naturalOrder()).get();
+        bookingRepository.findAllByItem_IdInAndStatusAndStartBeforeAndEndAfter(itemIds, Status.APPROVED, to, from)
+                .forEach(booking -> approvedTrees
+                        .computeIfAbsent(booking.getItem().getId(), itemId -> new BookingIntervalTree())
+                        .add(booking.getId(), booking.getStart(), booking.getEnd()));
+        return approvedTrees;
+    }
+
+    private <T> String validate(T dto) {
+        Set<ConstraintViolation<T>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void checkBatchSize(int size) {
+        if (size == 0 || size > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("batch must contain from 1 to %d bookings", MAX_BATCH_SIZE));
+        }
+    }
+
     private void validateBookingData(BookingInputDto bookingInputDto) {
         if (!bookingInputDto.getEnd().isAfter(bookingInputDto.getStart())) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "end date must be after start date");
@@ -190,24 +528,55 @@ public class BookingServiceImpl implements BookingService {
                 new NotFoundException(String.format("user with id=%d not found", userId)));
     }
 
-    private Item findItemById(long itemId) {
-        return itemRepository.findById(itemId).orElseThrow(() ->
+    /**
+     * The item row lock serializes booking admission and owner decisions per item across nodes. Booking statuses
+     * and approved overlaps are checked against the database after it is taken, never against rows read before.
+     */
+    private Item lockItemById(long itemId) {
+        return itemRepository.findByIdForUpdate(itemId).orElseThrow(() ->
                 new NotFoundException(String.format("item with id=%d not found", itemId)));
     }
 
+    /**
+     * Same as {@link #lockItemById(long)} for several items, locked in id order.
+     */
+    private List<Item> lockItems(Collection<Long> itemIds) {
+        return itemIds.isEmpty() ? List.of() : itemRepository.findAllByIdInForUpdate(itemIds);
+    }
+
     private Booking findBookingById(long bookingId) {
         return bookingRepository.findById(bookingId).orElseThrow(() ->
                 new NotFoundException(String.format("booking with id=%d not found", bookingId)));
     }
 
 
+    private boolean hasApprovedOverlap(Booking booking) {
+        return bookingRepository.existsByItem_IdAndStatusAndStartBeforeAndEndAfter(
+                booking.getItem().getId(),
+                Status.APPROVED,
+                booking.getEnd(),
+                booking.getStart());
+    }
+
+    /**
+     * The interval index rejects windows it knows to be booked without a query, approvals are final. It may miss
+     * bookings approved on other nodes, so a window it reports free is checked against the database, under the
+     * item lock the caller holds.
+     */
     private boolean isAlreadyBooked(BookingInputDto bookingInputDto) {
-        Optional<Booking> doubleBooking = bookingRepository.findFirstByItem_IdAndEndAfterAndStartBeforeAndStatus(
+        return bookingIntervalIndex.isBooked(
                 bookingInputDto.getItemId(),
                 bookingInputDto.getStart(),
+                bookingInputDto.getEnd())
+                || bookingRepository.existsByItem_IdAndStatusAndStartBeforeAndEndAfter(
+                bookingInputDto.getItemId(),
+                Status.APPROVED,
                 bookingInputDto.getEnd(),
-                Status.APPROVED);
-        return doubleBooking.isPresent();
+                bookingInputDto.getStart());
     }
 
+    private void onBookingSaved(Booking booking) {
+        bookingIntervalIndex.onBookingSaved(booking);
+        eventPublisher.publishEvent(BookingSavedEvent.of(booking));
+    }
 }
@@ -1,8 +1,12 @@
 package ru.practicum.shareit.booking.service.api;
 
+import ru.practicum.shareit.booking.controller.BatchMode;
 import ru.practicum.shareit.booking.controller.State;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
 import ru.practicum.shareit.booking.dto.BookingOutputDto;
+import ru.practicum.shareit.utils.PageCursor;
 
 import java.util.List;
 
@@ -10,11 +14,19 @@ public interface BookingService {
 
     BookingOutputDto addBooking(BookingInputDto bookingInputDto, long bookerId);
 
+    List<BookingBatchResultDto> addBookings(List<BookingInputDto> bookingInputDtos, long bookerId, BatchMode mode);
+
     BookingOutputDto updateBooking(long bookingId, long ownerId, boolean isApproved);
 
+    List<BookingBatchResultDto> updateBookings(List<BookingDecisionDto> decisions, long ownerId);
+
     BookingOutputDto getBookingByIdAndBookerId(long bookingId, long userId);
 
     List<BookingOutputDto> getAllUsersBookings(Long bookerId, State state, int from, int size);
 
+    List<BookingOutputDto> getAllUsersBookings(Long bookerId, State state, PageCursor cursor, int size);
+
     List<BookingOutputDto> getAllOwnersBookings(Long ownerId, State state, int from, int size);
+
+    List<BookingOutputDto> getAllOwnersBookings(Long ownerId, State state, PageCursor cursor, int size);
 }
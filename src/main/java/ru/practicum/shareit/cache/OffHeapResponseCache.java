@@ -0,0 +1,233 @@
+package ru.practicum.shareit.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * LRU cache of response bodies kept in one direct buffer cut into fixed-size blocks, so cached bytes never
+ * reach the Java heap. An entry is a chain of blocks; readers pin it while they copy it to the client,
+ * and the blocks of an evicted entry are freed once the last reader unpins it. An entry stored with a time to
+ * live is dropped by the first read after it expires.
+ */
+final class OffHeapResponseCache {
+    private static final int NO_BLOCK = -1;
+    private final ByteBuffer arena;
+    private final int blockSize;
+    private final int[] nextBlock;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<String>> keysByTag = new HashMap<>();
+    private int freeHead;
+    private int freeBlocks;
+    private long usedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    OffHeapResponseCache(int capacityBytes, int blockSize) {
+        int blocks = capacityBytes / blockSize;
+        this.arena = ByteBuffer.allocateDirect(blocks * blockSize);
+        this.blockSize = blockSize;
+        this.nextBlock = new int[blocks];
+        for (int i = 0; i < blocks; i++) {
+            nextBlock[i] = i + 1 < blocks ? i + 1 : NO_BLOCK;
+        }
+        this.freeHead = blocks > 0 ? 0 : NO_BLOCK;
+        this.freeBlocks = blocks;
+    }
+
+    /**
+     * Copies the cached body to the stream opened for its length. Returns false on a miss.
+     */
+    boolean writeTo(String key, BodyStream bodyStream) throws IOException {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && entry.isExpired(System.nanoTime())) {
+                remove(key);
+                entry = null;
+            }
+            if (entry == null) {
+                misses++;
+                return false;
+            }
+            hits++;
+            entry.pins++;
+        }
+        try {
+            WritableByteChannel channel = Channels.newChannel(bodyStream.open(entry.length));
+            int remaining = entry.length;
+            for (int block = entry.firstBlock; remaining > 0; block = nextBlock[block]) {
+                ByteBuffer chunk = arena.duplicate();
+                chunk.position(block * blockSize).limit(block * blockSize + Math.min(blockSize, remaining));
+                remaining -= chunk.remaining();
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+            }
+            return true;
+        } finally {
+            synchronized (this) {
+                if (--entry.pins == 0 && entry.removed) {
+                    free(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores the body, evicting least recently used entries to make room. Returns false when it can not fit.
+     */
+    synchronized boolean put(String key, String tag, byte[] body) {
+        return put(key, tag, body, null);
+    }
+
+    /**
+     * Same as {@link #put(String, String, byte[])}, but the entry is served for at most ttl, or forever when
+     * ttl is null.
+     */
+    synchronized boolean put(String key, String tag, byte[] body, Duration ttl) {
+        int blocks = Math.max(1, (body.length + blockSize - 1) / blockSize);
+        if (blocks > nextBlock.length) {
+            return false;
+        }
+        remove(key);
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (freeBlocks < blocks && eldest.hasNext()) {
+            Entry victim = eldest.next();
+            eldest.remove();
+            unlink(victim);
+            evictions++;
+        }
+        if (freeBlocks < blocks) {
+            return false;
+        }
+        int firstBlock = freeHead;
+        int block = firstBlock;
+        for (int offset = 0; offset < body.length || block == firstBlock; offset += blockSize) {
+            ByteBuffer chunk = arena.duplicate();
+            chunk.position(block * blockSize);
+            chunk.put(body, offset, Math.min(blockSize, body.length - offset));
+            freeBlocks--;
+            if (offset + blockSize >= body.length) {
+                freeHead = nextBlock[block];
+                nextBlock[block] = NO_BLOCK;
+                break;
+            }
+            block = nextBlock[block];
+        }
+        Entry entry = new Entry(key, tag, firstBlock, body.length,
+                ttl != null, ttl != null ? System.nanoTime() + ttl.toNanos() : 0);
+        entries.put(key, entry);
+        keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+        usedBytes += body.length;
+        return true;
+    }
+
+    synchronized void invalidateTag(String tag) {
+        Set<String> keys = keysByTag.get(tag);
+        if (keys != null) {
+            new ArrayList<>(keys).forEach(this::remove);
+        }
+    }
+
+    synchronized void invalidateTagsStartingWith(String prefix) {
+        List<String> tags = new ArrayList<>();
+        for (String tag : keysByTag.keySet()) {
+            if (tag.startsWith(prefix)) {
+                tags.add(tag);
+            }
+        }
+        tags.forEach(this::invalidateTag);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    long capacityBytes() {
+        return arena.capacity();
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    synchronized long evictions() {
+        return evictions;
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            unlink(entry);
+        }
+    }
+
+    private void unlink(Entry entry) {
+        Set<String> keys = keysByTag.get(entry.tag);
+        keys.remove(entry.key);
+        if (keys.isEmpty()) {
+            keysByTag.remove(entry.tag);
+        }
+        usedBytes -= entry.length;
+        entry.removed = true;
+        if (entry.pins == 0) {
+            free(entry);
+        }
+    }
+
+    private void free(Entry entry) {
+        int block = entry.firstBlock;
+        while (true) {
+            freeBlocks++;
+            int next = nextBlock[block];
+            if (next == NO_BLOCK) {
+                nextBlock[block] = freeHead;
+                break;
+            }
+            block = next;
+        }
+        freeHead = entry.firstBlock;
+    }
+
+    interface BodyStream {
+        OutputStream open(int length) throws IOException;
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final String tag;
+        private final int firstBlock;
+        private final int length;
+        private final boolean expires;
+        private final long expiresAt;
+        private int pins;
+        private boolean removed;
+
+        Entry(String key, String tag, int firstBlock, int length, boolean expires, long expiresAt) {
+            this.key = key;
+            this.tag = tag;
+            this.firstBlock = firstBlock;
+            this.length = length;
+            this.expires = expires;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return expires && now - expiresAt >= 0;
+        }
+    }
+}
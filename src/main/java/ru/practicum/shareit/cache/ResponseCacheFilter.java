@@ -0,0 +1,141 @@
+package ru.practicum.shareit.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import ru.practicum.shareit.booking.event.BookingSavedEvent;
+import ru.practicum.shareit.item.event.ItemCommentedEvent;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.user.event.UserChangedEvent;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Serves GET /items/{id} and GET /users/{id} from pre-serialized JSON held off-heap. Item cards differ for
+ * the owner, so item entries are kept per X-Sharer-User-Id. Entries are evicted after commit of the item,
+ * comment, booking or user change that makes them stale; responses rendered while such a change was
+ * committed are not stored. The owner's last and next booking move with the clock rather than with any
+ * change, so item entries also expire after shareit.response-cache.item-ttl. Item cards embed comment
+ * author names, so a user change evicts every item card along with the user.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.response-cache.enabled", havingValue = "true")
+public class ResponseCacheFilter extends OncePerRequestFilter {
+    private static final Pattern CACHED_PATH = Pattern.compile("/(items|users)/\\d+");
+    private static final String ITEMS_PATH = "/items/";
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final int BLOCK_SIZE = 512;
+    private final OffHeapResponseCache cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final Duration itemTtl;
+
+    public ResponseCacheFilter(MeterRegistry meterRegistry,
+                               @Value("${shareit.response-cache.capacity:64MB}") DataSize capacity,
+                               @Value("${shareit.response-cache.item-ttl:1m}") Duration itemTtl) {
+        this.itemTtl = itemTtl;
+        this.cache = new OffHeapResponseCache((int) Math.min(capacity.toBytes(), Integer.MAX_VALUE), BLOCK_SIZE);
+        Gauge.builder("response.cache.entries", cache, OffHeapResponseCache::size).register(meterRegistry);
+        Gauge.builder("response.cache.used", cache, OffHeapResponseCache::usedBytes)
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("response.cache.capacity", cache, OffHeapResponseCache::capacityBytes)
+                .baseUnit("bytes").register(meterRegistry);
+        FunctionCounter.builder("response.cache.requests", cache, OffHeapResponseCache::hits)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("response.cache.requests", cache, OffHeapResponseCache::misses)
+                .tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("response.cache.evictions", cache, OffHeapResponseCache::evictions)
+                .register(meterRegistry);
+        log.info("responseCache: reserved {} bytes off-heap", cache.capacityBytes());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod())
+                || request.getQueryString() != null
+                || !CACHED_PATH.matcher(path(request)).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String path = path(request);
+        String key = path + '\n' + request.getHeader(USER_HEADER);
+        boolean hit = cache.writeTo(key, length -> {
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(length);
+            return response.getOutputStream();
+        });
+        if (hit) {
+            return;
+        }
+        long renderedAt = generation.get();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+        if (wrapper.getStatus() == HttpStatus.OK.value()
+                && MediaType.APPLICATION_JSON.isCompatibleWith(contentType(wrapper))
+                && generation.get() == renderedAt) {
+            cache.put(key, path, wrapper.getContentAsByteArray(), path.startsWith(ITEMS_PATH) ? itemTtl : null);
+            if (generation.get() != renderedAt) {
+                cache.invalidateTag(path);
+            }
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemSaved(ItemSavedEvent event) {
+        evict(ITEMS_PATH + event.getItemId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemCommented(ItemCommentedEvent event) {
+        evict(ITEMS_PATH + event.getItemId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingSaved(BookingSavedEvent event) {
+        evict(ITEMS_PATH + event.getItemId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict("/users/" + event.getUserId());
+        cache.invalidateTagsStartingWith(ITEMS_PATH);
+    }
+
+    private void evict(String path) {
+        generation.incrementAndGet();
+        cache.invalidateTag(path);
+    }
+
+    private static MediaType contentType(HttpServletResponse response) {
+        return response.getContentType() == null
+                ? MediaType.APPLICATION_OCTET_STREAM
+                : MediaType.parseMediaType(response.getContentType());
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -1,21 +1,37 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.comment.dto.CommentInputDto;
 import ru.practicum.shareit.item.comment.dto.SavedCommentOutputDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.dto.ItemSearchResultDto;
 import ru.practicum.shareit.item.dto.ItemWithCommentsOutputDto;
+import ru.practicum.shareit.item.importer.ItemImportReader;
 import ru.practicum.shareit.item.service.api.ItemService;
+import ru.practicum.shareit.utils.PageCursor;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 
 
 @Slf4j
@@ -25,8 +41,10 @@ import java.util.List;
 @Validated
 public class ItemController {
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
     private static final String DEFAULT_SIZE = "25";
     private static final String DEFAULT_FROM = "0";
+    private static final String DEFAULT_SUGGEST_SIZE = "10";
 
     @PostMapping
     public ResponseEntity<ItemDto> postItem(
@@ -38,6 +56,26 @@ public class ItemController {
         return new ResponseEntity<>(savedItemDto, HttpStatus.CREATED);
     }
 
+    /**
+     * Streams the outcome of every row back as NDJSON while the body is still being read. The response is
+     * written in the request thread, so the import is not bounded by the async request timeout. The body is started
+     * on the first row, so errors raised before it are still rendered as JSON by ErrorHandler.
+     */
+    @PostMapping(path = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, ItemImportReader.CSV_VALUE})
+    public void importItems(
+            @RequestHeader(value = "X-Sharer-User-Id") long ownerId,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        log.info("receive POST request for import items with contentType={}, ownerId={}", contentType, ownerId);
+        try (ItemImportReader reader = ItemImportReader.of(contentType, request.getInputStream(), objectMapper)) {
+            itemService.importItems(ownerId, reader, result -> writeLine(response, result));
+            startBody(response);
+            response.flushBuffer();
+        }
+    }
+
     @PostMapping("/{itemId}/comment")
     public ResponseEntity<SavedCommentOutputDto> postComment(
             @Valid @RequestBody CommentInputDto commentInputDto,
@@ -72,25 +110,125 @@ public class ItemController {
         return new ResponseEntity<>(itemWithCommentsOutputDto, HttpStatus.OK);
     }
 
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<ItemAvailabilityDto> getItemAvailability(
+            @PathVariable(value = "id") long id,
+            @RequestParam(value = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        log.info("receive GET request for return availability of item id={} from={} to={}", id, from, to);
+        ItemAvailabilityDto itemAvailabilityDto = itemService.getItemAvailability(id, from, to);
+        return new ResponseEntity<>(itemAvailabilityDto, HttpStatus.OK);
+    }
+
     @GetMapping("")
     public ResponseEntity<List<ItemWithCommentsOutputDto>> getAllOwnersItems(
             @RequestParam(value = "from", defaultValue = DEFAULT_FROM) @PositiveOrZero int from,
             @RequestParam(value = "size", defaultValue = DEFAULT_SIZE) @Positive int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
             @RequestHeader(value = "X-Sharer-User-Id") long ownerId
     ) {
-        log.info("receive GET request for return all items of ownerId={} from={} size={}", ownerId, from, size);
-        List<ItemWithCommentsOutputDto> itemWithCommentsOutputDto = itemService.getAllOwnersItems(ownerId, from, size);
-        return new ResponseEntity<>(itemWithCommentsOutputDto, HttpStatus.OK);
+        log.info("receive GET request for return all items of ownerId={} from={} size={} cursor={}",
+                ownerId, from, size, cursor);
+        List<ItemWithCommentsOutputDto> itemWithCommentsOutputDto = cursor == null
+                ? itemService.getAllOwnersItems(ownerId, from, size)
+                : itemService.getAllOwnersItems(ownerId, PageCursor.decode(cursor), size);
+        HttpHeaders headers = PageCursor.nextCursorHeaders(itemWithCommentsOutputDto, size,
+                item -> PageCursor.of(item.getId()));
+        return new ResponseEntity<>(itemWithCommentsOutputDto, headers, HttpStatus.OK);
     }
 
     @GetMapping("/search")
     public ResponseEntity<List<ItemDto>> findItems(
             @RequestParam(value = "from", defaultValue = DEFAULT_FROM) @PositiveOrZero int from,
             @RequestParam(value = "size", defaultValue = DEFAULT_SIZE) @Positive int size,
-            @RequestParam(value = "text") String text
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "text") String text,
+            @RequestParam(value = "start", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(value = "end", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(value = "sort", defaultValue = "id") String sortParam,
+            @RequestParam(value = "fuzzy", defaultValue = "false") boolean fuzzy
     ) {
-        log.info("receive GET to find item by text={} from={} size={}", text, from, size);
-        List<ItemDto> itemsDto = itemService.findItems(text, from, size);
-        return new ResponseEntity<>(itemsDto, HttpStatus.OK);
+        log.info("receive GET to find item by text={} from={} size={} cursor={} start={} end={} sort={} fuzzy={}",
+                text, from, size, cursor, start, end, sortParam, fuzzy);
+        if ((start == null) != (end == null)) {
+            throw new IllegalArgumentException("start and end must be set together");
+        }
+        SearchSort sort;
+        try {
+            sort = SearchSort.valueOf(sortParam.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            log.error("Unknown sort: {}", sortParam);
+            throw new IllegalArgumentException(String.format("Unknown sort: %s", sortParam));
+        }
+        if (fuzzy || sort == SearchSort.RELEVANCE) {
+            if (cursor != null || start != null) {
+                throw new IllegalArgumentException("fuzzy and relevance search support neither cursor nor start/end");
+            }
+            List<ItemDto> itemsDto = fuzzy
+                    ? itemService.findItemsFuzzy(text, from, size)
+                    : itemService.findItems(text, sort, from, size);
+            return new ResponseEntity<>(itemsDto, HttpStatus.OK);
+        }
+        List<ItemDto> itemsDto;
+        if (start == null) {
+            itemsDto = cursor == null
+                    ? itemService.findItems(text, from, size)
+                    : itemService.findItems(text, PageCursor.decode(cursor), size);
+        } else {
+            itemsDto = cursor == null
+                    ? itemService.findItems(text, start, end, from, size)
+                    : itemService.findItems(text, start, end, PageCursor.decode(cursor), size);
+        }
+        HttpHeaders headers = PageCursor.nextCursorHeaders(itemsDto, size, item -> PageCursor.of(item.getId()));
+        return new ResponseEntity<>(itemsDto, headers, HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/search", params = "facets=true")
+    public ResponseEntity<ItemSearchResultDto> findItemsWithFacets(
+            @RequestParam(value = "from", defaultValue = DEFAULT_FROM) @PositiveOrZero int from,
+            @RequestParam(value = "size", defaultValue = DEFAULT_SIZE) @Positive int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "text") String text,
+            @RequestParam(value = "start", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(value = "end", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(value = "sort", defaultValue = "id") String sortParam,
+            @RequestParam(value = "fuzzy", defaultValue = "false") boolean fuzzy
+    ) {
+        ResponseEntity<List<ItemDto>> hits = findItems(from, size, cursor, text, start, end, sortParam, fuzzy);
+        log.info("receive GET to count search facets by text={} fuzzy={}", text, fuzzy);
+        ItemSearchResultDto result = new ItemSearchResultDto(hits.getBody(), itemService.getSearchFacets(text, fuzzy));
+        return new ResponseEntity<>(result, hits.getHeaders(), HttpStatus.OK);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggestItemNames(
+            @RequestParam(value = "prefix") String prefix,
+            @RequestParam(value = "size", defaultValue = DEFAULT_SUGGEST_SIZE) @Positive int size
+    ) {
+        log.info("receive GET to suggest item names by prefix={} size={}", prefix, size);
+        return new ResponseEntity<>(itemService.suggestItemNames(prefix, size), HttpStatus.OK);
+    }
+
+    private void writeLine(HttpServletResponse response, ItemImportResultDto result) {
+        try {
+            Writer writer = startBody(response);
+            writer.write(objectMapper.writeValueAsString(result));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Writer startBody(HttpServletResponse response) throws IOException {
+        if (response.getContentType() == null) {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            response.setCharacterEncoding("UTF-8");
+        }
+        return response.getWriter();
     }
 }
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.item.cache;
+
+import lombok.Value;
+import ru.practicum.shareit.item.comment.dto.CommentOutputDto;
+
+import java.util.List;
+
+/**
+ * The part of an item card every viewer sees.
+ */
+@Value
+public class ItemDetails {
+    long id;
+    long ownerId;
+    String name;
+    String description;
+    Boolean available;
+    List<CommentOutputDto> comments;
+}
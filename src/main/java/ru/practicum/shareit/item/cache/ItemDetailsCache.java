@@ -0,0 +1,144 @@
+package ru.practicum.shareit.item.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.booking.event.BookingSavedEvent;
+import ru.practicum.shareit.item.event.ItemCommentedEvent;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.user.event.UserChangedEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of item cards for GET /items/{id}. The viewer independent details and the owner-only
+ * last/next bookings are cached apart and evicted after commit of the change that makes them stale.
+ * Booking entries also expire when the next booking starts, because that turns it into the last one.
+ * A card loaded while an eviction of its part ran is returned but not kept. A changed user evicts all details,
+ * comments show their authors' names.
+ */
+@Slf4j
+@Component
+public class ItemDetailsCache {
+    static final String DETAILS_CACHE_NAME = "itemDetails";
+    static final String BOOKINGS_CACHE_NAME = "itemOwnerBookings";
+    private static final int MAX_SIZE = 10_000;
+    private final Cache<Long, ItemDetails> details;
+    private final Cache<Long, OwnerBookings> ownerBookings;
+    private final AtomicLong detailsGeneration = new AtomicLong();
+    private final AtomicLong bookingsGeneration = new AtomicLong();
+
+    public ItemDetailsCache(MeterRegistry meterRegistry,
+                            @Value("${shareit.item-cache.details-ttl:10m}") Duration detailsTtl,
+                            @Value("${shareit.item-cache.bookings-ttl:1m}") Duration bookingsTtl) {
+        details = Caffeine.newBuilder()
+                .maximumSize(MAX_SIZE)
+                .expireAfterWrite(detailsTtl)
+                .recordStats()
+                .build();
+        ownerBookings = Caffeine.newBuilder()
+                .maximumSize(MAX_SIZE)
+                .expireAfter(new UntilNextBookingStarts(bookingsTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, details, DETAILS_CACHE_NAME);
+        CaffeineCacheMetrics.monitor(meterRegistry, ownerBookings, BOOKINGS_CACHE_NAME);
+    }
+
+    public ItemDetails getDetails(long itemId, Supplier<ItemDetails> loader) {
+        return get(details, detailsGeneration, itemId, loader);
+    }
+
+    public OwnerBookings getOwnerBookings(long itemId, Supplier<OwnerBookings> loader) {
+        return get(ownerBookings, bookingsGeneration, itemId, loader);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemSaved(ItemSavedEvent event) {
+        detailsGeneration.incrementAndGet();
+        details.invalidate(event.getItemId());
+        log.debug("itemDetailsCache: evicted details of item id={}", event.getItemId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemCommented(ItemCommentedEvent event) {
+        detailsGeneration.incrementAndGet();
+        details.invalidate(event.getItemId());
+        log.debug("itemDetailsCache: evicted details of commented item id={}", event.getItemId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingSaved(BookingSavedEvent event) {
+        bookingsGeneration.incrementAndGet();
+        ownerBookings.invalidate(event.getItemId());
+        log.debug("itemDetailsCache: evicted bookings of item id={}", event.getItemId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        detailsGeneration.incrementAndGet();
+        details.invalidateAll();
+        log.debug("itemDetailsCache: evicted all details after change of user id={}", event.getUserId());
+    }
+
+    /**
+     * Loads outside of the cache, like ResponseCacheFilter renders: the generation is read before the load and
+     * checked after the put, so an entry loaded before a commit and put after its eviction does not stay.
+     */
+    private static <V> V get(Cache<Long, V> cache, AtomicLong generation, long itemId, Supplier<V> loader) {
+        V cached = cache.getIfPresent(itemId);
+        if (cached != null) {
+            return cached;
+        }
+        long loadedAt = generation.get();
+        V loaded = loader.get();
+        if (generation.get() == loadedAt) {
+            cache.put(itemId, loaded);
+            if (generation.get() != loadedAt) {
+                cache.asMap().remove(itemId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    static long expiresAfterNanos(OwnerBookings bookings, Duration ttl, LocalDateTime now) {
+        Duration lifetime = ttl;
+        if (bookings.getNextBooking() != null) {
+            Duration untilStart = Duration.between(now, bookings.getNextBooking().getStart());
+            lifetime = untilStart.compareTo(lifetime) < 0 ? untilStart : lifetime;
+        }
+        return Math.max(lifetime.toNanos(), 0);
+    }
+
+    private static final class UntilNextBookingStarts implements Expiry<Long, OwnerBookings> {
+        private final Duration ttl;
+
+        UntilNextBookingStarts(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        @Override
+        public long expireAfterCreate(Long itemId, OwnerBookings bookings, long currentTime) {
+            return expiresAfterNanos(bookings, ttl, LocalDateTime.now());
+        }
+
+        @Override
+        public long expireAfterUpdate(Long itemId, OwnerBookings bookings, long currentTime, long currentDuration) {
+            return expiresAfterNanos(bookings, ttl, LocalDateTime.now());
+        }
+
+        @Override
+        public long expireAfterRead(Long itemId, OwnerBookings bookings, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.cache;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.dto.BookingForItemDto;
+
+/**
+ * The part of an item card only the owner sees.
+ */
+@Value
+public class OwnerBookings {
+    BookingForItemDto lastBooking;
+    BookingForItemDto nextBooking;
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemFacetsDto {
+    private int total;
+    private int available;
+    private int notAvailable;
+    private int answersRequest;
+    private int notAnswersRequest;
+    private List<OwnerFacetDto> owners;
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.item.event;
+
+import lombok.Value;
+
+/**
+ * Published after a comment is added to an item.
+ */
+@Value
+public class ItemCommentedEvent {
+    long itemId;
+}
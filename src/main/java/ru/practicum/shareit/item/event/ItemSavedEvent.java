@@ -0,0 +1,28 @@
+package ru.practicum.shareit.item.event;
+
+import lombok.Value;
+import ru.practicum.shareit.item.model.Item;
+
+/**
+ * Published after an item is added or updated. Holds a snapshot of the item, so listeners
+ * running after commit do not touch lazy associations.
+ */
+@Value
+public class ItemSavedEvent {
+    long itemId;
+    String name;
+    String description;
+    boolean available;
+    long ownerId;
+    Long requestId;
+
+    public static ItemSavedEvent of(Item item) {
+        return new ItemSavedEvent(
+                item.getId(),
+                item.getName(),
+                item.getDescription(),
+                Boolean.TRUE.equals(item.getAvailable()),
+                item.getOwner().getId(),
+                item.getRequest() == null ? null : item.getRequest().getId());
+    }
+}
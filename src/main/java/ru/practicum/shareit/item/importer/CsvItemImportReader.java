@@ -0,0 +1,147 @@
+package ru.practicum.shareit.item.importer;
+
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * RFC 4180 CSV with a header row naming the columns name, description, available and requestId in any order.
+ * Quoted values may hold commas, doubled quotes and line breaks.
+ */
+class CsvItemImportReader implements ItemImportReader {
+    private static final List<String> COLUMNS = List.of("name", "description", "available", "requestid");
+    private final BufferedReader reader;
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private int[] positions;
+    private int fieldCount;
+    private int recordLength;
+    private int index;
+
+    CsvItemImportReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public ItemImportRow next() throws IOException {
+        if (positions == null) {
+            readHeader();
+        }
+        boolean tooLong;
+        do {
+            if (!readRecord()) {
+                return null;
+            }
+            tooLong = recordLength > MAX_ROW_LENGTH;
+        } while (!tooLong && fields.size() == 1 && fields.get(0).isBlank());
+        int rowIndex = index++;
+        if (tooLong) {
+            return ItemImportRow.failed(rowIndex, String.format("row is longer than %d characters", MAX_ROW_LENGTH));
+        }
+        if (fields.size() != fieldCount) {
+            return ItemImportRow.failed(rowIndex, String.format("expected %d fields but was %d",
+                    fieldCount, fields.size()));
+        }
+        String available = value(2);
+        if (available != null && !available.equalsIgnoreCase("true") && !available.equalsIgnoreCase("false")) {
+            return ItemImportRow.failed(rowIndex, "available: must be true or false");
+        }
+        String requestId = value(3);
+        Long parsedRequestId;
+        try {
+            parsedRequestId = requestId == null ? null : Long.valueOf(requestId);
+        } catch (NumberFormatException e) {
+            return ItemImportRow.failed(rowIndex, "requestId: must be a number");
+        }
+        return ItemImportRow.of(rowIndex, ItemDto.builder()
+                .name(value(0))
+                .description(value(1))
+                .available(available == null ? null : Boolean.valueOf(available))
+                .requestId(parsedRequestId)
+                .build());
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readHeader() throws IOException {
+        if (!readRecord()) {
+            throw new IllegalArgumentException("CSV header is missing");
+        }
+        positions = new int[COLUMNS.size()];
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < fields.size(); i++) {
+            int column = COLUMNS.indexOf(fields.get(i).trim().toLowerCase(Locale.ROOT));
+            if (column == -1 || positions[column] != -1) {
+                throw new IllegalArgumentException(String.format("Unknown or repeated CSV column: %s", fields.get(i)));
+            }
+            positions[column] = i;
+        }
+        if (positions[0] == -1 || positions[1] == -1) {
+            throw new IllegalArgumentException("CSV header must name the name and description columns");
+        }
+        fieldCount = fields.size();
+    }
+
+    /**
+     * Trimmed value of a column, null when the column is absent or blank.
+     */
+    private String value(int column) {
+        int position = positions[column];
+        if (position == -1 || fields.get(position).isBlank()) {
+            return null;
+        }
+        return fields.get(position).trim();
+    }
+
+    /**
+     * Reads the next record into fields. Characters past MAX_ROW_LENGTH are counted but not kept.
+     */
+    private boolean readRecord() throws IOException {
+        fields.clear();
+        field.setLength(0);
+        recordLength = 0;
+        int c = reader.read();
+        if (c == -1) {
+            return false;
+        }
+        boolean quoted = false;
+        for (; c != -1; c = reader.read()) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() != '"') {
+                        reader.reset();
+                        quoted = false;
+                        continue;
+                    }
+                }
+                append(c);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                append(c);
+            }
+        }
+        fields.add(field.toString());
+        return true;
+    }
+
+    private void append(int c) {
+        if (++recordLength <= MAX_ROW_LENGTH) {
+            field.append((char) c);
+        }
+    }
+}
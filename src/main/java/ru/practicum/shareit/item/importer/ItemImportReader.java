@@ -0,0 +1,35 @@
+package ru.practicum.shareit.item.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads an import body row by row. Only the current row is held in memory, and rows longer than
+ * MAX_ROW_LENGTH characters are skipped with an error.
+ */
+public interface ItemImportReader extends Closeable {
+    String CSV_VALUE = "text/csv";
+    int MAX_ROW_LENGTH = 64 * 1024;
+
+    /**
+     * Next row, or null at the end of the body.
+     */
+    ItemImportRow next() throws IOException;
+
+    static ItemImportReader of(MediaType contentType, InputStream body, ObjectMapper objectMapper)
+            throws IOException {
+        Charset charset = contentType.getCharset() == null ? StandardCharsets.UTF_8 : contentType.getCharset();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, charset));
+        if (MediaType.APPLICATION_NDJSON.includes(contentType)) {
+            return new NdjsonItemImportReader(reader, objectMapper);
+        }
+        if (MediaType.valueOf(CSV_VALUE).includes(contentType)) {
+            return new CsvItemImportReader(reader);
+        }
+        throw new IllegalArgumentException(String.format("Unsupported import content type: %s", contentType));
+    }
+}
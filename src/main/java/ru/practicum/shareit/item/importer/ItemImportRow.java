@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item.importer;
+
+import lombok.Value;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+/**
+ * Parsed row of an import, index counts non-blank rows from 0. A row that could not be parsed has an error and
+ * no item.
+ */
+@Value
+public class ItemImportRow {
+    int index;
+    ItemDto item;
+    String error;
+
+    public static ItemImportRow of(int index, ItemDto item) {
+        return new ItemImportRow(index, item, null);
+    }
+
+    public static ItemImportRow failed(int index, String error) {
+        return new ItemImportRow(index, null, error);
+    }
+}
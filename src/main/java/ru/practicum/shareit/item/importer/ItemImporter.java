@@ -0,0 +1,173 @@
+package ru.practicum.shareit.item.importer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.dto.mapper.ItemMapper;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.api.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.api.UserRepository;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Saves imported rows in chunks, each chunk in its own transaction, so neither the rows nor the persistence
+ * context grow with the size of the import. Open-in-view keeps one persistence context for the whole request,
+ * so it is cleared once a chunk is committed. Outcomes are reported in row order after that.
+ */
+@Slf4j
+@Component
+public class ItemImporter {
+    private final ItemRepository itemRepository;
+    private final ItemRequestRepository itemRequestRepository;
+    private final UserRepository userRepository;
+    private final ItemMapper itemMapper;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+    private final EntityManager entityManager;
+    private final int chunkSize;
+
+    public ItemImporter(ItemRepository itemRepository,
+                        ItemRequestRepository itemRequestRepository,
+                        UserRepository userRepository,
+                        ItemMapper itemMapper,
+                        Validator validator,
+                        ApplicationEventPublisher eventPublisher,
+                        PlatformTransactionManager transactionManager,
+                        EntityManager entityManager,
+                        @Value("${shareit.item-import.chunk-size:500}") int chunkSize) {
+        this.itemRepository = itemRepository;
+        this.itemRequestRepository = itemRequestRepository;
+        this.userRepository = userRepository;
+        this.itemMapper = itemMapper;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports every row of the reader as an item of the owner, ids given in the rows are ignored.
+     *
+     * @return number of saved items
+     */
+    public long importItems(long ownerId, ItemImportReader reader, Consumer<ItemImportResultDto> results)
+            throws IOException {
+        List<ItemImportRow> chunk = new ArrayList<>(chunkSize);
+        long saved = 0;
+        for (ItemImportRow row = reader.next(); row != null; row = reader.next()) {
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                saved += write(ownerId, chunk, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saved += write(ownerId, chunk, results);
+        }
+        return saved;
+    }
+
+    private int write(long ownerId, List<ItemImportRow> chunk, Consumer<ItemImportResultDto> results) {
+        List<ItemImportResultDto> outcomes;
+        try {
+            outcomes = transaction.execute(status -> save(ownerId, chunk));
+            entityManager.clear();
+        } catch (DataAccessException | TransactionException e) {
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.warn("itemImporter: chunk of rows {}..{} was not saved: {}",
+                    chunk.get(0).getIndex(), chunk.get(chunk.size() - 1).getIndex(), cause);
+            outcomes = chunk.stream()
+                    .map(row -> failed(row.getIndex(), row.getError() == null ? "not saved: " + cause : row.getError()))
+                    .collect(Collectors.toList());
+        }
+        Objects.requireNonNull(outcomes).forEach(results);
+        return (int) outcomes.stream().filter(outcome -> outcome.getError() == null).count();
+    }
+
+    private List<ItemImportResultDto> save(long ownerId, List<ItemImportRow> chunk) {
+        User owner = userRepository.getReferenceById(ownerId);
+        Set<Long> requestIds = chunk.stream()
+                .map(ItemImportRow::getItem)
+                .filter(item -> item != null && item.getRequestId() != null)
+                .map(ItemDto::getRequestId)
+                .collect(Collectors.toSet());
+        Map<Long, ItemRequest> requests = itemRequestRepository.findAllById(requestIds).stream()
+                .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+
+        ItemImportResultDto[] outcomes = new ItemImportResultDto[chunk.size()];
+        List<Item> items = new ArrayList<>(chunk.size());
+        List<Integer> positions = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            ItemImportRow row = chunk.get(i);
+            String error = row.getError() == null ? validate(row.getItem(), requests) : row.getError();
+            if (error != null) {
+                outcomes[i] = failed(row.getIndex(), error);
+                continue;
+            }
+            ItemDto dto = row.getItem();
+            items.add(new Item(0, dto.getName(), dto.getDescription(), dto.getAvailable(), owner,
+                    dto.getRequestId() == null ? null : requests.get(dto.getRequestId())));
+            positions.add(i);
+        }
+
+        List<Item> savedItems = itemRepository.saveAllAndFlush(items);
+        for (int j = 0; j < savedItems.size(); j++) {
+            Item item = savedItems.get(j);
+            eventPublisher.publishEvent(ItemSavedEvent.of(item));
+            int position = positions.get(j);
+            outcomes[position] = ItemImportResultDto.builder()
+                    .index(chunk.get(position).getIndex())
+                    .item(itemMapper.toItemDto(item))
+                    .build();
+        }
+        return Arrays.asList(outcomes);
+    }
+
+    private String validate(ItemDto item, Map<Long, ItemRequest> requests) {
+        Set<ConstraintViolation<ItemDto>> violations = validator.validate(item);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (item.getRequestId() != null && !requests.containsKey(item.getRequestId())) {
+            return String.format("requestId: item request with id=%d not found", item.getRequestId());
+        }
+        return null;
+    }
+
+    private static ItemImportResultDto failed(int index, String error) {
+        return ItemImportResultDto.builder()
+                .index(index)
+                .error(error)
+                .build();
+    }
+}
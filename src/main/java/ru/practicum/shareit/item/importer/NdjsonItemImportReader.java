@@ -0,0 +1,66 @@
+package ru.practicum.shareit.item.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * One JSON item per line, blank lines are skipped.
+ */
+class NdjsonItemImportReader implements ItemImportReader {
+    private final BufferedReader reader;
+    private final ObjectReader itemReader;
+    private final StringBuilder line = new StringBuilder();
+    private boolean tooLong;
+    private int index;
+
+    NdjsonItemImportReader(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.itemReader = objectMapper.readerFor(ItemDto.class);
+    }
+
+    @Override
+    public ItemImportRow next() throws IOException {
+        do {
+            if (!readLine()) {
+                return null;
+            }
+        } while (!tooLong && line.toString().isBlank());
+        int rowIndex = index++;
+        if (tooLong) {
+            return ItemImportRow.failed(rowIndex, String.format("row is longer than %d characters", MAX_ROW_LENGTH));
+        }
+        try {
+            ItemDto item = itemReader.readValue(line.toString());
+            return item == null ? ItemImportRow.failed(rowIndex, "item must not be null") : ItemImportRow.of(rowIndex, item);
+        } catch (JsonProcessingException e) {
+            return ItemImportRow.failed(rowIndex, "malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean readLine() throws IOException {
+        line.setLength(0);
+        tooLong = false;
+        int c = reader.read();
+        if (c == -1) {
+            return false;
+        }
+        for (; c != -1 && c != '\n'; c = reader.read()) {
+            if (line.length() < MAX_ROW_LENGTH) {
+                line.append((char) c);
+            } else {
+                tooLong = true;
+            }
+        }
+        return true;
+    }
+}
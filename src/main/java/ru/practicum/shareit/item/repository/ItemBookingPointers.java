@@ -0,0 +1,199 @@
+package ru.practicum.shareit.item.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingForItemDto;
+import ru.practicum.shareit.booking.event.BookingSavedEvent;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.api.BookingRepository;
+import ru.practicum.shareit.item.cache.OwnerBookings;
+import ru.practicum.shareit.item.dto.mapper.ItemMapper;
+import ru.practicum.shareit.item.repository.api.ItemBookingsRow;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static java.time.LocalDateTime.now;
+
+/**
+ * Keeps items.last_booking_id and items.next_booking_id pointing at the approved bookings around now. Pointers
+ * are recomputed in the transaction that changes the status of a booking and rolled forward by a scheduler once
+ * the next booking starts. Until then a pointer whose next booking has started is stale, and readers recompute it
+ * from the bookings table.
+ * <p>
+ * The scheduler and the startup backfill run on every node, one page per transaction. On PostgreSQL a page is
+ * refreshed under a transaction-level advisory lock, and a node that does not get it leaves the run to the node
+ * holding it.
+ */
+@Slf4j
+@Component
+public class ItemBookingPointers {
+    private static final int PAGE_SIZE = 500;
+    private static final String APPROVED = Status.APPROVED.toString();
+    // unique among the advisory lock keys of the application
+    private static final long JOBS_LOCK_KEY = 0x5348_4152_4549_5401L;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transaction;
+    private final DataSource dataSource;
+    private boolean advisoryLocks;
+
+    public ItemBookingPointers(ItemRepository itemRepository,
+                               BookingRepository bookingRepository,
+                               PlatformTransactionManager transactionManager,
+                               DataSource dataSource) {
+        this.itemRepository = itemRepository;
+        this.bookingRepository = bookingRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.dataSource = dataSource;
+    }
+
+    @PostConstruct
+    void detectDatabase() {
+        try (Connection connection = dataSource.getConnection()) {
+            advisoryLocks = "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            throw new IllegalStateException("itemBookingPointers: can not read database metadata", e);
+        }
+    }
+
+    /**
+     * Approving a booking may move the pointers to it; any other status change matters only to the item whose
+     * pointers reference the booking.
+     */
+    @EventListener
+    public void onBookingSaved(BookingSavedEvent event) {
+        if (event.getStatus() == Status.APPROVED
+                || itemRepository.existsBookingPointer(event.getItemId(), event.getBookingId())) {
+            refresh(List.of(event.getItemId()), now());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${shareit.booking-pointers.roll-interval:PT1M}",
+            fixedDelayString = "${shareit.booking-pointers.roll-interval:PT1M}")
+    public void rollForward() {
+        LocalDateTime now = now();
+        int rolled = 0;
+        List<Long> itemIds;
+        do {
+            itemIds = transaction.execute(status ->
+                    refreshPage(() -> itemRepository.findIdsWithStartedNextBooking(now, PAGE_SIZE), now));
+            rolled += itemIds.size();
+        } while (itemIds.size() == PAGE_SIZE);
+        if (rolled > 0) {
+            log.info("itemBookingPointers: rolled forward {} items", rolled);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int filled = 0;
+        long afterId = 0;
+        List<Long> itemIds;
+        do {
+            long pageAfterId = afterId;
+            itemIds = transaction.execute(status -> refreshPage(
+                    () -> itemRepository.findIdsWithoutBookingPointers(pageAfterId, APPROVED, PAGE_SIZE), now()));
+            filled += itemIds.size();
+            afterId = itemIds.isEmpty() ? afterId : itemIds.get(itemIds.size() - 1);
+        } while (itemIds.size() == PAGE_SIZE);
+        log.info("itemBookingPointers: filled pointers of {} items", filled);
+    }
+
+    /**
+     * Last and next approved bookings of every existing item, read through the pointers.
+     */
+    public Map<Long, OwnerBookings> read(List<Long> itemIds, LocalDateTime now) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, OwnerBookings> bookings = new HashMap<>();
+        List<Long> staleIds = new ArrayList<>();
+        for (ItemBookingsRow row : itemRepository.findBookingPointers(itemIds)) {
+            if (isStale(row.getNextBookingStart(), now)) {
+                staleIds.add(row.getItemId());
+            } else {
+                bookings.put(row.getItemId(), new OwnerBookings(
+                        toBooking(row.getLastBookingId(), row.getLastBookingStart(), row.getLastBookingEnd(),
+                                row.getLastBookingBookerId()),
+                        toBooking(row.getNextBookingId(), row.getNextBookingStart(), row.getNextBookingEnd(),
+                                row.getNextBookingBookerId())));
+            }
+        }
+        bookings.putAll(compute(staleIds, now));
+        return bookings;
+    }
+
+    /**
+     * Last and next approved bookings of the items from the bookings table, bypassing the pointers.
+     */
+    public Map<Long, OwnerBookings> compute(List<Long> itemIds, LocalDateTime now) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Booking> last = bookingRepository.findLastBookingsForItems(itemIds, APPROVED, now).stream()
+                .collect(Collectors.toMap(booking -> booking.getItem().getId(), Function.identity()));
+        Map<Long, Booking> next = bookingRepository.findNextBookingsForItems(itemIds, APPROVED, now).stream()
+                .collect(Collectors.toMap(booking -> booking.getItem().getId(), Function.identity()));
+        Map<Long, OwnerBookings> bookings = new HashMap<>();
+        for (Long itemId : itemIds) {
+            bookings.put(itemId, new OwnerBookings(toBooking(last.get(itemId)), toBooking(next.get(itemId))));
+        }
+        return bookings;
+    }
+
+    /**
+     * A pointer stays valid until its next booking starts.
+     */
+    public static boolean isStale(LocalDateTime nextBookingStart, LocalDateTime now) {
+        return nextBookingStart != null && nextBookingStart.isBefore(now);
+    }
+
+    /**
+     * Refreshes the page of items found, nothing when another node holds the jobs lock.
+     */
+    private List<Long> refreshPage(Supplier<List<Number>> findIds, LocalDateTime now) {
+        if (advisoryLocks && !itemRepository.tryAdvisoryTransactionLock(JOBS_LOCK_KEY)) {
+            log.debug("itemBookingPointers: pointers are refreshed by another node");
+            return Collections.emptyList();
+        }
+        List<Long> itemIds = toLongs(findIds.get());
+        refresh(itemIds, now);
+        return itemIds;
+    }
+
+    private void refresh(List<Long> itemIds, LocalDateTime now) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        // row locks order pointer updates after concurrent approvals of the same items
+        itemRepository.findAllByIdInForUpdate(itemIds);
+        itemRepository.updateBookingPointers(itemIds, APPROVED, now);
+    }
+
+    private static BookingForItemDto toBooking(Booking booking) {
+        return booking == null ? null : ItemMapper.toBookingForItemDto(booking);
+    }
+
+    private static BookingForItemDto toBooking(Long id, LocalDateTime start, LocalDateTime end, Long bookerId) {
+        return id == null ? null : new BookingForItemDto(id, start, end, bookerId, Status.APPROVED);
+    }
+
+    private static List<Long> toLongs(List<Number> ids) {
+        return ids.stream().map(Number::longValue).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,133 @@
+package ru.practicum.shareit.item.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingForItemDto;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.comment.dto.CommentOutputDto;
+import ru.practicum.shareit.item.dto.ItemWithCommentsOutputDto;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+import ru.practicum.shareit.item.repository.api.OwnerItemRow;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Reads a page of owner items with last/next bookings and comments in one SQL statement. PostgreSQL uses
+ * lateral joins and aggregates comments with json_agg; other databases get a portable query with one row
+ * per comment. Bookings come through the item booking pointers; items with stale pointers are recomputed.
+ */
+@Slf4j
+@Component
+public class OwnerItemsReader {
+    private static final TypeReference<List<CommentOutputDto>> COMMENTS = new TypeReference<>() {
+    };
+    private final ItemRepository itemRepository;
+    private final ItemBookingPointers itemBookingPointers;
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private boolean aggregateSupported;
+
+    public OwnerItemsReader(ItemRepository itemRepository,
+                            ItemBookingPointers itemBookingPointers,
+                            DataSource dataSource,
+                            ObjectMapper objectMapper,
+                            @Value("${shareit.owner-items.single-query:true}") boolean enabled) {
+        this.itemRepository = itemRepository;
+        this.itemBookingPointers = itemBookingPointers;
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    void detectDatabase() {
+        try (Connection connection = dataSource.getConnection()) {
+            aggregateSupported = "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            throw new IllegalStateException("ownerItemsReader: can not read database metadata", e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Items of the owner with id greater than afterId, skipping offset of them. Empty when the owner does not exist.
+     */
+    public Optional<List<ItemWithCommentsOutputDto>> read(long ownerId,
+                                                          long afterId,
+                                                          long offset,
+                                                          int limit,
+                                                          LocalDateTime now) {
+        List<OwnerItemRow> rows = aggregateSupported
+                ? itemRepository.findOwnerItemRowsAggregated(ownerId, afterId, limit, offset)
+                : itemRepository.findOwnerItemRows(ownerId, afterId, limit, offset);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<Long, ItemWithCommentsOutputDto> items = new LinkedHashMap<>();
+        List<Long> staleIds = new ArrayList<>();
+        for (OwnerItemRow row : rows) {
+            if (row.getId() == null) {
+                continue;
+            }
+            ItemWithCommentsOutputDto item = items.computeIfAbsent(row.getId(), id -> {
+                if (ItemBookingPointers.isStale(row.getNextBookingStart(), now)) {
+                    staleIds.add(id);
+                }
+                return toItem(row);
+            });
+            if (row.getCommentId() != null) {
+                item.getComments().add(new CommentOutputDto(
+                        row.getCommentId(),
+                        row.getCommentText(),
+                        row.getCommentCreated(),
+                        row.getCommentAuthorName()));
+            }
+        }
+        itemBookingPointers.compute(staleIds, now).forEach((id, bookings) -> {
+            items.get(id).setLastBooking(bookings.getLastBooking());
+            items.get(id).setNextBooking(bookings.getNextBooking());
+        });
+        return Optional.of(new ArrayList<>(items.values()));
+    }
+
+    private ItemWithCommentsOutputDto toItem(OwnerItemRow row) {
+        return new ItemWithCommentsOutputDto(
+                row.getId(),
+                row.getName(),
+                row.getDescription(),
+                row.getAvailable(),
+                toBooking(row.getLastBookingId(), row.getLastBookingStart(), row.getLastBookingEnd(),
+                        row.getLastBookingBookerId()),
+                toBooking(row.getNextBookingId(), row.getNextBookingStart(), row.getNextBookingEnd(),
+                        row.getNextBookingBookerId()),
+                parseComments(row.getCommentsJson()));
+    }
+
+    private static BookingForItemDto toBooking(Long id, LocalDateTime start, LocalDateTime end, Long bookerId) {
+        return id == null ? null : new BookingForItemDto(id, start, end, bookerId, Status.APPROVED);
+    }
+
+    private List<CommentOutputDto> parseComments(String json) {
+        if (json == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return objectMapper.readValue(json, COMMENTS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("ownerItemsReader: can not parse aggregated comments", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.item.repository.api;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bookings an item's last_booking_id and next_booking_id point at. Booking columns are null when the pointer is.
+ */
+public interface ItemBookingsRow {
+    Long getItemId();
+
+    Long getLastBookingId();
+
+    LocalDateTime getLastBookingStart();
+
+    LocalDateTime getLastBookingEnd();
+
+    Long getLastBookingBookerId();
+
+    Long getNextBookingId();
+
+    LocalDateTime getNextBookingStart();
+
+    LocalDateTime getNextBookingEnd();
+
+    Long getNextBookingBookerId();
+}
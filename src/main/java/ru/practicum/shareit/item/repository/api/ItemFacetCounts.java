@@ -0,0 +1,12 @@
+package ru.practicum.shareit.item.repository.api;
+
+/**
+ * Item counts of a search match set, available or not, counted by the database.
+ */
+public interface ItemFacetCounts {
+    long getTotal();
+
+    long getAvailable();
+
+    long getAnswersRequest();
+}
@@ -2,21 +2,230 @@ package ru.practicum.shareit.item.repository.api;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Item i WHERE i.id = :id")
+    Optional<Item> findByIdForUpdate(@Param("id") long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Item i WHERE i.id IN :ids ORDER BY i.id")
+    List<Item> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
     List<Item> findAllByOwner(User owner, Pageable pageable);
 
-    List<Item> findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableIs(String text1,
-                                                                                                String text2,
-                                                                                                boolean isAvailable,
-                                                                                                Pageable pageable);
+    List<Item> findAllByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    List<Item> findAllByOwnerAndIdGreaterThanOrderByIdAsc(User owner, long id, Pageable pageable);
+
+    @Query("SELECT i FROM Item i " +
+            "WHERE i.available = TRUE " +
+            "AND (UPPER(i.name) LIKE UPPER(CONCAT('%', :text, '%')) " +
+            "OR UPPER(i.description) LIKE UPPER(CONCAT('%', :text, '%'))) " +
+            "AND i.id > :id " +
+            "ORDER BY i.id ASC")
+    List<Item> seekAvailableByText(@Param("text") String text, @Param("id") long id, Pageable pageable);
+
+    @Query("SELECT i FROM Item i " +
+            "WHERE i.available = TRUE " +
+            "AND (UPPER(i.name) LIKE UPPER(CONCAT('%', :text, '%')) " +
+            "OR UPPER(i.description) LIKE UPPER(CONCAT('%', :text, '%'))) " +
+            "AND i.id > :id " +
+            "AND NOT EXISTS (SELECT b.id FROM Booking b " +
+            "WHERE b.item = i AND b.status = :status AND b.start < :end AND b.end > :start) " +
+            "ORDER BY i.id ASC")
+    List<Item> seekAvailableByTextAndNotBooked(@Param("text") String text,
+                                               @Param("status") Status status,
+                                               @Param("start") LocalDateTime start,
+                                               @Param("end") LocalDateTime end,
+                                               @Param("id") long id,
+                                               Pageable pageable);
+
+    @Query("SELECT COUNT(i) AS total, " +
+            "COALESCE(SUM(CASE WHEN i.available = TRUE THEN 1 ELSE 0 END), 0) AS available, " +
+            "COUNT(i.request.id) AS answersRequest " +
+            "FROM Item i " +
+            "WHERE UPPER(i.name) LIKE UPPER(CONCAT('%', :text, '%')) " +
+            "OR UPPER(i.description) LIKE UPPER(CONCAT('%', :text, '%'))")
+    ItemFacetCounts countFacetsByText(@Param("text") String text);
+
+    @Query("SELECT i.owner.id AS ownerId, COUNT(i) AS itemCount " +
+            "FROM Item i " +
+            "WHERE UPPER(i.name) LIKE UPPER(CONCAT('%', :text, '%')) " +
+            "OR UPPER(i.description) LIKE UPPER(CONCAT('%', :text, '%')) " +
+            "GROUP BY i.owner.id " +
+            "ORDER BY COUNT(i) DESC, i.owner.id ASC")
+    List<OwnerFacetRow> countOwnerFacetsByText(@Param("text") String text, Pageable pageable);
+
+    @Query(value = "SELECT COUNT(*) AS \"total\", COUNT(*) FILTER (WHERE i.available) AS \"available\", " +
+            "COUNT(i.request_id) AS \"answersRequest\" " +
+            "FROM items i " +
+            "WHERE i.search_vector @@ websearch_to_tsquery('russian', :text)", nativeQuery = true)
+    ItemFacetCounts countFacetsByTsQuery(@Param("text") String text);
+
+    @Query(value = "SELECT i.owner_id AS \"ownerId\", COUNT(*) AS \"itemCount\" " +
+            "FROM items i " +
+            "WHERE i.search_vector @@ websearch_to_tsquery('russian', :text) " +
+            "GROUP BY i.owner_id " +
+            "ORDER BY COUNT(*) DESC, i.owner_id ASC LIMIT :limit", nativeQuery = true)
+    List<OwnerFacetRow> countOwnerFacetsByTsQuery(@Param("text") String text, @Param("limit") int limit);
+
+    @Query(value = "SELECT i.* FROM items i, websearch_to_tsquery('russian', :text) q " +
+            "WHERE i.available = TRUE AND i.search_vector @@ q " +
+            "ORDER BY ts_rank(i.search_vector, q) DESC, i.id ASC", nativeQuery = true)
+    List<Item> findAvailableByTsQueryRanked(@Param("text") String text, Pageable pageable);
+
+    @Query(value = "SELECT i.* FROM items i " +
+            "WHERE i.available = TRUE AND i.search_vector @@ websearch_to_tsquery('russian', :text) " +
+            "AND i.id > :id " +
+            "ORDER BY i.id ASC", nativeQuery = true)
+    List<Item> seekAvailableByTsQuery(@Param("text") String text, @Param("id") long id, Pageable pageable);
+
+    @Query(value = "SELECT i.* FROM items i " +
+            "WHERE i.available = TRUE AND i.search_vector @@ websearch_to_tsquery('russian', :text) " +
+            "AND i.id > :id " +
+            "AND NOT EXISTS (SELECT b.id FROM bookings b " +
+            "WHERE b.item_id = i.id AND b.status = :status AND b.start_date < :end AND b.end_date > :start) " +
+            "ORDER BY i.id ASC", nativeQuery = true)
+    List<Item> seekAvailableByTsQueryAndNotBooked(@Param("text") String text,
+                                                  @Param("status") String status,
+                                                  @Param("start") LocalDateTime start,
+                                                  @Param("end") LocalDateTime end,
+                                                  @Param("id") long id,
+                                                  Pageable pageable);
+
+    @Query(value = "SELECT i.* FROM items i " +
+            "WHERE i.available = TRUE AND (:text <% i.name OR :text <% i.description) " +
+            "ORDER BY greatest(word_similarity(:text, i.name), word_similarity(:text, i.description)) DESC, " +
+            "i.id ASC", nativeQuery = true)
+    List<Item> findAvailableBySimilarWords(@Param("text") String text, Pageable pageable);
+
+    @Query(value = "SELECT COUNT(*) AS \"total\", COUNT(*) FILTER (WHERE i.available) AS \"available\", " +
+            "COUNT(i.request_id) AS \"answersRequest\" " +
+            "FROM items i " +
+            "WHERE :text <% i.name OR :text <% i.description", nativeQuery = true)
+    ItemFacetCounts countFacetsBySimilarWords(@Param("text") String text);
+
+    @Query(value = "SELECT i.owner_id AS \"ownerId\", COUNT(*) AS \"itemCount\" " +
+            "FROM items i " +
+            "WHERE :text <% i.name OR :text <% i.description " +
+            "GROUP BY i.owner_id " +
+            "ORDER BY COUNT(*) DESC, i.owner_id ASC LIMIT :limit", nativeQuery = true)
+    List<OwnerFacetRow> countOwnerFacetsBySimilarWords(@Param("text") String text, @Param("limit") int limit);
+
+    @Query(value = "SELECT u.id AS \"ownerId\", i.id AS \"id\", i.name AS \"name\", " +
+            "i.description AS \"description\", i.available AS \"available\", " +
+            "lb.id AS \"lastBookingId\", lb.start_date AS \"lastBookingStart\", " +
+            "lb.end_date AS \"lastBookingEnd\", lb.booker_id AS \"lastBookingBookerId\", " +
+            "nb.id AS \"nextBookingId\", nb.start_date AS \"nextBookingStart\", " +
+            "nb.end_date AS \"nextBookingEnd\", nb.booker_id AS \"nextBookingBookerId\", " +
+            "c.id AS \"commentId\", c.text AS \"commentText\", c.created AS \"commentCreated\", " +
+            "a.name AS \"commentAuthorName\", CAST(NULL AS VARCHAR) AS \"commentsJson\" " +
+            "FROM users u " +
+            "LEFT JOIN (SELECT * FROM items WHERE owner_id = :ownerId AND id > :afterId " +
+            "ORDER BY id LIMIT :limit OFFSET :offset) i ON i.owner_id = u.id " +
+            "LEFT JOIN bookings lb ON lb.id = i.last_booking_id " +
+            "LEFT JOIN bookings nb ON nb.id = i.next_booking_id " +
+            "LEFT JOIN comments c ON c.item_id = i.id " +
+            "LEFT JOIN users a ON a.id = c.author_id " +
+            "WHERE u.id = :ownerId " +
+            "ORDER BY i.id, c.id", nativeQuery = true)
+    List<OwnerItemRow> findOwnerItemRows(@Param("ownerId") long ownerId,
+                                         @Param("afterId") long afterId,
+                                         @Param("limit") int limit,
+                                         @Param("offset") long offset);
+
+    @Query(value = "SELECT u.id AS \"ownerId\", i.id AS \"id\", i.name AS \"name\", " +
+            "i.description AS \"description\", i.available AS \"available\", " +
+            "lb.id AS \"lastBookingId\", lb.start_date AS \"lastBookingStart\", " +
+            "lb.end_date AS \"lastBookingEnd\", lb.booker_id AS \"lastBookingBookerId\", " +
+            "nb.id AS \"nextBookingId\", nb.start_date AS \"nextBookingStart\", " +
+            "nb.end_date AS \"nextBookingEnd\", nb.booker_id AS \"nextBookingBookerId\", " +
+            "CAST(NULL AS BIGINT) AS \"commentId\", CAST(NULL AS VARCHAR) AS \"commentText\", " +
+            "CAST(NULL AS TIMESTAMP) AS \"commentCreated\", CAST(NULL AS VARCHAR) AS \"commentAuthorName\", " +
+            "CAST(cm.comments AS TEXT) AS \"commentsJson\" " +
+            "FROM users u " +
+            "LEFT JOIN LATERAL (SELECT * FROM items WHERE owner_id = u.id AND id > :afterId " +
+            "ORDER BY id LIMIT :limit OFFSET :offset) i ON TRUE " +
+            "LEFT JOIN bookings lb ON lb.id = i.last_booking_id " +
+            "LEFT JOIN bookings nb ON nb.id = i.next_booking_id " +
+            "LEFT JOIN LATERAL (SELECT json_agg(json_build_object('id', c.id, 'text', c.text, " +
+            "'created', c.created, 'authorName', a.name) ORDER BY c.id) AS comments " +
+            "FROM comments c JOIN users a ON a.id = c.author_id WHERE c.item_id = i.id) cm ON TRUE " +
+            "WHERE u.id = :ownerId " +
+            "ORDER BY i.id", nativeQuery = true)
+    List<OwnerItemRow> findOwnerItemRowsAggregated(@Param("ownerId") long ownerId,
+                                                   @Param("afterId") long afterId,
+                                                   @Param("limit") int limit,
+                                                   @Param("offset") long offset);
+
+    /**
+     * Points last_booking_id and next_booking_id of the items at their approved bookings around the date.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE items SET " +
+            "last_booking_id = (SELECT b.id FROM bookings b " +
+            "WHERE b.item_id = items.id AND b.status = :status AND b.start_date < :date " +
+            "ORDER BY b.start_date DESC, b.id DESC LIMIT 1), " +
+            "next_booking_id = (SELECT b.id FROM bookings b " +
+            "WHERE b.item_id = items.id AND b.status = :status AND b.start_date >= :date " +
+            "ORDER BY b.start_date ASC, b.id ASC LIMIT 1), " +
+            "next_booking_start = (SELECT MIN(b.start_date) FROM bookings b " +
+            "WHERE b.item_id = items.id AND b.status = :status AND b.start_date >= :date) " +
+            "WHERE id IN :ids", nativeQuery = true)
+    int updateBookingPointers(@Param("ids") Collection<Long> ids,
+                              @Param("status") String status,
+                              @Param("date") LocalDateTime date);
+
+    @Query(value = "SELECT i.id AS \"itemId\", " +
+            "lb.id AS \"lastBookingId\", lb.start_date AS \"lastBookingStart\", " +
+            "lb.end_date AS \"lastBookingEnd\", lb.booker_id AS \"lastBookingBookerId\", " +
+            "nb.id AS \"nextBookingId\", nb.start_date AS \"nextBookingStart\", " +
+            "nb.end_date AS \"nextBookingEnd\", nb.booker_id AS \"nextBookingBookerId\" " +
+            "FROM items i " +
+            "LEFT JOIN bookings lb ON lb.id = i.last_booking_id " +
+            "LEFT JOIN bookings nb ON nb.id = i.next_booking_id " +
+            "WHERE i.id IN :ids", nativeQuery = true)
+    List<ItemBookingsRow> findBookingPointers(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "SELECT i.id FROM items i WHERE i.next_booking_start < :date LIMIT :limit", nativeQuery = true)
+    List<Number> findIdsWithStartedNextBooking(@Param("date") LocalDateTime date, @Param("limit") int limit);
+
+    @Query(value = "SELECT i.id FROM items i " +
+            "WHERE i.id > :afterId AND i.last_booking_id IS NULL AND i.next_booking_id IS NULL " +
+            "AND EXISTS (SELECT b.id FROM bookings b WHERE b.item_id = i.id AND b.status = :status) " +
+            "ORDER BY i.id LIMIT :limit", nativeQuery = true)
+    List<Number> findIdsWithoutBookingPointers(@Param("afterId") long afterId,
+                                               @Param("status") String status,
+                                               @Param("limit") int limit);
+
+    @Query(value = "SELECT COUNT(*) > 0 FROM items i " +
+            "WHERE i.id = :itemId AND (i.last_booking_id = :bookingId OR i.next_booking_id = :bookingId)",
+            nativeQuery = true)
+    boolean existsBookingPointer(@Param("itemId") long itemId, @Param("bookingId") long bookingId);
+
+    /**
+     * PostgreSQL only: the advisory lock is held until the current transaction ends.
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryAdvisoryTransactionLock(@Param("key") long key);
 
-    Optional<List<Item>> findAllByRequest_Id(long requestId);
+    @Query("SELECT i FROM Item i WHERE i.request.id = :requestId")
+    Optional<List<Item>> findAllByRequest_Id(@Param("requestId") long requestId);
 
-    Optional<List<Item>> findAllByRequest_IdIn(List<Long> requestsIds);
+    @Query("SELECT i FROM Item i WHERE i.request.id IN :requestsIds")
+    Optional<List<Item>> findAllByRequest_IdIn(@Param("requestsIds") List<Long> requestsIds);
 }
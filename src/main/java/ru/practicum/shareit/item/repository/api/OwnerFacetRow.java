@@ -0,0 +1,10 @@
+package ru.practicum.shareit.item.repository.api;
+
+/**
+ * Number of items of one owner in a search match set.
+ */
+public interface OwnerFacetRow {
+    long getOwnerId();
+
+    long getItemCount();
+}
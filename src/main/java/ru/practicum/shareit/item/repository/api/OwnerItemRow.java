@@ -0,0 +1,46 @@
+package ru.practicum.shareit.item.repository.api;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of the single-statement owner listing. The portable query repeats the item columns for every
+ * comment; the PostgreSQL query returns one row per item with its comments as a JSON array.
+ * Item columns are null when the owner has no items on the page.
+ */
+public interface OwnerItemRow {
+    Long getOwnerId();
+
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    Boolean getAvailable();
+
+    Long getLastBookingId();
+
+    LocalDateTime getLastBookingStart();
+
+    LocalDateTime getLastBookingEnd();
+
+    Long getLastBookingBookerId();
+
+    Long getNextBookingId();
+
+    LocalDateTime getNextBookingStart();
+
+    LocalDateTime getNextBookingEnd();
+
+    Long getNextBookingBookerId();
+
+    Long getCommentId();
+
+    String getCommentText();
+
+    LocalDateTime getCommentCreated();
+
+    String getCommentAuthorName();
+
+    String getCommentsJson();
+}
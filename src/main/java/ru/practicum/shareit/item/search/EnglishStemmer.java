@@ -0,0 +1,130 @@
+package ru.practicum.shareit.item.search;
+
+/**
+ * Step 1 of the Porter stemmer for English: plurals and -ed/-ing endings. Expects a lower-case word.
+ */
+final class EnglishStemmer {
+
+    private EnglishStemmer() {
+    }
+
+    static String stem(String word) {
+        if (word.length() <= 2) {
+            return word;
+        }
+        StringBuilder sb = new StringBuilder(word);
+        step1a(sb);
+        step1b(sb);
+        step1c(sb);
+        return sb.toString();
+    }
+
+    private static void step1a(StringBuilder sb) {
+        if (endsWith(sb, "sses") || endsWith(sb, "ies")) {
+            sb.setLength(sb.length() - 2);
+        } else if (!endsWith(sb, "ss") && endsWith(sb, "s")) {
+            sb.setLength(sb.length() - 1);
+        }
+    }
+
+    private static void step1b(StringBuilder sb) {
+        if (endsWith(sb, "eed")) {
+            if (measure(sb, sb.length() - 3) > 0) {
+                sb.setLength(sb.length() - 1);
+            }
+            return;
+        }
+        int stemLength;
+        if (endsWith(sb, "ed")) {
+            stemLength = sb.length() - 2;
+        } else if (endsWith(sb, "ing")) {
+            stemLength = sb.length() - 3;
+        } else {
+            return;
+        }
+        if (!containsVowel(sb, stemLength)) {
+            return;
+        }
+        sb.setLength(stemLength);
+        if (endsWith(sb, "at") || endsWith(sb, "bl") || endsWith(sb, "iz")) {
+            sb.append('e');
+        } else if (endsWithDoubleConsonant(sb)) {
+            char last = sb.charAt(sb.length() - 1);
+            if (last != 'l' && last != 's' && last != 'z') {
+                sb.setLength(sb.length() - 1);
+            }
+        } else if (measure(sb, sb.length()) == 1 && endsWithCvc(sb)) {
+            sb.append('e');
+        }
+    }
+
+    private static void step1c(StringBuilder sb) {
+        if (endsWith(sb, "y") && containsVowel(sb, sb.length() - 1)) {
+            sb.setCharAt(sb.length() - 1, 'i');
+        }
+    }
+
+    private static boolean isConsonant(StringBuilder sb, int i) {
+        switch (sb.charAt(i)) {
+            case 'a':
+            case 'e':
+            case 'i':
+            case 'o':
+            case 'u':
+                return false;
+            case 'y':
+                return i == 0 || !isConsonant(sb, i - 1);
+            default:
+                return true;
+        }
+    }
+
+    private static int measure(StringBuilder sb, int length) {
+        int m = 0;
+        int i = 0;
+        while (i < length && isConsonant(sb, i)) {
+            i++;
+        }
+        while (i < length) {
+            while (i < length && !isConsonant(sb, i)) {
+                i++;
+            }
+            if (i >= length) {
+                break;
+            }
+            while (i < length && isConsonant(sb, i)) {
+                i++;
+            }
+            m++;
+        }
+        return m;
+    }
+
+    private static boolean containsVowel(StringBuilder sb, int length) {
+        for (int i = 0; i < length; i++) {
+            if (!isConsonant(sb, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean endsWithDoubleConsonant(StringBuilder sb) {
+        int last = sb.length() - 1;
+        return last >= 1 && sb.charAt(last) == sb.charAt(last - 1) && isConsonant(sb, last);
+    }
+
+    private static boolean endsWithCvc(StringBuilder sb) {
+        int last = sb.length() - 1;
+        if (last < 2 || !isConsonant(sb, last) || isConsonant(sb, last - 1) || !isConsonant(sb, last - 2)) {
+            return false;
+        }
+        char c = sb.charAt(last);
+        return c != 'w' && c != 'x' && c != 'y';
+    }
+
+    private static boolean endsWith(StringBuilder sb, String suffix) {
+        int start = sb.length() - suffix.length();
+        return start >= 0 && sb.indexOf(suffix, start) == start;
+    }
+}
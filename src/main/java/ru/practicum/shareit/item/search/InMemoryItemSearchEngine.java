@@ -0,0 +1,350 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+import ru.practicum.shareit.item.search.api.ItemSearchEngine;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Inverted index over item names and descriptions. Every query term matches the indexed terms it is
+ * a prefix of, and all query terms must match. Relevance is BM25F with name matches weighted above
+ * description matches. Fuzzy search matches indexed terms by trigram similarity and sums the best
+ * similarity of every query term. Searches with a date window drop matches the booking interval index has an
+ * approved booking for.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "memory", matchIfMissing = true)
+public class InMemoryItemSearchEngine implements ItemSearchEngine {
+    static final int REBUILD_PAGE_SIZE = 500;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private static final double FUZZY_THRESHOLD = 0.2;
+    private final ItemRepository itemRepository;
+    private final ItemFacetIndex itemFacetIndex;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final TransactionTemplate readPage;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private InvertedIndex index = new InvertedIndex();
+    /**
+     * Items saved while {@link #rebuild()} reads the table, replayed into the new index before it replaces
+     * the old one. {@code null} when no rebuild is running. Guarded by the write lock.
+     */
+    private List<IndexedItem> savedDuringRebuild;
+
+    public InMemoryItemSearchEngine(ItemRepository itemRepository,
+                                    ItemFacetIndex itemFacetIndex,
+                                    BookingIntervalIndex bookingIntervalIndex,
+                                    PlatformTransactionManager transactionManager) {
+        this.itemRepository = itemRepository;
+        this.itemFacetIndex = itemFacetIndex;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.readPage = new TransactionTemplate(transactionManager);
+        this.readPage.setReadOnly(true);
+    }
+
+    @Override
+    public boolean matchesTermPrefixes() {
+        return true;
+    }
+
+    @Override
+    public List<Item> search(String text, long afterId, Pageable pageable) {
+        return loadItems(findIds(text, afterId, pageable.getOffset(), pageable.getPageSize()));
+    }
+
+    @Override
+    public List<Item> searchNotBooked(String text,
+                                      LocalDateTime start,
+                                      LocalDateTime end,
+                                      long afterId,
+                                      Pageable pageable) {
+        return loadItems(findIdsNotBooked(text, start, end, afterId, pageable.getOffset(), pageable.getPageSize()));
+    }
+
+    @Override
+    public List<Item> searchByRelevance(String text, Pageable pageable) {
+        return loadItems(findIdsByRelevance(text, pageable.getOffset(), pageable.getPageSize()));
+    }
+
+    @Override
+    public List<Item> searchFuzzy(String text, Pageable pageable) {
+        return loadItems(findIdsFuzzy(text, pageable.getOffset(), pageable.getPageSize()));
+    }
+
+    @Override
+    public ItemFacetsDto countFacets(String text, boolean fuzzy) {
+        return itemFacetIndex.count(fuzzy ? matchIdsFuzzy(text) : matchIds(text));
+    }
+
+    long[] matchIds(String text) {
+        Set<String> terms = new LinkedHashSet<>(ItemTextAnalyzer.terms(text));
+        if (terms.isEmpty()) {
+            return new long[0];
+        }
+        lock.readLock().lock();
+        try {
+            return index.match(terms);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long[] matchIdsFuzzy(String text) {
+        Set<String> terms = new LinkedHashSet<>(ItemTextAnalyzer.terms(text));
+        lock.readLock().lock();
+        try {
+            Set<Long> ids = new HashSet<>();
+            for (String term : terms) {
+                for (String similarTerm : index.similarTerms(term, FUZZY_THRESHOLD).keySet()) {
+                    for (long id : index.postings(similarTerm)) {
+                        ids.add(id);
+                    }
+                }
+            }
+            return ids.stream().mapToLong(Long::longValue).sorted().toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs before {@link ItemSearchCache#onItemSaved}, so that a search reloaded after the eviction finds the
+     * saved item in the index.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemSaved(ItemSavedEvent event) {
+        IndexedItem indexedItem = IndexedItem.of(event);
+        lock.writeLock().lock();
+        try {
+            index.put(indexedItem);
+            if (savedDuringRebuild != null) {
+                savedDuringRebuild.add(indexedItem);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the table page by page, every page in its own read-only transaction, so that the items of a page
+     * are detached before the next one is read.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            savedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        InvertedIndex newIndex = new InvertedIndex();
+        long lastId = 0;
+        List<IndexedItem> page;
+        do {
+            long afterId = lastId;
+            page = readPage.execute(status -> itemRepository
+                    .findAllByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, REBUILD_PAGE_SIZE)).stream()
+                    .map(item -> IndexedItem.of(ItemSavedEvent.of(item)))
+                    .collect(Collectors.toList()));
+            for (IndexedItem item : page) {
+                newIndex.put(item);
+                lastId = item.getId();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        lock.writeLock().lock();
+        try {
+            savedDuringRebuild.forEach(newIndex::put);
+            savedDuringRebuild = null;
+            index = newIndex;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("itemSearchEngine: indexed {} items, {} terms", newIndex.size(), newIndex.termCount());
+    }
+
+    List<Long> findIds(String text, long afterId, long offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(ItemTextAnalyzer.terms(text));
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            long[] matches = index.match(terms);
+            int position = Arrays.binarySearch(matches, afterId);
+            position = position >= 0 ? position + 1 : -position - 1;
+            List<Long> ids = new ArrayList<>();
+            long skipped = 0;
+            for (; position < matches.length && ids.size() < limit; position++) {
+                if (!index.get(matches[position]).isAvailable()) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                    continue;
+                }
+                ids.add(matches[position]);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Matches are checked against the booking interval index after the read lock is released, the tree of an item
+     * not in the index is loaded from the database.
+     */
+    List<Long> findIdsNotBooked(String text, LocalDateTime start, LocalDateTime end, long afterId, long offset,
+                                int limit) {
+        Set<String> terms = new LinkedHashSet<>(ItemTextAnalyzer.terms(text));
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        long[] candidates;
+        lock.readLock().lock();
+        try {
+            long[] matches = index.match(terms);
+            int position = Arrays.binarySearch(matches, afterId);
+            position = position >= 0 ? position + 1 : -position - 1;
+            candidates = Arrays.stream(matches, position, matches.length)
+                    .filter(id -> index.get(id).isAvailable())
+                    .toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Long> ids = new ArrayList<>();
+        long skipped = 0;
+        for (int i = 0; i < candidates.length && ids.size() < limit; i++) {
+            if (bookingIntervalIndex.isBooked(candidates[i], start, end)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            ids.add(candidates[i]);
+        }
+        return ids;
+    }
+
+    List<Long> findIdsByRelevance(String text, long offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(ItemTextAnalyzer.terms(text));
+        if (terms.isEmpty() || offset + limit > Integer.MAX_VALUE) {
+            return Collections.emptyList();
+        }
+        int k = (int) offset + limit;
+        lock.readLock().lock();
+        try {
+            if (offset >= index.size()) {
+                return Collections.emptyList();
+            }
+            Map<String, Double> idf = new HashMap<>();
+            for (String term : terms) {
+                int documentFrequency = index.matchPrefix(term).length;
+                idf.put(term, Math.log(1 + (index.size() - documentFrequency + 0.5) / (documentFrequency + 0.5)));
+            }
+            TopK best = new TopK(k);
+            for (long id : index.match(terms)) {
+                IndexedItem item = index.get(id);
+                if (item.isAvailable()) {
+                    best.offer(id, score(item, idf));
+                }
+            }
+            return best.idsBestFirst(offset);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<Long> findIdsFuzzy(String text, long offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(ItemTextAnalyzer.terms(text));
+        if (terms.isEmpty() || offset + limit > Integer.MAX_VALUE) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            if (offset >= index.size()) {
+                return Collections.emptyList();
+            }
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, Double> termScores = new HashMap<>();
+                index.similarTerms(term, FUZZY_THRESHOLD).forEach((similarTerm, similarity) -> {
+                    for (long id : index.postings(similarTerm)) {
+                        termScores.merge(id, similarity, Math::max);
+                    }
+                });
+                termScores.forEach((id, similarity) -> scores.merge(id, similarity, Double::sum));
+            }
+            TopK best = new TopK((int) offset + limit);
+            scores.forEach((id, score) -> {
+                if (index.get(id).isAvailable()) {
+                    best.offer(id, score);
+                }
+            });
+            return best.idsBestFirst(offset);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double score(IndexedItem item, Map<String, Double> idf) {
+        double nameNorm = 1 - B + B * item.getNameTerms().size() / Math.max(index.averageNameLength(), 1);
+        double descriptionNorm = 1 - B
+                + B * item.getDescriptionTerms().size() / Math.max(index.averageDescriptionLength(), 1);
+        double score = 0;
+        for (Map.Entry<String, Double> term : idf.entrySet()) {
+            double tf = NAME_WEIGHT * countPrefixed(item.getNameTerms(), term.getKey()) / nameNorm
+                    + DESCRIPTION_WEIGHT * countPrefixed(item.getDescriptionTerms(), term.getKey()) / descriptionNorm;
+            score += term.getValue() * tf * (K1 + 1) / (tf + K1);
+        }
+        return score;
+    }
+
+    private static int countPrefixed(List<String> terms, String prefix) {
+        int count = 0;
+        for (String term : terms) {
+            if (term.startsWith(prefix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private List<Item> loadItems(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Item> items = itemRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return ids.stream()
+                .map(items::get)
+                .filter(item -> item != null && Boolean.TRUE.equals(item.getAvailable()))
+                .collect(Collectors.toList());
+    }
+}
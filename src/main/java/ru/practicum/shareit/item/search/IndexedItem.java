@@ -0,0 +1,25 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.Value;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Value
+class IndexedItem {
+    long id;
+    boolean available;
+    List<String> nameTerms;
+    List<String> descriptionTerms;
+    Set<String> terms;
+
+    static IndexedItem of(ItemSavedEvent event) {
+        List<String> nameTerms = ItemTextAnalyzer.terms(event.getName());
+        List<String> descriptionTerms = ItemTextAnalyzer.terms(event.getDescription());
+        Set<String> terms = new HashSet<>(nameTerms);
+        terms.addAll(descriptionTerms);
+        return new IndexedItem(event.getItemId(), event.isAvailable(), nameTerms, descriptionTerms, terms);
+    }
+}
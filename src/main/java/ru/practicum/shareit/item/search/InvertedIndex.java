@@ -0,0 +1,130 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.*;
+
+/**
+ * Term postings and per-item statistics of the in-memory search index. Not thread-safe.
+ */
+final class InvertedIndex {
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+    private final Map<Long, IndexedItem> items = new HashMap<>();
+    private final Map<String, Set<String>> trigramTerms = new HashMap<>();
+    private long nameLength;
+    private long descriptionLength;
+
+    void put(IndexedItem item) {
+        IndexedItem previous = items.put(item.getId(), item);
+        if (previous != null) {
+            for (String term : previous.getTerms()) {
+                PostingList postingList = postings.get(term);
+                postingList.remove(previous.getId());
+                if (postingList.isEmpty()) {
+                    postings.remove(term);
+                    for (String trigram : trigrams(term)) {
+                        Set<String> terms = trigramTerms.get(trigram);
+                        terms.remove(term);
+                        if (terms.isEmpty()) {
+                            trigramTerms.remove(trigram);
+                        }
+                    }
+                }
+            }
+            nameLength -= previous.getNameTerms().size();
+            descriptionLength -= previous.getDescriptionTerms().size();
+        }
+        for (String term : item.getTerms()) {
+            postings.computeIfAbsent(term, this::newPostingList).add(item.getId());
+        }
+        nameLength += item.getNameTerms().size();
+        descriptionLength += item.getDescriptionTerms().size();
+    }
+
+    /**
+     * Indexed terms whose trigram similarity to the given term is at least the threshold.
+     */
+    Map<String, Double> similarTerms(String term, double threshold) {
+        Set<String> queryTrigrams = trigrams(term);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            for (String candidate : trigramTerms.getOrDefault(trigram, Collections.emptySet())) {
+                shared.merge(candidate, 1, Integer::sum);
+            }
+        }
+        Map<String, Double> similar = new HashMap<>();
+        for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+            int union = queryTrigrams.size() + trigrams(candidate.getKey()).size() - candidate.getValue();
+            double similarity = (double) candidate.getValue() / union;
+            if (similarity >= threshold) {
+                similar.put(candidate.getKey(), similarity);
+            }
+        }
+        return similar;
+    }
+
+    long[] postings(String term) {
+        PostingList postingList = postings.get(term);
+        return postingList == null ? new long[0] : postingList.toArray();
+    }
+
+    IndexedItem get(long id) {
+        return items.get(id);
+    }
+
+    int size() {
+        return items.size();
+    }
+
+    int termCount() {
+        return postings.size();
+    }
+
+    double averageNameLength() {
+        return items.isEmpty() ? 0 : (double) nameLength / items.size();
+    }
+
+    double averageDescriptionLength() {
+        return items.isEmpty() ? 0 : (double) descriptionLength / items.size();
+    }
+
+    /**
+     * Ids of the items matching all terms, each term matching the indexed terms it is a prefix of.
+     */
+    long[] match(Collection<String> terms) {
+        long[] matches = null;
+        for (String term : terms) {
+            long[] termMatches = matchPrefix(term);
+            matches = matches == null ? termMatches : PostingList.intersect(matches, termMatches);
+            if (matches.length == 0) {
+                break;
+            }
+        }
+        return matches == null ? new long[0] : matches;
+    }
+
+    long[] matchPrefix(String prefix) {
+        long[] matches = new long[0];
+        for (PostingList postingList : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            matches = PostingList.union(matches, postingList.toArray());
+        }
+        return matches;
+    }
+
+    /**
+     * Trigrams of the term padded like pg_trgm: two spaces in front, one behind.
+     */
+    static Set<String> trigrams(String term) {
+        String padded = "  " + term + " ";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private PostingList newPostingList(String term) {
+        for (String trigram : trigrams(term)) {
+            trigramTerms.computeIfAbsent(trigram, key -> new HashSet<>()).add(term);
+        }
+        return new PostingList();
+    }
+}
@@ -0,0 +1,164 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.dto.OwnerFacetDto;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Facet counts of a search match set. Every item gets a dense ordinal and every facet value a bitset of
+ * ordinals, so a facet count is the cardinality of the facet bitset intersected with the match bitset.
+ * Backs the in-memory search engine; the SQL engines count facets in the database.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "memory", matchIfMissing = true)
+public class ItemFacetIndex {
+    static final int REBUILD_PAGE_SIZE = 500;
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate readPage;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Bitsets bitsets = new Bitsets();
+    /**
+     * Items saved while {@link #rebuild()} reads the table, replayed into the new bitsets before they replace
+     * the old ones. {@code null} when no rebuild is running. Guarded by the write lock.
+     */
+    private List<ItemSavedEvent> savedDuringRebuild;
+
+    public ItemFacetIndex(ItemRepository itemRepository, PlatformTransactionManager transactionManager) {
+        this.itemRepository = itemRepository;
+        this.readPage = new TransactionTemplate(transactionManager);
+        this.readPage.setReadOnly(true);
+    }
+
+    public ItemFacetsDto count(long[] matchIds) {
+        lock.readLock().lock();
+        try {
+            return bitsets.count(matchIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemSaved(ItemSavedEvent event) {
+        lock.writeLock().lock();
+        try {
+            bitsets.put(event);
+            if (savedDuringRebuild != null) {
+                savedDuringRebuild.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the table page by page, every page in its own read-only transaction. Owner and request ids are taken
+     * while the page is attached, the items are detached before the next page is read.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            savedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Bitsets newBitsets = new Bitsets();
+        long lastId = 0;
+        List<ItemSavedEvent> page;
+        do {
+            long afterId = lastId;
+            page = readPage.execute(status -> itemRepository
+                    .findAllByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, REBUILD_PAGE_SIZE)).stream()
+                    .map(ItemSavedEvent::of)
+                    .collect(Collectors.toList()));
+            for (ItemSavedEvent item : page) {
+                newBitsets.put(item);
+                lastId = item.getItemId();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        lock.writeLock().lock();
+        try {
+            savedDuringRebuild.forEach(newBitsets::put);
+            savedDuringRebuild = null;
+            bitsets = newBitsets;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("itemFacetIndex: indexed facets of {} items", newBitsets.ordinals.size());
+    }
+
+    private static final class Bitsets {
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private final Map<Integer, Long> owners = new HashMap<>();
+        private final BitSet available = new BitSet();
+        private final BitSet answersRequest = new BitSet();
+        private final Map<Long, BitSet> byOwner = new HashMap<>();
+
+        void put(ItemSavedEvent event) {
+            int ordinal = ordinals.computeIfAbsent(event.getItemId(), id -> ordinals.size());
+            available.set(ordinal, event.isAvailable());
+            answersRequest.set(ordinal, event.getRequestId() != null);
+            Long oldOwner = owners.put(ordinal, event.getOwnerId());
+            if (oldOwner != null && oldOwner != event.getOwnerId()) {
+                BitSet oldOwnerBits = byOwner.get(oldOwner);
+                oldOwnerBits.clear(ordinal);
+                if (oldOwnerBits.isEmpty()) {
+                    byOwner.remove(oldOwner);
+                }
+            }
+            byOwner.computeIfAbsent(event.getOwnerId(), id -> new BitSet()).set(ordinal);
+        }
+
+        ItemFacetsDto count(long[] matchIds) {
+            BitSet matches = new BitSet(ordinals.size());
+            for (long id : matchIds) {
+                Integer ordinal = ordinals.get(id);
+                if (ordinal != null) {
+                    matches.set(ordinal);
+                }
+            }
+            int total = matches.cardinality();
+            int availableCount = intersectionCount(matches, available);
+            int answersRequestCount = intersectionCount(matches, answersRequest);
+            List<OwnerFacetDto> ownerFacets = new ArrayList<>();
+            byOwner.forEach((ownerId, ownerBits) -> {
+                if (ownerBits.intersects(matches)) {
+                    ownerFacets.add(new OwnerFacetDto(ownerId, intersectionCount(matches, ownerBits)));
+                }
+            });
+            ownerFacets.sort(Comparator.comparingInt(OwnerFacetDto::getCount).reversed()
+                    .thenComparingLong(OwnerFacetDto::getOwnerId));
+            return ItemFacetsDto.builder()
+                    .total(total)
+                    .available(availableCount)
+                    .notAvailable(total - availableCount)
+                    .answersRequest(answersRequestCount)
+                    .notAnswersRequest(total - answersRequestCount)
+                    .owners(ownerFacets.subList(0, Math.min(ItemFacets.MAX_OWNER_FACETS, ownerFacets.size())))
+                    .build();
+        }
+
+        private static int intersectionCount(BitSet matches, BitSet facet) {
+            BitSet intersection = (BitSet) facet.clone();
+            intersection.and(matches);
+            return intersection.cardinality();
+        }
+    }
+}
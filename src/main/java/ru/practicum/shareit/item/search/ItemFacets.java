@@ -0,0 +1,35 @@
+package ru.practicum.shareit.item.search;
+
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.dto.OwnerFacetDto;
+import ru.practicum.shareit.item.repository.api.ItemFacetCounts;
+import ru.practicum.shareit.item.repository.api.OwnerFacetRow;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Facet counts the database computed for the SQL search engines, in the shape {@link ItemFacetIndex} returns.
+ */
+final class ItemFacets {
+    static final int MAX_OWNER_FACETS = 10;
+
+    private ItemFacets() {
+    }
+
+    static ItemFacetsDto of(ItemFacetCounts counts, List<OwnerFacetRow> owners) {
+        int total = (int) counts.getTotal();
+        int available = (int) counts.getAvailable();
+        int answersRequest = (int) counts.getAnswersRequest();
+        return ItemFacetsDto.builder()
+                .total(total)
+                .available(available)
+                .notAvailable(total - available)
+                .answersRequest(answersRequest)
+                .notAnswersRequest(total - answersRequest)
+                .owners(owners.stream()
+                        .map(owner -> new OwnerFacetDto(owner.getOwnerId(), (int) owner.getItemCount()))
+                        .collect(Collectors.toList()))
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.shareit.item.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.search.api.ItemSearchEngine;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded cache of offset-paged search results (W-TinyLFU eviction). A saved item evicts only the queries
+ * with a term that is a prefix of one of the item's terms and the queries whose results contain the item.
+ * Results loaded while an item was being saved are not kept. Engines that also match inside words, like LIKE and
+ * the tsvector engine falling back to it, would be missed by prefix eviction, so with them every search goes to
+ * the engine.
+ */
+@Slf4j
+@Component
+public class ItemSearchCache {
+    static final String CACHE_NAME = "itemSearch";
+    private static final int MAX_SIZE = 10_000;
+    private final Cache<Key, Entry> cache;
+    private final Map<String, Set<Key>> keysByTerm = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Key>> keysByItemId = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final boolean enabled;
+
+    public ItemSearchCache(MeterRegistry meterRegistry, ItemSearchEngine itemSearchEngine) {
+        enabled = itemSearchEngine.matchesTermPrefixes();
+        cache = Caffeine.newBuilder()
+                .maximumSize(MAX_SIZE)
+                .recordStats()
+                .executor(Runnable::run)
+                .removalListener((Key key, Entry entry, RemovalCause cause) -> {
+                    if (key != null && entry != null && cause != RemovalCause.REPLACED) {
+                        unregister(key, entry);
+                    }
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public List<ItemDto> get(String text, int from, int size, Supplier<List<ItemDto>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = new Key(text.strip().toLowerCase(Locale.ROOT), from, size);
+        Entry cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached.getItems();
+        }
+        long loadedAt = generation.get();
+        List<ItemDto> items = List.copyOf(loader.get());
+        Entry entry = new Entry(
+                new HashSet<>(ItemTextAnalyzer.terms(text)),
+                items.stream().map(ItemDto::getId).collect(Collectors.toSet()),
+                items);
+        register(key, entry);
+        cache.put(key, entry);
+        if (generation.get() != loadedAt) {
+            cache.invalidate(key);
+        }
+        return items;
+    }
+
+    /**
+     * Runs after the engine has indexed the item, a search loaded between the eviction and the indexing would be
+     * cached without it.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemSaved(ItemSavedEvent event) {
+        generation.incrementAndGet();
+        Set<Key> stale = new HashSet<>(keysByItemId.getOrDefault(event.getItemId(), Set.of()));
+        Set<String> itemTerms = new HashSet<>(ItemTextAnalyzer.terms(event.getName()));
+        itemTerms.addAll(ItemTextAnalyzer.terms(event.getDescription()));
+        for (String term : itemTerms) {
+            for (int end = 1; end <= term.length(); end++) {
+                stale.addAll(keysByTerm.getOrDefault(term.substring(0, end), Set.of()));
+            }
+        }
+        cache.invalidateAll(stale);
+        log.debug("itemSearchCache: item id={} evicted {} cached queries", event.getItemId(), stale.size());
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private void register(Key key, Entry entry) {
+        for (String term : entry.getTerms()) {
+            keysByTerm.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        for (Long id : entry.getItemIds()) {
+            keysByItemId.computeIfAbsent(id, i -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+
+    private void unregister(Key key, Entry entry) {
+        entry.getTerms().forEach(term -> keysByTerm.computeIfPresent(term, (t, keys) -> without(keys, key)));
+        entry.getItemIds().forEach(id -> keysByItemId.computeIfPresent(id, (i, keys) -> without(keys, key)));
+    }
+
+    private static Set<Key> without(Set<Key> keys, Key key) {
+        keys.remove(key);
+        return keys.isEmpty() ? null : keys;
+    }
+
+    @Value
+    private static class Key {
+        String text;
+        int from;
+        int size;
+    }
+
+    @Value
+    private static class Entry {
+        Set<String> terms;
+        Set<Long> itemIds;
+        List<ItemDto> items;
+    }
+}
@@ -0,0 +1,48 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits text into letter/digit tokens, folds case and "ё", and stems Russian and English words.
+ */
+public final class ItemTextAnalyzer {
+    private static final int MIN_STEM_LENGTH = 3;
+
+    private ItemTextAnalyzer() {
+    }
+
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String folded = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean letterOrDigit = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (letterOrDigit && start < 0) {
+                start = i;
+            } else if (!letterOrDigit && start >= 0) {
+                terms.add(stem(folded.substring(start, i)));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    static String stem(String token) {
+        if (token.length() < MIN_STEM_LENGTH) {
+            return token;
+        }
+        Character.UnicodeBlock block = Character.UnicodeBlock.of(token.charAt(token.length() - 1));
+        if (block == Character.UnicodeBlock.CYRILLIC) {
+            return RussianStemmer.stem(token);
+        }
+        if (block == Character.UnicodeBlock.BASIC_LATIN) {
+            return EnglishStemmer.stem(token);
+        }
+        return token;
+    }
+}
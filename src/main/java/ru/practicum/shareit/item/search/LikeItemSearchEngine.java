@@ -0,0 +1,60 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+import ru.practicum.shareit.item.search.api.ItemSearchEngine;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "like")
+public class LikeItemSearchEngine implements ItemSearchEngine {
+    private final ItemRepository itemRepository;
+
+    @Override
+    public boolean matchesTermPrefixes() {
+        // LIKE also matches inside words
+        return false;
+    }
+
+    @Override
+    public List<Item> search(String text, long afterId, Pageable pageable) {
+        return itemRepository.seekAvailableByText(text, afterId, pageable);
+    }
+
+    @Override
+    public List<Item> searchNotBooked(String text,
+                                      LocalDateTime start,
+                                      LocalDateTime end,
+                                      long afterId,
+                                      Pageable pageable) {
+        return itemRepository.seekAvailableByTextAndNotBooked(text, Status.APPROVED, start, end, afterId, pageable);
+    }
+
+    @Override
+    public List<Item> searchByRelevance(String text, Pageable pageable) {
+        // LIKE has no notion of relevance, results stay in id order
+        return itemRepository.seekAvailableByText(text, 0, pageable);
+    }
+
+    @Override
+    public List<Item> searchFuzzy(String text, Pageable pageable) {
+        return itemRepository.seekAvailableByText(text, 0, pageable);
+    }
+
+    @Override
+    public ItemFacetsDto countFacets(String text, boolean fuzzy) {
+        // fuzzy search falls back to LIKE here, so both count the same match set
+        return ItemFacets.of(itemRepository.countFacetsByText(text),
+                itemRepository.countOwnerFacetsByText(text, PageRequest.of(0, ItemFacets.MAX_OWNER_FACETS)));
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.shareit.item.search;
+
+/**
+ * Snowball stemmer for Russian. Expects a lower-case word with "ё" already replaced by "е".
+ */
+final class RussianStemmer {
+    private static final String VOWELS = "аеиоуыэюя";
+    private static final String[] PERFECTIVE_GERUND_1 = {"в", "вши", "вшись"};
+    private static final String[] PERFECTIVE_GERUND_2 = {"ив", "ивши", "ившись", "ыв", "ывши", "ывшись"};
+    private static final String[] REFLEXIVE = {"ся", "сь"};
+    private static final String[] ADJECTIVE = {"ее", "ие", "ые", "ое", "ими", "ыми", "ей", "ий", "ый", "ой", "ем",
+            "им", "ым", "ом", "его", "ого", "ему", "ому", "их", "ых", "ую", "юю", "ая", "яя", "ою", "ею"};
+    private static final String[] PARTICIPLE_1 = {"ем", "нн", "вш", "ющ", "щ"};
+    private static final String[] PARTICIPLE_2 = {"ивш", "ывш", "ующ"};
+    private static final String[] VERB_1 = {"ла", "на", "ете", "йте", "ли", "й", "л", "ем", "н", "ло", "но", "ет",
+            "ют", "ны", "ть", "ешь", "нно"};
+    private static final String[] VERB_2 = {"ила", "ыла", "ена", "ейте", "уйте", "ите", "или", "ыли", "ей", "уй",
+            "ил", "ыл", "им", "ым", "ен", "ило", "ыло", "ено", "ят", "ует", "уют", "ит", "ыт", "ены", "ить", "ыть",
+            "ишь", "ую", "ю"};
+    private static final String[] NOUN = {"а", "ев", "ов", "ие", "ье", "е", "иями", "ями", "ами", "еи", "ии", "и",
+            "ией", "ей", "ой", "ий", "й", "иям", "ям", "ием", "ем", "ам", "ом", "о", "у", "ах", "иях", "ях", "ы", "ь",
+            "ию", "ью", "ю", "ия", "ья", "я"};
+    private static final String[] SUPERLATIVE = {"ейш", "ейше"};
+    private static final String[] DERIVATIONAL = {"ост", "ость"};
+
+    private RussianStemmer() {
+    }
+
+    static String stem(String word) {
+        int rv = regionAfterVowel(word, 0);
+        if (rv >= word.length()) {
+            return word;
+        }
+        int r2 = regionAfterConsonant(word, regionAfterConsonant(word, 0));
+        StringBuilder sb = new StringBuilder(word);
+
+        if (!removeWithPrecedingAOrYa(sb, PERFECTIVE_GERUND_1, rv) && !remove(sb, PERFECTIVE_GERUND_2, rv)) {
+            remove(sb, REFLEXIVE, rv);
+            if (remove(sb, ADJECTIVE, rv)) {
+                if (!removeWithPrecedingAOrYa(sb, PARTICIPLE_1, rv)) {
+                    remove(sb, PARTICIPLE_2, rv);
+                }
+            } else if (!removeVerb(sb, rv)) {
+                remove(sb, NOUN, rv);
+            }
+        }
+
+        if (endsWith(sb, "и", rv)) {
+            sb.setLength(sb.length() - 1);
+        }
+
+        remove(sb, DERIVATIONAL, r2);
+
+        if (endsWith(sb, "нн", rv)) {
+            sb.setLength(sb.length() - 1);
+        } else if (remove(sb, SUPERLATIVE, rv)) {
+            if (endsWith(sb, "нн", rv)) {
+                sb.setLength(sb.length() - 1);
+            }
+        } else if (endsWith(sb, "ь", rv)) {
+            sb.setLength(sb.length() - 1);
+        }
+        return sb.toString();
+    }
+
+    private static boolean removeVerb(StringBuilder sb, int rv) {
+        int length1 = longestSuffixWithPrecedingAOrYa(sb, VERB_1, rv);
+        int length2 = longestSuffix(sb, VERB_2, rv);
+        int length = Math.max(length1, length2);
+        if (length == 0) {
+            return false;
+        }
+        sb.setLength(sb.length() - length);
+        return true;
+    }
+
+    private static boolean remove(StringBuilder sb, String[] suffixes, int limit) {
+        int length = longestSuffix(sb, suffixes, limit);
+        sb.setLength(sb.length() - length);
+        return length > 0;
+    }
+
+    private static boolean removeWithPrecedingAOrYa(StringBuilder sb, String[] suffixes, int limit) {
+        int length = longestSuffixWithPrecedingAOrYa(sb, suffixes, limit);
+        sb.setLength(sb.length() - length);
+        return length > 0;
+    }
+
+    private static int longestSuffix(StringBuilder sb, String[] suffixes, int limit) {
+        int longest = 0;
+        for (String suffix : suffixes) {
+            if (suffix.length() > longest && endsWith(sb, suffix, limit)) {
+                longest = suffix.length();
+            }
+        }
+        return longest;
+    }
+
+    private static int longestSuffixWithPrecedingAOrYa(StringBuilder sb, String[] suffixes, int limit) {
+        int longest = 0;
+        for (String suffix : suffixes) {
+            int preceding = sb.length() - suffix.length() - 1;
+            if (suffix.length() > longest && endsWith(sb, suffix, limit) && preceding >= limit
+                    && (sb.charAt(preceding) == 'а' || sb.charAt(preceding) == 'я')) {
+                longest = suffix.length();
+            }
+        }
+        return longest;
+    }
+
+    private static boolean endsWith(StringBuilder sb, String suffix, int limit) {
+        int start = sb.length() - suffix.length();
+        return start >= limit && sb.indexOf(suffix, start) == start;
+    }
+
+    private static int regionAfterVowel(String word, int from) {
+        for (int i = from; i < word.length(); i++) {
+            if (isVowel(word.charAt(i))) {
+                return i + 1;
+            }
+        }
+        return word.length();
+    }
+
+    private static int regionAfterConsonant(String word, int from) {
+        for (int i = from + 1; i < word.length(); i++) {
+            if (!isVowel(word.charAt(i)) && isVowel(word.charAt(i - 1))) {
+                return i + 1;
+            }
+        }
+        return word.length();
+    }
+
+    private static boolean isVowel(char c) {
+        return VOWELS.indexOf(c) >= 0;
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.Value;
+
+import java.util.Comparator;
+
+@Value
+class ScoredId {
+    static final Comparator<ScoredId> BEST_FIRST = Comparator.comparingDouble(ScoredId::getScore).reversed()
+            .thenComparingLong(ScoredId::getId);
+
+    long id;
+    double score;
+}
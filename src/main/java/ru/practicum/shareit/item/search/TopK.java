@@ -0,0 +1,38 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the k best scored ids in a min-heap: the weakest hit is on top and is replaced by any better one,
+ * so collecting n hits costs O(n log k). k comes from the client's offset, so the heap starts small and grows
+ * with the hits actually offered.
+ */
+final class TopK {
+    private static final int MAX_INITIAL_CAPACITY = 64;
+    private final int k;
+    private final PriorityQueue<ScoredId> heap;
+
+    TopK(int k) {
+        this.k = k;
+        this.heap = new PriorityQueue<>(Math.min(k, MAX_INITIAL_CAPACITY) + 1, ScoredId.BEST_FIRST.reversed());
+    }
+
+    void offer(long id, double score) {
+        heap.add(new ScoredId(id, score));
+        if (heap.size() > k) {
+            heap.poll();
+        }
+    }
+
+    List<Long> idsBestFirst(long skip) {
+        List<ScoredId> ranked = new ArrayList<>(heap);
+        ranked.sort(ScoredId.BEST_FIRST);
+        return ranked.stream()
+                .skip(skip)
+                .map(ScoredId::getId)
+                .collect(Collectors.toList());
+    }
+}
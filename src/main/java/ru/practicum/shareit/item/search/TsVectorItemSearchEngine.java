@@ -0,0 +1,106 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+import ru.practicum.shareit.item.search.api.ItemSearchEngine;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Full-text search over the generated items.search_vector column (GIN index, see db/migration/postgresql).
+ * Relevance is ts_rank, fuzzy search uses pg_trgm word similarity. On databases other than PostgreSQL
+ * it falls back to the LIKE query.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "tsvector")
+public class TsVectorItemSearchEngine implements ItemSearchEngine {
+    private final ItemRepository itemRepository;
+    private final DataSource dataSource;
+    private boolean fullTextSupported;
+
+    @PostConstruct
+    void detectDatabase() {
+        String product;
+        try (Connection connection = dataSource.getConnection()) {
+            product = connection.getMetaData().getDatabaseProductName();
+        } catch (SQLException e) {
+            throw new IllegalStateException("itemSearchEngine: can not read database metadata", e);
+        }
+        fullTextSupported = "PostgreSQL".equalsIgnoreCase(product);
+        if (!fullTextSupported) {
+            log.warn("itemSearchEngine: tsvector search is not supported by {}, falling back to LIKE", product);
+        }
+    }
+
+    @Override
+    public boolean matchesTermPrefixes() {
+        return fullTextSupported;
+    }
+
+    @Override
+    public List<Item> search(String text, long afterId, Pageable pageable) {
+        if (!fullTextSupported) {
+            return itemRepository.seekAvailableByText(text, afterId, pageable);
+        }
+        return itemRepository.seekAvailableByTsQuery(text, afterId, pageable);
+    }
+
+    @Override
+    public List<Item> searchNotBooked(String text,
+                                      LocalDateTime start,
+                                      LocalDateTime end,
+                                      long afterId,
+                                      Pageable pageable) {
+        if (!fullTextSupported) {
+            return itemRepository.seekAvailableByTextAndNotBooked(text, Status.APPROVED, start, end, afterId,
+                    pageable);
+        }
+        return itemRepository.seekAvailableByTsQueryAndNotBooked(text, Status.APPROVED.toString(), start, end,
+                afterId, pageable);
+    }
+
+    @Override
+    public List<Item> searchByRelevance(String text, Pageable pageable) {
+        if (!fullTextSupported) {
+            return itemRepository.seekAvailableByText(text, 0, pageable);
+        }
+        return itemRepository.findAvailableByTsQueryRanked(text, pageable);
+    }
+
+    @Override
+    public List<Item> searchFuzzy(String text, Pageable pageable) {
+        if (!fullTextSupported) {
+            return itemRepository.seekAvailableByText(text, 0, pageable);
+        }
+        return itemRepository.findAvailableBySimilarWords(text, pageable);
+    }
+
+    @Override
+    public ItemFacetsDto countFacets(String text, boolean fuzzy) {
+        if (!fullTextSupported) {
+            return ItemFacets.of(itemRepository.countFacetsByText(text),
+                    itemRepository.countOwnerFacetsByText(text, PageRequest.of(0, ItemFacets.MAX_OWNER_FACETS)));
+        }
+        if (fuzzy) {
+            return ItemFacets.of(itemRepository.countFacetsBySimilarWords(text),
+                    itemRepository.countOwnerFacetsBySimilarWords(text, ItemFacets.MAX_OWNER_FACETS));
+        }
+        return ItemFacets.of(itemRepository.countFacetsByTsQuery(text),
+                itemRepository.countOwnerFacetsByTsQuery(text, ItemFacets.MAX_OWNER_FACETS));
+    }
+}
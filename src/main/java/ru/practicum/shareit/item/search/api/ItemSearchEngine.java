@@ -0,0 +1,44 @@
+package ru.practicum.shareit.item.search.api;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ItemSearchEngine {
+
+    /**
+     * Available items matching the text with id greater than afterId, in id order.
+     */
+    List<Item> search(String text, long afterId, Pageable pageable);
+
+    /**
+     * Whether {@link #search} matches only items with a term that starts with a term of the text, so that cached
+     * results can be evicted by the terms of a saved item.
+     */
+    boolean matchesTermPrefixes();
+
+    /**
+     * Available items matching the text without an approved booking overlapping [start, end), with id greater
+     * than afterId, in id order.
+     */
+    List<Item> searchNotBooked(String text, LocalDateTime start, LocalDateTime end, long afterId, Pageable pageable);
+
+    /**
+     * Available items matching the text, best matches first.
+     */
+    List<Item> searchByRelevance(String text, Pageable pageable);
+
+    /**
+     * Available items with words similar to the words of the text, most similar first.
+     */
+    List<Item> searchFuzzy(String text, Pageable pageable);
+
+    /**
+     * Facet counts of all items matching the text, available or not. With fuzzy the match set is the one
+     * {@link #searchFuzzy} draws from.
+     */
+    ItemFacetsDto countFacets(String text, boolean fuzzy);
+}
@@ -2,38 +2,64 @@ package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.index.BookingIntervalTree;
+import ru.practicum.shareit.booking.index.TimeRange;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.api.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.repository.api.BookingRepository;
 import ru.practicum.shareit.exception.NotAvailableException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.NotOwnerException;
+import ru.practicum.shareit.item.SearchSort;
+import ru.practicum.shareit.item.cache.ItemDetails;
+import ru.practicum.shareit.item.cache.ItemDetailsCache;
+import ru.practicum.shareit.item.cache.OwnerBookings;
 import ru.practicum.shareit.item.comment.dto.CommentInputDto;
+import ru.practicum.shareit.item.comment.dto.CommentOutputDto;
 import ru.practicum.shareit.item.comment.dto.SavedCommentOutputDto;
 import ru.practicum.shareit.item.comment.dto.mapper.CommentMapper;
 import ru.practicum.shareit.item.comment.model.Comment;
 import ru.practicum.shareit.item.comment.repositiry.api.CommentRepository;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.dto.ItemWithCommentsOutputDto;
 import ru.practicum.shareit.item.dto.mapper.ItemMapper;
+import ru.practicum.shareit.item.event.ItemCommentedEvent;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.importer.ItemImportReader;
+import ru.practicum.shareit.item.importer.ItemImporter;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemBookingPointers;
+import ru.practicum.shareit.item.repository.OwnerItemsReader;
 import ru.practicum.shareit.item.repository.api.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.api.ItemSearchEngine;
 import ru.practicum.shareit.item.service.api.ItemService;
+import ru.practicum.shareit.item.suggest.ItemNameSuggester;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.api.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.api.UserRepository;
+import ru.practicum.shareit.utils.PageCursor;
 import ru.practicum.shareit.utils.PageRequestUtil;
+import ru.practicum.shareit.utils.ParallelQueryExecutor;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.function.Function;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static java.time.LocalDateTime.now;
@@ -46,10 +72,20 @@ public class ItemServiceImpl implements ItemService {
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
     private final CommentRepository commentRepository;
     private final ItemMapper itemMapper;
     private final CommentMapper commentMapper;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchEngine itemSearchEngine;
+    private final ItemNameSuggester itemNameSuggester;
+    private final ItemSearchCache itemSearchCache;
+    private final ItemDetailsCache itemDetailsCache;
+    private final OwnerItemsReader ownerItemsReader;
+    private final ItemBookingPointers itemBookingPointers;
+    private final ItemImporter itemImporter;
+    private final ParallelQueryExecutor parallelQueryExecutor;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     @Override
@@ -62,35 +98,78 @@ public class ItemServiceImpl implements ItemService {
             newItem.setRequest(request);
         }
         Item addedItem = itemRepository.save(newItem);
+        eventPublisher.publishEvent(ItemSavedEvent.of(addedItem));
         log.info("itemService: was add item={}", addedItem);
 
         return itemMapper.toItemDto(addedItem);
     }
 
+    @Override
+    public long importItems(long ownerId, ItemImportReader reader, Consumer<ItemImportResultDto> results)
+            throws IOException {
+        findUserById(ownerId);
+        long saved = itemImporter.importItems(ownerId, reader, results);
+        log.info("itemService: was imported {} items ownerId={}", saved, ownerId);
+        return saved;
+    }
+
     @Transactional(readOnly = true)
     @Override
     public ItemWithCommentsOutputDto getItemById(long id, long userId) {
-        Item item = findItemById(id);
-        ItemWithCommentsOutputDto itemWithCommentsOutputDto;
-        if (item.getOwner().getId() == (userId)) {
-            LocalDateTime now = now();
-            itemWithCommentsOutputDto = findItemsWithLastAndNextBooking(item, now);
-        } else {
-            itemWithCommentsOutputDto = itemMapper.toItemWithCommentDto(item, null, null);
-        }
-
-        Map<Long, List<Comment>> commentsMap = findCommentsForItem(List.of(id));
-        itemWithCommentsOutputDto.setComments(commentMapper.outputMap(commentsMap.get(id)));
-
-        if (itemWithCommentsOutputDto.getComments() == null) {
-            itemWithCommentsOutputDto.setComments(Collections.emptyList());
-        }
+        ItemDetails details = itemDetailsCache.getDetails(id, () -> loadItemDetails(id));
+        OwnerBookings bookings = details.getOwnerId() == userId
+                ? itemDetailsCache.getOwnerBookings(id, () -> loadOwnerBookings(id, now()))
+                : new OwnerBookings(null, null);
+        ItemWithCommentsOutputDto itemWithCommentsOutputDto = new ItemWithCommentsOutputDto(
+                details.getId(),
+                details.getName(),
+                details.getDescription(),
+                details.getAvailable(),
+                bookings.getLastBooking(),
+                bookings.getNextBooking(),
+                details.getComments());
 
         log.info("itemService: was returned item={}, by id={}", itemWithCommentsOutputDto, id);
         return itemWithCommentsOutputDto;
 
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public ItemAvailabilityDto getItemAvailability(long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("to must be after from");
+        }
+        if (!itemRepository.existsById(itemId)) {
+            throw new NotFoundException(String.format("item with id=%d not found", itemId));
+        }
+        // read from the database rather than the node-local interval index, which lags bookings of other nodes
+        BookingIntervalTree approved = new BookingIntervalTree();
+        bookingRepository.findAllByItem_IdInAndStatusAndStartBeforeAndEndAfter(
+                        List.of(itemId), Status.APPROVED, to, from)
+                .forEach(booking -> approved.add(booking.getId(), booking.getStart(), booking.getEnd()));
+        List<TimeRange> busy = approved.busyRanges(from, to);
+        List<TimeRange> free = new ArrayList<>();
+        LocalDateTime freeStart = from;
+        for (TimeRange range : busy) {
+            if (range.getStart().isAfter(freeStart)) {
+                free.add(new TimeRange(freeStart, range.getStart()));
+            }
+            freeStart = range.getEnd();
+        }
+        if (to.isAfter(freeStart)) {
+            free.add(new TimeRange(freeStart, to));
+        }
+        log.info("itemService: was returned {} busy ranges for itemId={} from={} to={}", busy.size(), itemId, from, to);
+        return ItemAvailabilityDto.builder()
+                .itemId(itemId)
+                .from(from)
+                .to(to)
+                .free(free)
+                .busy(busy)
+                .build();
+    }
+
     @Transactional
     @Override
     public ItemDto updateItem(long itemId, ItemDto itemDto, long ownerId) {
@@ -116,6 +195,7 @@ public class ItemServiceImpl implements ItemService {
         }
 
         Item updatedItem = itemRepository.save(newItem);
+        eventPublisher.publishEvent(ItemSavedEvent.of(updatedItem));
         log.info("userService: old item={} update to new item={}", oldItem, updatedItem);
         return itemMapper.toItemDto(updatedItem);
     }
@@ -123,20 +203,32 @@ public class ItemServiceImpl implements ItemService {
     @Transactional(readOnly = true)
     @Override
     public List<ItemWithCommentsOutputDto> getAllOwnersItems(long ownerId, int from, int size) {
+        if (ownerItemsReader.isEnabled()) {
+            return readOwnerItems(ownerId, 0, from, size);
+        }
         User owner = findUserById(ownerId);
         List<Item> items = itemRepository.findAllByOwner(
                 owner, PageRequestUtil.of(from, size, Sort.by(Sort.Direction.ASC, "id")));
-        LocalDateTime now = now();
-        List<ItemWithCommentsOutputDto> itemWithCommentsOutputDto = findItemsWithLastAndNextBooking(items, now);
-
-        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
-        Map<Long, List<Comment>> commentsMap = findCommentsForItem(itemIds);
-        itemWithCommentsOutputDto.forEach(i -> i.setComments(commentMapper.outputMap(commentsMap.get(i.getId()))));
-
+        List<ItemWithCommentsOutputDto> itemWithCommentsOutputDto = findItemsWithBookingsAndComments(items);
         log.info("itemService: was returned {} items ownerId={}", itemWithCommentsOutputDto.size(), ownerId);
         return itemWithCommentsOutputDto;
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<ItemWithCommentsOutputDto> getAllOwnersItems(long ownerId, PageCursor cursor, int size) {
+        if (ownerItemsReader.isEnabled()) {
+            return readOwnerItems(ownerId, cursor.getId(), 0, size);
+        }
+        User owner = findUserById(ownerId);
+        List<Item> items = itemRepository.findAllByOwnerAndIdGreaterThanOrderByIdAsc(
+                owner, cursor.getId(), PageRequestUtil.first(size));
+        List<ItemWithCommentsOutputDto> itemWithCommentsOutputDto = findItemsWithBookingsAndComments(items);
+        log.info("itemService: was returned {} items ownerId={} after cursor={}",
+                itemWithCommentsOutputDto.size(), ownerId, cursor);
+        return itemWithCommentsOutputDto;
+    }
+
     @Transactional(readOnly = true)
     @Override
     public List<ItemDto> findItems(String text, int from, int size) {
@@ -144,15 +236,86 @@ public class ItemServiceImpl implements ItemService {
             log.warn("itemService: text string for find is blank");
             return Collections.emptyList();
         }
-        List<Item> items = itemRepository
-                .findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableIs(text,
-                        text,
-                        true,
-                        PageRequestUtil.of(from, size, Sort.by(Sort.Direction.ASC, "id")));
-        log.info("itemService:  founded and returned {} items with text={} ", items.size(), text);
+        return itemSearchCache.get(text, from, size, () -> {
+            List<Item> items = itemSearchEngine.search(text, 0, PageRequestUtil.of(from, size));
+            log.info("itemService:  founded and returned {} items with text={} ", items.size(), text);
+            return itemMapper.mapDto(items);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<ItemDto> findItems(String text, PageCursor cursor, int size) {
+        if (text.isBlank()) {
+            log.warn("itemService: text string for find is blank");
+            return Collections.emptyList();
+        }
+        List<Item> items = itemSearchEngine.search(text, cursor.getId(), PageRequestUtil.first(size));
+        log.info("itemService: founded and returned {} items with text={} after cursor={}", items.size(), text, cursor);
+        return itemMapper.mapDto(items);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<ItemDto> findItems(String text, SearchSort sort, int from, int size) {
+        if (sort == SearchSort.ID) {
+            return findItems(text, from, size);
+        }
+        if (text.isBlank()) {
+            log.warn("itemService: text string for find is blank");
+            return Collections.emptyList();
+        }
+        List<Item> items = itemSearchEngine.searchByRelevance(text, PageRequestUtil.of(from, size));
+        log.info("itemService: founded and returned {} items with text={} by relevance", items.size(), text);
+        return itemMapper.mapDto(items);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<ItemDto> findItemsFuzzy(String text, int from, int size) {
+        if (text.isBlank()) {
+            log.warn("itemService: text string for find is blank");
+            return Collections.emptyList();
+        }
+        List<Item> items = itemSearchEngine.searchFuzzy(text, PageRequestUtil.of(from, size));
+        log.info("itemService: founded and returned {} items similar to text={}", items.size(), text);
         return itemMapper.mapDto(items);
     }
 
+    @Override
+    public List<String> suggestItemNames(String prefix, int size) {
+        if (prefix.isBlank()) {
+            log.warn("itemService: prefix for suggest is blank");
+            return Collections.emptyList();
+        }
+        List<String> names = itemNameSuggester.suggest(prefix, size);
+        log.info("itemService: suggested {} names for prefix={}", names.size(), prefix);
+        return names;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public ItemFacetsDto getSearchFacets(String text, boolean fuzzy) {
+        if (text.isBlank()) {
+            return ItemFacetsDto.builder().owners(Collections.emptyList()).build();
+        }
+        ItemFacetsDto facets = itemSearchEngine.countFacets(text, fuzzy);
+        log.info("itemService: counted facets of {} items matching text={}", facets.getTotal(), text);
+        return facets;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<ItemDto> findItems(String text, LocalDateTime start, LocalDateTime end, int from, int size) {
+        return findNotBookedItems(text, start, end, 0, from, size);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<ItemDto> findItems(String text, LocalDateTime start, LocalDateTime end, PageCursor cursor, int size) {
+        return findNotBookedItems(text, start, end, cursor.getId(), 0, size);
+    }
+
     @Transactional
     @Override
     public SavedCommentOutputDto addComment(CommentInputDto commentInputDto, long itemId, long userId) {
@@ -160,8 +323,8 @@ public class ItemServiceImpl implements ItemService {
         User author = findUserById(userId);
         Item item = findItemById(itemId);
         LocalDateTime now = newComment.getCreated();
-        Booking booking = bookingRepository.findFirstByItem_IdAndBooker_IdAndEndBefore(itemId, userId, now);
-        if (booking == null) {
+        if (!bookingRepository.existsByItemIdAndBookerIdAndEndBefore(itemId, userId, now)
+                && !archivedBookingRepository.existsByItemIdAndBookerIdAndEndBefore(itemId, userId, now)) {
             log.error("ItemService: user with id={} can not comment item with id={}", userId, itemId);
             throw new NotAvailableException(String.format("user with id=%d can not comment item with id=%d",
                     userId, itemId));
@@ -169,41 +332,84 @@ public class ItemServiceImpl implements ItemService {
         newComment.setItem(item);
         newComment.setAuthor(author);
         Comment addedComment = commentRepository.save(newComment);
+        eventPublisher.publishEvent(new ItemCommentedEvent(itemId));
         return commentMapper.toSavedCommentOutputDto(addedComment);
     }
 
-    private List<ItemWithCommentsOutputDto> findItemsWithLastAndNextBooking(List<Item> items,
-                                                                            LocalDateTime date) {
-        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
-
+    /**
+     * The engine drops items booked in the window while it matches, so pages stay full without post-filtering.
+     */
+    private List<ItemDto> findNotBookedItems(String text,
+                                             LocalDateTime start,
+                                             LocalDateTime end,
+                                             long afterId,
+                                             int skip,
+                                             int size) {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("end must be after start");
+        }
+        if (text.isBlank()) {
+            log.warn("itemService: text string for find is blank");
+            return Collections.emptyList();
+        }
+        List<Item> items = itemSearchEngine.searchNotBooked(text, start, end, afterId, PageRequestUtil.of(skip, size));
+        log.info("itemService: founded and returned {} items with text={} not booked from {} to {}",
+                items.size(), text, start, end);
+        return itemMapper.mapDto(items);
+    }
 
-        List<Booking> lastBookings = bookingRepository.findLastBookingsForItems(itemIds,
-                Status.APPROVED.toString(),
-                date);
-        Map<Long, Booking> lastBookingMap = lastBookings.stream().collect(Collectors.toMap(
-                booking -> booking.getItem().getId(), Function.identity()));
+    private List<ItemWithCommentsOutputDto> findItemsWithBookingsAndComments(List<Item> items) {
+        LocalDateTime now = now();
+        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        ParallelQueryExecutor.Batch batch = parallelQueryExecutor.batch();
+        Supplier<Map<Long, OwnerBookings>> bookings = batch.fork(() -> itemBookingPointers.read(itemIds, now));
+        Supplier<Map<Long, List<CommentOutputDto>>> comments = batch.fork(() -> findCommentsForItem(itemIds));
+
+        List<ItemWithCommentsOutputDto> itemWithCommentsOutputDto = new ArrayList<>(items.size());
+        for (Item item : items) {
+            ItemWithCommentsOutputDto itemDto = itemMapper.toItemWithCommentDto(item, null, null);
+            OwnerBookings itemBookings = bookings.get().get(item.getId());
+            if (itemBookings != null) {
+                itemDto.setLastBooking(itemBookings.getLastBooking());
+                itemDto.setNextBooking(itemBookings.getNextBooking());
+            }
+            itemDto.setComments(comments.get().get(item.getId()));
+            itemWithCommentsOutputDto.add(itemDto);
+        }
+        return itemWithCommentsOutputDto;
+    }
 
-        List<Booking> nextBookings = bookingRepository.findNextBookingsForItems(itemIds,
-                Status.APPROVED.toString(),
-                date);
-        Map<Long, Booking> nextBookingMap = nextBookings.stream().collect(Collectors.toMap(
-                booking -> booking.getItem().getId(), Function.identity()));
+    private Map<Long, List<CommentOutputDto>> findCommentsForItem(List<Long> itemIds) {
+        Map<Long, List<CommentOutputDto>> comments = new HashMap<>();
+        commentRepository.findAllInItemId(itemIds).stream()
+                .collect(groupingBy(comment -> comment.getItem().getId()))
+                .forEach((itemId, itemComments) -> comments.put(itemId, commentMapper.outputMap(itemComments)));
+        return comments;
+    }
 
-        return items.stream()
-                .map(item -> itemMapper.toItemWithCommentDto(item,
-                        lastBookingMap.get(item.getId()),
-                        nextBookingMap.get(item.getId())))
-                .collect(Collectors.toList());
+    private List<ItemWithCommentsOutputDto> readOwnerItems(long ownerId, long afterId, long offset, int size) {
+        List<ItemWithCommentsOutputDto> items = ownerItemsReader.read(ownerId, afterId, offset, size, now())
+                .orElseThrow(() -> new NotFoundException(String.format("user with id=%d not found", ownerId)));
+        log.info("itemService: was returned {} items ownerId={} after id={} offset={} in one query",
+                items.size(), ownerId, afterId, offset);
+        return items;
     }
 
-    private Map<Long, List<Comment>> findCommentsForItem(List<Long> itemIds) {
-        List<Comment> comments = commentRepository.findAllInItemId(itemIds);
-        return comments.stream().collect(
-                groupingBy(comment -> comment.getItem().getId()));
+    private ItemDetails loadItemDetails(long id) {
+        Item item = findItemById(id);
+        ItemWithCommentsOutputDto itemDto = itemMapper.toItemWithCommentDto(item, null, null);
+        List<CommentOutputDto> comments = findCommentsForItem(List.of(id)).get(id);
+        return new ItemDetails(
+                id,
+                item.getOwner().getId(),
+                itemDto.getName(),
+                itemDto.getDescription(),
+                itemDto.getAvailable(),
+                comments == null ? Collections.emptyList() : List.copyOf(comments));
     }
 
-    private ItemWithCommentsOutputDto findItemsWithLastAndNextBooking(Item item, LocalDateTime date) {
-        return findItemsWithLastAndNextBooking(List.of(item), date).get(0);
+    private OwnerBookings loadOwnerBookings(long itemId, LocalDateTime date) {
+        return itemBookingPointers.read(List.of(itemId), date).getOrDefault(itemId, new OwnerBookings(null, null));
     }
 
     private void checkAccess(User owner, Item itemForUpdate) {
@@ -1,23 +1,58 @@
 package ru.practicum.shareit.item.service.api;
 
+import ru.practicum.shareit.item.SearchSort;
 import ru.practicum.shareit.item.comment.dto.CommentInputDto;
 import ru.practicum.shareit.item.comment.dto.SavedCommentOutputDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.dto.ItemWithCommentsOutputDto;
+import ru.practicum.shareit.item.importer.ItemImportReader;
+import ru.practicum.shareit.utils.PageCursor;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ItemService {
 
     ItemDto addItem(ItemDto itemDto, long userId);
 
+    /**
+     * Adds the rows of the reader as items of the owner and reports every row to results as soon as it is
+     * committed or rejected.
+     *
+     * @return number of saved items
+     */
+    long importItems(long ownerId, ItemImportReader reader, Consumer<ItemImportResultDto> results) throws IOException;
+
     ItemDto updateItem(long itemId, ItemDto itemDto, long ownerId);
 
     ItemWithCommentsOutputDto getItemById(long id, long userId);
 
+    ItemAvailabilityDto getItemAvailability(long itemId, LocalDateTime from, LocalDateTime to);
+
     List<ItemWithCommentsOutputDto> getAllOwnersItems(long ownerId, int from, int size);
 
+    List<ItemWithCommentsOutputDto> getAllOwnersItems(long ownerId, PageCursor cursor, int size);
+
     List<ItemDto> findItems(String text, int from, int size);
 
+    List<ItemDto> findItems(String text, PageCursor cursor, int size);
+
+    List<ItemDto> findItems(String text, SearchSort sort, int from, int size);
+
+    List<ItemDto> findItemsFuzzy(String text, int from, int size);
+
+    List<String> suggestItemNames(String prefix, int size);
+
+    ItemFacetsDto getSearchFacets(String text, boolean fuzzy);
+
+    List<ItemDto> findItems(String text, LocalDateTime start, LocalDateTime end, int from, int size);
+
+    List<ItemDto> findItems(String text, LocalDateTime start, LocalDateTime end, PageCursor cursor, int size);
+
     SavedCommentOutputDto addComment(CommentInputDto commentInputDto, long itemId, long userId);
 }
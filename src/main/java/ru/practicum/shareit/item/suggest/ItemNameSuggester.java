@@ -0,0 +1,124 @@
+package ru.practicum.shareit.item.suggest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Completes item names from a prefix trie of available items, most common names first.
+ */
+@Slf4j
+@Component
+public class ItemNameSuggester {
+    static final int REBUILD_PAGE_SIZE = 500;
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate readPage;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private NameTrie trie = new NameTrie();
+    private Map<Long, String> keysByItemId = new HashMap<>();
+    /**
+     * Items saved while {@link #rebuild()} reads the table, replayed into the new trie before it replaces
+     * the old one. {@code null} when no rebuild is running. Guarded by the write lock.
+     */
+    private List<ItemSavedEvent> savedDuringRebuild;
+
+    public ItemNameSuggester(ItemRepository itemRepository, PlatformTransactionManager transactionManager) {
+        this.itemRepository = itemRepository;
+        this.readPage = new TransactionTemplate(transactionManager);
+        this.readPage.setReadOnly(true);
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        lock.readLock().lock();
+        try {
+            return trie.complete(key, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemSaved(ItemSavedEvent event) {
+        lock.writeLock().lock();
+        try {
+            put(trie, keysByItemId, event.getItemId(), event.getName(), event.isAvailable());
+            if (savedDuringRebuild != null) {
+                savedDuringRebuild.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the table page by page, every page in its own read-only transaction, so that the items of a page
+     * are detached once their names are in the trie.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            savedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        NameTrie newTrie = new NameTrie();
+        Map<Long, String> newKeys = new HashMap<>();
+        long lastId = 0;
+        List<Item> page;
+        do {
+            long afterId = lastId;
+            page = readPage.execute(status ->
+                    itemRepository.findAllByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, REBUILD_PAGE_SIZE)));
+            for (Item item : page) {
+                put(newTrie, newKeys, item.getId(), item.getName(), Boolean.TRUE.equals(item.getAvailable()));
+                lastId = item.getId();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        lock.writeLock().lock();
+        try {
+            for (ItemSavedEvent event : savedDuringRebuild) {
+                put(newTrie, newKeys, event.getItemId(), event.getName(), event.isAvailable());
+            }
+            savedDuringRebuild = null;
+            trie = newTrie;
+            keysByItemId = newKeys;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("itemNameSuggester: indexed {} names of {} available items", newTrie.size(), newKeys.size());
+    }
+
+    private static void put(NameTrie trie, Map<Long, String> keys, long itemId, String name, boolean available) {
+        String oldKey = keys.remove(itemId);
+        if (oldKey != null) {
+            trie.remove(oldKey);
+        }
+        if (available && name != null && !name.isBlank()) {
+            String key = normalize(name);
+            trie.add(key, name.strip());
+            keys.put(itemId, key);
+        }
+    }
+
+    static String normalize(String text) {
+        return text.strip().toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+}
@@ -0,0 +1,168 @@
+package ru.practicum.shareit.item.suggest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Prefix trie of normalized item names. Every node keeps how many items carry its name and the best such count
+ * in its subtree, so completions come out most frequent first (then alphabetically) by best-first search
+ * without visiting the whole subtree.
+ */
+final class NameTrie {
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private final Node root = new Node();
+    private int size;
+
+    void add(String key, String name) {
+        Node[] path = new Node[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+            path[i + 1] = node;
+        }
+        if (node.count++ == 0) {
+            size++;
+        }
+        node.name = name;
+        for (int i = path.length - 1; i >= 0; i--) {
+            path[i].updateBest();
+        }
+    }
+
+    void remove(String key) {
+        Node[] path = new Node[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.child(key.charAt(i));
+            if (node == null) {
+                return;
+            }
+            path[i + 1] = node;
+        }
+        if (node.count == 0) {
+            return;
+        }
+        if (--node.count == 0) {
+            node.name = null;
+            size--;
+        }
+        for (int i = path.length - 1; i >= 0; i--) {
+            path[i].updateBest();
+            if (i > 0 && path[i].best == 0) {
+                path[i - 1].removeChild(key.charAt(i - 1));
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    List<String> complete(String prefix, int limit) {
+        List<String> names = new ArrayList<>();
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node == null || node.best == 0) {
+            return names;
+        }
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(Candidate.BEST_FIRST);
+        queue.add(new Candidate(node, prefix, node.best, false));
+        while (!queue.isEmpty() && names.size() < limit) {
+            Candidate candidate = queue.poll();
+            if (candidate.terminal) {
+                names.add(candidate.node.name);
+                continue;
+            }
+            Node current = candidate.node;
+            if (current.count > 0) {
+                queue.add(new Candidate(current, candidate.key, current.count, true));
+            }
+            for (int i = 0; i < current.labels.length; i++) {
+                Node child = current.children[i];
+                queue.add(new Candidate(child, candidate.key + current.labels[i], child.best, false));
+            }
+        }
+        return names;
+    }
+
+    private static final class Node {
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private int count;
+        private int best;
+        private String name;
+
+        Node child(char label) {
+            int position = Arrays.binarySearch(labels, label);
+            return position >= 0 ? children[position] : null;
+        }
+
+        Node childOrCreate(char label) {
+            int position = Arrays.binarySearch(labels, label);
+            if (position >= 0) {
+                return children[position];
+            }
+            int insertAt = -position - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            Node child = new Node();
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = child;
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+
+        void removeChild(char label) {
+            int position = Arrays.binarySearch(labels, label);
+            if (position < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            System.arraycopy(labels, position + 1, newLabels, position, labels.length - position - 1);
+            System.arraycopy(children, position + 1, newChildren, position, children.length - position - 1);
+            labels = newLabels.length == 0 ? NO_LABELS : newLabels;
+            children = newChildren.length == 0 ? NO_CHILDREN : newChildren;
+        }
+
+        void updateBest() {
+            int max = count;
+            for (Node child : children) {
+                max = Math.max(max, child.best);
+            }
+            best = max;
+        }
+    }
+
+    private static final class Candidate {
+        private static final Comparator<Candidate> BEST_FIRST = Comparator
+                .comparingInt((Candidate candidate) -> candidate.score).reversed()
+                .thenComparing(candidate -> candidate.key);
+        private final Node node;
+        private final String key;
+        private final int score;
+        private final boolean terminal;
+
+        Candidate(Node node, String key, int score, boolean terminal) {
+            this.node = node;
+            this.key = key;
+            this.score = score;
+            this.terminal = terminal;
+        }
+    }
+}
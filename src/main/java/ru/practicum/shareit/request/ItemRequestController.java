@@ -2,6 +2,7 @@ package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -9,6 +10,7 @@ import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.request.dto.ItemRequestInputDto;
 import ru.practicum.shareit.request.dto.ItemRequestOutDto;
 import ru.practicum.shareit.request.service.api.ItemRequestService;
+import ru.practicum.shareit.utils.PageCursor;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
@@ -50,23 +52,34 @@ public class ItemRequestController {
     public ResponseEntity<List<ItemRequestOutDto>> getAllRequestersItemRequests(
             @RequestParam(value = "from", defaultValue = DEFAULT_FROM) @PositiveOrZero int from,
             @RequestParam(value = "size", defaultValue = DEFAULT_SIZE) @Positive int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
             @RequestHeader(value = "X-Sharer-User-Id") long requesterId
     ) {
-        log.info("receive GET request for return all items of requesterId={} from={} size={}", requesterId, from, size);
-        List<ItemRequestOutDto> itemRequestOutputDto =
-                itemRequestService.getAllRequestersItemRequests(requesterId, from, size);
-        return new ResponseEntity<>(itemRequestOutputDto, HttpStatus.OK);
+        log.info("receive GET request for return all items of requesterId={} from={} size={} cursor={}",
+                requesterId, from, size, cursor);
+        List<ItemRequestOutDto> itemRequestOutputDto = cursor == null
+                ? itemRequestService.getAllRequestersItemRequests(requesterId, from, size)
+                : itemRequestService.getAllRequestersItemRequests(requesterId, PageCursor.decode(cursor), size);
+        return new ResponseEntity<>(itemRequestOutputDto, nextCursorHeaders(itemRequestOutputDto, size), HttpStatus.OK);
     }
 
     @GetMapping("/all")
     public ResponseEntity<List<ItemRequestOutDto>> getAllItemRequests(
             @RequestParam(value = "from", defaultValue = DEFAULT_FROM) @PositiveOrZero int from,
             @RequestParam(value = "size", defaultValue = DEFAULT_SIZE) @Positive int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
             @RequestHeader(value = "X-Sharer-User-Id") long userId
     ) {
-        log.info("receive GET request for return all items of userId={} from={} size={}", userId, from, size);
-        List<ItemRequestOutDto> itemRequestOutputDto =
-                itemRequestService.getAllItemRequests(userId, from, size);
-        return new ResponseEntity<>(itemRequestOutputDto, HttpStatus.OK);
+        log.info("receive GET request for return all items of userId={} from={} size={} cursor={}",
+                userId, from, size, cursor);
+        List<ItemRequestOutDto> itemRequestOutputDto = cursor == null
+                ? itemRequestService.getAllItemRequests(userId, from, size)
+                : itemRequestService.getAllItemRequests(userId, PageCursor.decode(cursor), size);
+        return new ResponseEntity<>(itemRequestOutputDto, nextCursorHeaders(itemRequestOutputDto, size), HttpStatus.OK);
+    }
+
+    private HttpHeaders nextCursorHeaders(List<ItemRequestOutDto> itemRequests, int size) {
+        return PageCursor.nextCursorHeaders(itemRequests, size,
+                itemRequest -> PageCursor.of(itemRequest.getCreated(), itemRequest.getId()));
     }
 }
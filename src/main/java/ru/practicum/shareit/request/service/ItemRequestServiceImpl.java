@@ -17,6 +17,7 @@ import ru.practicum.shareit.request.repository.api.ItemRequestRepository;
 import ru.practicum.shareit.request.service.api.ItemRequestService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.api.UserRepository;
+import ru.practicum.shareit.utils.PageCursor;
 import ru.practicum.shareit.utils.PageRequestUtil;
 
 import java.util.Collections;
@@ -83,6 +84,28 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         return getRequestsWithItems(itemRequests);
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<ItemRequestOutDto> getAllRequestersItemRequests(long requesterId, PageCursor cursor, int size) {
+        User requester = findUserById(requesterId);
+        List<ItemRequest> itemRequests = itemRequestRepository.seekAllByRequester(
+                requester, cursor.requireTime(), cursor.getId(), PageRequestUtil.first(size));
+        log.info("itemRequestService: was returned {} itemRequests, for requesterId={} after cursor={}",
+                itemRequests.size(), requesterId, cursor);
+        return getRequestsWithItems(itemRequests);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<ItemRequestOutDto> getAllItemRequests(long userId, PageCursor cursor, int size) {
+        User user = findUserById(userId);
+        List<ItemRequest> itemRequests = itemRequestRepository.seekAllByRequesterNot(
+                user, cursor.requireTime(), cursor.getId(), PageRequestUtil.first(size));
+        log.info("itemRequestService: was returned {} itemRequests, for userId={} after cursor={}",
+                itemRequests.size(), userId, cursor);
+        return getRequestsWithItems(itemRequests);
+    }
+
     private List<ItemRequestOutDto> getRequestsWithItems(List<ItemRequest> itemRequests) {
         List<Long> requestsIds = itemRequests.stream().map(ItemRequest::getId).collect(Collectors.toList());
         List<Item> requestsItems = itemRepository.findAllByRequest_IdIn(requestsIds)
@@ -2,6 +2,7 @@ package ru.practicum.shareit.request.service.api;
 
 import ru.practicum.shareit.request.dto.ItemRequestInputDto;
 import ru.practicum.shareit.request.dto.ItemRequestOutDto;
+import ru.practicum.shareit.utils.PageCursor;
 
 import java.util.List;
 
@@ -12,5 +13,9 @@ public interface ItemRequestService {
 
     List<ItemRequestOutDto> getAllRequestersItemRequests(long ownerId, int from, int size);
 
+    List<ItemRequestOutDto> getAllRequestersItemRequests(long ownerId, PageCursor cursor, int size);
+
     List<ItemRequestOutDto> getAllItemRequests(long userId, int from, int size);
+
+    List<ItemRequestOutDto> getAllItemRequests(long userId, PageCursor cursor, int size);
 }
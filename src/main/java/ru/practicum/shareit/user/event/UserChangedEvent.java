@@ -0,0 +1,11 @@
+package ru.practicum.shareit.user.event;
+
+import lombok.Value;
+
+/**
+ * Published after a user is updated or deleted.
+ */
+@Value
+public class UserChangedEvent {
+    long userId;
+}
@@ -2,11 +2,13 @@ package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.mapper.UserMapper;
+import ru.practicum.shareit.user.event.UserChangedEvent;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.api.UserRepository;
 import ru.practicum.shareit.user.service.api.UserService;
@@ -21,6 +23,7 @@ import java.util.Objects;
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional()
     @Override
@@ -55,6 +58,7 @@ public class UserServiceImpl implements UserService {
         }
 
         User updatedUser = userRepository.save(newUser);
+        eventPublisher.publishEvent(new UserChangedEvent(userId));
         log.info("userService: old user={} update to new user={}", oldUser, updatedUser);
 
         return userMapper.toUserDto(updatedUser);
@@ -72,6 +76,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public void deleteUserById(Long id) {
         userRepository.deleteById(id);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
         log.info("userService: delete user with id={}", id);
     }
 
@@ -0,0 +1,135 @@
+package ru.practicum.shareit.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent queries of one request in parallel, each in its own read-only transaction and so on its own
+ * connection. A query runs in the calling thread when fan-out is disabled or every worker thread is busy, so the
+ * pool needs at least four threads per request thread (three forked queries and headroom) for every request to
+ * fan out, and the connection pool one connection more per worker thread. A forked query's transaction times
+ * out at the batch deadline, and queries still running when the deadline passes are interrupted.
+ */
+@Slf4j
+@Component
+public class ParallelQueryExecutor {
+    private final boolean enabled;
+    private final Duration timeout;
+    private final PlatformTransactionManager transactionManager;
+    private final ThreadPoolExecutor executor;
+
+    public ParallelQueryExecutor(PlatformTransactionManager transactionManager,
+                                 @Value("${shareit.fan-out.enabled:false}") boolean enabled,
+                                 @Value("${shareit.fan-out.threads:4}") int threads,
+                                 @Value("${shareit.fan-out.timeout:5s}") Duration timeout) {
+        this.enabled = enabled;
+        this.timeout = timeout;
+        this.transactionManager = transactionManager;
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                new QueryThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Starts a group of queries that share one deadline.
+     */
+    public Batch batch() {
+        return new Batch(System.nanoTime() + timeout.toNanos());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public final class Batch {
+        private final long deadline;
+        private final List<Future<?>> futures = new ArrayList<>();
+
+        private Batch(long deadline) {
+            this.deadline = deadline;
+        }
+
+        /**
+         * Starts the query and returns a supplier that waits for its result. The query must not return lazy
+         * entities, its session is closed by the time the result is read.
+         */
+        public <T> Supplier<T> fork(Supplier<T> query) {
+            if (enabled) {
+                try {
+                    TransactionTemplate transaction = readOnlyTransaction();
+                    Future<T> future = executor.submit(() -> transaction.execute(status -> query.get()));
+                    futures.add(future);
+                    return () -> join(future);
+                } catch (RejectedExecutionException e) {
+                    log.debug("parallelQueryExecutor: all {} threads are busy, running in the caller",
+                            executor.getMaximumPoolSize());
+                }
+            }
+            T result = query.get();
+            return () -> result;
+        }
+
+        /**
+         * Read-only transaction that times out when the batch does, so a statement still running at the deadline
+         * is cancelled by the JDBC driver rather than left holding its connection.
+         */
+        private TransactionTemplate readOnlyTransaction() {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            transaction.setTimeout((int) Math.max(1, (remainingMillis + 999) / 1000));
+            return transaction;
+        }
+
+        private <T> T join(Future<T> future) {
+            try {
+                return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                futures.forEach(f -> f.cancel(true));
+                throw new QueryTimeoutException(String.format("queries did not finish in %s", timeout));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new IllegalStateException("interrupted while waiting for queries", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    private static final class QueryThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "query-fan-out-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
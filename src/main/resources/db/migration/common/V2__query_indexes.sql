@@ -0,0 +1,13 @@
+-- booker views: ALL/PAST/CURRENT/FUTURE/status pages ordered by start_date
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_start ON bookings (booker_id, start_date);
+
+-- owner views join items by owner, then bookings by item ordered by start_date
+CREATE INDEX IF NOT EXISTS ix_items_owner ON items (owner_id);
+CREATE INDEX IF NOT EXISTS ix_bookings_item_start ON bookings (item_id, start_date);
+
+CREATE INDEX IF NOT EXISTS ix_items_request ON items (request_id);
+
+CREATE INDEX IF NOT EXISTS ix_comments_item ON comments (item_id);
+
+CREATE INDEX IF NOT EXISTS ix_requests_requester_created ON requests (requester_id, created);
+CREATE INDEX IF NOT EXISTS ix_requests_created ON requests (created);
@@ -0,0 +1,14 @@
+-- approved and canceled bookings that ended long ago, moved here in batches by BookingArchiver
+CREATE TABLE bookings_archive
+(
+    id         BIGINT                      NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    item_id    BIGINT                      NOT NULL REFERENCES items (id) ON DELETE RESTRICT,
+    booker_id  BIGINT                      NOT NULL REFERENCES users (id) ON DELETE RESTRICT,
+    status     VARCHAR(8)                  NOT NULL,
+    CONSTRAINT pk_bookings_archive PRIMARY KEY (id)
+);
+
+CREATE INDEX ix_bookings_archive_booker_start ON bookings_archive (booker_id, start_date);
+CREATE INDEX ix_bookings_archive_item_start ON bookings_archive (item_id, start_date);
@@ -0,0 +1,7 @@
+-- ids are allocated by Hibernate in blocks of 50 (pooled-lo optimizer), so inserts of new rows can be batched;
+-- db/migration/{vendor} moves the sequences past the existing ids and makes them the column defaults
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE bookings_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE comments_seq START WITH 1 INCREMENT BY 50;
@@ -0,0 +1,9 @@
+-- databases created by the former schema.sql are baselined at version 1 and never ran V1__init.sql, so the
+-- booking pointers and the booking lookup index added to it later are created here; elsewhere this is a no-op
+ALTER TABLE items ADD COLUMN IF NOT EXISTS last_booking_id BIGINT;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS next_booking_id BIGINT;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS next_booking_start TIMESTAMP WITHOUT TIME ZONE;
+
+CREATE INDEX IF NOT EXISTS ix_items_next_booking_start ON items (next_booking_start);
+
+CREATE INDEX IF NOT EXISTS ix_bookings_item_status_dates ON bookings (item_id, status, start_date, end_date);
@@ -0,0 +1,51 @@
+-- bookings becomes range partitioned by start_date, one partition per month. Partitions for the coming months
+-- are created by BookingPartitions; rows outside of every partition land in bookings_default. The primary key of
+-- a partitioned table has to include the partition key, and identity columns are not allowed on it before
+-- PostgreSQL 17, so ids come from a plain sequence.
+ALTER TABLE bookings RENAME TO bookings_unpartitioned;
+
+CREATE TABLE bookings
+(
+    id         BIGINT                      NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    item_id    BIGINT                      NOT NULL REFERENCES items (id) ON DELETE RESTRICT,
+    booker_id  BIGINT                      NOT NULL REFERENCES users (id) ON DELETE RESTRICT,
+    status     VARCHAR(8) DEFAULT 'WAITING'
+) PARTITION BY RANGE (start_date);
+
+CREATE TABLE bookings_default PARTITION OF bookings DEFAULT;
+
+DO
+$$
+    DECLARE
+        bound     DATE := date_trunc('month', coalesce((SELECT min(start_date) FROM bookings_unpartitioned), now()));
+        last_from DATE := date_trunc('month', greatest((SELECT max(start_date) FROM bookings_unpartitioned), now()))
+            + INTERVAL '3 months';
+    BEGIN
+        WHILE bound <= last_from
+            LOOP
+                EXECUTE format('CREATE TABLE %I PARTITION OF bookings FOR VALUES FROM (%L) TO (%L)',
+                               'bookings_' || to_char(bound, '"y"YYYY"m"MM'), bound, bound + INTERVAL '1 month');
+                bound := bound + INTERVAL '1 month';
+            END LOOP;
+    END
+$$;
+
+INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, status)
+SELECT id, start_date, end_date, item_id, booker_id, status
+FROM bookings_unpartitioned;
+
+DROP TABLE bookings_unpartitioned;
+
+CREATE SEQUENCE bookings_id_seq OWNED BY bookings.id;
+SELECT setval('bookings_id_seq', coalesce((SELECT max(id) FROM bookings), 0) + 1, false);
+ALTER TABLE bookings
+    ALTER COLUMN id SET DEFAULT nextval('bookings_id_seq');
+
+ALTER TABLE bookings
+    ADD CONSTRAINT pk_booking PRIMARY KEY (id, start_date);
+
+CREATE INDEX ix_bookings_item_status_dates ON bookings (item_id, status, start_date, end_date);
+CREATE INDEX ix_bookings_booker_start ON bookings (booker_id, start_date);
+CREATE INDEX ix_bookings_item_start ON bookings (item_id, start_date);
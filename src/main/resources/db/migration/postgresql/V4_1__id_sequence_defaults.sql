@@ -0,0 +1,27 @@
+-- rows inserted without an id take a whole block of 50, so they never collide with ids allocated by Hibernate
+SELECT setval('users_seq', coalesce((SELECT max(id) FROM users), 0) + 1, false);
+SELECT setval('requests_seq', coalesce((SELECT max(id) FROM requests), 0) + 1, false);
+SELECT setval('items_seq', coalesce((SELECT max(id) FROM items), 0) + 1, false);
+SELECT setval('bookings_seq', greatest((SELECT max(id) FROM bookings), (SELECT max(id) FROM bookings_archive), 0) + 1,
+              false);
+SELECT setval('comments_seq', coalesce((SELECT max(id) FROM comments), 0) + 1, false);
+
+ALTER TABLE users
+    ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users
+    ALTER COLUMN id SET DEFAULT nextval('users_seq');
+ALTER TABLE requests
+    ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE requests
+    ALTER COLUMN id SET DEFAULT nextval('requests_seq');
+ALTER TABLE items
+    ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE items
+    ALTER COLUMN id SET DEFAULT nextval('items_seq');
+ALTER TABLE bookings
+    ALTER COLUMN id SET DEFAULT nextval('bookings_seq');
+DROP SEQUENCE bookings_id_seq;
+ALTER TABLE comments
+    ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE comments
+    ALTER COLUMN id SET DEFAULT nextval('comments_seq');
@@ -0,0 +1,72 @@
+package ru.practicum.shareit;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.api.UserRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Bulk inserts go out in JDBC batches: Hibernate prepares the insert of a table once and reuses it for every
+ * batch, and allocates ids with one sequence call per block of 50. Identity ids prepare and run every insert on
+ * its own to read the generated key.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.practicum.shareit.InsertBatchingTest$RecordingInspector")
+class InsertBatchingTest {
+    private static final int ROWS = 120;
+
+    @Autowired
+    EntityManager entityManager;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Test
+    void saveAll_whenManyUsersAndItems_thenInsertsBatchedAndIdsAllocatedInBlocks() {
+        RecordingInspector.STATEMENTS.clear();
+
+        List<User> owners = userRepository.saveAll(IntStream.range(0, ROWS)
+                .mapToObj(i -> User.builder().name("owner" + i).email("owner" + i + "@mail.ru").build())
+                .collect(Collectors.toList()));
+        itemRepository.saveAll(owners.stream()
+                .map(owner -> new Item(0L, "item", "description", true, owner, null))
+                .collect(Collectors.toList()));
+        entityManager.flush();
+
+        assertEquals(1, count("insert into users"));
+        assertEquals(1, count("insert into items"));
+        assertEquals(3, count("users_seq"));
+        assertEquals(3, count("items_seq"));
+        assertEquals(ROWS, owners.stream().map(User::getId).distinct().count());
+    }
+
+    private static long count(String fragment) {
+        return RecordingInspector.STATEMENTS.stream()
+                .filter(sql -> sql.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").contains(fragment))
+                .count();
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.api.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.api.ItemBookingsRow;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.api.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItems;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Starts from a database created by the former schema.sql, before the booking pointers were added to it, and
+ * checks that the migrations after the version 1 baseline bring it to the schema the repositories read.
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:legacy;"
+        + "INIT=RUNSCRIPT FROM 'classpath:db/legacy/schema.sql'")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class MigrationTest {
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    ItemRepository itemRepository;
+    @Autowired
+    BookingRepository bookingRepository;
+
+    @Test
+    void migrate_whenCreatedBySchemaSql_thenBaselinedAndBookingPointersAdded() {
+        List<String> versions = jdbcTemplate.queryForList("SELECT \"version\" FROM \"flyway_schema_history\" "
+                + "WHERE \"version\" IS NOT NULL ORDER BY \"installed_rank\"", String.class);
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_NAME IN ('ITEMS', 'BOOKINGS')",
+                String.class);
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        User owner = userRepository.save(new User(0L, "owner", "legacy-owner@mail.ru"));
+        User booker = userRepository.save(new User(0L, "booker", "legacy-booker@mail.ru"));
+        Item item = itemRepository.save(new Item(0L, "drill", "cordless", true, owner, null));
+        Booking next = bookingRepository.save(
+                new Booking(0L, now.plusDays(1), now.plusDays(2), item, booker, Status.APPROVED));
+
+        itemRepository.updateBookingPointers(List.of(item.getId()), Status.APPROVED.toString(), now);
+        ItemBookingsRow pointers = itemRepository.findBookingPointers(List.of(item.getId())).get(0);
+
+        assertAll(
+                () -> assertEquals("1", versions.get(0)),
+                () -> assertEquals("5", versions.get(versions.size() - 1)),
+                () -> assertThat(indexes, hasItems("IX_ITEMS_NEXT_BOOKING_START", "IX_BOOKINGS_ITEM_STATUS_DATES")),
+                () -> assertEquals(next.getId(), pointers.getNextBookingId()),
+                () -> assertEquals(next.getStart(), pointers.getNextBookingStart())
+        );
+    }
+}
@@ -0,0 +1,205 @@
+package ru.practicum.shareit;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.api.BookingRepository;
+import ru.practicum.shareit.item.comment.repositiry.api.CommentRepository;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+import ru.practicum.shareit.request.repository.api.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.api.UserRepository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Runs the lookup queries of the repositories against seeded tables and fails when H2 plans a full scan of one
+ * of them. Text search queries are left out, they scan by design and are served by the search engines, and so is
+ * the offset page of other users' requests, which matches nearly every row.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.practicum.shareit.QueryPlanTest$RecordingInspector")
+class QueryPlanTest {
+    private static final int USERS = 2_000;
+    private static final int REQUESTS = 10_000;
+    private static final int ITEMS = 20_000;
+    private static final int BOOKINGS = 100_000;
+    private static final int COMMENTS = 20_000;
+    private static final Pattern TABLE_SCAN =
+            Pattern.compile("PUBLIC\\.(USERS|REQUESTS|ITEMS|BOOKINGS|COMMENTS)\\.tableScan");
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final String NOW_LITERAL = "TIMESTAMP '2030-01-01 00:00:00'";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    EntityManager entityManager;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    ItemRepository itemRepository;
+    @Autowired
+    BookingRepository bookingRepository;
+    @Autowired
+    CommentRepository commentRepository;
+    @Autowired
+    ItemRequestRepository requestRepository;
+
+    long userId;
+    long itemId;
+    long bookingId;
+
+    @BeforeEach
+    void setUp() {
+        insert("INSERT INTO users (id, name, email) "
+                + "SELECT X, 'user' || X, 'user' || X || '@mail.ru' FROM SYSTEM_RANGE(1, %d)", USERS);
+        long firstUser = minId("users");
+        insert("INSERT INTO requests (id, description, created, requester_id) "
+                + "SELECT X, 'request' || X, DATEADD('MINUTE', -X, %s), %d + MOD(X, %d) FROM SYSTEM_RANGE(1, %d)",
+                NOW_LITERAL, firstUser, USERS, REQUESTS);
+        long firstRequest = minId("requests");
+        insert("INSERT INTO items (id, name, description, available, owner_id, request_id) "
+                + "SELECT X, 'item' || X, 'description' || X, TRUE, %d + MOD(X, %d), "
+                + "CASE WHEN MOD(X, 2) = 0 THEN %d + MOD(X, %d) END FROM SYSTEM_RANGE(1, %d)",
+                firstUser, USERS, firstRequest, REQUESTS, ITEMS);
+        long firstItem = minId("items");
+        insert("INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, status) "
+                + "SELECT X, DATEADD('HOUR', X - %d, %s), DATEADD('HOUR', X - %d + 2, %s), %d + MOD(X, %d), "
+                + "%d + MOD(X * 7, %d), CASE WHEN MOD(X, 3) = 0 THEN 'WAITING' ELSE 'APPROVED' END "
+                + "FROM SYSTEM_RANGE(1, %d)",
+                BOOKINGS / 2, NOW_LITERAL, BOOKINGS / 2, NOW_LITERAL, firstItem, ITEMS, firstUser, USERS, BOOKINGS);
+        insert("INSERT INTO comments (id, text, item_id, author_id, created) "
+                + "SELECT X, 'comment' || X, %d + MOD(X, %d), %d + MOD(X * 3, %d), DATEADD('MINUTE', -X, %s) "
+                + "FROM SYSTEM_RANGE(1, %d)", firstItem, ITEMS, firstUser, USERS, NOW_LITERAL, COMMENTS);
+        jdbcTemplate.execute("ANALYZE");
+        userId = firstUser + 10;
+        itemId = firstItem + 10;
+        bookingId = minId("bookings");
+    }
+
+    @Test
+    void lookupQueries_whenTablesAreLarge_thenNoTableScan() {
+        User user = userRepository.getReferenceById(userId);
+        Pageable byStart = PageRequest.of(0, 10,
+                Sort.by(Sort.Direction.DESC, "start").and(Sort.by(Sort.Direction.DESC, "id")));
+        Pageable byCreated = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "created"));
+        Pageable first = PageRequest.of(0, 10);
+        List<Long> itemIds = List.of(itemId, itemId + 1, itemId + 2);
+        String approved = Status.APPROVED.toString();
+
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("findAllByBooker_Id", () -> bookingRepository.findAllByBooker_Id(userId, byStart));
+        queries.put("findAllByBooker_IdAndEndBefore",
+                () -> bookingRepository.findAllByBooker_IdAndEndBefore(userId, NOW, byStart));
+        queries.put("findAllByBooker_IdAndStartAfter",
+                () -> bookingRepository.findAllByBooker_IdAndStartAfter(userId, NOW, byStart));
+        queries.put("findAllByBooker_IdAndStartBeforeAndEndAfter",
+                () -> bookingRepository.findAllByBooker_IdAndStartBeforeAndEndAfter(userId, NOW, NOW, byStart));
+        queries.put("findAllByBooker_IdAndStatus",
+                () -> bookingRepository.findAllByBooker_IdAndStatus(userId, Status.WAITING, byStart));
+        queries.put("findAllByItemOwnerId", () -> bookingRepository.findAllByItemOwnerId(userId, byStart));
+        queries.put("findAllByItemOwnerIdAndEndBefore",
+                () -> bookingRepository.findAllByItemOwnerIdAndEndBefore(userId, NOW, byStart));
+        queries.put("findAllByItemOwnerIdAndStartAfter",
+                () -> bookingRepository.findAllByItemOwnerIdAndStartAfter(userId, NOW, byStart));
+        queries.put("findAllByItem_Owner_IdAndStartBeforeAndEndAfter",
+                () -> bookingRepository.findAllByItem_Owner_IdAndStartBeforeAndEndAfter(userId, NOW, NOW, byStart));
+        queries.put("findAllByItemOwnerIdAndStatus",
+                () -> bookingRepository.findAllByItemOwnerIdAndStatus(userId, Status.WAITING, byStart));
+        queries.put("seekAllByBookerId", () -> bookingRepository.seekAllByBookerId(userId, NOW, bookingId, first));
+        queries.put("seekAllByBookerIdAndEndBefore",
+                () -> bookingRepository.seekAllByBookerIdAndEndBefore(userId, NOW, NOW, bookingId, first));
+        queries.put("seekAllByBookerIdAndStartAfter",
+                () -> bookingRepository.seekAllByBookerIdAndStartAfter(userId, NOW, NOW, bookingId, first));
+        queries.put("seekAllByBookerIdAndCurrent",
+                () -> bookingRepository.seekAllByBookerIdAndCurrent(userId, NOW, NOW, bookingId, first));
+        queries.put("seekAllByBookerIdAndStatus",
+                () -> bookingRepository.seekAllByBookerIdAndStatus(userId, Status.WAITING, NOW, bookingId, first));
+        queries.put("seekAllByItemOwnerId",
+                () -> bookingRepository.seekAllByItemOwnerId(userId, NOW, bookingId, first));
+        queries.put("seekAllByItemOwnerIdAndEndBefore",
+                () -> bookingRepository.seekAllByItemOwnerIdAndEndBefore(userId, NOW, NOW, bookingId, first));
+        queries.put("seekAllByItemOwnerIdAndStartAfter",
+                () -> bookingRepository.seekAllByItemOwnerIdAndStartAfter(userId, NOW, NOW, bookingId, first));
+        queries.put("seekAllByItemOwnerIdAndCurrent",
+                () -> bookingRepository.seekAllByItemOwnerIdAndCurrent(userId, NOW, bookingId, first));
+        queries.put("seekAllByItemOwnerIdAndStatus",
+                () -> bookingRepository.seekAllByItemOwnerIdAndStatus(userId, Status.WAITING, NOW, bookingId, first));
+        queries.put("findLastBookingsForItems",
+                () -> bookingRepository.findLastBookingsForItems(itemIds, approved, NOW));
+        queries.put("findNextBookingsForItems",
+                () -> bookingRepository.findNextBookingsForItems(itemIds, approved, NOW));
+        queries.put("existsByItemIdAndBookerIdAndEndBefore",
+                () -> bookingRepository.existsByItemIdAndBookerIdAndEndBefore(itemId, userId, NOW));
+        queries.put("findAllByItem_IdAndStatus",
+                () -> bookingRepository.findAllByItem_IdAndStatus(itemId, Status.APPROVED));
+        queries.put("existsByItem_IdAndStatusAndStartBeforeAndEndAfter",
+                () -> bookingRepository.existsByItem_IdAndStatusAndStartBeforeAndEndAfter(
+                        itemId, Status.APPROVED, NOW, NOW));
+        queries.put("findAllByIdInAndItemOwnerId",
+                () -> bookingRepository.findAllByIdInAndItemOwnerId(List.of(bookingId), userId));
+        queries.put("findAllByItem_IdInAndStatusAndStartBeforeAndEndAfter",
+                () -> bookingRepository.findAllByItem_IdInAndStatusAndStartBeforeAndEndAfter(
+                        itemIds, Status.APPROVED, NOW, NOW));
+        queries.put("findAllByOwner", () -> itemRepository.findAllByOwner(user, first));
+        queries.put("findAllByOwnerAndIdGreaterThanOrderByIdAsc",
+                () -> itemRepository.findAllByOwnerAndIdGreaterThanOrderByIdAsc(user, 0, first));
+        queries.put("findAllByRequest_Id", () -> itemRepository.findAllByRequest_Id(itemId));
+        queries.put("findAllByRequest_IdIn", () -> itemRepository.findAllByRequest_IdIn(itemIds));
+        queries.put("findOwnerItemRows", () -> itemRepository.findOwnerItemRows(userId, 0, 10, 0));
+        queries.put("findBookingPointers", () -> itemRepository.findBookingPointers(itemIds));
+        queries.put("findIdsWithStartedNextBooking", () -> itemRepository.findIdsWithStartedNextBooking(NOW, 10));
+        queries.put("findAllInItemId", () -> commentRepository.findAllInItemId(itemIds));
+        queries.put("findAllByRequester", () -> requestRepository.findAllByRequester(user, byCreated));
+        queries.put("seekAllByRequester", () -> requestRepository.seekAllByRequester(user, NOW, Long.MAX_VALUE, first));
+        queries.put("seekAllByRequesterNot",
+                () -> requestRepository.seekAllByRequesterNot(user, NOW, Long.MAX_VALUE, first));
+
+        List<Executable> checks = new ArrayList<>();
+        queries.forEach((name, query) -> {
+            RecordingInspector.STATEMENTS.clear();
+            query.run();
+            entityManager.clear();
+            for (String sql : new ArrayList<>(RecordingInspector.STATEMENTS)) {
+                String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+                checks.add(() -> assertFalse(TABLE_SCAN.matcher(plan).find(), name + " scans a table:\n" + plan));
+            }
+        });
+        assertAll(checks);
+    }
+
+    private void insert(String sql, Object... args) {
+        jdbcTemplate.execute(String.format(sql, args));
+    }
+
+    private long minId(String table) {
+        return jdbcTemplate.queryForObject("SELECT MIN(id) FROM " + table, Long.class);
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
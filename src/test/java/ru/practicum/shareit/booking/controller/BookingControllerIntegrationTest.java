@@ -9,6 +9,8 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
 import ru.practicum.shareit.booking.dto.BookingOutputDto;
 import ru.practicum.shareit.booking.model.Status;
@@ -16,6 +18,7 @@ import ru.practicum.shareit.booking.service.api.BookingService;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.utils.PageCursor;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -23,9 +26,12 @@ import java.util.List;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -227,4 +233,85 @@ class BookingControllerIntegrationTest {
                         .header("X-Sharer-User-Id", 1))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    @SneakyThrows
+    void getAllUsersBooking_whenCursorGiven_thenSeekPageAndNextCursorHeader() {
+        PageCursor cursor = PageCursor.of(bookingOutputDto.getStart().plusDays(1), 10L);
+        when(bookingService.getAllUsersBookings(anyLong(), any(State.class), any(PageCursor.class), anyInt()))
+                .thenReturn(List.of(bookingOutputDto));
+
+        mvc.perform(get("/bookings")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .param("cursor", cursor.encode())
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PageCursor.NEXT_CURSOR_HEADER,
+                        PageCursor.of(bookingOutputDto.getStart(), bookingOutputDto.getId()).encode()))
+                .andExpect(jsonPath("$.[0].id", is(bookingOutputDto.getId()), Long.class));
+
+        verify(bookingService).getAllUsersBookings(1L, State.ALL, cursor, 1);
+
+        mvc.perform(get("/bookings")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .param("cursor", "garbage")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SneakyThrows
+    void addBookings() {
+        when(bookingService.addBookings(anyList(), anyLong(), any(BatchMode.class)))
+                .thenReturn(List.of(new BookingBatchResultDto(0, bookingOutputDto, null)))
+                .thenReturn(List.of(new BookingBatchResultDto(0, null, "item with id=1 not found")));
+
+        mvc.perform(post("/bookings/batch")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1)
+                        .param("mode", "BEST_EFFORT")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(mapper.writeValueAsString(List.of(bookingInputDto))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.[0].index", is(0)))
+                .andExpect(jsonPath("$.[0].booking.id", is(bookingOutputDto.getId()), Long.class));
+
+        mvc.perform(post("/bookings/batch")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(mapper.writeValueAsString(List.of(bookingInputDto))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.[0].error", is("item with id=1 not found")));
+
+        mvc.perform(post("/bookings/batch")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1)
+                        .param("mode", "xyz")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(mapper.writeValueAsString(List.of(bookingInputDto))))
+                .andExpect(status().isBadRequest());
+
+        verify(bookingService).addBookings(anyList(), eq(1L), eq(BatchMode.BEST_EFFORT));
+        verify(bookingService).addBookings(anyList(), eq(1L), eq(BatchMode.ALL_OR_NOTHING));
+    }
+
+    @Test
+    @SneakyThrows
+    void patchBookings() {
+        when(bookingService.updateBookings(anyList(), anyLong()))
+                .thenReturn(List.of(new BookingBatchResultDto(0, bookingOutputDto, null)));
+
+        mvc.perform(patch("/bookings/bulk")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(mapper.writeValueAsString(List.of(new BookingDecisionDto(1L, true)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].booking.id", is(bookingOutputDto.getId()), Long.class));
+
+        verify(bookingService).updateBookings(List.of(new BookingDecisionDto(1L, true)), 1L);
+        verify(bookingService, never()).updateBooking(anyLong(), anyLong(), anyBoolean());
+    }
+}
@@ -0,0 +1,98 @@
+package ru.practicum.shareit.booking.index;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.api.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class BookingIntervalIndexTest {
+    static final Duration TTL = Duration.ofMillis(100);
+    final BookingRepository bookingRepository = mock(BookingRepository.class);
+    final BookingIntervalIndex bookingIntervalIndex = new BookingIntervalIndex(bookingRepository, 100, TTL);
+    final LocalDateTime dateTime = LocalDateTime.of(2023, 8, 13, 9, 0);
+    final Booking booking = new Booking(7L, dateTime, dateTime.plusDays(1),
+            new Item(1L, "Дрель", "Ударная", true, null, null), null, Status.APPROVED);
+
+    @Test
+    void isBooked_whenOtherItemLoading_thenNotBlocked() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookingRepository.findAllByItem_IdAndStatus(1L, Status.APPROVED)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return List.of();
+        });
+        when(bookingRepository.findAllByItem_IdAndStatus(2L, Status.APPROVED)).thenReturn(List.of());
+
+        CompletableFuture<Boolean> slow = CompletableFuture.supplyAsync(
+                () -> bookingIntervalIndex.isBooked(1L, dateTime, dateTime.plusDays(1)));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> fast = CompletableFuture.supplyAsync(
+                () -> bookingIntervalIndex.isBooked(2L, dateTime, dateTime.plusDays(1)));
+
+        assertFalse(fast.get(5, TimeUnit.SECONDS));
+        release.countDown();
+        assertFalse(slow.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @SneakyThrows
+    void isBooked_whenTreeLoadedWhileBookingCommits_thenNotKept() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            when(bookingRepository.findAllByItem_IdAndStatus(1L, Status.APPROVED))
+                    .thenReturn(List.of())
+                    .thenAnswer(invocation -> {
+                        commit();
+                        return List.of();
+                    })
+                    .thenReturn(List.of(booking));
+            bookingIntervalIndex.onBookingSaved(booking);
+            Thread.sleep(TTL.multipliedBy(2).toMillis());
+
+            assertFalse(bookingIntervalIndex.isBooked(1L, dateTime, dateTime.plusHours(1)));
+            assertTrue(bookingIntervalIndex.isBooked(1L, dateTime, dateTime.plusHours(1)));
+        } finally {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void isBooked_whenTreeLoadedBeforeCommitReplacedUpdatedOne_thenDroppedOnCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            when(bookingRepository.findAllByItem_IdAndStatus(1L, Status.APPROVED))
+                    .thenReturn(List.of(), List.of(), List.of(booking));
+            bookingIntervalIndex.onBookingSaved(booking);
+            Thread.sleep(TTL.multipliedBy(2).toMillis());
+
+            assertFalse(bookingIntervalIndex.isBooked(1L, dateTime, dateTime.plusHours(1)));
+            commit();
+            assertTrue(bookingIntervalIndex.isBooked(1L, dateTime, dateTime.plusHours(1)));
+        } finally {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    private static void commit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingIntervalTreeTest {
+    final LocalDateTime dateTime = LocalDateTime.of(2023, 8, 13, 9, 0);
+
+    @Test
+    void overlaps_whenIntervalsIntersect_thenTrue() {
+        BookingIntervalTree tree = new BookingIntervalTree();
+        tree.add(1L, dateTime, dateTime.plusDays(2));
+        tree.add(2L, dateTime.plusDays(5), dateTime.plusDays(6));
+
+        assertAll(
+                () -> assertTrue(tree.overlaps(dateTime.plusDays(1), dateTime.plusDays(3))),
+                () -> assertTrue(tree.overlaps(dateTime.minusDays(1), dateTime.plusHours(1))),
+                () -> assertTrue(tree.overlaps(dateTime.plusDays(4), dateTime.plusDays(7))),
+                () -> assertFalse(tree.overlaps(dateTime.plusDays(2), dateTime.plusDays(5))),
+                () -> assertFalse(tree.overlaps(dateTime.minusDays(3), dateTime)),
+                () -> assertFalse(tree.overlaps(dateTime.plusDays(6), dateTime.plusDays(8)))
+        );
+    }
+
+    @Test
+    void remove_whenIntervalRemoved_thenNoOverlap() {
+        BookingIntervalTree tree = new BookingIntervalTree();
+        tree.add(1L, dateTime, dateTime.plusDays(2));
+        tree.add(1L, dateTime, dateTime.plusDays(2));
+
+        assertEquals(1, tree.size());
+        assertTrue(tree.remove(1L, dateTime));
+        assertFalse(tree.remove(1L, dateTime));
+        assertFalse(tree.overlaps(dateTime, dateTime.plusDays(2)));
+        assertEquals(0, tree.size());
+    }
+
+    @Test
+    void busyRanges_whenIntervalsTouchOrOverlap_thenMergedAndClipped() {
+        BookingIntervalTree tree = new BookingIntervalTree();
+        tree.add(1L, dateTime.minusDays(1), dateTime.plusDays(1));
+        tree.add(2L, dateTime.plusDays(1), dateTime.plusDays(2));
+        tree.add(3L, dateTime.plusDays(1).plusHours(2), dateTime.plusDays(1).plusHours(3));
+        tree.add(4L, dateTime.plusDays(5), dateTime.plusDays(6));
+        tree.add(5L, dateTime.plusDays(9), dateTime.plusDays(12));
+        tree.add(6L, dateTime.plusDays(20), dateTime.plusDays(21));
+
+        assertEquals(List.of(
+                new TimeRange(dateTime, dateTime.plusDays(2)),
+                new TimeRange(dateTime.plusDays(5), dateTime.plusDays(6)),
+                new TimeRange(dateTime.plusDays(9), dateTime.plusDays(10))
+        ), tree.busyRanges(dateTime, dateTime.plusDays(10)));
+        assertEquals(List.of(), tree.busyRanges(dateTime.plusDays(2), dateTime.plusDays(5)));
+    }
+
+    @Test
+    void overlaps_whenRandomIntervals_thenSameAsLinearScan() {
+        Random random = new Random(42);
+        BookingIntervalTree tree = new BookingIntervalTree();
+        List<LocalDateTime[]> intervals = new ArrayList<>();
+        for (long id = 0; id < 500; id++) {
+            LocalDateTime start = dateTime.plusHours(random.nextInt(10_000));
+            LocalDateTime end = start.plusHours(1 + random.nextInt(200));
+            tree.add(id, start, end);
+            intervals.add(new LocalDateTime[]{start, end});
+        }
+        for (int i = 0; i < 100; i++) {
+            LocalDateTime[] removed = intervals.get(i);
+            tree.remove(i, removed[0]);
+            intervals.set(i, null);
+        }
+
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime start = dateTime.plusHours(random.nextInt(11_000));
+            LocalDateTime end = start.plusHours(1 + random.nextInt(50));
+            boolean expected = intervals.stream()
+                    .anyMatch(interval -> interval != null
+                            && interval[0].isBefore(end)
+                            && interval[1].isAfter(start));
+            assertEquals(expected, tree.overlaps(start, end));
+        }
+    }
+}
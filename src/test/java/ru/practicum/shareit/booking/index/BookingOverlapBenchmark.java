@@ -0,0 +1,98 @@
+package ru.practicum.shareit.booking.index;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overlap check of an item with many approved bookings: the interval tree against the query
+ * addBooking ran before, on an in-memory H2 database with the (item_id, status, start_date, end_date) index.
+ * Not run by the build, start it after test-compile with
+ * <pre>
+ * mvn -q dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     ru.practicum.shareit.booking.index.BookingOverlapBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingOverlapBenchmark {
+    private static final String OVERLAP_QUERY = "SELECT id FROM bookings " +
+            "WHERE item_id = ? AND end_date > ? AND start_date < ? AND status = 'APPROVED' LIMIT 1";
+    private static final LocalDateTime FIRST_START = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Param({"100", "10000", "100000"})
+    int approvedBookings;
+
+    private final Random random = new Random(42);
+    private final BookingIntervalTree tree = new BookingIntervalTree();
+    private Connection connection;
+    private PreparedStatement overlapQuery;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:overlap" + approvedBookings);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE bookings (id BIGINT PRIMARY KEY, start_date TIMESTAMP NOT NULL, " +
+                    "end_date TIMESTAMP NOT NULL, item_id BIGINT NOT NULL, status VARCHAR(8))");
+            statement.execute("CREATE INDEX ix_bookings_item_status_dates " +
+                    "ON bookings (item_id, status, start_date, end_date)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO bookings VALUES (?, ?, ?, 1, 'APPROVED')")) {
+            for (int i = 0; i < approvedBookings; i++) {
+                LocalDateTime start = FIRST_START.plusDays(2L * i);
+                tree.add(i, start, start.plusDays(1));
+                insert.setLong(1, i);
+                insert.setTimestamp(2, Timestamp.valueOf(start));
+                insert.setTimestamp(3, Timestamp.valueOf(start.plusDays(1)));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        overlapQuery = connection.prepareStatement(OVERLAP_QUERY);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public boolean intervalTree() {
+        LocalDateTime start = nextStart();
+        return tree.overlaps(start, start.plusHours(6));
+    }
+
+    @Benchmark
+    public boolean overlapQuery() throws SQLException {
+        LocalDateTime start = nextStart();
+        overlapQuery.setLong(1, 1);
+        overlapQuery.setTimestamp(2, Timestamp.valueOf(start));
+        overlapQuery.setTimestamp(3, Timestamp.valueOf(start.plusHours(6)));
+        try (ResultSet resultSet = overlapQuery.executeQuery()) {
+            return resultSet.next();
+        }
+    }
+
+    /**
+     * Half of the probes fall on a booked day and half on a free one.
+     */
+    private LocalDateTime nextStart() {
+        return FIRST_START.plusHours(12L * random.nextInt(4 * approvedBookings));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BookingOverlapBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,168 @@
+package ru.practicum.shareit.booking.index;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A page of items matching a text and free in a window, over a million approved bookings: the NOT EXISTS anti-join
+ * the search engines run against the chunked post-filtering findNotBookedItems did before, which matched a chunk
+ * of items, fetched the ids booked in the window among them and repeated until the page was full.
+ * Runs on an in-memory H2 database with the (item_id, status, start_date, end_date) index.
+ * Not run by the build, start it after test-compile with
+ * <pre>
+ * mvn -q dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     ru.practicum.shareit.booking.index.NotBookedSearchBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotBookedSearchBenchmark {
+    private static final int ITEMS = 10_000;
+    private static final int BOOKINGS = 1_000_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int CHUNK_SIZE = 100;
+    private static final String MATCH_QUERY = "SELECT id FROM items " +
+            "WHERE available AND LOWER(name) LIKE '%drill%' AND id > ? ORDER BY id LIMIT ?";
+    private static final String BOOKED_QUERY = "SELECT DISTINCT item_id FROM bookings " +
+            "WHERE item_id IN (" + String.join(", ", Collections.nCopies(CHUNK_SIZE, "?")) + ") " +
+            "AND status = 'APPROVED' AND start_date < ? AND end_date > ?";
+    private static final String ANTI_JOIN_QUERY = "SELECT i.id FROM items i " +
+            "WHERE i.available AND LOWER(i.name) LIKE '%drill%' AND NOT EXISTS (SELECT b.id FROM bookings b " +
+            "WHERE b.item_id = i.id AND b.status = 'APPROVED' AND b.start_date < ? AND b.end_date > ?) " +
+            "ORDER BY i.id LIMIT ?";
+    private static final LocalDateTime FIRST_START = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    /**
+     * Share of the items booked in every probed window, the post-filter needs more chunks the higher it is.
+     */
+    @Param({"10", "50", "90"})
+    int bookedPercent;
+
+    private final Random random = new Random(42);
+    private Connection connection;
+    private PreparedStatement matchQuery;
+    private PreparedStatement bookedQuery;
+    private PreparedStatement antiJoinQuery;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:notbooked" + bookedPercent);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE items (id BIGINT PRIMARY KEY, name VARCHAR(255), available BOOLEAN)");
+            statement.execute("CREATE TABLE bookings (id BIGINT PRIMARY KEY, start_date TIMESTAMP NOT NULL, " +
+                    "end_date TIMESTAMP NOT NULL, item_id BIGINT NOT NULL, status VARCHAR(8))");
+            statement.execute("CREATE INDEX ix_bookings_item_status_dates " +
+                    "ON bookings (item_id, status, start_date, end_date)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO items VALUES (?, ?, TRUE)")) {
+            for (int i = 1; i <= ITEMS; i++) {
+                insert.setLong(1, i);
+                insert.setString(2, "drill " + i);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        int bookingsPerItem = BOOKINGS / ITEMS;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO bookings VALUES (?, ?, ?, ?, 'APPROVED')")) {
+            long id = 0;
+            for (int item = 1; item <= ITEMS; item++) {
+                // booked items hold every day, the others every other day so that the windows fall between
+                boolean booked = item % 100 < bookedPercent;
+                for (int i = 0; i < bookingsPerItem; i++) {
+                    LocalDateTime start = FIRST_START.plusDays(booked ? i : 2L * i);
+                    insert.setLong(1, id++);
+                    insert.setTimestamp(2, Timestamp.valueOf(start));
+                    insert.setTimestamp(3, Timestamp.valueOf(start.plusDays(1)));
+                    insert.setLong(4, item);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+        matchQuery = connection.prepareStatement(MATCH_QUERY);
+        bookedQuery = connection.prepareStatement(BOOKED_QUERY);
+        antiJoinQuery = connection.prepareStatement(ANTI_JOIN_QUERY);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public List<Long> antiJoin() throws SQLException {
+        LocalDateTime start = nextStart();
+        antiJoinQuery.setTimestamp(1, Timestamp.valueOf(start.plusHours(6)));
+        antiJoinQuery.setTimestamp(2, Timestamp.valueOf(start));
+        antiJoinQuery.setInt(3, PAGE_SIZE);
+        return ids(antiJoinQuery);
+    }
+
+    @Benchmark
+    public List<Long> chunkedPostFilter() throws SQLException {
+        LocalDateTime start = nextStart();
+        List<Long> page = new ArrayList<>(PAGE_SIZE);
+        long afterId = 0;
+        while (page.size() < PAGE_SIZE) {
+            matchQuery.setLong(1, afterId);
+            matchQuery.setInt(2, CHUNK_SIZE);
+            List<Long> chunk = ids(matchQuery);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            // the chunk's ids bound like the expanded IN (:itemIds) of the former repository query
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                bookedQuery.setLong(i + 1, i < chunk.size() ? chunk.get(i) : -1);
+            }
+            bookedQuery.setTimestamp(CHUNK_SIZE + 1, Timestamp.valueOf(start.plusHours(6)));
+            bookedQuery.setTimestamp(CHUNK_SIZE + 2, Timestamp.valueOf(start));
+            Set<Long> booked = new HashSet<>(ids(bookedQuery));
+            for (Long id : chunk) {
+                if (!booked.contains(id) && page.size() < PAGE_SIZE) {
+                    page.add(id);
+                }
+            }
+            afterId = chunk.get(chunk.size() - 1);
+        }
+        return page;
+    }
+
+    private static List<Long> ids(PreparedStatement query) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (ResultSet resultSet = query.executeQuery()) {
+            while (resultSet.next()) {
+                ids.add(resultSet.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * A window on the first half of an odd day, booked for the every-day items only.
+     */
+    private LocalDateTime nextStart() {
+        return FIRST_START.plusDays(2L * random.nextInt(BOOKINGS / ITEMS / 2) + 1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(NotBookedSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.api.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.repository.api.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.api.UserRepository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class BookingArchiverTest {
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    ItemRepository itemRepository;
+    @Autowired
+    BookingRepository bookingRepository;
+    @Autowired
+    ArchivedBookingRepository archivedBookingRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    EntityManager entityManager;
+
+    final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @Test
+    void archiveBatch_whenBookingsEndedLongAgo_thenMovedExceptWaitingAndItemsLastBooking() {
+        User owner = userRepository.save(User.builder().name("owner").email("owner@mail.ru").build());
+        User booker = userRepository.save(User.builder().name("booker").email("booker@mail.ru").build());
+        Item item = itemRepository.save(new Item(0L, "item", "description", true, owner, null));
+        Booking old = save(now.minusYears(2), item, booker, Status.APPROVED);
+        Booking oldCanceled = save(now.minusYears(1).minusMonths(6), item, booker, Status.CANCELED);
+        Booking oldWaiting = save(now.minusYears(1).minusMonths(3), item, booker, Status.WAITING);
+        Booking last = save(now.minusYears(1), item, booker, Status.APPROVED);
+        Booking recent = save(now.minusMonths(1), item, booker, Status.REJECTED);
+        itemRepository.updateBookingPointers(List.of(item.getId()), Status.APPROVED.toString(), now);
+        BookingArchiver archiver = new BookingArchiver(bookingRepository, archivedBookingRepository,
+                transactionManager, 6, 500);
+
+        int archived = archiver.archiveBatch(now.minusMonths(6));
+        entityManager.clear();
+
+        assertEquals(2, archived);
+        assertEquals(List.of(oldWaiting.getId(), last.getId(), recent.getId()), bookingRepository.findAll().stream()
+                .map(Booking::getId).sorted().collect(Collectors.toList()));
+        assertEquals(List.of(oldCanceled.getId(), old.getId()),
+                archivedBookingRepository.findAllByBookerId(booker.getId(),
+                                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "start"))).stream()
+                        .map(ArchivedBooking::getId).collect(Collectors.toList()));
+        assertTrue(archivedBookingRepository.existsByItemIdAndBookerIdAndEndBefore(item.getId(), booker.getId(),
+                now));
+    }
+
+    private Booking save(LocalDateTime start, Item item, User booker, Status status) {
+        return bookingRepository.save(new Booking(0L, start, start.plusDays(1), item, booker, status));
+    }
+}
@@ -0,0 +1,78 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BookingPartitionsTest {
+    final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    final BookingPartitions bookingPartitions = new BookingPartitions(jdbcTemplate, transactionManager, 2);
+
+    @Test
+    void monthsFrom_whenYearEnds_thenNextYearMonths() {
+        assertEquals(List.of(YearMonth.of(2026, 11), YearMonth.of(2026, 12), YearMonth.of(2027, 1)),
+                BookingPartitions.monthsFrom(YearMonth.of(2026, 11), 2));
+    }
+
+    @Test
+    void partitionName_thenPaddedYearAndMonth() {
+        assertEquals("bookings_y2027m03", BookingPartitions.partitionName(YearMonth.of(2027, 3)));
+    }
+
+    @Test
+    void createMissing_whenSomePartitionsExist_thenCreatesOthersFromDefaultPartition() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(List.of("bookings_default", "bookings_y2026m10", "bookings_y2026m11"));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        bookingPartitions.createMissing(YearMonth.of(2026, 10));
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute(startsWith("SELECT pg_advisory_xact_lock("));
+        inOrder.verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS bookings_y2026m12 " +
+                "(LIKE bookings INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        inOrder.verify(jdbcTemplate).execute("LOCK TABLE bookings_default IN EXCLUSIVE MODE");
+        inOrder.verify(jdbcTemplate).update(contains("DELETE FROM bookings_default"),
+                eq("2026-12-01T00:00"), eq("2027-01-01T00:00"));
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE bookings ATTACH PARTITION bookings_y2026m12 " +
+                "FOR VALUES FROM ('2026-12-01T00:00') TO ('2027-01-01T00:00')");
+        verify(jdbcTemplate, times(4)).execute(anyString());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void createMissing_whenAnotherNodeAttachedPartitionMeanwhile_thenNothingCreated() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(List.of("bookings_default", "bookings_y2026m10", "bookings_y2026m11"))
+                .thenReturn(List.of("bookings_default", "bookings_y2026m10", "bookings_y2026m11",
+                        "bookings_y2026m12"));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        bookingPartitions.createMissing(YearMonth.of(2026, 10));
+
+        verify(jdbcTemplate).execute(startsWith("SELECT pg_advisory_xact_lock("));
+        verify(jdbcTemplate, never()).execute(startsWith("CREATE TABLE"));
+        verify(jdbcTemplate, never()).update(anyString(), anyString(), anyString());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void createAhead_whenDatabaseFails_thenLoggedNotThrown() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        assertDoesNotThrow(bookingPartitions::createAhead);
+    }
+}
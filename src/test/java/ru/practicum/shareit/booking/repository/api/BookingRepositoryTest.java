@@ -5,6 +5,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.item.comment.repositiry.api.CommentRepository;
@@ -15,6 +17,7 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.api.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static java.time.LocalDateTime.now;
@@ -175,4 +178,103 @@ class BookingRepositoryTest {
                 () -> assertThat(nextBookingsForItems, hasItem(booking4))
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void findLastAndNextBookingsForItems_whenSameStartOrOtherStatus_thenOneApprovedBookingPerItem() {
+        LocalDateTime date = now().truncatedTo(ChronoUnit.SECONDS);
+        booking1.setStart(date.minusDays(1));
+        booking2.setStart(date.minusDays(1));
+        booking3.setStart(date.minusHours(1));
+        booking4.setStart(date.plusHours(1));
+        booking4.setItem(item1);
+        for (Booking booking : List.of(booking1, booking2, booking3, booking4)) {
+            booking.setEnd(date.plusDays(1));
+        }
+        booking3.setStatus(Status.REJECTED);
+
+        booking1 = bookingRepository.save(booking1);
+        booking2 = bookingRepository.save(booking2);
+        booking3 = bookingRepository.save(booking3);
+        booking4 = bookingRepository.save(booking4);
+        List<Long> itemIds = List.of(item1.getId(), item2.getId(), item3.getId());
+
+        assertAll(
+                () -> assertEquals(List.of(booking2),
+                        bookingRepository.findLastBookingsForItems(itemIds, status.toString(), date)),
+                () -> assertEquals(List.of(booking4),
+                        bookingRepository.findNextBookingsForItems(itemIds, status.toString(), date))
+        );
+    }
+
+    @Test
+    void seekAllByBookerId() {
+        LocalDateTime start = now().minusDays(10).truncatedTo(ChronoUnit.SECONDS);
+        booking1.setStart(start);
+        booking2.setStart(start);
+        booking3.setStart(start.plusDays(1));
+        booking4.setStart(start.minusDays(1));
+        booking1.setEnd(now());
+        booking2.setEnd(now());
+        booking3.setEnd(now());
+        booking4.setEnd(now());
+        booking1.setBooker(booker1);
+        booking2.setBooker(booker1);
+        booking3.setBooker(booker1);
+        booking4.setBooker(booker1);
+
+        booking1 = bookingRepository.save(booking1);
+        booking2 = bookingRepository.save(booking2);
+        booking3 = bookingRepository.save(booking3);
+        booking4 = bookingRepository.save(booking4);
+
+        List<Booking> firstPage = bookingRepository.seekAllByBookerId(
+                booker1.getId(), booking3.getStart(), booking3.getId() + 1, PageRequest.of(0, 2));
+        Booking last = firstPage.get(firstPage.size() - 1);
+        List<Booking> secondPage = bookingRepository.seekAllByBookerId(
+                booker1.getId(), last.getStart(), last.getId(), PageRequest.of(0, 2));
+
+        assertAll(
+                () -> assertEquals(List.of(booking3, booking2), firstPage),
+                () -> assertEquals(List.of(booking1, booking4), secondPage)
+        );
+    }
+
+    @Test
+    void findAllByBookerId_whenCursorTakenFromOffsetPage_thenSeekContinuesIt() {
+        LocalDateTime start = now().minusDays(10).truncatedTo(ChronoUnit.SECONDS);
+        for (Booking booking : List.of(booking1, booking2, booking3, booking4)) {
+            booking.setStart(start);
+            booking.setEnd(now());
+            booking.setBooker(booker1);
+            bookingRepository.save(booking);
+        }
+
+        List<Booking> offsetPage = bookingRepository.findAllByBooker_Id(booker1.getId(), PageRequest.of(0, 2,
+                Sort.by(Sort.Direction.DESC, "start").and(Sort.by(Sort.Direction.DESC, "id"))));
+        Booking last = offsetPage.get(offsetPage.size() - 1);
+        List<Booking> seekPage = bookingRepository.seekAllByBookerId(
+                booker1.getId(), last.getStart(), last.getId(), PageRequest.of(0, 2));
+
+        assertAll(
+                () -> assertEquals(List.of(booking4, booking3), offsetPage),
+                () -> assertEquals(List.of(booking2, booking1), seekPage)
+        );
+    }
+
+    @Test
+    void findAllByIdInAndItemOwnerId() {
+        for (Booking booking : List.of(booking1, booking2, booking3, booking4)) {
+            booking.setStart(now().plusDays(1));
+            booking.setEnd(now().plusDays(2));
+        }
+        booking1 = bookingRepository.save(booking1);
+        booking2 = bookingRepository.save(booking2);
+        booking3 = bookingRepository.save(booking3);
+        booking4 = bookingRepository.save(booking4);
+
+        List<Booking> ownersBookings = bookingRepository.findAllByIdInAndItemOwnerId(
+                List.of(booking1.getId(), booking3.getId(), booking4.getId()), owner1.getId());
+
+        assertEquals(List.of(booking1), ownersBookings);
+    }
+}
@@ -0,0 +1,171 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingInputDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.api.BookingRepository;
+import ru.practicum.shareit.booking.service.api.BookingService;
+import ru.practicum.shareit.exception.NotAvailableException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.api.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.api.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {"spring.datasource.url=jdbc:h2:mem:shareit-concurrency"})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class BookingServiceConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int BOOKINGS = 64;
+    private static final int DECISION_ROUNDS = 20;
+
+    private final UserService userService;
+    private final ItemService itemService;
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+
+    @Test
+    @SneakyThrows
+    void updateBooking_whenOverlappingApprovalsRace_thenNoApprovedOverlaps() {
+        UserDto owner = userService.addUser(new UserDto(0, "owner", "race-owner@mail.ru"));
+        UserDto booker = userService.addUser(new UserDto(0, "booker", "race-booker@mail.ru"));
+        ItemDto item = itemService.addItem(new ItemDto(0, "drill", "hot item", true, null), owner.getId());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            BookingInputDto bookingInputDto = new BookingInputDto(
+                    start.plusHours(i % 8), start.plusHours(i % 8 + 12), item.getId());
+            bookingIds.add(bookingService.addBooking(bookingInputDto, booker.getId()).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        AtomicInteger approved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (long bookingId : bookingIds) {
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                try {
+                    bookingService.updateBooking(bookingId, owner.getId(), true);
+                    approved.incrementAndGet();
+                } catch (NotAvailableException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        startSignal.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<Booking> approvedBookings = bookingRepository.findAllByItem_IdAndStatus(item.getId(), Status.APPROVED);
+        for (Booking first : approvedBookings) {
+            for (Booking second : approvedBookings) {
+                if (first.getId() != second.getId()) {
+                    assertFalse(first.getStart().isBefore(second.getEnd())
+                            && second.getStart().isBefore(first.getEnd()),
+                            String.format("bookings %d and %d overlap", first.getId(), second.getId()));
+                }
+            }
+        }
+        assertAll(
+                () -> assertEquals(1, approved.get()),
+                () -> assertEquals(BOOKINGS - 1, rejected.get()),
+                () -> assertEquals(1, approvedBookings.size())
+        );
+    }
+
+    @Test
+    @SneakyThrows
+    void updateBooking_whenApproveAndRejectRace_thenOnlyOneDecisionWins() {
+        UserDto owner = userService.addUser(new UserDto(0, "owner", "decision-owner@mail.ru"));
+        UserDto booker = userService.addUser(new UserDto(0, "booker", "decision-booker@mail.ru"));
+        ItemDto item = itemService.addItem(new ItemDto(0, "saw", "contested item", true, null), owner.getId());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        for (int round = 0; round < DECISION_ROUNDS; round++) {
+            BookingInputDto bookingInputDto = new BookingInputDto(
+                    start.plusDays(round), start.plusDays(round).plusHours(1), item.getId());
+            long bookingId = bookingService.addBooking(bookingInputDto, booker.getId()).getId();
+            CountDownLatch startSignal = new CountDownLatch(1);
+            Future<Status> approve = executor.submit(() -> decide(startSignal, bookingId, owner.getId(), true));
+            Future<Status> reject = executor.submit(() -> decide(startSignal, bookingId, owner.getId(), false));
+            startSignal.countDown();
+            Status approveOutcome = approve.get(30, TimeUnit.SECONDS);
+            Status rejectOutcome = reject.get(30, TimeUnit.SECONDS);
+
+            Status stored = bookingRepository.findById(bookingId).orElseThrow().getStatus();
+            assertTrue((approveOutcome == Status.APPROVED) != (rejectOutcome == Status.REJECTED),
+                    String.format("both or neither decision succeeded in round %d", round));
+            assertEquals(approveOutcome == Status.APPROVED ? Status.APPROVED : Status.REJECTED, stored);
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    @SneakyThrows
+    void updateBookings_whenBulkRejectRacesSingleApprove_thenOnlyOneDecisionWins() {
+        UserDto owner = userService.addUser(new UserDto(0, "owner", "bulk-owner@mail.ru"));
+        UserDto booker = userService.addUser(new UserDto(0, "booker", "bulk-booker@mail.ru"));
+        ItemDto item = itemService.addItem(new ItemDto(0, "ladder", "contested item", true, null), owner.getId());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        for (int round = 0; round < DECISION_ROUNDS; round++) {
+            BookingInputDto bookingInputDto = new BookingInputDto(
+                    start.plusDays(round), start.plusDays(round).plusHours(1), item.getId());
+            long bookingId = bookingService.addBooking(bookingInputDto, booker.getId()).getId();
+            CountDownLatch startSignal = new CountDownLatch(1);
+            Future<Status> approve = executor.submit(() -> decide(startSignal, bookingId, owner.getId(), true));
+            Future<Status> reject = executor.submit(() -> {
+                startSignal.await();
+                BookingBatchResultDto result = bookingService.updateBookings(
+                        List.of(new BookingDecisionDto(bookingId, false)), owner.getId()).get(0);
+                return result.getError() == null ? result.getBooking().getStatus() : Status.WAITING;
+            });
+            startSignal.countDown();
+            Status approveOutcome = approve.get(30, TimeUnit.SECONDS);
+            Status rejectOutcome = reject.get(30, TimeUnit.SECONDS);
+
+            Status stored = bookingRepository.findById(bookingId).orElseThrow().getStatus();
+            assertTrue((approveOutcome == Status.APPROVED) != (rejectOutcome == Status.REJECTED),
+                    String.format("both or neither decision succeeded in round %d", round));
+            assertEquals(approveOutcome == Status.APPROVED ? Status.APPROVED : Status.REJECTED, stored);
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Status set by the decision, or WAITING when it was refused.
+     */
+    private Status decide(CountDownLatch startSignal, long bookingId, long ownerId, boolean approved)
+            throws InterruptedException {
+        startSignal.await();
+        try {
+            return bookingService.updateBooking(bookingId, ownerId, approved).getStatus();
+        } catch (ResponseStatusException e) {
+            return Status.WAITING;
+        }
+    }
+}
@@ -6,16 +6,23 @@ import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.booking.controller.BatchMode;
 import ru.practicum.shareit.booking.controller.State;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
 import ru.practicum.shareit.booking.dto.BookingOutputDto;
 import ru.practicum.shareit.booking.dto.mapper.BookingMapper;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.api.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.repository.api.BookingRepository;
 import ru.practicum.shareit.exception.NotAvailableException;
 import ru.practicum.shareit.exception.NotFoundException;
@@ -25,10 +32,14 @@ import ru.practicum.shareit.item.repository.api.ItemRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.api.UserRepository;
+import ru.practicum.shareit.utils.PageCursor;
+import ru.practicum.shareit.utils.PageRequestUtil;
 
+import javax.validation.Validator;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -44,8 +55,17 @@ class BookingServiceImplTest {
     @Mock
     BookingRepository bookingRepository;
     @Mock
+    ArchivedBookingRepository archivedBookingRepository;
+    @Mock
     BookingMapper bookingMapper;
+    @Mock
+    BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    Validator validator;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
 
+    final Sort startDesc = Sort.by(Sort.Direction.DESC, "start").and(Sort.by(Sort.Direction.DESC, "id"));
     final LocalDateTime dateTime = LocalDateTime.of(2023, 8, 13, 9, 28, 26);
     final long userId = 1L;
     final String userName = "User";
@@ -97,9 +117,8 @@ class BookingServiceImplTest {
                 Status.APPROVED
         );
 
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-        when(bookingRepository.findFirstByItem_IdAndEndAfterAndStartBeforeAndStatus(anyLong(), any(), any(), any()))
-                .thenReturn(Optional.empty());
+        when(itemRepository.findByIdForUpdate(itemId)).thenReturn(Optional.of(item));
+        when(bookingIntervalIndex.isBooked(anyLong(), any(), any())).thenReturn(false);
         when(userRepository.findById(bookerId)).thenReturn(Optional.of(booker));
         when(bookingMapper.toBooking(bookingInputDto, item, booker)).thenReturn(newBooking);
         when(bookingRepository.save(newBooking)).thenReturn(addedBooking);
@@ -107,12 +126,13 @@ class BookingServiceImplTest {
 
         BookingOutputDto resultBookingOutputDto = bookingService.addBooking(bookingInputDto, bookerId);
 
-        InOrder inOrder = inOrder(itemRepository, bookingRepository, userRepository, bookingMapper);
-        inOrder.verify(itemRepository).findById(itemId);
-        inOrder.verify(bookingRepository).findFirstByItem_IdAndEndAfterAndStartBeforeAndStatus(
-                anyLong(), any(), any(), any());
+        InOrder inOrder = inOrder(itemRepository, bookingIntervalIndex, userRepository, bookingRepository,
+                bookingMapper);
+        inOrder.verify(itemRepository).findByIdForUpdate(itemId);
+        inOrder.verify(bookingIntervalIndex).isBooked(anyLong(), any(), any());
         inOrder.verify(userRepository).findById(bookerId);
         inOrder.verify(bookingRepository).save(newBooking);
+        inOrder.verify(bookingIntervalIndex).onBookingSaved(addedBooking);
         inOrder.verify(bookingMapper).toBookingOutputDto(addedBooking);
         assertEquals(expectedBookingDto, resultBookingOutputDto);
     }
@@ -129,7 +149,7 @@ class BookingServiceImplTest {
     @Test
     void addBooking_whenItemNotFound_thenNotFoundException() {
         BookingInputDto bookingInputDto = new BookingInputDto(start, end, itemId);
-        when(itemRepository.findById(itemId)).thenReturn(Optional.empty());
+        when(itemRepository.findByIdForUpdate(itemId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class,
                 () -> bookingService.addBooking(bookingInputDto, userId));
@@ -141,7 +161,7 @@ class BookingServiceImplTest {
         User owner = new User(ownerId, userName, email);
         BookingInputDto bookingInputDto = new BookingInputDto(start, end, itemId);
         Item item = new Item(itemId, itemName, itemDescription, false, owner, null);
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(itemRepository.findByIdForUpdate(itemId)).thenReturn(Optional.of(item));
 
         assertThrows(NotAvailableException.class,
                 () -> bookingService.addBooking(bookingInputDto, userId));
@@ -153,12 +173,27 @@ class BookingServiceImplTest {
         User owner = new User(ownerId, userName, email);
         BookingInputDto bookingInputDto = new BookingInputDto(start, end, itemId);
         Item item = new Item(itemId, itemName, itemDescription, true, owner, null);
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-        when(bookingRepository.findFirstByItem_IdAndEndAfterAndStartBeforeAndStatus(anyLong(), any(), any(), any()))
-                .thenReturn(Optional.of(new Booking()));
+        when(itemRepository.findByIdForUpdate(itemId)).thenReturn(Optional.of(item));
+        when(bookingIntervalIndex.isBooked(anyLong(), any(), any())).thenReturn(true);
+
+        assertThrows(NotAvailableException.class,
+                () -> bookingService.addBooking(bookingInputDto, userId));
+    }
+
+    @Test
+    void addBooking_whenIndexMissesBookingApprovedElsewhere_thenDatabaseRejects() {
+        Long ownerId = userId + 10;
+        User owner = new User(ownerId, userName, email);
+        BookingInputDto bookingInputDto = new BookingInputDto(start, end, itemId);
+        Item item = new Item(itemId, itemName, itemDescription, true, owner, null);
+        when(itemRepository.findByIdForUpdate(itemId)).thenReturn(Optional.of(item));
+        when(bookingIntervalIndex.isBooked(itemId, start, end)).thenReturn(false);
+        when(bookingRepository.existsByItem_IdAndStatusAndStartBeforeAndEndAfter(itemId, Status.APPROVED, end, start))
+                .thenReturn(true);
 
         assertThrows(NotAvailableException.class,
                 () -> bookingService.addBooking(bookingInputDto, userId));
+        verify(bookingRepository, never()).save(any());
     }
 
     @Test
@@ -167,9 +202,8 @@ class BookingServiceImplTest {
         User owner = new User(ownerId, userName, email);
         BookingInputDto bookingInputDto = new BookingInputDto(start, end, itemId);
         Item item = new Item(itemId, itemName, itemDescription, true, owner, null);
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-        when(bookingRepository.findFirstByItem_IdAndEndAfterAndStartBeforeAndStatus(anyLong(), any(), any(), any()))
-                .thenReturn(Optional.empty());
+        when(itemRepository.findByIdForUpdate(itemId)).thenReturn(Optional.of(item));
+        when(bookingIntervalIndex.isBooked(anyLong(), any(), any())).thenReturn(false);
 
         assertThrows(NotFoundException.class,
                 () -> bookingService.addBooking(bookingInputDto, ownerId));
@@ -182,15 +216,191 @@ class BookingServiceImplTest {
         User owner = new User(ownerId, userName, email);
         BookingInputDto bookingInputDto = new BookingInputDto(start, end, itemId);
         Item item = new Item(itemId, itemName, itemDescription, true, owner, null);
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-        when(bookingRepository.findFirstByItem_IdAndEndAfterAndStartBeforeAndStatus(anyLong(), any(), any(), any()))
-                .thenReturn(Optional.empty());
+        when(itemRepository.findByIdForUpdate(itemId)).thenReturn(Optional.of(item));
+        when(bookingIntervalIndex.isBooked(anyLong(), any(), any())).thenReturn(false);
         when(userRepository.findById(bookerId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class,
                 () -> bookingService.addBooking(bookingInputDto, bookerId));
     }
 
+    @Test
+    void addBookings_whenAllEntriesValid_thenAllAddedInOneSave() {
+        long ownerId = userId + 5;
+        long bookerId = userId + 10;
+        User owner = new User(ownerId, userName, email);
+        User booker = new User(bookerId, "booker", "booker@mail.ru");
+        Item item1 = new Item(itemId, itemName, itemDescription, true, owner, null);
+        Item item2 = new Item(itemId + 1, itemName, itemDescription, true, owner, null);
+        BookingInputDto bookingInputDto1 = new BookingInputDto(start, end, item1.getId());
+        BookingInputDto bookingInputDto2 = new BookingInputDto(start, end, item2.getId());
+        Booking newBooking1 = new Booking(0, start, end, item1, booker, Status.WAITING);
+        Booking newBooking2 = new Booking(0, start, end, item2, booker, Status.WAITING);
+        Booking addedBooking1 = new Booking(bookingId, start, end, item1, booker, Status.WAITING);
+        Booking addedBooking2 = new Booking(bookingId + 1, start, end, item2, booker, Status.WAITING);
+        BookingOutputDto bookingOutputDto1 = new BookingOutputDto(
+                bookingId, start, end, new ItemDto(), new UserDto(), Status.WAITING);
+        BookingOutputDto bookingOutputDto2 = new BookingOutputDto(
+                bookingId + 1, start, end, new ItemDto(), new UserDto(), Status.WAITING);
+        when(userRepository.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(itemRepository.findAllByIdInForUpdate(Set.of(item1.getId(), item2.getId())))
+                .thenReturn(List.of(item1, item2));
+        when(bookingMapper.toBooking(bookingInputDto1, item1, booker)).thenReturn(newBooking1);
+        when(bookingMapper.toBooking(bookingInputDto2, item2, booker)).thenReturn(newBooking2);
+        when(bookingRepository.saveAll(List.of(newBooking1, newBooking2)))
+                .thenReturn(List.of(addedBooking1, addedBooking2));
+        when(bookingMapper.toBookingOutputDto(addedBooking1)).thenReturn(bookingOutputDto1);
+        when(bookingMapper.toBookingOutputDto(addedBooking2)).thenReturn(bookingOutputDto2);
+
+        List<BookingBatchResultDto> results = bookingService.addBookings(
+                List.of(bookingInputDto1, bookingInputDto2), bookerId, BatchMode.ALL_OR_NOTHING);
+
+        verify(bookingRepository).saveAll(List.of(newBooking1, newBooking2));
+        verify(bookingIntervalIndex).onBookingSaved(addedBooking1);
+        verify(bookingIntervalIndex).onBookingSaved(addedBooking2);
+        assertEquals(List.of(
+                new BookingBatchResultDto(0, bookingOutputDto1, null),
+                new BookingBatchResultDto(1, bookingOutputDto2, null)), results);
+    }
+
+    @Test
+    void addBookings_whenEntryFailsInAllOrNothingMode_thenNothingSaved() {
+        long ownerId = userId + 5;
+        long bookerId = userId + 10;
+        User owner = new User(ownerId, userName, email);
+        User booker = new User(bookerId, "booker", "booker@mail.ru");
+        Item item = new Item(itemId, itemName, itemDescription, true, owner, null);
+        BookingInputDto validDto = new BookingInputDto(start, end, item.getId());
+        BookingInputDto unknownItemDto = new BookingInputDto(start, end, itemId + 100);
+        when(userRepository.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(itemRepository.findAllByIdInForUpdate(Set.of(item.getId(), itemId + 100))).thenReturn(List.of(item));
+        when(bookingMapper.toBooking(validDto, item, booker)).thenReturn(new Booking());
+
+        List<BookingBatchResultDto> results = bookingService.addBookings(
+                List.of(validDto, unknownItemDto), bookerId, BatchMode.ALL_OR_NOTHING);
+
+        verify(bookingRepository, never()).saveAll(any());
+        assertAll(
+                () -> assertNull(results.get(0).getError()),
+                () -> assertNull(results.get(0).getBooking()),
+                () -> assertEquals(String.format("item with id=%d not found", itemId + 100), results.get(1).getError())
+        );
+    }
+
+    @Test
+    void addBookings_whenEntryFailsInBestEffortMode_thenValidEntriesSaved() {
+        long ownerId = userId + 5;
+        long bookerId = userId + 10;
+        User owner = new User(ownerId, userName, email);
+        User booker = new User(bookerId, "booker", "booker@mail.ru");
+        Item item = new Item(itemId, itemName, itemDescription, true, owner, null);
+        BookingInputDto validDto = new BookingInputDto(start, end, item.getId());
+        BookingInputDto badDatesDto = new BookingInputDto(end, start, item.getId());
+        Booking newBooking = new Booking(0, start, end, item, booker, Status.WAITING);
+        Booking addedBooking = new Booking(bookingId, start, end, item, booker, Status.WAITING);
+        BookingOutputDto bookingOutputDto = new BookingOutputDto(
+                bookingId, start, end, new ItemDto(), new UserDto(), Status.WAITING);
+        when(userRepository.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(itemRepository.findAllByIdInForUpdate(Set.of(item.getId()))).thenReturn(List.of(item));
+        when(bookingMapper.toBooking(validDto, item, booker)).thenReturn(newBooking);
+        when(bookingRepository.saveAll(List.of(newBooking))).thenReturn(List.of(addedBooking));
+        when(bookingMapper.toBookingOutputDto(addedBooking)).thenReturn(bookingOutputDto);
+
+        List<BookingBatchResultDto> results = bookingService.addBookings(
+                List.of(badDatesDto, validDto), bookerId, BatchMode.BEST_EFFORT);
+
+        assertEquals(List.of(
+                new BookingBatchResultDto(0, null, "end date must be after start date"),
+                new BookingBatchResultDto(1, bookingOutputDto, null)), results);
+    }
+
+    @Test
+    void addBookings_whenBatchIsEmpty_thenIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.addBookings(List.of(), userId, BatchMode.BEST_EFFORT));
+    }
+
+    @Test
+    void updateBookings_whenApprovalsOverlap_thenOnlyFirstApproved() {
+        long ownerId = userId + 5;
+        User owner = new User(ownerId, userName, email);
+        User booker = new User(userId + 10, "booker", "booker@mail.ru");
+        Item item = new Item(itemId, itemName, itemDescription, true, owner, null);
+        Booking booking1 = new Booking(bookingId, start, end, item, booker, Status.WAITING);
+        Booking booking2 = new Booking(bookingId + 1, start.plusHours(1), end, item, booker, Status.WAITING);
+        Booking booking3 = new Booking(bookingId + 2, start, end, item, booker, Status.WAITING);
+        Booking approvedBooking = new Booking(bookingId + 3, end, end.plusDays(1), item, booker, Status.APPROVED);
+        BookingOutputDto bookingOutputDto1 = new BookingOutputDto(
+                bookingId, start, end, new ItemDto(), new UserDto(), Status.APPROVED);
+        BookingOutputDto bookingOutputDto3 = new BookingOutputDto(
+                bookingId + 2, start, end, new ItemDto(), new UserDto(), Status.REJECTED);
+        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(bookingRepository.findItemIdsByIdInAndItemOwnerId(
+                Set.of(bookingId, bookingId + 1, bookingId + 2), ownerId))
+                .thenReturn(List.of(itemId));
+        when(bookingRepository.findAllByIdInAndItemOwnerId(
+                Set.of(bookingId, bookingId + 1, bookingId + 2), ownerId))
+                .thenReturn(List.of(booking1, booking2, booking3));
+        when(bookingRepository.findAllByItem_IdInAndStatusAndStartBeforeAndEndAfter(
+                Set.of(itemId), Status.APPROVED, end, start))
+                .thenReturn(List.of(approvedBooking));
+        when(bookingRepository.saveAll(List.of(booking1, booking3))).thenReturn(List.of(booking1, booking3));
+        when(bookingMapper.toBookingOutputDto(booking1)).thenReturn(bookingOutputDto1);
+        when(bookingMapper.toBookingOutputDto(booking3)).thenReturn(bookingOutputDto3);
+
+        List<BookingBatchResultDto> results = bookingService.updateBookings(List.of(
+                new BookingDecisionDto(bookingId, true),
+                new BookingDecisionDto(bookingId + 1, true),
+                new BookingDecisionDto(bookingId + 2, false)), ownerId);
+
+        InOrder inOrder = inOrder(itemRepository, bookingRepository);
+        inOrder.verify(itemRepository).findAllByIdInForUpdate(List.of(itemId));
+        inOrder.verify(bookingRepository).findAllByIdInAndItemOwnerId(
+                Set.of(bookingId, bookingId + 1, bookingId + 2), ownerId);
+        verify(bookingIntervalIndex).onBookingSaved(booking1);
+        verify(bookingIntervalIndex).onBookingSaved(booking3);
+        assertAll(
+                () -> assertEquals(Status.APPROVED, booking1.getStatus()),
+                () -> assertEquals(Status.WAITING, booking2.getStatus()),
+                () -> assertEquals(Status.REJECTED, booking3.getStatus()),
+                () -> assertEquals(List.of(
+                        new BookingBatchResultDto(0, bookingOutputDto1, null),
+                        new BookingBatchResultDto(1, null,
+                                String.format("Item with id=%d already booked for this time", itemId)),
+                        new BookingBatchResultDto(2, bookingOutputDto3, null)), results)
+        );
+    }
+
+    @Test
+    void updateBookings_whenBookingNotOwnedOrNotWaiting_thenEntryFails() {
+        long ownerId = userId + 5;
+        User owner = new User(ownerId, userName, email);
+        User booker = new User(userId + 10, "booker", "booker@mail.ru");
+        Item item = new Item(itemId, itemName, itemDescription, true, owner, null);
+        Booking rejectedBooking = new Booking(bookingId, start, end, item, booker, Status.REJECTED);
+        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(bookingRepository.findItemIdsByIdInAndItemOwnerId(Set.of(bookingId, bookingId + 1), ownerId))
+                .thenReturn(List.of(itemId));
+        when(bookingRepository.findAllByIdInAndItemOwnerId(Set.of(bookingId, bookingId + 1), ownerId))
+                .thenReturn(List.of(rejectedBooking));
+        when(bookingRepository.saveAll(List.of())).thenReturn(List.of());
+
+        List<BookingBatchResultDto> results = bookingService.updateBookings(List.of(
+                new BookingDecisionDto(bookingId, true),
+                new BookingDecisionDto(bookingId + 1, false),
+                new BookingDecisionDto(bookingId + 1, false)), ownerId);
+
+        verify(itemRepository).findAllByIdInForUpdate(List.of(itemId));
+        verify(bookingRepository, never()).findAllByItem_IdInAndStatusAndStartBeforeAndEndAfter(
+                any(), any(), any(), any());
+        assertEquals(List.of(
+                new BookingBatchResultDto(0, null,
+                        String.format("booking with bookingId=%d not WAITING status", bookingId)),
+                new BookingBatchResultDto(1, null, String.format("booking with id=%d not found", bookingId + 1)),
+                new BookingBatchResultDto(2, null,
+                        String.format("booking with id=%d is repeated in batch", bookingId + 1))), results);
+    }
+
     @Test
     void updateBooking_whenIsApprovedIsTrue_thenBookingStatusUpdateToTrue() {
         Long ownerId = userId + 5;
@@ -226,20 +436,46 @@ class BookingServiceImplTest {
                 bookerDto,
                 Status.APPROVED);
         when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.of(itemId));
+        when(itemRepository.findByIdForUpdate(itemId)).thenReturn(Optional.of(item));
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(oldBooking));
+        when(bookingRepository.existsByItem_IdAndStatusAndStartBeforeAndEndAfter(itemId, Status.APPROVED, end, start))
+                .thenReturn(false);
         when(bookingRepository.save(updatedBooking)).thenReturn(updatedBooking);
         when(bookingMapper.toBookingOutputDto(updatedBooking)).thenReturn(updatedBookingDto);
 
         BookingOutputDto resultBookingOutputDto = bookingService.updateBooking(bookingId, ownerId, true);
 
-        InOrder inOrder = inOrder(userRepository, bookingRepository, bookingMapper);
+        InOrder inOrder = inOrder(userRepository, itemRepository, bookingRepository, bookingMapper);
         inOrder.verify(userRepository).findById(ownerId);
+        inOrder.verify(itemRepository).findByIdForUpdate(itemId);
         inOrder.verify(bookingRepository).findById(bookingId);
         inOrder.verify(bookingRepository).save(updatedBooking);
         inOrder.verify(bookingMapper).toBookingOutputDto(updatedBooking);
+        verify(bookingIntervalIndex).onBookingSaved(updatedBooking);
         assertEquals(expectedBookingDto, resultBookingOutputDto);
     }
 
+    @Test
+    void updateBooking_whenApprovalOverlapsApprovedBooking_thenNotAvailableException() {
+        Long ownerId = userId + 5;
+        User owner = new User(ownerId, userName, email);
+        User booker = new User(userId + 10, "booker", "booker@mail.ru");
+        Item item = new Item(itemId, itemName, itemDescription, true, owner, null);
+        Booking booking = new Booking(bookingId, start, end, item, booker, Status.WAITING);
+        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.of(itemId));
+        when(itemRepository.findByIdForUpdate(itemId)).thenReturn(Optional.of(item));
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(bookingRepository.existsByItem_IdAndStatusAndStartBeforeAndEndAfter(itemId, Status.APPROVED, end, start))
+                .thenReturn(true);
+
+        assertThrows(NotAvailableException.class,
+                () -> bookingService.updateBooking(bookingId, ownerId, true));
+        assertEquals(Status.WAITING, booking.getStatus());
+        verify(bookingRepository, never()).save(any());
+    }
+
     @Test
     void updateBooking_whenOwnerNotFound_thenNotFoundException() {
         when(userRepository.findById(userId)).thenReturn(Optional.empty());
@@ -253,13 +489,35 @@ class BookingServiceImplTest {
     @Test
     void updateBooking_whenBookingNotFound_thenNotFoundException() {
         when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
-        when(bookingRepository.findById(bookingId)).thenReturn(Optional.empty());
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class,
                 () -> bookingService.updateBooking(bookingId, userId, true));
         InOrder inOrder = inOrder(userRepository, bookingRepository, bookingMapper);
         inOrder.verify(userRepository).findById(userId);
+        inOrder.verify(bookingRepository).findItemIdById(bookingId);
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void updateBooking_whenRejectedAfterConcurrentApproval_thenReadsStatusUnderItemLock() {
+        Long ownerId = userId + 5;
+        User owner = new User(ownerId, userName, email);
+        User booker = new User(userId + 10, "booker", "booker@mail.ru");
+        Item item = new Item(itemId, itemName, itemDescription, true, owner, null);
+        Booking approvedMeanwhile = new Booking(bookingId, start, end, item, booker, Status.APPROVED);
+        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.of(itemId));
+        when(itemRepository.findByIdForUpdate(itemId)).thenReturn(Optional.of(item));
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(approvedMeanwhile));
+
+        assertThrows(ResponseStatusException.class,
+                () -> bookingService.updateBooking(bookingId, ownerId, false));
+        InOrder inOrder = inOrder(itemRepository, bookingRepository);
+        inOrder.verify(itemRepository).findByIdForUpdate(itemId);
         inOrder.verify(bookingRepository).findById(bookingId);
+        assertEquals(Status.APPROVED, approvedMeanwhile.getStatus());
+        verify(bookingRepository, never()).save(any());
     }
 
     @Test
@@ -481,6 +739,55 @@ class BookingServiceImplTest {
         assertEquals(expectedBookingsDto, resultUserBookingsOutputDto);
     }
 
+    @Test
+    void getAllUsersBookings_whenStateIsPastAndBookingsArchived_thenMergedInStartOrder() {
+        long bookerId = userId + 30;
+        User booker = new User(bookerId, "booker", "booker@mail.ru");
+        Item item = new Item(itemId, itemName, itemDescription, true, new User(userId, userName, email), null);
+        Booking hot = new Booking(bookingId + 1, start, end, item, booker, Status.APPROVED);
+        Booking hotOlder = new Booking(bookingId + 2, start.minusYears(2), end.minusYears(2), item, booker,
+                Status.REJECTED);
+        ArchivedBooking archived = new ArchivedBooking(bookingId + 3, start.minusYears(1), end.minusYears(1), item,
+                booker, Status.APPROVED);
+        ArchivedBooking archivedOlder = new ArchivedBooking(bookingId + 4, start.minusYears(3), end.minusYears(3),
+                item, booker, Status.APPROVED);
+        when(userRepository.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(archivedBookingRepository.findAllByBookerId(eq(bookerId), any()))
+                .thenReturn(List.of(archived, archivedOlder));
+        when(bookingRepository.findAllByBooker_IdAndEndBefore(eq(bookerId), any(LocalDateTime.class), any()))
+                .thenReturn(List.of(hot, hotOlder));
+
+        bookingService.getAllUsersBookings(bookerId, State.PAST, 1, 2);
+
+        verify(archivedBookingRepository).findAllByBookerId(eq(bookerId), argThat(pageable ->
+                pageable.getOffset() == 0 && pageable.getPageSize() == 3));
+        verify(bookingMapper).map(List.of(archived.toBooking(), hotOlder));
+    }
+
+    @Test
+    void getAllOwnersBookings_whenCursorAndBookingsArchived_thenMergedInStartOrder() {
+        long ownerId = userId + 20;
+        User owner = new User(ownerId, userName, email);
+        User booker = new User(userId + 30, "booker", "booker@mail.ru");
+        Item item = new Item(itemId, itemName, itemDescription, true, owner, null);
+        Booking hot = new Booking(bookingId + 1, start, end, item, booker, Status.APPROVED);
+        Booking hotOlder = new Booking(bookingId + 2, start.minusYears(2), end.minusYears(2), item, booker,
+                Status.REJECTED);
+        ArchivedBooking archived = new ArchivedBooking(bookingId + 3, start.minusYears(1), end.minusYears(1), item,
+                booker, Status.APPROVED);
+        PageCursor cursor = PageCursor.of(dateTime, Long.MAX_VALUE);
+        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(bookingRepository.seekAllByItemOwnerId(ownerId, dateTime, Long.MAX_VALUE, PageRequestUtil.first(2)))
+                .thenReturn(List.of(hot, hotOlder));
+        when(archivedBookingRepository.seekAllByItemOwnerId(ownerId, dateTime, Long.MAX_VALUE,
+                PageRequestUtil.first(2)))
+                .thenReturn(List.of(archived));
+
+        bookingService.getAllOwnersBookings(ownerId, State.ALL, cursor, 2);
+
+        verify(bookingMapper).map(List.of(hot, archived.toBooking()));
+    }
+
     @Test
     void getAllUsersBookings_whenStateIsFuture_thenReturnedFutureBookingOnly() {
         long bookingId1 = bookingId + 10;
@@ -678,7 +985,7 @@ class BookingServiceImplTest {
         when(userRepository.findById(ownerId1)).thenReturn(Optional.of(owner1));
         when(bookingRepository.findAllByItemOwnerId(
                 ownerId1,
-                PageRequest.of(from, size, Sort.by(Sort.Direction.DESC, "start"))))
+                PageRequest.of(from, size, startDesc)))
                 .thenReturn(allUsersBookings);
         when(bookingMapper.map(allUsersBookings)).thenReturn(returnedBookingsOutputDto);
 
@@ -689,7 +996,7 @@ class BookingServiceImplTest {
         inOrder.verify(userRepository).findById(ownerId1);
         inOrder.verify(bookingRepository).findAllByItemOwnerId(
                 ownerId1,
-                PageRequest.of(from, size, Sort.by(Sort.Direction.DESC, "start")));
+                PageRequest.of(from, size, startDesc));
         inOrder.verify(bookingMapper).map(allUsersBookings);
         assertEquals(expectedBookingsDto, resultUserBookingsOutputDto);
     }
@@ -0,0 +1,126 @@
+package ru.practicum.shareit.cache;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapResponseCacheTest {
+    final OffHeapResponseCache cache = new OffHeapResponseCache(64, 16);
+
+    @Test
+    void writeTo_whenBodySpansBlocks_thenWholeBodyCopied() {
+        String body = "{\"id\":1,\"name\":\"Дрель\",\"description\":\"Ударная\"}";
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        assertTrue(bytes.length > 16 && bytes.length <= 64);
+
+        assertTrue(cache.put("a", "/items/1", bytes));
+
+        assertAll(
+                () -> assertEquals(body, read("a")),
+                () -> assertEquals(bytes.length, cache.usedBytes()),
+                () -> assertEquals(64, cache.capacityBytes()),
+                () -> assertNull(read("b")),
+                () -> assertEquals(1, cache.hits()),
+                () -> assertEquals(1, cache.misses())
+        );
+    }
+
+    @Test
+    void put_whenFull_thenLeastRecentlyUsedEvicted() {
+        cache.put("a", "/items/1", bytes(32));
+        cache.put("b", "/items/2", bytes(16));
+        cache.put("c", "/items/3", bytes(16));
+        read("a");
+
+        cache.put("d", "/items/4", bytes(20));
+
+        assertAll(
+                () -> assertNull(read("b")),
+                () -> assertNull(read("c")),
+                () -> assertNotNull(read("a")),
+                () -> assertNotNull(read("d")),
+                () -> assertEquals(2, cache.evictions()),
+                () -> assertEquals(52, cache.usedBytes())
+        );
+    }
+
+    @Test
+    void put_whenBodyLargerThanCapacity_thenRejected() {
+        assertFalse(cache.put("a", "/items/1", bytes(65)));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void invalidateTag_whenEntriesShareTag_thenAllRemovedAndBlocksReused() {
+        cache.put("/items/1\n1", "/items/1", bytes(16));
+        cache.put("/items/1\n2", "/items/1", bytes(16));
+        cache.put("/users/1\nnull", "/users/1", bytes(1));
+
+        cache.invalidateTag("/items/1");
+
+        assertAll(
+                () -> assertEquals(1, cache.size()),
+                () -> assertNotNull(read("/users/1\nnull")),
+                () -> assertTrue(cache.put("x", "/items/2", bytes(48))),
+                () -> assertEquals(0, cache.evictions())
+        );
+    }
+
+    @Test
+    void writeTo_whenEntryExpired_thenMissAndRemoved() {
+        cache.put("a", "/items/1", bytes(16), Duration.ZERO);
+        cache.put("b", "/items/2", bytes(16), Duration.ofHours(1));
+
+        assertAll(
+                () -> assertNull(read("a")),
+                () -> assertNotNull(read("b")),
+                () -> assertEquals(1, cache.size()),
+                () -> assertEquals(16, cache.usedBytes())
+        );
+    }
+
+    @Test
+    void invalidateTagsStartingWith_whenItemAndUserEntries_thenOnlyItemsRemoved() {
+        cache.put("/items/1\n1", "/items/1", bytes(1));
+        cache.put("/items/2\n1", "/items/2", bytes(1));
+        cache.put("/users/1\nnull", "/users/1", bytes(1));
+
+        cache.invalidateTagsStartingWith("/items/");
+
+        assertAll(
+                () -> assertEquals(1, cache.size()),
+                () -> assertNotNull(read("/users/1\nnull"))
+        );
+    }
+
+    @Test
+    @SneakyThrows
+    void writeTo_whenEntryEvictedWhileRead_thenBlocksKeptUntilReadEnds() {
+        cache.put("a", "/items/1", "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        cache.writeTo("a", length -> {
+            cache.invalidateTag("/items/1");
+            assertFalse(cache.put("b", "/items/2", bytes(64)));
+            return out;
+        });
+
+        assertEquals("0123456789abcdef0123456789abcdef", out.toString(StandardCharsets.UTF_8));
+        assertTrue(cache.put("b", "/items/2", bytes(64)));
+    }
+
+    @SneakyThrows
+    private String read(String key) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        return cache.writeTo(key, length -> out) ? out.toString(StandardCharsets.UTF_8) : null;
+    }
+
+    private static byte[] bytes(int length) {
+        return new byte[length];
+    }
+}
@@ -0,0 +1,115 @@
+package ru.practicum.shareit.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.shareit.booking.event.BookingSavedEvent;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.user.event.UserChangedEvent;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheFilterTest {
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ResponseCacheFilter filter = new ResponseCacheFilter(meterRegistry, DataSize.ofKilobytes(4), Duration.ofHours(1));
+    final AtomicInteger renders = new AtomicInteger();
+    final HttpServlet controller = new HttpServlet() {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            renders.incrementAndGet();
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(("{\"user\":" + request.getHeader("X-Sharer-User-Id") + "}")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+    };
+
+    @Test
+    void doFilter_whenSameItemAndUser_thenSecondServedFromCache() {
+        MockHttpServletResponse first = get("/items/1", "1");
+        MockHttpServletResponse second = get("/items/1", "1");
+        MockHttpServletResponse otherUser = get("/items/1", "2");
+
+        assertAll(
+                () -> assertEquals("{\"user\":1}", first.getContentAsString()),
+                () -> assertEquals("{\"user\":1}", second.getContentAsString()),
+                () -> assertEquals(MediaType.APPLICATION_JSON_VALUE, second.getContentType()),
+                () -> assertEquals(10, second.getContentLength()),
+                () -> assertEquals("{\"user\":2}", otherUser.getContentAsString()),
+                () -> assertEquals(2, renders.get()),
+                () -> assertEquals(1.0, meterRegistry.get("response.cache.requests")
+                        .tag("result", "hit").functionCounter().count()),
+                () -> assertEquals(20.0, meterRegistry.get("response.cache.used").gauge().value())
+        );
+    }
+
+    @Test
+    void doFilter_whenBookingOfItemSaved_thenItemRenderedAgain() {
+        get("/items/1", "1");
+        get("/users/1", null);
+
+        filter.onBookingSaved(new BookingSavedEvent(5L, 1L, Status.APPROVED));
+        get("/items/1", "1");
+        get("/users/1", null);
+        filter.onUserChanged(new UserChangedEvent(1L));
+        get("/users/1", null);
+
+        assertEquals(4, renders.get());
+    }
+
+    @Test
+    void doFilter_whenUserChanged_thenItemCardsRenderedAgain() {
+        get("/items/1", "2");
+        get("/items/2", "3");
+
+        filter.onUserChanged(new UserChangedEvent(1L));
+        get("/items/1", "2");
+        get("/items/2", "3");
+
+        assertEquals(4, renders.get());
+    }
+
+    @Test
+    void doFilter_whenItemEntryExpired_thenRenderedAgainButUserStillCached() {
+        filter = new ResponseCacheFilter(new SimpleMeterRegistry(), DataSize.ofKilobytes(4), Duration.ZERO);
+
+        get("/items/1", "1");
+        get("/items/1", "1");
+        get("/users/1", null);
+        get("/users/1", null);
+
+        assertEquals(3, renders.get());
+    }
+
+    @Test
+    void doFilter_whenNotCachedPath_thenAlwaysRendered() {
+        get("/items/search", "1");
+        get("/items/search", "1");
+
+        assertEquals(2, renders.get());
+        assertEquals(0.0, meterRegistry.get("response.cache.entries").gauge().value());
+    }
+
+    @SneakyThrows
+    private MockHttpServletResponse get(String uri, String userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (userId != null) {
+            request.addHeader("X-Sharer-User-Id", userId);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(controller));
+        return response;
+    }
+}
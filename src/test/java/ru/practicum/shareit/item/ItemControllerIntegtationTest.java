@@ -10,24 +10,38 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.dto.BookingForItemDto;
+import ru.practicum.shareit.booking.index.TimeRange;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.NotOwnerException;
 import ru.practicum.shareit.item.comment.dto.CommentInputDto;
 import ru.practicum.shareit.item.comment.dto.SavedCommentOutputDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.dto.ItemWithCommentsOutputDto;
+import ru.practicum.shareit.item.dto.OwnerFacetDto;
+import ru.practicum.shareit.item.importer.ItemImportReader;
+import ru.practicum.shareit.item.importer.ItemImportRow;
 import ru.practicum.shareit.item.service.api.ItemService;
+import ru.practicum.shareit.utils.PageCursor;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -109,6 +123,47 @@ class ItemControllerIntegtationTest {
                 .addItem(any(ItemDto.class), anyLong());
     }
 
+    @Test
+    @SneakyThrows
+    void importItems_whenNdjson_thenResultPerLine() {
+        when(itemService.importItems(anyLong(), any(ItemImportReader.class), any())).thenAnswer(invocation -> {
+            ItemImportReader reader = invocation.getArgument(1);
+            Consumer<ItemImportResultDto> results = invocation.getArgument(2);
+            for (ItemImportRow row = reader.next(); row != null; row = reader.next()) {
+                results.accept(row.getError() == null
+                        ? new ItemImportResultDto(row.getIndex(), itemDto, null)
+                        : new ItemImportResultDto(row.getIndex(), null, row.getError()));
+            }
+            return 1L;
+        });
+
+        mvc.perform(post("/items/import")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(mapper.writeValueAsString(itemDto) + "\n{\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(startsWith(
+                        mapper.writeValueAsString(new ItemImportResultDto(0, itemDto, null)) + "\n" +
+                                "{\"index\":1,\"item\":null,\"error\":\"malformed JSON: ")));
+    }
+
+    @Test
+    @SneakyThrows
+    void importItems_whenCsvHeaderUnknown_thenBadRequest() {
+        when(itemService.importItems(anyLong(), any(ItemImportReader.class), any())).thenAnswer(invocation -> {
+            ItemImportReader reader = invocation.getArgument(1);
+            reader.next();
+            return 0L;
+        });
+
+        mvc.perform(post("/items/import")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType("text/csv")
+                        .content("name,price\ndrill,10\n"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @SneakyThrows
     void postComment() {
@@ -289,4 +344,122 @@ class ItemControllerIntegtationTest {
                 .andExpect(status().isNotFound());
         verify(itemService, times(2)).findItems(anyString(), anyInt(), anyInt());
     }
-}
\ No newline at end of file
+
+    @Test
+    @SneakyThrows
+    void getItemAvailability() {
+        ItemAvailabilityDto availability = ItemAvailabilityDto.builder()
+                .itemId(1L)
+                .from(dateTime)
+                .to(dateTime.plusDays(2))
+                .busy(List.of(new TimeRange(dateTime, dateTime.plusDays(1))))
+                .free(List.of(new TimeRange(dateTime.plusDays(1), dateTime.plusDays(2))))
+                .build();
+        when(itemService.getItemAvailability(1L, dateTime, dateTime.plusDays(2))).thenReturn(availability);
+
+        mvc.perform(get("/items/{id}/availability", 1L)
+                        .param("from", dateTime.toString())
+                        .param("to", dateTime.plusDays(2).toString())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.busy[0].start", is(dateTime.format(DateTimeFormatter.ISO_DATE_TIME))))
+                .andExpect(jsonPath("$.free[0].end",
+                        is(dateTime.plusDays(2).format(DateTimeFormatter.ISO_DATE_TIME))));
+    }
+
+    @Test
+    @SneakyThrows
+    void findItems_whenWindowSet_thenWindowPassedToService() {
+        when(itemService.findItems("text", dateTime, dateTime.plusDays(1), 0, 25)).thenReturn(List.of(itemDto));
+
+        mvc.perform(get("/items/search")
+                        .param("text", "text")
+                        .param("start", dateTime.toString())
+                        .param("end", dateTime.plusDays(1).toString())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].id", is(itemDto.getId()), Long.class));
+
+        mvc.perform(get("/items/search")
+                        .param("text", "text")
+                        .param("start", dateTime.toString())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SneakyThrows
+    void findItems_whenSortedByRelevance_thenNoCursorHeader() {
+        when(itemService.findItems("text", SearchSort.RELEVANCE, 0, 1)).thenReturn(List.of(itemDto));
+
+        mvc.perform(get("/items/search")
+                        .param("text", "text")
+                        .param("sort", "relevance")
+                        .param("size", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(PageCursor.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$.[0].id", is(itemDto.getId()), Long.class));
+
+        mvc.perform(get("/items/search")
+                        .param("text", "text")
+                        .param("sort", "rating")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        mvc.perform(get("/items/search")
+                        .param("text", "text")
+                        .param("sort", "relevance")
+                        .param("cursor", PageCursor.of(1L).encode())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SneakyThrows
+    void findItems_whenFuzzy_thenFuzzySearch() {
+        when(itemService.findItemsFuzzy("drel", 0, 25)).thenReturn(List.of(itemDto));
+
+        mvc.perform(get("/items/search")
+                        .param("text", "drel")
+                        .param("fuzzy", "true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].id", is(itemDto.getId()), Long.class));
+
+        verify(itemService, never()).findItems(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    @SneakyThrows
+    void suggestItemNames_whenPrefixSet_thenNames() {
+        when(itemService.suggestItemNames("дре", 10)).thenReturn(List.of("Дрель"));
+
+        mvc.perform(get("/items/suggest")
+                        .param("prefix", "дре")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0]", is("Дрель")));
+    }
+
+    @Test
+    @SneakyThrows
+    void findItems_whenFacetsRequested_thenHitsWithFacets() {
+        ItemFacetsDto facets = ItemFacetsDto.builder()
+                .total(2).available(1).notAvailable(1).answersRequest(0).notAnswersRequest(2)
+                .owners(List.of(new OwnerFacetDto(1L, 2)))
+                .build();
+        when(itemService.findItems("item", 0, 25)).thenReturn(List.of(itemDto));
+        when(itemService.getSearchFacets("item", false)).thenReturn(facets);
+
+        mvc.perform(get("/items/search")
+                        .param("text", "item")
+                        .param("facets", "true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id", is(itemDto.getId()), Long.class))
+                .andExpect(jsonPath("$.facets.total", is(2)))
+                .andExpect(jsonPath("$.facets.notAvailable", is(1)))
+                .andExpect(jsonPath("$.facets.owners[0].ownerId", is(1)));
+    }
+}
@@ -0,0 +1,103 @@
+package ru.practicum.shareit.item.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BookingForItemDto;
+import ru.practicum.shareit.booking.event.BookingSavedEvent;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.user.event.UserChangedEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemDetailsCacheTest {
+    final ItemDetailsCache cache =
+            new ItemDetailsCache(new SimpleMeterRegistry(), Duration.ofMinutes(10), Duration.ofMinutes(1));
+    final AtomicInteger loads = new AtomicInteger();
+    final ItemDetails details = new ItemDetails(1L, 2L, "Дрель", "Ударная", true, List.of());
+    final OwnerBookings noBookings = new OwnerBookings(null, null);
+
+    @Test
+    void getDetails_whenItemSaved_thenReloaded() {
+        cache.getDetails(1L, this::loadDetails);
+        cache.getDetails(1L, this::loadDetails);
+        cache.onBookingSaved(new BookingSavedEvent(5L, 1L, Status.APPROVED));
+        cache.getDetails(1L, this::loadDetails);
+        cache.onItemSaved(new ItemSavedEvent(1L, "Дрель", "Новая", true, 2L, null));
+        cache.getDetails(1L, this::loadDetails);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void getOwnerBookings_whenBookingSaved_thenReloadedButDetailsKept() {
+        cache.getDetails(1L, this::loadDetails);
+        cache.getOwnerBookings(1L, this::loadBookings);
+        cache.onBookingSaved(new BookingSavedEvent(5L, 1L, Status.APPROVED));
+        cache.getOwnerBookings(1L, this::loadBookings);
+        cache.getDetails(1L, this::loadDetails);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void getDetails_whenEvictedWhileLoading_thenLoadedCardNotKept() {
+        cache.getDetails(1L, () -> {
+            cache.onItemSaved(new ItemSavedEvent(1L, "Дрель", "Новая", true, 2L, null));
+            return loadDetails();
+        });
+        cache.getOwnerBookings(1L, () -> {
+            cache.onBookingSaved(new BookingSavedEvent(5L, 1L, Status.APPROVED));
+            return loadBookings();
+        });
+        cache.getDetails(1L, this::loadDetails);
+        cache.getOwnerBookings(1L, this::loadBookings);
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void getDetails_whenUserChanged_thenAllDetailsReloaded() {
+        cache.getDetails(1L, this::loadDetails);
+        cache.getDetails(3L, this::loadDetails);
+        cache.onUserChanged(new UserChangedEvent(4L));
+        cache.getDetails(1L, this::loadDetails);
+        cache.getDetails(3L, this::loadDetails);
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void expiresAfterNanos_whenNextBookingStartsBeforeTtl_thenExpiresAtItsStart() {
+        LocalDateTime now = LocalDateTime.of(2030, 1, 1, 12, 0);
+        BookingForItemDto next = new BookingForItemDto(7L, now.plusSeconds(20), now.plusDays(1), 3L, Status.APPROVED);
+        BookingForItemDto late = new BookingForItemDto(8L, now.plusHours(2), now.plusDays(1), 3L, Status.APPROVED);
+        BookingForItemDto started = new BookingForItemDto(9L, now.minusSeconds(1), now.plusDays(1), 3L,
+                Status.APPROVED);
+        Duration ttl = Duration.ofMinutes(1);
+
+        assertAll(
+                () -> assertEquals(ttl.toNanos(), ItemDetailsCache.expiresAfterNanos(noBookings, ttl, now)),
+                () -> assertEquals(Duration.ofSeconds(20).toNanos(),
+                        ItemDetailsCache.expiresAfterNanos(new OwnerBookings(null, next), ttl, now)),
+                () -> assertEquals(ttl.toNanos(),
+                        ItemDetailsCache.expiresAfterNanos(new OwnerBookings(null, late), ttl, now)),
+                () -> assertEquals(0, ItemDetailsCache.expiresAfterNanos(new OwnerBookings(null, started), ttl, now))
+        );
+    }
+
+    private ItemDetails loadDetails() {
+        loads.incrementAndGet();
+        return details;
+    }
+
+    private OwnerBookings loadBookings() {
+        loads.incrementAndGet();
+        return noBookings;
+    }
+}
@@ -0,0 +1,76 @@
+package ru.practicum.shareit.item.importer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.api.UserService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit-import",
+        "shareit.item-import.chunk-size=2"})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ItemImportPersistenceContextTest {
+    private final MockMvc mvc;
+    private final UserService userService;
+    private final PersistenceContextProbe probe;
+
+    @Test
+    @SneakyThrows
+    void importItems_whenOpenInView_thenCommittedChunksLeavePersistenceContext() {
+        UserDto owner = userService.addUser(new UserDto(0, "owner", "import-owner@mail.ru"));
+        String body = IntStream.range(0, 5)
+                .mapToObj(i -> String.format("{\"name\":\"item%d\",\"description\":\"imported\",\"available\":true}", i))
+                .collect(Collectors.joining("\n"));
+
+        mvc.perform(post("/items/import")
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk());
+
+        assertEquals(List.of(2L, 2L, 2L, 2L, 1L), probe.managedItems);
+    }
+
+    /**
+     * Counts the items managed by the request's persistence context while each imported item is published.
+     */
+    @TestConfiguration
+    static class PersistenceContextProbe {
+        final List<Long> managedItems = new CopyOnWriteArrayList<>();
+        @PersistenceContext
+        EntityManager entityManager;
+
+        @EventListener
+        void onItemSaved(ItemSavedEvent event) {
+            managedItems.add(entityManager.unwrap(Session.class).getStatistics().getEntityKeys().stream()
+                    .filter(key -> Item.class.getName().equals(((EntityKey) key).getEntityName()))
+                    .count());
+        }
+    }
+}
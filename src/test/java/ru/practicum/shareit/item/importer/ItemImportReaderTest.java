@@ -0,0 +1,98 @@
+package ru.practicum.shareit.item.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemImportReaderTest {
+    final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void ndjson_whenBlankAndMalformedLines_thenRowErrorsInOrder() {
+        List<ItemImportRow> rows = readAll(MediaType.APPLICATION_NDJSON,
+                "{\"name\":\"drill\",\"description\":\"cordless\",\"available\":true,\"requestId\":7}\n" +
+                        "\n" +
+                        "{\"name\":\n" +
+                        "null\r\n");
+
+        assertEquals(3, rows.size());
+        assertEquals(ItemImportRow.of(0, new ItemDto(0, "drill", "cordless", true, 7L)), rows.get(0));
+        assertEquals(1, rows.get(1).getIndex());
+        assertTrue(rows.get(1).getError().startsWith("malformed JSON"));
+        assertEquals(ItemImportRow.failed(2, "item must not be null"), rows.get(2));
+    }
+
+    @Test
+    void ndjson_whenLineTooLong_thenRowErrorAndNextLineRead() {
+        String name = "a".repeat(ItemImportReader.MAX_ROW_LENGTH);
+        List<ItemImportRow> rows = readAll(MediaType.APPLICATION_NDJSON,
+                "{\"name\":\"" + name + "\"}\n{\"name\":\"saw\"}");
+
+        assertEquals(2, rows.size());
+        assertNotNull(rows.get(0).getError());
+        assertEquals("saw", rows.get(1).getItem().getName());
+    }
+
+    @Test
+    void csv_whenQuotedValues_thenParsed() {
+        List<ItemImportRow> rows = readAll(MediaType.valueOf("text/csv"),
+                "Available,name,description\r\n" +
+                        "true,\"drill, cordless\",\"two \"\"fast\"\"\r\nspeeds\"\r\n" +
+                        ",saw,\n");
+
+        assertEquals(List.of(
+                ItemImportRow.of(0, new ItemDto(0, "drill, cordless", "two \"fast\"\r\nspeeds", true, null)),
+                ItemImportRow.of(1, new ItemDto(0, "saw", null, null, null))), rows);
+    }
+
+    @Test
+    void csv_whenBadValues_thenRowErrors() {
+        List<ItemImportRow> rows = readAll(MediaType.valueOf("text/csv"),
+                "name,description,available,requestId\n" +
+                        "drill,cordless\n" +
+                        "drill,cordless,yes,\n" +
+                        "drill,cordless,true,seven\n" +
+                        "drill,cordless,false,7\n");
+
+        assertEquals(List.of(
+                ItemImportRow.failed(0, "expected 4 fields but was 2"),
+                ItemImportRow.failed(1, "available: must be true or false"),
+                ItemImportRow.failed(2, "requestId: must be a number"),
+                ItemImportRow.of(3, new ItemDto(0, "drill", "cordless", false, 7L))), rows);
+    }
+
+    @Test
+    void csv_whenUnknownColumn_thenIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> readAll(MediaType.valueOf("text/csv"), "name,description,price\ndrill,cordless,10\n"));
+        assertThrows(IllegalArgumentException.class,
+                () -> readAll(MediaType.valueOf("text/csv"), "name,available\ndrill,true\n"));
+    }
+
+    @Test
+    void of_whenUnsupportedContentType_thenIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> readAll(MediaType.APPLICATION_JSON, "{}"));
+    }
+
+    @SneakyThrows
+    private List<ItemImportRow> readAll(MediaType contentType, String body) {
+        List<ItemImportRow> rows = new ArrayList<>();
+        try (ItemImportReader reader = ItemImportReader.of(contentType,
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), objectMapper)) {
+            for (ItemImportRow row = reader.next(); row != null; row = reader.next()) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,127 @@
+package ru.practicum.shareit.item.importer;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.dto.mapper.ItemMapper;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.api.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.api.UserRepository;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validation;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ItemImporterTest {
+    final ItemRepository itemRepository = mock(ItemRepository.class);
+    final ItemRequestRepository itemRequestRepository = mock(ItemRequestRepository.class);
+    final UserRepository userRepository = mock(UserRepository.class);
+    final ItemMapper itemMapper = mock(ItemMapper.class);
+    final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    final EntityManager entityManager = mock(EntityManager.class);
+    final ItemImporter itemImporter = new ItemImporter(itemRepository, itemRequestRepository, userRepository,
+            itemMapper, Validation.buildDefaultValidatorFactory().getValidator(), eventPublisher,
+            transactionManager, entityManager, 2);
+    final User owner = new User(1L, "owner", "owner@mail.com");
+    long nextId = 1;
+
+    @Test
+    void importItems_whenRowsInvalid_thenReportedInOrderAndValidSavedByChunk() {
+        ItemRequest request = new ItemRequest();
+        request.setId(7L);
+        stubSave();
+        when(itemRequestRepository.findAllById(Set.of(7L, 8L))).thenReturn(List.of(request));
+
+        List<ItemImportResultDto> results = importRows(
+                ItemImportRow.of(0, new ItemDto(99, "drill", "cordless", true, 7L)),
+                ItemImportRow.of(1, new ItemDto(0, "saw", "hand", true, 8L)),
+                ItemImportRow.failed(2, "malformed JSON"),
+                ItemImportRow.of(3, new ItemDto(0, " ", "hammer", null, null)));
+
+        assertEquals(List.of(0, 1, 2, 3),
+                results.stream().map(ItemImportResultDto::getIndex).collect(Collectors.toList()));
+        assertNull(results.get(0).getError());
+        assertEquals(1L, results.get(0).getItem().getId());
+        assertEquals(7L, results.get(0).getItem().getRequestId());
+        assertEquals("requestId: item request with id=8 not found", results.get(1).getError());
+        assertEquals("malformed JSON", results.get(2).getError());
+        assertEquals("available: must not be null; name: must not be blank", results.get(3).getError());
+        verify(itemRepository, times(2)).saveAllAndFlush(anyList());
+        verify(eventPublisher).publishEvent(any(ItemSavedEvent.class));
+        verify(transactionManager, times(2)).commit(any());
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void importItems_whenChunkFails_thenOnlyItsRowsNotSaved() {
+        stubSave();
+        when(itemRepository.saveAllAndFlush(anyList()))
+                .thenAnswer(invocation -> saved(invocation.getArgument(0)))
+                .thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        List<ItemImportResultDto> results = importRows(
+                ItemImportRow.of(0, new ItemDto(0, "drill", "cordless", true, null)),
+                ItemImportRow.of(1, new ItemDto(0, "saw", "hand", true, null)),
+                ItemImportRow.of(2, new ItemDto(0, "hammer", "claw", true, null)),
+                ItemImportRow.failed(3, "malformed JSON"));
+
+        assertNull(results.get(1).getError());
+        assertEquals("not saved: duplicate", results.get(2).getError());
+        assertEquals("malformed JSON", results.get(3).getError());
+        verify(transactionManager).rollback(any());
+    }
+
+    private void stubSave() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userRepository.getReferenceById(1L)).thenReturn(owner);
+        when(itemRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> saved(invocation.getArgument(0)));
+        when(itemMapper.toItemDto(any(Item.class))).thenAnswer(invocation -> {
+            Item item = invocation.getArgument(0);
+            return new ItemDto(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                    item.getRequest() == null ? null : item.getRequest().getId());
+        });
+    }
+
+    private List<Item> saved(List<Item> items) {
+        items.forEach(item -> item.setId(nextId++));
+        return items;
+    }
+
+    @SneakyThrows
+    private List<ItemImportResultDto> importRows(ItemImportRow... rows) {
+        Iterator<ItemImportRow> iterator = List.of(rows).iterator();
+        List<ItemImportResultDto> results = new ArrayList<>();
+        itemImporter.importItems(1L, new ItemImportReader() {
+            @Override
+            public ItemImportRow next() {
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+
+            @Override
+            public void close() throws IOException {
+            }
+        }, results::add);
+        return results;
+    }
+}
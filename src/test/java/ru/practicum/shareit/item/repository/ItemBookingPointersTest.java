@@ -0,0 +1,184 @@
+package ru.practicum.shareit.item.repository;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.dto.BookingForItemDto;
+import ru.practicum.shareit.booking.event.BookingSavedEvent;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.api.BookingRepository;
+import ru.practicum.shareit.item.cache.OwnerBookings;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.api.ItemBookingsRow;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemBookingPointersTest {
+    @Mock
+    ItemRepository itemRepository;
+    @Mock
+    BookingRepository bookingRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+    @Mock
+    DataSource dataSource;
+    @Mock
+    Connection connection;
+    @Mock
+    DatabaseMetaData metaData;
+    @InjectMocks
+    ItemBookingPointers pointers;
+
+    final SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+    final LocalDateTime now = LocalDateTime.of(2030, 1, 1, 12, 0);
+    final String approved = Status.APPROVED.toString();
+
+    @Test
+    void onBookingSaved_whenApproved_thenPointersRecomputedUnderItemLock() {
+        pointers.onBookingSaved(new BookingSavedEvent(5L, 1L, Status.APPROVED));
+
+        InOrder inOrder = inOrder(itemRepository);
+        inOrder.verify(itemRepository).findAllByIdInForUpdate(List.of(1L));
+        inOrder.verify(itemRepository).updateBookingPointers(eq(List.of(1L)), eq(approved), any());
+    }
+
+    @Test
+    void onBookingSaved_whenWaitingAndNotReferenced_thenPointersUntouched() {
+        when(itemRepository.existsBookingPointer(1L, 5L)).thenReturn(false);
+
+        pointers.onBookingSaved(new BookingSavedEvent(5L, 1L, Status.WAITING));
+
+        verify(itemRepository, never()).updateBookingPointers(any(), any(), any());
+    }
+
+    @Test
+    void onBookingSaved_whenReferencedBookingCanceled_thenPointersRecomputed() {
+        when(itemRepository.existsBookingPointer(1L, 5L)).thenReturn(true);
+
+        pointers.onBookingSaved(new BookingSavedEvent(5L, 1L, Status.CANCELED));
+
+        verify(itemRepository).updateBookingPointers(eq(List.of(1L)), eq(approved), any());
+    }
+
+    @Test
+    void rollForward_whenFullPage_thenEachPageCommittedOnItsOwn() {
+        List<Number> fullPage = LongStream.rangeClosed(1, 500).<Number>mapToObj(Long::valueOf).collect(Collectors.toList());
+        when(itemRepository.findIdsWithStartedNextBooking(any(), eq(500)))
+                .thenReturn(fullPage)
+                .thenReturn(List.of(501L));
+
+        pointers.rollForward();
+
+        InOrder inOrder = inOrder(transactionManager, itemRepository);
+        inOrder.verify(itemRepository).updateBookingPointers(eq(toLongs(fullPage)), eq(approved), any());
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(itemRepository).updateBookingPointers(eq(List.of(501L)), eq(approved), any());
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void backfill_whenFullPage_thenNextPageAfterItsLastId() {
+        List<Number> fullPage = LongStream.rangeClosed(1, 500).<Number>mapToObj(Long::valueOf).collect(Collectors.toList());
+        when(itemRepository.findIdsWithoutBookingPointers(0L, approved, 500)).thenReturn(fullPage);
+        when(itemRepository.findIdsWithoutBookingPointers(500L, approved, 500)).thenReturn(List.of());
+
+        pointers.backfill();
+
+        verify(itemRepository).updateBookingPointers(eq(toLongs(fullPage)), eq(approved), any());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void rollForward_onPostgresWhenAnotherNodeHoldsLock_thenNothingRefreshed() {
+        givenDatabase("PostgreSQL");
+        when(itemRepository.tryAdvisoryTransactionLock(anyLong())).thenReturn(false);
+
+        pointers.rollForward();
+
+        verify(itemRepository, never()).findIdsWithStartedNextBooking(any(), anyInt());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void rollForward_onPostgresWhenLockTaken_thenPageRefreshed() {
+        givenDatabase("PostgreSQL");
+        when(itemRepository.tryAdvisoryTransactionLock(anyLong())).thenReturn(true);
+        when(itemRepository.findIdsWithStartedNextBooking(any(), eq(500))).thenReturn(List.of(1L));
+
+        pointers.rollForward();
+
+        InOrder inOrder = inOrder(itemRepository);
+        inOrder.verify(itemRepository).tryAdvisoryTransactionLock(anyLong());
+        inOrder.verify(itemRepository).updateBookingPointers(eq(List.of(1L)), eq(approved), any());
+    }
+
+    @Test
+    void read_whenNextBookingStarted_thenStaleItemRecomputed() {
+        when(itemRepository.findBookingPointers(List.of(1L, 2L))).thenReturn(List.of(
+                row(1L, 100L, now.plusDays(1)),
+                row(2L, 200L, now.minusMinutes(1))));
+        User booker = new User(6L, "Винни", "pooh@mail.ru");
+        Item item2 = new Item(2L, "Дрель", "Ударная", true, booker, null);
+        Booking started = new Booking(200L, now.minusMinutes(1), now.plusDays(1), item2, booker, Status.APPROVED);
+        when(bookingRepository.findLastBookingsForItems(List.of(2L), approved, now)).thenReturn(List.of(started));
+        when(bookingRepository.findNextBookingsForItems(List.of(2L), approved, now)).thenReturn(List.of());
+
+        Map<Long, OwnerBookings> bookings = pointers.read(List.of(1L, 2L), now);
+
+        assertAll(
+                () -> assertNull(bookings.get(1L).getLastBooking()),
+                () -> assertEquals(new BookingForItemDto(100L, now.plusDays(1), now.plusDays(2), 6L, Status.APPROVED),
+                        bookings.get(1L).getNextBooking()),
+                () -> assertEquals(200L, bookings.get(2L).getLastBooking().getId()),
+                () -> assertNull(bookings.get(2L).getNextBooking())
+        );
+    }
+
+    @SneakyThrows
+    private void givenDatabase(String product) {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn(product);
+        pointers.detectDatabase();
+    }
+
+    private static List<Long> toLongs(List<Number> ids) {
+        return ids.stream().map(Number::longValue).collect(Collectors.toList());
+    }
+
+    private ItemBookingsRow row(Long itemId, Long nextBookingId, LocalDateTime nextBookingStart) {
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("itemId", itemId);
+        columns.put("lastBookingId", null);
+        columns.put("lastBookingStart", null);
+        columns.put("lastBookingEnd", null);
+        columns.put("lastBookingBookerId", null);
+        columns.put("nextBookingId", nextBookingId);
+        columns.put("nextBookingStart", nextBookingStart);
+        columns.put("nextBookingEnd", nextBookingStart.plusDays(1));
+        columns.put("nextBookingBookerId", 6L);
+        return projectionFactory.createProjection(ItemBookingsRow.class, columns);
+    }
+}
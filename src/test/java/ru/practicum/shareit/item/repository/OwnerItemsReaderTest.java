@@ -0,0 +1,155 @@
+package ru.practicum.shareit.item.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import ru.practicum.shareit.booking.dto.BookingForItemDto;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.cache.OwnerBookings;
+import ru.practicum.shareit.item.comment.dto.CommentOutputDto;
+import ru.practicum.shareit.item.dto.ItemWithCommentsOutputDto;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+import ru.practicum.shareit.item.repository.api.OwnerItemRow;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OwnerItemsReaderTest {
+    @Mock
+    ItemRepository itemRepository;
+    @Mock
+    ItemBookingPointers itemBookingPointers;
+    @Mock
+    DataSource dataSource;
+    @Mock
+    Connection connection;
+    @Mock
+    DatabaseMetaData metaData;
+    OwnerItemsReader reader;
+
+    final SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+    final LocalDateTime now = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @BeforeEach
+    void setUp() {
+        reader = new OwnerItemsReader(itemRepository, itemBookingPointers, dataSource,
+                new ObjectMapper().registerModule(new JavaTimeModule()), true);
+    }
+
+    @Test
+    @SneakyThrows
+    void read_whenRowPerComment_thenGroupedByItem() {
+        givenDatabase("H2");
+        when(itemRepository.findOwnerItemRows(1L, 0L, 25, 0L)).thenReturn(List.of(
+                row(10L, 100L, 200L, 1000L, null),
+                row(10L, 100L, 200L, 1001L, null),
+                row(11L, null, null, null, null)));
+
+        List<ItemWithCommentsOutputDto> items = reader.read(1L, 0L, 0L, 25, now).orElseThrow();
+
+        assertAll(
+                () -> assertEquals(2, items.size()),
+                () -> assertEquals(new BookingForItemDto(100L, now.minusDays(2), now.minusDays(1), 5L,
+                        Status.APPROVED), items.get(0).getLastBooking()),
+                () -> assertEquals(200L, items.get(0).getNextBooking().getId()),
+                () -> assertEquals(List.of(1000L, 1001L), items.get(0).getComments().stream()
+                        .map(CommentOutputDto::getId).collect(Collectors.toList())),
+                () -> assertNull(items.get(1).getLastBooking()),
+                () -> assertEquals(List.of(), items.get(1).getComments())
+        );
+    }
+
+    @Test
+    @SneakyThrows
+    void read_whenPostgres_thenAggregatedCommentsParsed() {
+        givenDatabase("PostgreSQL");
+        String json = "[{\"id\":1000,\"text\":\"Хорошая\",\"created\":\"2029-12-31T10:15:30.123456\","
+                + "\"authorName\":\"Винни\"}]";
+        when(itemRepository.findOwnerItemRowsAggregated(1L, 7L, 10, 0L))
+                .thenReturn(List.of(row(10L, null, null, null, json)));
+
+        List<ItemWithCommentsOutputDto> items = reader.read(1L, 7L, 0L, 10, now).orElseThrow();
+
+        assertEquals(List.of(new CommentOutputDto(1000L, "Хорошая",
+                LocalDateTime.of(2029, 12, 31, 10, 15, 30, 123456000), "Винни")), items.get(0).getComments());
+    }
+
+    @Test
+    @SneakyThrows
+    void read_whenOwnerNotFound_thenEmpty() {
+        givenDatabase("H2");
+        when(itemRepository.findOwnerItemRows(1L, 0L, 25, 0L)).thenReturn(List.of());
+
+        assertEquals(Optional.empty(), reader.read(1L, 0L, 0L, 25, now));
+    }
+
+    @Test
+    @SneakyThrows
+    void read_whenNextBookingStarted_thenBookingsRecomputed() {
+        givenDatabase("H2");
+        OwnerItemRow stale = row(10L, 100L, 200L, null, null, now.minusMinutes(1));
+        BookingForItemDto started = new BookingForItemDto(200L, now.minusMinutes(1), now.plusDays(2), 6L,
+                Status.APPROVED);
+        when(itemRepository.findOwnerItemRows(1L, 0L, 25, 0L)).thenReturn(List.of(stale));
+        when(itemBookingPointers.compute(List.of(10L), now))
+                .thenReturn(Map.of(10L, new OwnerBookings(started, null)));
+
+        List<ItemWithCommentsOutputDto> items = reader.read(1L, 0L, 0L, 25, now).orElseThrow();
+
+        assertEquals(started, items.get(0).getLastBooking());
+        assertNull(items.get(0).getNextBooking());
+    }
+
+    private OwnerItemRow row(Long id, Long lastBookingId, Long nextBookingId, Long commentId, String commentsJson) {
+        return row(id, lastBookingId, nextBookingId, commentId, commentsJson, now.plusDays(1));
+    }
+
+    private OwnerItemRow row(Long id, Long lastBookingId, Long nextBookingId, Long commentId, String commentsJson,
+                             LocalDateTime nextBookingStart) {
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("ownerId", 1L);
+        columns.put("id", id);
+        columns.put("name", "Дрель");
+        columns.put("description", "Ударная");
+        columns.put("available", true);
+        columns.put("lastBookingId", lastBookingId);
+        columns.put("lastBookingStart", lastBookingId == null ? null : now.minusDays(2));
+        columns.put("lastBookingEnd", lastBookingId == null ? null : now.minusDays(1));
+        columns.put("lastBookingBookerId", lastBookingId == null ? null : 5L);
+        columns.put("nextBookingId", nextBookingId);
+        columns.put("nextBookingStart", nextBookingId == null ? null : nextBookingStart);
+        columns.put("nextBookingEnd", nextBookingId == null ? null : now.plusDays(2));
+        columns.put("nextBookingBookerId", nextBookingId == null ? null : 6L);
+        columns.put("commentId", commentId);
+        columns.put("commentText", commentId == null ? null : "comment" + commentId);
+        columns.put("commentCreated", commentId == null ? null : now.minusHours(1));
+        columns.put("commentAuthorName", commentId == null ? null : "Винни");
+        columns.put("commentsJson", commentsJson);
+        return projectionFactory.createProjection(OwnerItemRow.class, columns);
+    }
+
+    @SneakyThrows
+    private void givenDatabase(String product) {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn(product);
+        reader.detectDatabase();
+    }
+}
@@ -7,14 +7,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.api.BookingRepository;
+import ru.practicum.shareit.item.comment.model.Comment;
+import ru.practicum.shareit.item.comment.repositiry.api.CommentRepository;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.api.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.api.UserRepository;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static java.time.LocalDateTime.now;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -29,6 +37,10 @@ class ItemRepositoryTest {
     ItemRepository itemRepository;
     @Autowired
     UserRepository userRepository;
+    @Autowired
+    BookingRepository bookingRepository;
+    @Autowired
+    CommentRepository commentRepository;
     User requester;
     User notRequester;
     User owner1;
@@ -93,6 +105,8 @@ class ItemRepositoryTest {
 
     @AfterEach
     void tearDown() {
+        commentRepository.deleteAll();
+        bookingRepository.deleteAll();
         itemRepository.deleteAll();
         userRepository.deleteAll();
         requestRepository.deleteAll();
@@ -112,14 +126,10 @@ class ItemRepositoryTest {
     }
 
     @Test
-    void findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableIs() {
+    void seekAvailableByText() {
         String text = "item";
         List<Item> allFound1 =
-                itemRepository.findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableIs(
-                        text,
-                        text,
-                        true,
-                        pageable);
+                itemRepository.seekAvailableByText(text, 0, pageable);
 
         assertAll(
                 () -> assertNotNull(allFound1),
@@ -132,11 +142,7 @@ class ItemRepositoryTest {
 
         text = "Item";
         List<Item> allFound2 =
-                itemRepository.findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableIs(
-                        text,
-                        text,
-                        true,
-                        pageable);
+                itemRepository.seekAvailableByText(text, 0, pageable);
 
         assertAll(
                 () -> assertNotNull(allFound2),
@@ -149,11 +155,7 @@ class ItemRepositoryTest {
 
         text = "cripT";
         List<Item> allFound3 =
-                itemRepository.findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableIs(
-                        text,
-                        text,
-                        true,
-                        pageable);
+                itemRepository.seekAvailableByText(text, 0, pageable);
 
         assertAll(
                 () -> assertNotNull(allFound3),
@@ -166,11 +168,7 @@ class ItemRepositoryTest {
 
         text = "ON3";
         List<Item> allFound4 =
-                itemRepository.findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableIs(
-                        text,
-                        text,
-                        true,
-                        pageable);
+                itemRepository.seekAvailableByText(text, 0, pageable);
 
         assertAll(
                 () -> assertNotNull(allFound4),
@@ -179,6 +177,27 @@ class ItemRepositoryTest {
         );
     }
 
+    @Test
+    void countFacetsByText() {
+        item2.setAvailable(false);
+        item3.setRequest(null);
+        itemRepository.save(item2);
+        itemRepository.save(item3);
+
+        ItemFacetCounts counts = itemRepository.countFacetsByText("DESCRIPTION");
+        List<OwnerFacetRow> owners = itemRepository.countOwnerFacetsByText("DESCRIPTION", PageRequest.of(0, 1));
+
+        assertAll(
+                () -> assertEquals(4, counts.getTotal()),
+                () -> assertEquals(3, counts.getAvailable()),
+                () -> assertEquals(3, counts.getAnswersRequest()),
+                () -> assertEquals(1, owners.size()),
+                () -> assertEquals(owner1.getId(), owners.get(0).getOwnerId()),
+                () -> assertEquals(2, owners.get(0).getItemCount()),
+                () -> assertEquals(0, itemRepository.countFacetsByText("молоток").getAvailable())
+        );
+    }
+
     @Test
     void findAllByRequest_Id() {
         List<Item> allByRequestId1 =
@@ -244,4 +263,109 @@ class ItemRepositoryTest {
                 () -> assertEquals(0, findAllByRequestIdIn3.size())
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void seekAvailableByTextAndNotBooked() {
+        LocalDateTime start = now().plusDays(10).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime end = start.plusDays(2);
+        bookingRepository.save(new Booking(0L, start.minusDays(1), start.plusDays(1), item1, requester, Status.APPROVED));
+        bookingRepository.save(new Booking(0L, start, end, item2, requester, Status.REJECTED));
+        bookingRepository.save(new Booking(0L, end, end.plusDays(1), item3, requester, Status.APPROVED));
+        bookingRepository.save(new Booking(0L, start, end, item4, requester, Status.WAITING));
+
+        List<Item> free = itemRepository.seekAvailableByTextAndNotBooked(
+                "item", Status.APPROVED, start, end, 0, PageRequest.of(0, 10));
+        List<Item> freeAfterItem2 = itemRepository.seekAvailableByTextAndNotBooked(
+                "item", Status.APPROVED, start, end, item2.getId(), PageRequest.of(0, 1));
+
+        assertAll(
+                () -> assertEquals(List.of(item2.getId(), item3.getId(), item4.getId()),
+                        free.stream().map(Item::getId).collect(Collectors.toList())),
+                () -> assertEquals(List.of(item3.getId()),
+                        freeAfterItem2.stream().map(Item::getId).collect(Collectors.toList()))
+        );
+    }
+
+    @Test
+    void findOwnerItemRows() {
+        LocalDateTime date = now().truncatedTo(ChronoUnit.SECONDS);
+        Booking past = bookingRepository.save(
+                new Booking(0L, date.minusDays(3), date.minusDays(2), item1, requester, Status.APPROVED));
+        bookingRepository.save(new Booking(0L, date.minusDays(5), date.minusDays(4), item1, requester, Status.APPROVED));
+        bookingRepository.save(new Booking(0L, date.minusDays(1), date.plusDays(1), item1, requester, Status.REJECTED));
+        Booking future = bookingRepository.save(
+                new Booking(0L, date.plusDays(2), date.plusDays(3), item1, requester, Status.APPROVED));
+        Comment first = commentRepository.save(new Comment(0L, "first", date.minusDays(1), item1, requester));
+        Comment second = commentRepository.save(new Comment(0L, "second", date, item1, notRequester));
+        itemRepository.updateBookingPointers(List.of(item1.getId(), item4.getId()), Status.APPROVED.toString(), date);
+
+        List<OwnerItemRow> rows = itemRepository.findOwnerItemRows(owner1.getId(), 0, 25, 0);
+        List<OwnerItemRow> afterItem1 = itemRepository.findOwnerItemRows(owner1.getId(), item1.getId(), 25, 0);
+        List<OwnerItemRow> withoutItems = itemRepository.findOwnerItemRows(requester.getId(), 0, 25, 0);
+
+        assertAll(
+                () -> assertEquals(3, rows.size()),
+                () -> assertEquals(item1.getId(), rows.get(0).getId()),
+                () -> assertEquals(past.getId(), rows.get(0).getLastBookingId()),
+                () -> assertEquals(past.getStart(), rows.get(0).getLastBookingStart()),
+                () -> assertEquals(requester.getId(), rows.get(0).getLastBookingBookerId()),
+                () -> assertEquals(future.getId(), rows.get(0).getNextBookingId()),
+                () -> assertEquals(first.getId(), rows.get(0).getCommentId()),
+                () -> assertEquals(second.getId(), rows.get(1).getCommentId()),
+                () -> assertEquals(notRequester.getName(), rows.get(1).getCommentAuthorName()),
+                () -> assertEquals(item4.getId(), rows.get(2).getId()),
+                () -> assertNull(rows.get(2).getLastBookingId()),
+                () -> assertNull(rows.get(2).getCommentId()),
+                () -> assertEquals(1, afterItem1.size()),
+                () -> assertEquals(item4.getId(), afterItem1.get(0).getId()),
+                () -> assertEquals(1, withoutItems.size()),
+                () -> assertNull(withoutItems.get(0).getId()),
+                () -> assertTrue(itemRepository.findOwnerItemRows(-1L, 0, 25, 0).isEmpty())
+        );
+    }
+
+    @Test
+    void updateBookingPointers() {
+        LocalDateTime date = now().truncatedTo(ChronoUnit.SECONDS);
+        String status = Status.APPROVED.toString();
+        Booking past = bookingRepository.save(
+                new Booking(0L, date.minusDays(3), date.minusDays(2), item1, requester, Status.APPROVED));
+        bookingRepository.save(new Booking(0L, date.plusDays(1), date.plusDays(2), item1, requester, Status.REJECTED));
+        Booking future = bookingRepository.save(
+                new Booking(0L, date.plusDays(2), date.plusDays(3), item1, requester, Status.APPROVED));
+        Booking later = bookingRepository.save(
+                new Booking(0L, date.plusDays(5), date.plusDays(6), item1, requester, Status.APPROVED));
+        List<Number> withoutPointers = itemRepository.findIdsWithoutBookingPointers(0, status, 10);
+
+        itemRepository.updateBookingPointers(List.of(item1.getId(), item2.getId()), status, date);
+        ItemBookingsRow pointers = itemRepository.findBookingPointers(List.of(item1.getId())).get(0);
+        ItemBookingsRow noBookings = itemRepository.findBookingPointers(List.of(item2.getId())).get(0);
+        List<Number> startedNow = itemRepository.findIdsWithStartedNextBooking(date, 10);
+        List<Number> startedLater = itemRepository.findIdsWithStartedNextBooking(date.plusDays(3), 10);
+        itemRepository.updateBookingPointers(List.of(item1.getId()), status, date.plusDays(3));
+        ItemBookingsRow rolled = itemRepository.findBookingPointers(List.of(item1.getId())).get(0);
+
+        assertAll(
+                () -> assertEquals(List.of(item1.getId()), toLongs(withoutPointers)),
+                () -> assertEquals(past.getId(), pointers.getLastBookingId()),
+                () -> assertEquals(past.getEnd(), pointers.getLastBookingEnd()),
+                () -> assertEquals(requester.getId(), pointers.getLastBookingBookerId()),
+                () -> assertEquals(future.getId(), pointers.getNextBookingId()),
+                () -> assertEquals(future.getStart(), pointers.getNextBookingStart()),
+                () -> assertNull(noBookings.getLastBookingId()),
+                () -> assertNull(noBookings.getNextBookingId()),
+                () -> assertTrue(startedNow.isEmpty()),
+                () -> assertEquals(List.of(item1.getId()), toLongs(startedLater)),
+                () -> assertEquals(future.getId(), rolled.getLastBookingId()),
+                () -> assertEquals(later.getId(), rolled.getNextBookingId()),
+                () -> assertTrue(itemRepository.existsBookingPointer(item1.getId(), later.getId())),
+                () -> assertFalse(itemRepository.existsBookingPointer(item1.getId(), past.getId())),
+                () -> assertFalse(itemRepository.existsBookingPointer(item2.getId(), later.getId())),
+                () -> assertTrue(itemRepository.findIdsWithoutBookingPointers(0, status, 10).isEmpty())
+        );
+    }
+
+    private static List<Long> toLongs(List<Number> ids) {
+        return ids.stream().map(Number::longValue).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,222 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryItemSearchEngineTest {
+    @Mock
+    ItemRepository itemRepository;
+    @Mock
+    ItemFacetIndex itemFacetIndex;
+    @Mock
+    BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    PlatformTransactionManager transactionManager;
+    @InjectMocks
+    InMemoryItemSearchEngine searchEngine;
+
+    @Test
+    void findIds_whenAllTermsMatchByStemOrPrefix_thenIdsInOrder() {
+        searchEngine.onItemSaved(new ItemSavedEvent(1L, "Дрель", "Аккумуляторная дрель", true, 1L, null));
+        searchEngine.onItemSaved(new ItemSavedEvent(2L, "Отвёртка", "Простая отвертка", true, 1L, null));
+        searchEngine.onItemSaved(new ItemSavedEvent(3L, "Дрели ударные", "Для бетона", true, 2L, null));
+        searchEngine.onItemSaved(new ItemSavedEvent(4L, "Дрель", "Сломана", false, 2L, null));
+
+        assertAll(
+                () -> assertEquals(List.of(1L, 3L), searchEngine.findIds("ДРЕЛЬ", 0, 0, 10)),
+                () -> assertEquals(List.of(1L, 3L), searchEngine.findIds("дре", 0, 0, 10)),
+                () -> assertEquals(List.of(1L), searchEngine.findIds("аккумуляторные дрели", 0, 0, 10)),
+                () -> assertEquals(List.of(2L), searchEngine.findIds("ОТВЕРТКА", 0, 0, 10)),
+                () -> assertEquals(List.of(3L), searchEngine.findIds("дрель", 1L, 0, 10)),
+                () -> assertEquals(List.of(3L), searchEngine.findIds("дрель", 0, 1, 10)),
+                () -> assertEquals(List.of(), searchEngine.findIds("молоток", 0, 0, 10))
+        );
+    }
+
+    @Test
+    void onItemSaved_whenItemUpdated_thenOldTermsRemoved() {
+        searchEngine.onItemSaved(new ItemSavedEvent(1L, "Дрель", "Аккумуляторная", true, 1L, null));
+        searchEngine.onItemSaved(new ItemSavedEvent(1L, "Перфоратор", "Сетевой", true, 1L, null));
+
+        assertAll(
+                () -> assertEquals(List.of(), searchEngine.findIds("дрель", 0, 0, 10)),
+                () -> assertEquals(List.of(1L), searchEngine.findIds("перфоратор", 0, 0, 10))
+        );
+    }
+
+    @Test
+    void findIdsNotBooked_whenMatchesBookedInWindow_thenSkippedAndPageStaysFull() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime end = start.plusDays(1);
+        for (long id = 1; id <= 6; id++) {
+            searchEngine.onItemSaved(new ItemSavedEvent(id, "Дрель " + id, "Ударная", id != 4, 1L, null));
+        }
+        when(bookingIntervalIndex.isBooked(anyLong(), eq(start), eq(end)))
+                .thenAnswer(invocation -> invocation.<Long>getArgument(0) % 2 == 1);
+
+        assertAll(
+                () -> assertEquals(List.of(2L, 6L), searchEngine.findIdsNotBooked("дрель", start, end, 0, 0, 10)),
+                () -> assertEquals(List.of(6L), searchEngine.findIdsNotBooked("дрель", start, end, 0, 1, 10)),
+                () -> assertEquals(List.of(6L), searchEngine.findIdsNotBooked("дрель", start, end, 2, 0, 10)),
+                () -> assertEquals(List.of(), searchEngine.findIdsNotBooked("пила", start, end, 0, 0, 10))
+        );
+    }
+
+    @Test
+    void findIdsByRelevance_whenNameMatches_thenRankedAboveDescriptionMatches() {
+        searchEngine.onItemSaved(new ItemSavedEvent(1L, "Набор ключей", "Подходит к дрели", true, 1L, null));
+        searchEngine.onItemSaved(new ItemSavedEvent(2L, "Дрель", "Ударная дрель с набором бит", true, 1L, null));
+        searchEngine.onItemSaved(new ItemSavedEvent(3L, "Дрель аккумуляторная", "Лёгкая", true, 2L, null));
+        searchEngine.onItemSaved(new ItemSavedEvent(4L, "Дрель", "Сломана", false, 2L, null));
+        searchEngine.onItemSaved(new ItemSavedEvent(5L, "Молоток", "Тяжёлый", true, 2L, null));
+
+        assertAll(
+                () -> assertEquals(List.of(2L, 3L, 1L), searchEngine.findIdsByRelevance("дрель", 0, 10)),
+                () -> assertEquals(List.of(3L), searchEngine.findIdsByRelevance("дрель", 1, 1)),
+                () -> assertEquals(List.of(1L, 2L), searchEngine.findIdsByRelevance("набор дрель", 0, 10)),
+                () -> assertEquals(List.of(), searchEngine.findIdsByRelevance("пила", 0, 10))
+        );
+    }
+
+    @Test
+    void findIdsByRelevance_whenOffsetHuge_thenEmptyWithoutSizingHeapByIt() {
+        searchEngine.onItemSaved(new ItemSavedEvent(1L, "Дрель", "Ударная", true, 1L, null));
+
+        assertAll(
+                () -> assertEquals(List.of(), searchEngine.findIdsByRelevance("дрель", 1_000_000_000L, 10)),
+                () -> assertEquals(List.of(), searchEngine.findIdsByRelevance("дрель", Integer.MAX_VALUE - 10, 10)),
+                () -> assertEquals(List.of(1L), searchEngine.findIdsByRelevance("дрель", 0, Integer.MAX_VALUE))
+        );
+    }
+
+    @Test
+    void findIdsFuzzy_whenWordMisspelled_thenMostSimilarFirst() {
+        searchEngine.onItemSaved(new ItemSavedEvent(1L, "Drill", "Cordless drill", true, 1L, null));
+        searchEngine.onItemSaved(new ItemSavedEvent(2L, "Дрель", "Ударная", true, 1L, null));
+        searchEngine.onItemSaved(new ItemSavedEvent(3L, "Hammer", "Heavy", true, 2L, null));
+        searchEngine.onItemSaved(new ItemSavedEvent(4L, "Дрель", "Сломана", false, 2L, null));
+        searchEngine.onItemSaved(new ItemSavedEvent(5L, "Дрелька детская", "Игрушка", true, 2L, null));
+
+        assertAll(
+                () -> assertEquals(List.of(1L), searchEngine.findIdsFuzzy("drel", 0, 10)),
+                () -> assertEquals(List.of(2L, 5L), searchEngine.findIdsFuzzy("дрэль", 0, 10)),
+                () -> assertEquals(List.of(5L), searchEngine.findIdsFuzzy("дрэль", 1, 10)),
+                () -> assertEquals(List.of(), searchEngine.findIdsFuzzy("пила", 0, 10))
+        );
+    }
+
+    @Test
+    void findIdsFuzzy_whenOffsetHuge_thenEmptyWithoutSizingHeapByIt() {
+        searchEngine.onItemSaved(new ItemSavedEvent(1L, "Дрель", "Ударная", true, 1L, null));
+
+        assertAll(
+                () -> assertEquals(List.of(), searchEngine.findIdsFuzzy("дрэль", 1_000_000_000L, 10)),
+                () -> assertEquals(List.of(), searchEngine.findIdsFuzzy("дрэль", Integer.MAX_VALUE - 10, 10)),
+                () -> assertEquals(List.of(1L), searchEngine.findIdsFuzzy("дрэль", 0, Integer.MAX_VALUE))
+        );
+    }
+
+    @Test
+    void similarTerms_whenTermRemovedFromIndex_thenNotSuggested() {
+        searchEngine.onItemSaved(new ItemSavedEvent(1L, "Drill", "Cordless", true, 1L, null));
+        searchEngine.onItemSaved(new ItemSavedEvent(1L, "Saw", "Cordless", true, 1L, null));
+
+        assertEquals(List.of(), searchEngine.findIdsFuzzy("drel", 0, 10));
+    }
+
+    @Test
+    void matchIds_whenItemUnavailable_thenStillInMatchSet() {
+        searchEngine.onItemSaved(new ItemSavedEvent(1L, "Дрель", "Ударная", true, 1L, null));
+        searchEngine.onItemSaved(new ItemSavedEvent(2L, "Дрель", "Сломана", false, 1L, null));
+        searchEngine.onItemSaved(new ItemSavedEvent(3L, "Пила", "Ручная", true, 1L, null));
+
+        assertArrayEquals(new long[]{1L, 2L}, searchEngine.matchIds("дрели"));
+    }
+
+    @Test
+    void countFacets_whenFuzzy_thenFacetsOfSimilarWordMatches() {
+        searchEngine.onItemSaved(new ItemSavedEvent(1L, "Drill", "Cordless", true, 1L, null));
+        searchEngine.onItemSaved(new ItemSavedEvent(2L, "Drill", "Broken", false, 1L, null));
+        searchEngine.onItemSaved(new ItemSavedEvent(3L, "Saw", "Manual", true, 1L, null));
+        ItemFacetsDto facets = ItemFacetsDto.builder().total(2).build();
+        when(itemFacetIndex.count(new long[]{1L, 2L})).thenReturn(facets);
+
+        assertAll(
+                () -> assertEquals(facets, searchEngine.countFacets("drel", true)),
+                () -> assertArrayEquals(new long[0], searchEngine.matchIds("drel"))
+        );
+    }
+
+    @Test
+    void rebuild_whenItemsInDatabase_thenIndexed() {
+        User owner = new User(1L, "owner", "owner@mail.ru");
+        Item item = new Item(7L, "Палатка", "Четырёхместная", true, owner, null);
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(anyLong(), any()))
+                .thenReturn(List.of(item));
+        when(itemRepository.findAllById(List.of(7L))).thenReturn(List.of(item));
+
+        searchEngine.rebuild();
+
+        assertEquals(List.of(item), searchEngine.search("палатки", 0, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void rebuild_whenSeveralPages_thenEveryPageReadInOwnTransaction() {
+        User owner = new User(1L, "owner", "owner@mail.ru");
+        List<Item> firstPage = LongStream.rangeClosed(1, InMemoryItemSearchEngine.REBUILD_PAGE_SIZE)
+                .mapToObj(id -> new Item(id, "Палатка " + id, "Четырёхместная", true, owner, null))
+                .collect(Collectors.toList());
+        Item last = new Item(InMemoryItemSearchEngine.REBUILD_PAGE_SIZE + 1L, "Шатёр", "Большой", true, owner, null);
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(firstPage);
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(eq((long) InMemoryItemSearchEngine.REBUILD_PAGE_SIZE),
+                any())).thenReturn(List.of(last));
+
+        searchEngine.rebuild();
+
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(List.of(last.getId()), searchEngine.findIds("шатёр", 0, 0, 10));
+    }
+
+    @Test
+    void rebuild_whenItemSavedWhileReadingTable_thenUpdateKept() {
+        User owner = new User(1L, "owner", "owner@mail.ru");
+        Item item = new Item(7L, "Палатка", "Четырёхместная", true, owner, null);
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenAnswer(invocation -> {
+            searchEngine.onItemSaved(new ItemSavedEvent(7L, "Шатёр", "Четырёхместный", true, 1L, null));
+            return List.of(item);
+        });
+
+        searchEngine.rebuild();
+
+        assertAll(
+                () -> assertEquals(List.of(7L), searchEngine.findIds("шатёр", 0, 0, 10)),
+                () -> assertEquals(List.of(), searchEngine.findIds("палатка", 0, 0, 10))
+        );
+    }
+}
@@ -0,0 +1,127 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.dto.OwnerFacetDto;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemFacetIndexTest {
+    @Mock
+    ItemRepository itemRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+    @InjectMocks
+    ItemFacetIndex facetIndex;
+
+    @Test
+    void count_whenMatchSetGiven_thenFacetsOfMatchesOnly() {
+        facetIndex.onItemSaved(new ItemSavedEvent(1L, "Дрель", "", true, 1L, 10L));
+        facetIndex.onItemSaved(new ItemSavedEvent(2L, "Дрель", "", false, 2L, null));
+        facetIndex.onItemSaved(new ItemSavedEvent(3L, "Дрель", "", true, 2L, null));
+        facetIndex.onItemSaved(new ItemSavedEvent(4L, "Пила", "", true, 3L, 11L));
+
+        ItemFacetsDto facets = facetIndex.count(new long[]{1L, 2L, 3L, 99L});
+
+        assertAll(
+                () -> assertEquals(3, facets.getTotal()),
+                () -> assertEquals(2, facets.getAvailable()),
+                () -> assertEquals(1, facets.getNotAvailable()),
+                () -> assertEquals(1, facets.getAnswersRequest()),
+                () -> assertEquals(2, facets.getNotAnswersRequest()),
+                () -> assertEquals(List.of(new OwnerFacetDto(2L, 2), new OwnerFacetDto(1L, 1)), facets.getOwners())
+        );
+    }
+
+    @Test
+    void count_whenItemUpdated_thenFacetBitsMoved() {
+        facetIndex.onItemSaved(new ItemSavedEvent(1L, "Дрель", "", true, 1L, null));
+        facetIndex.onItemSaved(new ItemSavedEvent(1L, "Дрель", "", false, 2L, 10L));
+
+        ItemFacetsDto facets = facetIndex.count(new long[]{1L});
+
+        assertAll(
+                () -> assertEquals(1, facets.getTotal()),
+                () -> assertEquals(0, facets.getAvailable()),
+                () -> assertEquals(1, facets.getAnswersRequest()),
+                () -> assertEquals(List.of(new OwnerFacetDto(2L, 1)), facets.getOwners())
+        );
+    }
+
+    @Test
+    void rebuild_whenItemsInDatabase_thenIndexed() {
+        User owner = new User(5L, "owner", "owner@mail.ru");
+        ItemRequest request = new ItemRequest(7L, "Нужна палатка", null, null);
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(anyLong(), any()))
+                .thenReturn(List.of(new Item(1L, "Палатка", "Четырёхместная", true, owner, request)));
+
+        facetIndex.rebuild();
+
+        ItemFacetsDto facets = facetIndex.count(new long[]{1L});
+        assertAll(
+                () -> assertEquals(1, facets.getAvailable()),
+                () -> assertEquals(1, facets.getAnswersRequest()),
+                () -> assertEquals(List.of(new OwnerFacetDto(5L, 1)), facets.getOwners())
+        );
+    }
+
+    @Test
+    void rebuild_whenSeveralPages_thenEveryPageReadInOwnTransaction() {
+        User owner = new User(5L, "owner", "owner@mail.ru");
+        List<Item> firstPage = LongStream.rangeClosed(1, ItemFacetIndex.REBUILD_PAGE_SIZE)
+                .mapToObj(id -> new Item(id, "Палатка", "Четырёхместная", true, owner, null))
+                .collect(Collectors.toList());
+        long lastId = ItemFacetIndex.REBUILD_PAGE_SIZE + 1L;
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(firstPage);
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(eq(lastId - 1), any()))
+                .thenReturn(List.of(new Item(lastId, "Шатёр", "", false, owner, null)));
+
+        facetIndex.rebuild();
+
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+        ItemFacetsDto facets = facetIndex.count(new long[]{1L, lastId});
+        assertAll(
+                () -> assertEquals(2, facets.getTotal()),
+                () -> assertEquals(1, facets.getAvailable())
+        );
+    }
+
+    @Test
+    void rebuild_whenItemSavedWhileReadingTable_thenUpdateKept() {
+        User owner = new User(5L, "owner", "owner@mail.ru");
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenAnswer(invocation -> {
+            facetIndex.onItemSaved(new ItemSavedEvent(1L, "Палатка", "Четырёхместная", false, 6L, null));
+            return List.of(new Item(1L, "Палатка", "Четырёхместная", true, owner, null));
+        });
+
+        facetIndex.rebuild();
+
+        ItemFacetsDto facets = facetIndex.count(new long[]{1L});
+        assertAll(
+                () -> assertEquals(0, facets.getAvailable()),
+                () -> assertEquals(List.of(new OwnerFacetDto(6L, 1)), facets.getOwners())
+        );
+    }
+}
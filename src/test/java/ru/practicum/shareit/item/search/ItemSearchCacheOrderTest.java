@@ -0,0 +1,68 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.core.annotation.Order;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.service.api.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.api.UserService;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:shareit-search-order")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ItemSearchCacheOrderTest {
+    private static final String TEXT = "перфоратор";
+    private final UserService userService;
+    private final ItemService itemService;
+    private final ItemSearchCache itemSearchCache;
+    private final ListenerOrderProbe probe;
+
+    @Test
+    void onItemSaved_whenCommitted_thenIndexedBeforeCachedSearchesEvicted() {
+        UserDto owner = userService.addUser(new UserDto(0, "owner", "search-order-owner@mail.ru"));
+        assertEquals(List.of(), itemService.findItems(TEXT, 0, 10));
+
+        ItemDto item = itemService.addItem(new ItemDto(0, "Перфоратор", "Сетевой", true, null), owner.getId());
+
+        assertAll(
+                () -> assertEquals(List.of(true), probe.indexed),
+                () -> assertEquals(List.of(List.of()), probe.cached),
+                () -> assertEquals(List.of(item.getId()),
+                        itemService.findItems(TEXT, 0, 10).stream().map(ItemDto::getId).collect(Collectors.toList()))
+        );
+    }
+
+    /**
+     * Listens between the search engine and the search cache: records whether the engine has already indexed
+     * the saved item and what the cache still returns for the search made before it was saved.
+     */
+    @TestConfiguration
+    @RequiredArgsConstructor
+    static class ListenerOrderProbe {
+        final List<Boolean> indexed = new CopyOnWriteArrayList<>();
+        final List<List<ItemDto>> cached = new CopyOnWriteArrayList<>();
+        private final InMemoryItemSearchEngine itemSearchEngine;
+        private final ItemSearchCache itemSearchCache;
+
+        @Order(0)
+        @TransactionalEventListener(fallbackExecution = true)
+        void onItemSaved(ItemSavedEvent event) {
+            indexed.add(itemSearchEngine.findIds(TEXT, 0, 0, 10).contains(event.getItemId()));
+            cached.add(itemSearchCache.get(TEXT, 0, 10, () -> List.of(new ItemDto())));
+        }
+    }
+}
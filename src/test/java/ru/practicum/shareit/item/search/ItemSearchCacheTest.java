@@ -0,0 +1,97 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.search.api.ItemSearchEngine;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ItemSearchCacheTest {
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final ItemSearchCache cache = new ItemSearchCache(meterRegistry, engine(true));
+    final AtomicInteger loads = new AtomicInteger();
+    final ItemDto drill = new ItemDto(1L, "Дрель", "Ударная", true, null);
+    final ItemDto saw = new ItemDto(2L, "Пила", "Ручная", true, null);
+
+    @Test
+    void get_whenSameNormalizedQuery_thenLoadedOnceAndHitCounted() {
+        assertEquals(List.of(drill), cache.get("дрель", 0, 10, loader(drill)));
+        assertEquals(List.of(drill), cache.get(" ДРЕЛЬ ", 0, 10, loader(drill)));
+        cache.get("дрель", 10, 10, loader());
+
+        assertAll(
+                () -> assertEquals(2, loads.get()),
+                () -> assertEquals(1, cache.stats().hitCount()),
+                () -> assertEquals(1.0 / 3, cache.stats().hitRate(), 1e-9),
+                () -> assertEquals(1.0, meterRegistry.get("cache.gets")
+                        .tag("cache", ItemSearchCache.CACHE_NAME).tag("result", "hit").functionCounter().count())
+        );
+    }
+
+    @Test
+    void onItemSaved_whenQueryTermIsPrefixOfItemTerm_thenOnlyThatQueryEvicted() {
+        cache.get("дрел", 0, 10, loader());
+        cache.get("пила", 0, 10, loader(saw));
+        cache.get("рель", 0, 10, loader());
+
+        cache.onItemSaved(new ItemSavedEvent(3L, "Дрель", "Аккумуляторная", true, 1L, null));
+        cache.get("дрел", 0, 10, loader());
+        cache.get("пила", 0, 10, loader(saw));
+        cache.get("рель", 0, 10, loader());
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void get_whenEngineMatchesInsideWords_thenEverySearchLoaded() {
+        ItemSearchCache likeCache = new ItemSearchCache(new SimpleMeterRegistry(), engine(false));
+
+        likeCache.get("рель", 0, 10, loader(drill));
+        likeCache.get("рель", 0, 10, loader(drill));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void onItemSaved_whenCachedResultContainsItem_thenEvicted() {
+        cache.get("пила", 0, 10, loader(saw));
+
+        cache.onItemSaved(new ItemSavedEvent(2L, "Ножовка", "Ручная", false, 1L, null));
+        cache.get("пила", 0, 10, loader());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_whenItemSavedWhileLoading_thenResultNotCached() {
+        cache.get("пила", 0, 10, () -> {
+            cache.onItemSaved(new ItemSavedEvent(2L, "Пила", "Ручная", false, 1L, null));
+            return loader(saw).get();
+        });
+        cache.get("пила", 0, 10, loader());
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.stats().hitCount());
+    }
+
+    private Supplier<List<ItemDto>> loader(ItemDto... items) {
+        return () -> {
+            loads.incrementAndGet();
+            return List.of(items);
+        };
+    }
+
+    private static ItemSearchEngine engine(boolean matchesTermPrefixes) {
+        ItemSearchEngine engine = mock(ItemSearchEngine.class);
+        when(engine.matchesTermPrefixes()).thenReturn(matchesTermPrefixes);
+        return engine;
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemTextAnalyzerTest {
+
+    @Test
+    void terms_whenMixedCaseAndPunctuation_thenFoldedTokens() {
+        assertEquals(List.of("дрел", "bosch", "18v"), ItemTextAnalyzer.terms("Дрель, BOSCH (18V)!"));
+    }
+
+    @Test
+    void terms_whenRussianWordForms_thenSameStem() {
+        assertAll(
+                () -> assertEquals(ItemTextAnalyzer.terms("дрель"), ItemTextAnalyzer.terms("дрели")),
+                () -> assertEquals(ItemTextAnalyzer.terms("аккумуляторная"), ItemTextAnalyzer.terms("аккумуляторной")),
+                () -> assertEquals(ItemTextAnalyzer.terms("ёмкость"), ItemTextAnalyzer.terms("емкости")),
+                () -> assertEquals(ItemTextAnalyzer.terms("наборы"), ItemTextAnalyzer.terms("набор"))
+        );
+    }
+
+    @Test
+    void terms_whenEnglishWordForms_thenSameStem() {
+        assertAll(
+                () -> assertEquals(ItemTextAnalyzer.terms("drill"), ItemTextAnalyzer.terms("drills")),
+                () -> assertEquals(ItemTextAnalyzer.terms("drill"), ItemTextAnalyzer.terms("drilling")),
+                () -> assertEquals(ItemTextAnalyzer.terms("hop"), ItemTextAnalyzer.terms("hopping")),
+                () -> assertEquals(ItemTextAnalyzer.terms("battery"), ItemTextAnalyzer.terms("batteries"))
+        );
+    }
+
+    @Test
+    void terms_whenBlankOrNull_thenEmpty() {
+        assertAll(
+                () -> assertTrue(ItemTextAnalyzer.terms("  ,. ").isEmpty()),
+                () -> assertTrue(ItemTextAnalyzer.terms(null).isEmpty())
+        );
+    }
+}
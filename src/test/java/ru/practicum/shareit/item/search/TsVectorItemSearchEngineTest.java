@@ -0,0 +1,113 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.dto.OwnerFacetDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.api.ItemFacetCounts;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+import ru.practicum.shareit.item.repository.api.OwnerFacetRow;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TsVectorItemSearchEngineTest {
+    @Mock
+    ItemRepository itemRepository;
+    @Mock
+    DataSource dataSource;
+    @Mock
+    Connection connection;
+    @Mock
+    DatabaseMetaData metaData;
+    @InjectMocks
+    TsVectorItemSearchEngine searchEngine;
+
+    final Item item = new Item(1L, "Дрель", "Ударная", true, null, null);
+    final PageRequest page = PageRequest.of(0, 10);
+
+    @Test
+    @SneakyThrows
+    void search_whenPostgres_thenRankedFullTextQuery() {
+        givenDatabase("PostgreSQL");
+        when(itemRepository.findAvailableByTsQueryRanked("дрель", page)).thenReturn(List.of(item));
+        when(itemRepository.seekAvailableByTsQuery("дрель", 5L, page)).thenReturn(List.of());
+        when(itemRepository.findAvailableBySimilarWords("дрэль", page)).thenReturn(List.of(item));
+
+        assertEquals(List.of(item), searchEngine.searchByRelevance("дрель", page));
+        assertEquals(List.of(), searchEngine.search("дрель", 5L, page));
+        assertEquals(List.of(item), searchEngine.searchFuzzy("дрэль", page));
+        assertTrue(searchEngine.matchesTermPrefixes());
+        verify(itemRepository, never()).seekAvailableByText(any(), anyLong(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    void search_whenOffsetPageOnPostgres_thenIdOrderSoCursorContinuesIt() {
+        givenDatabase("PostgreSQL");
+        PageRequest secondPage = PageRequest.of(1, 10);
+        when(itemRepository.seekAvailableByTsQuery("дрель", 0, secondPage)).thenReturn(List.of(item));
+
+        assertEquals(List.of(item), searchEngine.search("дрель", 0, secondPage));
+        verify(itemRepository, never()).findAvailableByTsQueryRanked(any(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    void countFacets_whenPostgres_thenCountedByMatchingQuery() {
+        givenDatabase("PostgreSQL");
+        ItemFacetCounts counts = mock(ItemFacetCounts.class);
+        when(counts.getTotal()).thenReturn(3L);
+        when(counts.getAvailable()).thenReturn(2L);
+        when(counts.getAnswersRequest()).thenReturn(1L);
+        OwnerFacetRow owner = mock(OwnerFacetRow.class);
+        when(owner.getOwnerId()).thenReturn(5L);
+        when(owner.getItemCount()).thenReturn(3L);
+        when(itemRepository.countFacetsBySimilarWords("дрэль")).thenReturn(counts);
+        when(itemRepository.countOwnerFacetsBySimilarWords("дрэль", 10)).thenReturn(List.of(owner));
+
+        ItemFacetsDto facets = searchEngine.countFacets("дрэль", true);
+
+        assertEquals(ItemFacetsDto.builder()
+                .total(3).available(2).notAvailable(1).answersRequest(1).notAnswersRequest(2)
+                .owners(List.of(new OwnerFacetDto(5L, 3)))
+                .build(), facets);
+        verify(itemRepository, never()).countFacetsByTsQuery(any());
+    }
+
+    @Test
+    @SneakyThrows
+    void search_whenH2_thenLikeFallback() {
+        givenDatabase("H2");
+        when(itemRepository.seekAvailableByText("дрель", 0, page)).thenReturn(List.of(item));
+
+        assertEquals(List.of(item), searchEngine.search("дрель", 0, page));
+        assertEquals(List.of(item), searchEngine.searchByRelevance("дрель", page));
+        assertEquals(List.of(item), searchEngine.searchFuzzy("дрель", page));
+        assertFalse(searchEngine.matchesTermPrefixes());
+        verify(itemRepository, never()).findAvailableByTsQueryRanked(any(), any());
+        verify(itemRepository, never()).findAvailableBySimilarWords(any(), any());
+    }
+
+    @SneakyThrows
+    private void givenDatabase(String product) {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn(product);
+        searchEngine.detectDatabase();
+    }
+}
@@ -1,34 +1,58 @@
 package ru.practicum.shareit.item.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
 import ru.practicum.shareit.booking.dto.BookingForItemDto;
+import ru.practicum.shareit.booking.index.TimeRange;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.api.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.repository.api.BookingRepository;
 import ru.practicum.shareit.exception.NotAvailableException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.NotOwnerException;
+import ru.practicum.shareit.item.SearchSort;
+import ru.practicum.shareit.item.cache.ItemDetailsCache;
+import ru.practicum.shareit.item.cache.OwnerBookings;
 import ru.practicum.shareit.item.comment.dto.CommentInputDto;
 import ru.practicum.shareit.item.comment.dto.CommentOutputDto;
 import ru.practicum.shareit.item.comment.dto.SavedCommentOutputDto;
 import ru.practicum.shareit.item.comment.dto.mapper.CommentMapper;
 import ru.practicum.shareit.item.comment.model.Comment;
 import ru.practicum.shareit.item.comment.repositiry.api.CommentRepository;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
 import ru.practicum.shareit.item.dto.ItemWithCommentsOutputDto;
 import ru.practicum.shareit.item.dto.mapper.ItemMapper;
+import ru.practicum.shareit.item.event.ItemCommentedEvent;
+import ru.practicum.shareit.item.importer.ItemImportReader;
+import ru.practicum.shareit.item.importer.ItemImporter;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemBookingPointers;
+import ru.practicum.shareit.item.repository.OwnerItemsReader;
 import ru.practicum.shareit.item.repository.api.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.api.ItemSearchEngine;
+import ru.practicum.shareit.item.suggest.ItemNameSuggester;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.api.UserRepository;
+import ru.practicum.shareit.utils.PageCursor;
+import ru.practicum.shareit.utils.PageRequestUtil;
+import ru.practicum.shareit.utils.ParallelQueryExecutor;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -45,11 +69,33 @@ class ItemServiceImplTest {
     @Mock
     BookingRepository bookingRepository;
     @Mock
+    ArchivedBookingRepository archivedBookingRepository;
+    @Mock
     CommentRepository commentRepository;
     @Mock
     ItemMapper itemMapper;
     @Mock
     CommentMapper commentMapper;
+    @Mock
+    ItemSearchEngine itemSearchEngine;
+    @Mock
+    ItemNameSuggester itemNameSuggester;
+    @Spy
+    ItemSearchCache itemSearchCache = new ItemSearchCache(new SimpleMeterRegistry(), termPrefixEngine());
+    @Mock
+    OwnerItemsReader ownerItemsReader;
+    @Mock
+    ItemBookingPointers itemBookingPointers;
+    @Spy
+    ItemDetailsCache itemDetailsCache =
+            new ItemDetailsCache(new SimpleMeterRegistry(), Duration.ofMinutes(10), Duration.ofMinutes(1));
+    @Spy
+    ParallelQueryExecutor parallelQueryExecutor =
+            new ParallelQueryExecutor(mock(PlatformTransactionManager.class), false, 1, Duration.ofSeconds(1));
+    @Mock
+    ItemImporter itemImporter;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
 
     final LocalDateTime dateTime = LocalDateTime.of(2023, 8, 13, 9, 28, 26);
     final long userId = 1L;
@@ -106,6 +152,16 @@ class ItemServiceImplTest {
                 () -> itemService.addItem(new ItemDto(), userId));
     }
 
+    @Test
+    void importItems_whenUserNotFound_thenNotFoundExceptionBeforeReading() {
+        ItemImportReader reader = mock(ItemImportReader.class);
+        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> itemService.importItems(userId, reader, result -> {
+        }));
+        verifyNoInteractions(reader, itemImporter);
+    }
+
     @Test
     void getItemById_whenIsItemAndRequiredFromOwner_thenReturnWithBookings() {
         long ownerId = userId + 10;
@@ -151,13 +207,13 @@ class ItemServiceImplTest {
         List<Comment> comments = List.of(comment1, comment2);
         List<CommentOutputDto> commentsOutputDto = List.of(commentOutputDto1, commentOutputDto2);
 
-        ItemWithCommentsOutputDto afterInputBookingsDto = new ItemWithCommentsOutputDto(
+        ItemWithCommentsOutputDto nullBookingsDto = new ItemWithCommentsOutputDto(
                 item.getId(),
                 item.getName(),
                 item.getDescription(),
                 item.getAvailable(),
-                lastBookingDto,
-                nextBookingDto,
+                null,
+                null,
                 null
         );
 
@@ -172,29 +228,43 @@ class ItemServiceImplTest {
         );
 
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-        when(bookingRepository.findLastBookingsForItems(eq(List.of(itemId)), anyString(), any()))
-                .thenReturn(List.of(lastBooking));
+        when(itemBookingPointers.read(eq(List.of(itemId)), any()))
+                .thenReturn(Map.of(itemId, new OwnerBookings(lastBookingDto, nextBookingDto)));
 
-        when(bookingRepository.findNextBookingsForItems(eq(List.of(itemId)), anyString(), any()))
-                .thenReturn(List.of(nextBooking));
-
-        when(itemMapper.toItemWithCommentDto(item, lastBooking, nextBooking)).thenReturn(afterInputBookingsDto);
+        when(itemMapper.toItemWithCommentDto(item, null, null)).thenReturn(nullBookingsDto);
         when(commentRepository.findAllInItemId(List.of(itemId))).thenReturn(comments);
         when(commentMapper.outputMap(comments)).thenReturn(commentsOutputDto);
 
         ItemWithCommentsOutputDto resultDto = itemService.getItemById(itemId, ownerId);
 
 
-        InOrder inOrder = inOrder(itemRepository, bookingRepository, itemMapper, commentRepository, commentMapper);
+        InOrder inOrder = inOrder(itemRepository, itemBookingPointers, itemMapper, commentRepository, commentMapper);
         inOrder.verify(itemRepository).findById(itemId);
-        inOrder.verify(bookingRepository).findLastBookingsForItems(eq(List.of(itemId)), anyString(), any());
-        inOrder.verify(bookingRepository).findNextBookingsForItems(eq(List.of(itemId)), anyString(), any());
-        inOrder.verify(itemMapper).toItemWithCommentDto(item, lastBooking, nextBooking);
+        inOrder.verify(itemMapper).toItemWithCommentDto(item, null, null);
         inOrder.verify(commentRepository).findAllInItemId(List.of(itemId));
         inOrder.verify(commentMapper).outputMap(comments);
+        inOrder.verify(itemBookingPointers).read(eq(List.of(itemId)), any());
         assertEquals(expectedResultDto, resultDto);
     }
 
+    @Test
+    void getItemById_whenRequestedTwice_thenLoadedOnceUntilCommented() {
+        User owner = new User(userId + 10, userName, email);
+        Item item = new Item(itemId, itemName, itemDescription, Boolean.TRUE, owner, null);
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(itemMapper.toItemWithCommentDto(item, null, null)).thenReturn(
+                new ItemWithCommentsOutputDto(itemId, itemName, itemDescription, true, null, null, null));
+
+        itemService.getItemById(itemId, userId);
+        ItemWithCommentsOutputDto resultDto = itemService.getItemById(itemId, userId);
+        itemDetailsCache.onItemCommented(new ItemCommentedEvent(itemId));
+        itemService.getItemById(itemId, userId);
+
+        assertEquals(Collections.emptyList(), resultDto.getComments());
+        verify(itemRepository, times(2)).findById(itemId);
+        verify(commentRepository, times(2)).findAllInItemId(List.of(itemId));
+    }
+
     @Test
     void getItemById_whenIsItemAndRequiredFromNotOwner_thenReturnWithNullInBookingsFields() {
         long ownerId = userId + 10;
@@ -251,8 +321,7 @@ class ItemServiceImplTest {
         inOrder.verify(itemMapper).toItemWithCommentDto(item, null, null);
         inOrder.verify(commentRepository).findAllInItemId(List.of(itemId));
         inOrder.verify(commentMapper).outputMap(comments);
-        verify(bookingRepository, never()).findLastBookingsForItems(any(), anyString(), any());
-        verify(bookingRepository, never()).findNextBookingsForItems(any(), anyString(), any());
+        verify(itemBookingPointers, never()).read(any(), any());
         assertEquals(expectedResultDto, resultDto);
     }
 
@@ -424,13 +493,13 @@ class ItemServiceImplTest {
         );
         List<Comment> comments = List.of(comment1, comment2);
         List<CommentOutputDto> commentsOutputDto = List.of(commentOutputDto1, commentOutputDto2);
-        ItemWithCommentsOutputDto afterInputBookingsDto = new ItemWithCommentsOutputDto(
+        ItemWithCommentsOutputDto mappedItemDto = new ItemWithCommentsOutputDto(
                 item.getId(),
                 item.getName(),
                 item.getDescription(),
                 item.getAvailable(),
-                lastBookingDto,
-                nextBookingDto,
+                null,
+                null,
                 null
         );
         List<ItemWithCommentsOutputDto> expectedResultDto = List.of(new ItemWithCommentsOutputDto(
@@ -447,26 +516,23 @@ class ItemServiceImplTest {
                 owner,
                 PageRequest.of(from, size, Sort.by(Sort.Direction.ASC, "id")))
         ).thenReturn(List.of(item));
-        when(bookingRepository.findLastBookingsForItems(eq(List.of(itemId)), anyString(), any()))
-                .thenReturn(List.of(lastBooking));
-        when(bookingRepository.findNextBookingsForItems(eq(List.of(itemId)), anyString(), any()))
-                .thenReturn(List.of(nextBooking));
-        when(itemMapper.toItemWithCommentDto(item, lastBooking, nextBooking)).thenReturn(afterInputBookingsDto);
+        when(itemBookingPointers.read(eq(List.of(itemId)), any()))
+                .thenReturn(Map.of(itemId, new OwnerBookings(lastBookingDto, nextBookingDto)));
         when(commentRepository.findAllInItemId(List.of(itemId))).thenReturn(comments);
         when(commentMapper.outputMap(comments)).thenReturn(commentsOutputDto);
+        when(itemMapper.toItemWithCommentDto(item, null, null)).thenReturn(mappedItemDto);
 
         List<ItemWithCommentsOutputDto> resultAllOwnersItems = itemService.getAllOwnersItems(ownerId, from, size);
 
-        InOrder inOrder = inOrder(userRepository, itemRepository, bookingRepository, itemMapper,
+        InOrder inOrder = inOrder(userRepository, itemRepository, itemBookingPointers, itemMapper,
                 commentRepository, commentMapper);
         inOrder.verify(userRepository).findById(ownerId);
         inOrder.verify(itemRepository)
                 .findAllByOwner(owner, PageRequest.of(from, size, Sort.Direction.ASC, "id"));
-        inOrder.verify(bookingRepository).findLastBookingsForItems(eq(List.of(itemId)), anyString(), any());
-        inOrder.verify(bookingRepository).findNextBookingsForItems(eq(List.of(itemId)), anyString(), any());
-        inOrder.verify(itemMapper).toItemWithCommentDto(item, lastBooking, nextBooking);
+        inOrder.verify(itemBookingPointers).read(eq(List.of(itemId)), any());
         inOrder.verify(commentRepository).findAllInItemId(List.of(itemId));
         inOrder.verify(commentMapper).outputMap(comments);
+        inOrder.verify(itemMapper).toItemWithCommentDto(item, null, null);
         assertEquals(expectedResultDto, resultAllOwnersItems);
     }
 
@@ -491,19 +557,13 @@ class ItemServiceImplTest {
         List<Item> expectedItems = List.of(item1, item2);
         List<ItemDto> expectedItemsDto = List.of(itemDto1, itemDto2);
 
-        when(itemRepository.findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableIs(
-                anyString(),
-                anyString(),
-                eq(true),
-                eq(PageRequest.of(from, size, Sort.by(Sort.Direction.ASC, "id")))))
-                .thenReturn(List.of(item1, item2));
+        when(itemSearchEngine.search(text, 0, PageRequest.of(from, size))).thenReturn(List.of(item1, item2));
         when(itemMapper.mapDto(expectedItems)).thenReturn(expectedItemsDto);
 
         List<ItemDto> resultItemsDto = itemService.findItems(text, from, size);
 
-        InOrder inOrder = inOrder(itemRepository, itemMapper);
-        inOrder.verify(itemRepository).findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableIs(anyString(),
-                anyString(), anyBoolean(), any());
+        InOrder inOrder = inOrder(itemSearchEngine, itemMapper);
+        inOrder.verify(itemSearchEngine).search(anyString(), anyLong(), any());
         inOrder.verify(itemMapper).mapDto(expectedItems);
         assertNotNull(resultItemsDto);
         assertFalse(resultItemsDto.isEmpty());
@@ -542,8 +602,8 @@ class ItemServiceImplTest {
         when(commentMapper.toComment(inputCommentDto)).thenReturn(inputComment);
         when(userRepository.findById(commentatorId)).thenReturn(Optional.of(commentator1));
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-        when(bookingRepository.findFirstByItem_IdAndBooker_IdAndEndBefore(anyLong(), anyLong(), any()))
-                .thenReturn(new Booking());
+        when(bookingRepository.existsByItemIdAndBookerIdAndEndBefore(anyLong(), anyLong(), any()))
+                .thenReturn(true);
         when(commentRepository.save(commentForSave)).thenReturn(resultComment);
         when(commentMapper.toSavedCommentOutputDto(resultComment)).thenReturn(commentOutputDto);
 
@@ -556,7 +616,7 @@ class ItemServiceImplTest {
         inOrder.verify(commentMapper).toComment(inputCommentDto);
         inOrder.verify(userRepository).findById(commentatorId);
         inOrder.verify(itemRepository).findById(itemId);
-        inOrder.verify(bookingRepository).findFirstByItem_IdAndBooker_IdAndEndBefore(anyLong(), anyLong(), any());
+        inOrder.verify(bookingRepository).existsByItemIdAndBookerIdAndEndBefore(anyLong(), anyLong(), any());
         inOrder.verify(commentRepository).save(commentForSave);
         inOrder.verify(commentMapper).toSavedCommentOutputDto(resultComment);
         assertEquals(expectedCommentOutputDto, resultCommentOutputDto);
@@ -588,10 +648,152 @@ class ItemServiceImplTest {
         when(commentMapper.toComment(any())).thenReturn(new Comment());
         when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(new Item()));
-        when(bookingRepository.findFirstByItem_IdAndBooker_IdAndEndBefore(anyLong(), anyLong(), any()))
-                .thenReturn(null);
+        when(bookingRepository.existsByItemIdAndBookerIdAndEndBefore(anyLong(), anyLong(), any()))
+                .thenReturn(false);
 
         assertThrows(NotAvailableException.class,
                 () -> itemService.addComment(commentInputDto, itemId, userId));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getItemAvailability_whenItemHasApprovedBookings_thenFreeRangesAreGaps() {
+        LocalDateTime from = dateTime;
+        LocalDateTime to = dateTime.plusDays(10);
+        Item item = new Item(itemId, itemName, itemDescription, true, null, null);
+        when(itemRepository.existsById(itemId)).thenReturn(true);
+        when(bookingRepository.findAllByItem_IdInAndStatusAndStartBeforeAndEndAfter(
+                List.of(itemId), Status.APPROVED, to, from)).thenReturn(List.of(
+                new Booking(1L, from.minusDays(1), from.plusDays(1), item, null, Status.APPROVED),
+                new Booking(2L, from.plusDays(3), from.plusDays(4), item, null, Status.APPROVED),
+                new Booking(3L, from.plusDays(3).plusHours(12), from.plusDays(4), item, null, Status.APPROVED)));
+
+        ItemAvailabilityDto availability = itemService.getItemAvailability(itemId, from, to);
+
+        assertAll(
+                () -> assertEquals(List.of(
+                        new TimeRange(from, from.plusDays(1)),
+                        new TimeRange(from.plusDays(3), from.plusDays(4))), availability.getBusy()),
+                () -> assertEquals(List.of(
+                        new TimeRange(from.plusDays(1), from.plusDays(3)),
+                        new TimeRange(from.plusDays(4), to)), availability.getFree())
+        );
+    }
+
+    @Test
+    void getItemAvailability_whenItemNotFound_thenNotFoundException() {
+        when(itemRepository.existsById(itemId)).thenReturn(false);
+
+        assertThrows(NotFoundException.class,
+                () -> itemService.getItemAvailability(itemId, dateTime, dateTime.plusDays(1)));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void getItemAvailability_whenWindowIsEmpty_thenIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> itemService.getItemAvailability(itemId, dateTime, dateTime));
+    }
+
+    @Test
+    void findItems_whenWindowSet_thenEngineMatchesWithoutBookedItems() {
+        Item free = new Item(itemId + 1, itemName, itemDescription, Boolean.TRUE, null, null);
+        ItemDto freeDto = new ItemDto(itemId + 1, itemName, itemDescription, Boolean.TRUE, null);
+        LocalDateTime windowStart = dateTime.plusDays(1);
+        LocalDateTime windowEnd = dateTime.plusDays(2);
+        when(itemSearchEngine.searchNotBooked("text", windowStart, windowEnd, 0, PageRequestUtil.of(from, size)))
+                .thenReturn(List.of(free));
+        when(itemMapper.mapDto(List.of(free))).thenReturn(List.of(freeDto));
+
+        List<ItemDto> items = itemService.findItems("text", windowStart, windowEnd, from, size);
+
+        assertEquals(List.of(freeDto), items);
+        verify(itemSearchEngine, never()).search(anyString(), anyLong(), any());
+    }
+
+    @Test
+    void findItems_whenWindowAndCursor_thenEngineSeeksAfterCursor() {
+        LocalDateTime windowStart = dateTime.plusDays(1);
+        LocalDateTime windowEnd = dateTime.plusDays(2);
+        when(itemSearchEngine.searchNotBooked("text", windowStart, windowEnd, 42, PageRequestUtil.of(0, size)))
+                .thenReturn(List.of());
+        when(itemMapper.mapDto(List.of())).thenReturn(List.of());
+
+        itemService.findItems("text", windowStart, windowEnd, PageCursor.of(42), size);
+
+        verify(itemSearchEngine).searchNotBooked("text", windowStart, windowEnd, 42, PageRequestUtil.of(0, size));
+    }
+
+    @Test
+    void findItems_whenWindowEndsBeforeStart_thenIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> itemService.findItems("text", dateTime, dateTime.minusDays(1), from, size));
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void findItems_whenSortedByRelevance_thenEngineRanks() {
+        Item item = new Item(itemId, itemName, itemDescription, Boolean.TRUE, null, null);
+        ItemDto itemDto = new ItemDto(itemId, itemName, itemDescription, Boolean.TRUE, null);
+        when(itemSearchEngine.searchByRelevance("text", PageRequest.of(from, size))).thenReturn(List.of(item));
+        when(itemMapper.mapDto(List.of(item))).thenReturn(List.of(itemDto));
+
+        List<ItemDto> items = itemService.findItems("text", SearchSort.RELEVANCE, from, size);
+
+        assertEquals(List.of(itemDto), items);
+        verify(itemSearchEngine, never()).search(anyString(), anyLong(), any());
+    }
+
+    @Test
+    void suggestItemNames_whenPrefixBlank_thenEmptyWithoutTrie() {
+        assertEquals(List.of(), itemService.suggestItemNames(" ", size));
+        verifyNoInteractions(itemNameSuggester);
+    }
+
+    @Test
+    void suggestItemNames_whenPrefixSet_thenNamesFromTrie() {
+        when(itemNameSuggester.suggest("дре", size)).thenReturn(List.of("Дрель"));
+
+        assertEquals(List.of("Дрель"), itemService.suggestItemNames("дре", size));
+    }
+
+    @Test
+    void getSearchFacets_whenTextSet_thenFacetsOfEngine() {
+        ItemFacetsDto facets = ItemFacetsDto.builder().total(2).build();
+        when(itemSearchEngine.countFacets("дрэль", true)).thenReturn(facets);
+
+        assertEquals(facets, itemService.getSearchFacets("дрэль", true));
+    }
+
+    @Test
+    void getSearchFacets_whenTextBlank_thenEmptyWithoutEngine() {
+        assertEquals(0, itemService.getSearchFacets(" ", false).getTotal());
+        verifyNoInteractions(itemSearchEngine);
+    }
+
+    @Test
+    void getAllOwnersItems_whenSingleQueryEnabled_thenReadInOneQuery() {
+        ItemWithCommentsOutputDto itemDto =
+                new ItemWithCommentsOutputDto(itemId, itemName, itemDescription, true, null, null, List.of());
+        when(ownerItemsReader.isEnabled()).thenReturn(true);
+        when(ownerItemsReader.read(eq(userId), eq(0L), eq((long) from), eq(size), any()))
+                .thenReturn(Optional.of(List.of(itemDto)));
+
+        assertEquals(List.of(itemDto), itemService.getAllOwnersItems(userId, from, size));
+        verifyNoInteractions(itemRepository, bookingRepository, commentRepository);
+    }
+
+    @Test
+    void getAllOwnersItems_whenSingleQueryFindsNoOwner_thenNotFoundException() {
+        when(ownerItemsReader.isEnabled()).thenReturn(true);
+        when(ownerItemsReader.read(eq(userId), eq(itemId), eq(0L), eq(size), any())).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class,
+                () -> itemService.getAllOwnersItems(userId, PageCursor.of(itemId), size));
+    }
+
+    private static ItemSearchEngine termPrefixEngine() {
+        ItemSearchEngine engine = mock(ItemSearchEngine.class);
+        when(engine.matchesTermPrefixes()).thenReturn(true);
+        return engine;
+    }
+}
@@ -0,0 +1,105 @@
+package ru.practicum.shareit.item.suggest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.api.ItemRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemNameSuggesterTest {
+    @Mock
+    ItemRepository itemRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+    @InjectMocks
+    ItemNameSuggester suggester;
+
+    @Test
+    void suggest_whenNamesShareFrequency_thenMostCommonFirstThenAlphabetical() {
+        suggester.onItemSaved(new ItemSavedEvent(1L, "Дрель", "", true, 1L, null));
+        suggester.onItemSaved(new ItemSavedEvent(2L, "дрель", "", true, 2L, null));
+        suggester.onItemSaved(new ItemSavedEvent(3L, "Дрель ударная", "", true, 1L, null));
+        suggester.onItemSaved(new ItemSavedEvent(4L, "Дрёма-подушка", "", true, 1L, null));
+        suggester.onItemSaved(new ItemSavedEvent(5L, "Доска", "", true, 1L, null));
+        suggester.onItemSaved(new ItemSavedEvent(6L, "Дрезина", "", false, 1L, null));
+
+        assertAll(
+                () -> assertEquals(List.of("дрель", "Дрель ударная", "Дрёма-подушка"), suggester.suggest("ДРЕ", 10)),
+                () -> assertEquals(List.of("дрель", "Доска"), suggester.suggest("д", 2)),
+                () -> assertEquals(List.of("Дрёма-подушка"), suggester.suggest("дрём", 10)),
+                () -> assertEquals(List.of(), suggester.suggest("пила", 10))
+        );
+    }
+
+    @Test
+    void onItemSaved_whenRenamedOrUnavailable_thenOldNameDropped() {
+        suggester.onItemSaved(new ItemSavedEvent(1L, "Дрель", "", true, 1L, null));
+        suggester.onItemSaved(new ItemSavedEvent(2L, "Дрезина", "", true, 1L, null));
+        suggester.onItemSaved(new ItemSavedEvent(1L, "Пила", "", true, 1L, null));
+        suggester.onItemSaved(new ItemSavedEvent(2L, "Дрезина", "", false, 1L, null));
+
+        assertAll(
+                () -> assertEquals(List.of(), suggester.suggest("др", 10)),
+                () -> assertEquals(List.of("Пила"), suggester.suggest("п", 10))
+        );
+    }
+
+    @Test
+    void rebuild_whenItemsInDatabase_thenAvailableNamesIndexed() {
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenReturn(List.of(
+                new Item(1L, "Палатка", "Четырёхместная", true, null, null),
+                new Item(2L, "Палас", "Ковёр", false, null, null)));
+
+        suggester.rebuild();
+
+        assertEquals(List.of("Палатка"), suggester.suggest("пал", 10));
+    }
+
+    @Test
+    void rebuild_whenSeveralPages_thenEveryPageReadInOwnTransaction() {
+        List<Item> firstPage = LongStream.rangeClosed(1, ItemNameSuggester.REBUILD_PAGE_SIZE)
+                .mapToObj(id -> new Item(id, "Палатка", "Четырёхместная", true, null, null))
+                .collect(Collectors.toList());
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(firstPage);
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(eq((long) ItemNameSuggester.REBUILD_PAGE_SIZE), any()))
+                .thenReturn(List.of(new Item(ItemNameSuggester.REBUILD_PAGE_SIZE + 1L, "Шатёр", "", true, null, null)));
+
+        suggester.rebuild();
+
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(List.of("Палатка", "Шатёр"), suggester.suggest("", 10));
+    }
+
+    @Test
+    void rebuild_whenItemSavedWhileReadingTable_thenUpdateKept() {
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenAnswer(invocation -> {
+            suggester.onItemSaved(new ItemSavedEvent(1L, "Шатёр", "", true, 1L, null));
+            return List.of(new Item(1L, "Палатка", "Четырёхместная", true, null, null));
+        });
+
+        suggester.rebuild();
+
+        assertAll(
+                () -> assertEquals(List.of("Шатёр"), suggester.suggest("ша", 10)),
+                () -> assertEquals(List.of(), suggester.suggest("пал", 10))
+        );
+    }
+}
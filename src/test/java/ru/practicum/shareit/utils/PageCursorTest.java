@@ -0,0 +1,50 @@
+package ru.practicum.shareit.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    void decode_whenEncodedCursor_thenSameCursor() {
+        PageCursor timeCursor = PageCursor.of(LocalDateTime.of(2023, 8, 13, 9, 28, 26, 123_000_000), 15L);
+        PageCursor idCursor = PageCursor.of(7L);
+
+        assertAll(
+                () -> assertEquals(timeCursor, PageCursor.decode(timeCursor.encode())),
+                () -> assertEquals(idCursor, PageCursor.decode(idCursor.encode())),
+                () -> assertNull(PageCursor.decode(idCursor.encode()).getTime())
+        );
+    }
+
+    @Test
+    void decode_whenCursorIsGarbage_thenIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("bm90LWEtY3Vyc29y"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.of(7L).requireTime());
+    }
+
+    @Test
+    void nextCursorHeaders_whenPageIsFull_thenHeaderWithLastElement() {
+        assertEquals(PageCursor.of(3L).encode(), PageCursor.nextCursorHeaders(List.of(1L, 2L, 3L), 3, PageCursor::of)
+                .getFirst(PageCursor.NEXT_CURSOR_HEADER));
+        assertFalse(PageCursor.nextCursorHeaders(List.of(1L, 2L), 3, PageCursor::of)
+                .containsKey(PageCursor.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void pageRequestUtil_whenFromIsNotMultipleOfSize_thenExactOffset() {
+        Pageable pageable = PageRequestUtil.of(3, 2, Sort.unsorted());
+
+        assertEquals(3, pageable.getOffset());
+        assertEquals(2, pageable.getPageSize());
+        assertEquals(5, pageable.next().getOffset());
+        assertEquals(4, PageRequestUtil.of(4, 2).getOffset());
+    }
+}
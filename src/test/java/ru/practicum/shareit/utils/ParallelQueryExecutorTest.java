@@ -0,0 +1,126 @@
+package ru.practicum.shareit.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import ru.practicum.shareit.exception.NotFoundException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class ParallelQueryExecutorTest {
+    final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    final CountDownLatch release = new CountDownLatch(1);
+    ParallelQueryExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void fork_whenDisabled_thenRunsInCallerWithoutNewTransaction() {
+        executor = new ParallelQueryExecutor(transactionManager, false, 2, Duration.ofSeconds(1));
+        String caller = Thread.currentThread().getName();
+
+        Supplier<String> thread = executor.batch().fork(() -> Thread.currentThread().getName());
+
+        assertEquals(caller, thread.get());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void fork_whenEnabled_thenRunsOnWorkerInReadOnlyTransaction() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        executor = new ParallelQueryExecutor(transactionManager, true, 2, Duration.ofSeconds(1));
+        ParallelQueryExecutor.Batch batch = executor.batch();
+
+        Supplier<String> first = batch.fork(() -> Thread.currentThread().getName());
+        Supplier<String> second = batch.fork(() -> Thread.currentThread().getName());
+
+        assertTrue(first.get().startsWith("query-fan-out-"));
+        assertTrue(second.get().startsWith("query-fan-out-"));
+        verify(transactionManager, times(2)).getTransaction(argThat(definition -> definition.isReadOnly()
+                && definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void fork_whenAllWorkersBusy_thenRunsInCaller() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        executor = new ParallelQueryExecutor(transactionManager, true, 1, Duration.ofSeconds(5));
+        ParallelQueryExecutor.Batch batch = executor.batch();
+        String caller = Thread.currentThread().getName();
+
+        Supplier<String> blocked = batch.fork(() -> {
+            await(release);
+            return Thread.currentThread().getName();
+        });
+        Supplier<String> inline = batch.fork(() -> Thread.currentThread().getName());
+        release.countDown();
+
+        assertEquals(caller, inline.get());
+        assertEquals("query-fan-out-1", blocked.get());
+    }
+
+    @Test
+    void fork_whenQueryOutlivesTimeout_thenQueryTimeoutExceptionAndWorkerInterrupted() throws InterruptedException {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        executor = new ParallelQueryExecutor(transactionManager, true, 1, Duration.ofMillis(50));
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        Supplier<String> blocked = executor.batch().fork(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "late";
+        });
+
+        assertThrows(QueryTimeoutException.class, blocked::get);
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void fork_whenEnabled_thenTransactionTimesOutAtBatchDeadline() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        executor = new ParallelQueryExecutor(transactionManager, true, 2, Duration.ofSeconds(30));
+
+        executor.batch().fork(() -> "done").get();
+
+        verify(transactionManager).getTransaction(argThat(definition -> definition.getTimeout() == 30));
+    }
+
+    @Test
+    void fork_whenQueryFails_thenSameException() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        executor = new ParallelQueryExecutor(transactionManager, true, 1, Duration.ofSeconds(1));
+
+        Supplier<String> failed = executor.batch().fork(() -> {
+            throw new NotFoundException("item with id=1 not found");
+        });
+
+        assertThrows(NotFoundException.class, failed::get);
+        verify(transactionManager).rollback(any());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
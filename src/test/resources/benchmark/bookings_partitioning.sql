@@ -0,0 +1,121 @@
+-- Compares the booker PAST/CURRENT/FUTURE/ALL queries on a single bookings table and on the monthly range
+-- partitioned one from V2_1__partition_bookings.sql, both holding 50M rows over six years.
+--
+--   createdb shareit_bench && psql -d shareit_bench -f bookings_partitioning.sql > bookings_partitioning.out
+--
+-- Loading takes a while; the interesting parts of the output are the "Execution Time" and "Buffers" lines and
+-- the number of partitions left in the partitioned plans.
+\timing on
+SET max_parallel_workers_per_gather = 0;
+
+DROP SCHEMA IF EXISTS bench_single CASCADE;
+DROP SCHEMA IF EXISTS bench_partitioned CASCADE;
+CREATE SCHEMA bench_single;
+CREATE SCHEMA bench_partitioned;
+
+CREATE TABLE bench_single.bookings
+(
+    id         BIGINT                      NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    item_id    BIGINT                      NOT NULL,
+    booker_id  BIGINT                      NOT NULL,
+    status     VARCHAR(8) DEFAULT 'WAITING'
+);
+
+CREATE TABLE bench_partitioned.bookings
+(
+    LIKE bench_single.bookings INCLUDING DEFAULTS
+) PARTITION BY RANGE (start_date);
+
+CREATE TABLE bench_partitioned.bookings_default PARTITION OF bench_partitioned.bookings DEFAULT;
+
+DO
+$$
+    DECLARE
+        bound DATE := date_trunc('month', now() - INTERVAL '5 years');
+    BEGIN
+        WHILE bound <= date_trunc('month', now() + INTERVAL '1 year')
+            LOOP
+                EXECUTE format('CREATE TABLE bench_partitioned.%I PARTITION OF bench_partitioned.bookings ' ||
+                               'FOR VALUES FROM (%L) TO (%L)',
+                               'bookings_' || to_char(bound, '"y"YYYY"m"MM'), bound, bound + INTERVAL '1 month');
+                bound := bound + INTERVAL '1 month';
+            END LOOP;
+    END
+$$;
+
+-- 50M bookings of 500k items by 100k bookers, starting uniformly from five years ago to a year ahead
+INSERT INTO bench_single.bookings (id, start_date, end_date, item_id, booker_id, status)
+SELECT g,
+       s,
+       s + (1 + g % 72) * INTERVAL '1 hour',
+       1 + g % 500000,
+       1 + (g * 7919) % 100000,
+       CASE g % 10 WHEN 0 THEN 'WAITING' WHEN 1 THEN 'REJECTED' ELSE 'APPROVED' END
+FROM generate_series(1, 50000000) g,
+     LATERAL (SELECT now() - INTERVAL '5 years' + (g * 7 % 50000000) * (INTERVAL '6 years' / 50000000) AS s) d;
+
+INSERT INTO bench_partitioned.bookings SELECT * FROM bench_single.bookings;
+
+ALTER TABLE bench_single.bookings ADD PRIMARY KEY (id);
+ALTER TABLE bench_partitioned.bookings ADD PRIMARY KEY (id, start_date);
+CREATE INDEX ON bench_single.bookings (booker_id, start_date);
+CREATE INDEX ON bench_partitioned.bookings (booker_id, start_date);
+CREATE INDEX ON bench_single.bookings (item_id, status, start_date, end_date);
+CREATE INDEX ON bench_partitioned.bookings (item_id, status, start_date, end_date);
+VACUUM ANALYZE bench_single.bookings;
+VACUUM ANALYZE bench_partitioned.bookings;
+
+-- the statements as the application sends them, with now and the booker bound at execution time
+PREPARE single_past(BIGINT, TIMESTAMP) AS
+    SELECT * FROM bench_single.bookings b
+    WHERE b.booker_id = $1 AND b.start_date < $2 AND b.end_date < $2 ORDER BY b.start_date DESC LIMIT 20;
+PREPARE partitioned_past(BIGINT, TIMESTAMP) AS
+    SELECT * FROM bench_partitioned.bookings b
+    WHERE b.booker_id = $1 AND b.start_date < $2 AND b.end_date < $2 ORDER BY b.start_date DESC LIMIT 20;
+PREPARE single_current(BIGINT, TIMESTAMP) AS
+    SELECT * FROM bench_single.bookings b
+    WHERE b.booker_id = $1 AND b.start_date < $2 AND b.end_date > $2 ORDER BY b.start_date DESC LIMIT 20;
+PREPARE partitioned_current(BIGINT, TIMESTAMP) AS
+    SELECT * FROM bench_partitioned.bookings b
+    WHERE b.booker_id = $1 AND b.start_date < $2 AND b.end_date > $2 ORDER BY b.start_date DESC LIMIT 20;
+PREPARE single_future(BIGINT, TIMESTAMP) AS
+    SELECT * FROM bench_single.bookings b
+    WHERE b.booker_id = $1 AND b.start_date > $2 ORDER BY b.start_date DESC LIMIT 20;
+PREPARE partitioned_future(BIGINT, TIMESTAMP) AS
+    SELECT * FROM bench_partitioned.bookings b
+    WHERE b.booker_id = $1 AND b.start_date > $2 ORDER BY b.start_date DESC LIMIT 20;
+PREPARE single_all(BIGINT) AS
+    SELECT * FROM bench_single.bookings b WHERE b.booker_id = $1 ORDER BY b.start_date DESC LIMIT 20;
+PREPARE partitioned_all(BIGINT) AS
+    SELECT * FROM bench_partitioned.bookings b WHERE b.booker_id = $1 ORDER BY b.start_date DESC LIMIT 20;
+-- last/next booking of an item, see BookingRepository.findLastBookingsForItems
+PREPARE single_item_last(BIGINT, TIMESTAMP) AS
+    SELECT * FROM bench_single.bookings b
+    WHERE b.item_id = $1 AND b.status = 'APPROVED' AND b.start_date < $2 ORDER BY b.start_date DESC LIMIT 1;
+PREPARE partitioned_item_last(BIGINT, TIMESTAMP) AS
+    SELECT * FROM bench_partitioned.bookings b
+    WHERE b.item_id = $1 AND b.status = 'APPROVED' AND b.start_date < $2 ORDER BY b.start_date DESC LIMIT 1;
+
+-- warm up the caches, then measure
+EXECUTE single_past(4242, now()::TIMESTAMP);
+EXECUTE partitioned_past(4242, now()::TIMESTAMP);
+
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE single_past(4242, now()::TIMESTAMP);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE partitioned_past(4242, now()::TIMESTAMP);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE single_current(4242, now()::TIMESTAMP);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE partitioned_current(4242, now()::TIMESTAMP);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE single_future(4242, now()::TIMESTAMP);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE partitioned_future(4242, now()::TIMESTAMP);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE single_all(4242);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE partitioned_all(4242);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE single_item_last(4242, now()::TIMESTAMP);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE partitioned_item_last(4242, now()::TIMESTAMP);
+
+-- table and index sizes
+SELECT n.nspname AS schema, pg_size_pretty(sum(pg_total_relation_size(c.oid))) AS total
+FROM pg_class c
+         JOIN pg_namespace n ON n.oid = c.relnamespace
+WHERE n.nspname IN ('bench_single', 'bench_partitioned') AND c.relkind = 'r'
+GROUP BY n.nspname;
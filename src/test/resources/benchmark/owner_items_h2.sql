@@ -0,0 +1,146 @@
+-- Compares the owner item listing read as separate queries (owner check, items page, booking pointers, comments)
+-- with the single statement from ItemRepository.findOwnerItemRows, on 100k items of 1000 owners with 1M bookings
+-- and 200k comments.
+--
+--   java -cp h2-2.1.214.jar org.h2.tools.RunScript -url jdbc:h2:mem:bench -script owner_items_h2.sql \
+--       -showResults > owner_items_h2.out
+--
+-- EXPLAIN ANALYZE shows the rows each table scan read (scanCount); the QUERY_STATISTICS report at the end gives
+-- the average execution time of every statement. owner_items_postgresql.sql runs the same comparison on
+-- PostgreSQL.
+SET QUERY_STATISTICS TRUE;
+
+DROP SCHEMA IF EXISTS bench CASCADE;
+CREATE SCHEMA bench;
+
+CREATE TABLE bench.users
+(
+    id    BIGINT PRIMARY KEY,
+    name  VARCHAR(255) NOT NULL,
+    email VARCHAR(254) NOT NULL
+);
+
+CREATE TABLE bench.items
+(
+    id                 BIGINT PRIMARY KEY,
+    name               VARCHAR(255) NOT NULL,
+    description        VARCHAR(512) NOT NULL,
+    available          BOOLEAN,
+    owner_id           BIGINT       NOT NULL,
+    request_id         BIGINT,
+    last_booking_id    BIGINT,
+    next_booking_id    BIGINT,
+    next_booking_start TIMESTAMP WITHOUT TIME ZONE
+);
+
+CREATE TABLE bench.bookings
+(
+    id         BIGINT PRIMARY KEY,
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    item_id    BIGINT                      NOT NULL,
+    booker_id  BIGINT                      NOT NULL,
+    status     VARCHAR(8) DEFAULT 'WAITING'
+);
+
+CREATE TABLE bench.comments
+(
+    id        BIGINT PRIMARY KEY,
+    text      VARCHAR                     NOT NULL,
+    item_id   BIGINT                      NOT NULL,
+    author_id BIGINT                      NOT NULL,
+    created   TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+-- 11k users, the first 1000 own 100 items each; bookings start uniformly within a year either side of now
+INSERT INTO bench.users SELECT X, 'user' || X, 'user' || X || '@mail.ru' FROM SYSTEM_RANGE(1, 11000);
+INSERT INTO bench.items (id, name, description, available, owner_id)
+SELECT X, 'item' || X, 'description of item' || X, MOD(X, 5) <> 0, 1 + MOD(X, 1000) FROM SYSTEM_RANGE(1, 100000);
+INSERT INTO bench.bookings
+SELECT X,
+       DATEADD(MINUTE, MOD(X * 7919, 1051200) - 525600, LOCALTIMESTAMP),
+       DATEADD(MINUTE, MOD(X * 7919, 1051200) - 525600 + 60 * (1 + MOD(X, 72)), LOCALTIMESTAMP),
+       1 + MOD(X, 100000),
+       1001 + MOD(X * 31, 10000),
+       CASE MOD(X, 10) WHEN 0 THEN 'WAITING' WHEN 1 THEN 'REJECTED' ELSE 'APPROVED' END
+FROM SYSTEM_RANGE(1, 1000000);
+INSERT INTO bench.comments
+SELECT X, 'comment' || X, 1 + MOD(X * 13, 100000), 1001 + MOD(X, 10000), DATEADD(DAY, -MOD(X, 365), LOCALTIMESTAMP)
+FROM SYSTEM_RANGE(1, 200000);
+
+-- the indexes from V1__init.sql and V2__query_indexes.sql
+CREATE INDEX ON bench.bookings (item_id, status, start_date, end_date);
+CREATE INDEX ON bench.bookings (item_id, start_date);
+CREATE INDEX ON bench.items (owner_id);
+CREATE INDEX ON bench.items (next_booking_start);
+CREATE INDEX ON bench.comments (item_id);
+
+-- booking pointers as ItemRepository.updateBookingPointers leaves them
+UPDATE bench.items SET
+    last_booking_id = (SELECT b.id FROM bench.bookings b
+                       WHERE b.item_id = items.id AND b.status = 'APPROVED' AND b.start_date < LOCALTIMESTAMP
+                       ORDER BY b.start_date DESC, b.id DESC LIMIT 1),
+    next_booking_id = (SELECT b.id FROM bench.bookings b
+                       WHERE b.item_id = items.id AND b.status = 'APPROVED' AND b.start_date >= LOCALTIMESTAMP
+                       ORDER BY b.start_date ASC, b.id ASC LIMIT 1),
+    next_booking_start = (SELECT MIN(b.start_date) FROM bench.bookings b
+                          WHERE b.item_id = items.id AND b.status = 'APPROVED' AND b.start_date >= LOCALTIMESTAMP);
+ANALYZE;
+
+-- separate queries, as sent with shareit.owner-items.single-query=false for the first page of owner 42
+SELECT * FROM bench.users u WHERE u.id = 42;
+SELECT * FROM bench.items i WHERE i.owner_id = 42 AND i.id > 0 ORDER BY i.id LIMIT 20;
+SELECT i.id, lb.id, lb.start_date, lb.end_date, lb.booker_id, nb.id, nb.start_date, nb.end_date, nb.booker_id
+FROM bench.items i
+         LEFT JOIN bench.bookings lb ON lb.id = i.last_booking_id
+         LEFT JOIN bench.bookings nb ON nb.id = i.next_booking_id
+WHERE i.id IN (SELECT id FROM bench.items WHERE owner_id = 42 ORDER BY id LIMIT 20);
+SELECT c.*, a.name FROM bench.comments c JOIN bench.users a ON a.id = c.author_id
+WHERE c.item_id IN (SELECT id FROM bench.items WHERE owner_id = 42 ORDER BY id LIMIT 20);
+
+-- the single statement
+SELECT u.id, i.id, i.name, i.description, i.available,
+       lb.id, lb.start_date, lb.end_date, lb.booker_id,
+       nb.id, nb.start_date, nb.end_date, nb.booker_id,
+       c.id, c.text, c.created, a.name
+FROM bench.users u
+         LEFT JOIN (SELECT * FROM bench.items WHERE owner_id = 42 AND id > 0 ORDER BY id LIMIT 20 OFFSET 0) i
+                   ON i.owner_id = u.id
+         LEFT JOIN bench.bookings lb ON lb.id = i.last_booking_id
+         LEFT JOIN bench.bookings nb ON nb.id = i.next_booking_id
+         LEFT JOIN bench.comments c ON c.item_id = i.id
+         LEFT JOIN bench.users a ON a.id = c.author_id
+WHERE u.id = 42
+ORDER BY i.id, c.id;
+
+EXPLAIN ANALYZE SELECT * FROM bench.items i WHERE i.owner_id = 42 AND i.id > 0 ORDER BY i.id LIMIT 20;
+EXPLAIN ANALYZE
+SELECT i.id, lb.id, lb.start_date, lb.end_date, lb.booker_id, nb.id, nb.start_date, nb.end_date, nb.booker_id
+FROM bench.items i
+         LEFT JOIN bench.bookings lb ON lb.id = i.last_booking_id
+         LEFT JOIN bench.bookings nb ON nb.id = i.next_booking_id
+WHERE i.id IN (SELECT id FROM bench.items WHERE owner_id = 42 ORDER BY id LIMIT 20);
+EXPLAIN ANALYZE
+SELECT c.*, a.name FROM bench.comments c JOIN bench.users a ON a.id = c.author_id
+WHERE c.item_id IN (SELECT id FROM bench.items WHERE owner_id = 42 ORDER BY id LIMIT 20);
+EXPLAIN ANALYZE
+SELECT u.id, i.id, i.name, i.description, i.available,
+       lb.id, lb.start_date, lb.end_date, lb.booker_id,
+       nb.id, nb.start_date, nb.end_date, nb.booker_id,
+       c.id, c.text, c.created, a.name
+FROM bench.users u
+         LEFT JOIN (SELECT * FROM bench.items WHERE owner_id = 42 AND id > 0 ORDER BY id LIMIT 20 OFFSET 0) i
+                   ON i.owner_id = u.id
+         LEFT JOIN bench.bookings lb ON lb.id = i.last_booking_id
+         LEFT JOIN bench.bookings nb ON nb.id = i.next_booking_id
+         LEFT JOIN bench.comments c ON c.item_id = i.id
+         LEFT JOIN bench.users a ON a.id = c.author_id
+WHERE u.id = 42
+ORDER BY i.id, c.id;
+
+SELECT SUBSTRING(SQL_STATEMENT, 1, 100) AS statement, EXECUTION_COUNT, AVERAGE_EXECUTION_TIME, AVERAGE_ROW_COUNT
+FROM INFORMATION_SCHEMA.QUERY_STATISTICS
+WHERE SQL_STATEMENT LIKE '%owner_id = 42%' AND SQL_STATEMENT NOT LIKE 'EXPLAIN%'
+ORDER BY SQL_STATEMENT;
+
+DROP SCHEMA bench CASCADE;
@@ -0,0 +1,158 @@
+-- Compares the owner item listing read as separate queries (owner check, items page, booking pointers, comments)
+-- with the single statements from ItemRepository.findOwnerItemRows and findOwnerItemRowsAggregated, on 1M items
+-- of 10k owners with 10M bookings and 2M comments.
+--
+--   createdb shareit_bench && psql -d shareit_bench -f owner_items_postgresql.sql > owner_items_postgresql.out
+--
+-- Compare the summed "Execution Time" of the four separate statements, plus three extra round trips, with that of
+-- either single statement. owner_items_h2.sql runs the same comparison on H2.
+\timing on
+SET max_parallel_workers_per_gather = 0;
+
+DROP SCHEMA IF EXISTS bench CASCADE;
+CREATE SCHEMA bench;
+
+CREATE TABLE bench.users
+(
+    id    BIGINT PRIMARY KEY,
+    name  VARCHAR(255) NOT NULL,
+    email VARCHAR(254) NOT NULL
+);
+
+CREATE TABLE bench.items
+(
+    id                 BIGINT PRIMARY KEY,
+    name               VARCHAR(255) NOT NULL,
+    description        VARCHAR(512) NOT NULL,
+    available          BOOLEAN,
+    owner_id           BIGINT       NOT NULL,
+    request_id         BIGINT,
+    last_booking_id    BIGINT,
+    next_booking_id    BIGINT,
+    next_booking_start TIMESTAMP WITHOUT TIME ZONE
+);
+
+CREATE TABLE bench.bookings
+(
+    id         BIGINT PRIMARY KEY,
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    item_id    BIGINT                      NOT NULL,
+    booker_id  BIGINT                      NOT NULL,
+    status     VARCHAR(8) DEFAULT 'WAITING'
+);
+
+CREATE TABLE bench.comments
+(
+    id        BIGINT PRIMARY KEY,
+    text      VARCHAR                     NOT NULL,
+    item_id   BIGINT                      NOT NULL,
+    author_id BIGINT                      NOT NULL,
+    created   TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+-- 110k users, the first 10k own 100 items each; bookings start uniformly within a year either side of now
+INSERT INTO bench.users SELECT g, 'user' || g, 'user' || g || '@mail.ru' FROM generate_series(1, 110000) g;
+INSERT INTO bench.items (id, name, description, available, owner_id)
+SELECT g, 'item' || g, 'description of item' || g, g % 5 <> 0, 1 + g % 10000 FROM generate_series(1, 1000000) g;
+INSERT INTO bench.bookings
+SELECT g,
+       now()::TIMESTAMP + ((g * 7919) % 1051200 - 525600) * INTERVAL '1 minute',
+       now()::TIMESTAMP + ((g * 7919) % 1051200 - 525600 + 60 * (1 + g % 72)) * INTERVAL '1 minute',
+       1 + g % 1000000,
+       10001 + (g * 31) % 100000,
+       CASE g % 10 WHEN 0 THEN 'WAITING' WHEN 1 THEN 'REJECTED' ELSE 'APPROVED' END
+FROM generate_series(1, 10000000) g;
+INSERT INTO bench.comments
+SELECT g, 'comment' || g, 1 + (g * 13) % 1000000, 10001 + g % 100000, now()::TIMESTAMP - (g % 365) * INTERVAL '1 day'
+FROM generate_series(1, 2000000) g;
+
+-- the indexes from V1__init.sql and V2__query_indexes.sql
+CREATE INDEX ON bench.bookings (item_id, status, start_date, end_date);
+CREATE INDEX ON bench.bookings (item_id, start_date);
+CREATE INDEX ON bench.items (owner_id);
+CREATE INDEX ON bench.items (next_booking_start);
+CREATE INDEX ON bench.comments (item_id);
+
+-- booking pointers as ItemRepository.updateBookingPointers leaves them
+UPDATE bench.items SET
+    last_booking_id = (SELECT b.id FROM bench.bookings b
+                       WHERE b.item_id = items.id AND b.status = 'APPROVED' AND b.start_date < now()::TIMESTAMP
+                       ORDER BY b.start_date DESC, b.id DESC LIMIT 1),
+    next_booking_id = (SELECT b.id FROM bench.bookings b
+                       WHERE b.item_id = items.id AND b.status = 'APPROVED' AND b.start_date >= now()::TIMESTAMP
+                       ORDER BY b.start_date ASC, b.id ASC LIMIT 1),
+    next_booking_start = (SELECT MIN(b.start_date) FROM bench.bookings b
+                          WHERE b.item_id = items.id AND b.status = 'APPROVED'
+                            AND b.start_date >= now()::TIMESTAMP);
+VACUUM ANALYZE bench.users;
+VACUUM ANALYZE bench.items;
+VACUUM ANALYZE bench.bookings;
+VACUUM ANALYZE bench.comments;
+
+-- separate queries, as sent with shareit.owner-items.single-query=false
+PREPARE owner(BIGINT) AS
+    SELECT * FROM bench.users u WHERE u.id = $1;
+PREPARE items_page(BIGINT, BIGINT) AS
+    SELECT * FROM bench.items i WHERE i.owner_id = $1 AND i.id > $2 ORDER BY i.id LIMIT 20;
+PREPARE booking_pointers(BIGINT[]) AS
+    SELECT i.id, lb.id, lb.start_date, lb.end_date, lb.booker_id, nb.id, nb.start_date, nb.end_date, nb.booker_id
+    FROM bench.items i
+             LEFT JOIN bench.bookings lb ON lb.id = i.last_booking_id
+             LEFT JOIN bench.bookings nb ON nb.id = i.next_booking_id
+    WHERE i.id = ANY ($1);
+PREPARE comments(BIGINT[]) AS
+    SELECT c.*, a.name FROM bench.comments c JOIN bench.users a ON a.id = c.author_id WHERE c.item_id = ANY ($1);
+
+-- the single statement, portable form
+PREPARE single_rows(BIGINT, BIGINT) AS
+    SELECT u.id, i.id, i.name, i.description, i.available,
+           lb.id, lb.start_date, lb.end_date, lb.booker_id,
+           nb.id, nb.start_date, nb.end_date, nb.booker_id,
+           c.id, c.text, c.created, a.name
+    FROM bench.users u
+             LEFT JOIN (SELECT * FROM bench.items WHERE owner_id = $1 AND id > $2 ORDER BY id LIMIT 20 OFFSET 0) i
+                       ON i.owner_id = u.id
+             LEFT JOIN bench.bookings lb ON lb.id = i.last_booking_id
+             LEFT JOIN bench.bookings nb ON nb.id = i.next_booking_id
+             LEFT JOIN bench.comments c ON c.item_id = i.id
+             LEFT JOIN bench.users a ON a.id = c.author_id
+    WHERE u.id = $1
+    ORDER BY i.id, c.id;
+
+-- the single statement, PostgreSQL form with one row per item
+PREPARE single_aggregated(BIGINT, BIGINT) AS
+    SELECT u.id, i.id, i.name, i.description, i.available,
+           lb.id, lb.start_date, lb.end_date, lb.booker_id,
+           nb.id, nb.start_date, nb.end_date, nb.booker_id,
+           CAST(cm.comments AS TEXT)
+    FROM bench.users u
+             LEFT JOIN LATERAL (SELECT * FROM bench.items WHERE owner_id = u.id AND id > $2
+                                ORDER BY id LIMIT 20 OFFSET 0) i ON TRUE
+             LEFT JOIN bench.bookings lb ON lb.id = i.last_booking_id
+             LEFT JOIN bench.bookings nb ON nb.id = i.next_booking_id
+             LEFT JOIN LATERAL (SELECT json_agg(json_build_object('id', c.id, 'text', c.text,
+                                                                 'created', c.created, 'authorName', a.name)
+                                                ORDER BY c.id) AS comments
+                                FROM bench.comments c
+                                         JOIN bench.users a ON a.id = c.author_id
+                                WHERE c.item_id = i.id) cm ON TRUE
+    WHERE u.id = $1
+    ORDER BY i.id;
+
+-- the ids of owner 4242's first page, as the separate path passes them on
+SELECT array_agg(id) AS page_ids FROM (SELECT id FROM bench.items WHERE owner_id = 4242 ORDER BY id LIMIT 20) p
+\gset
+
+-- warm up the caches, then measure
+EXECUTE single_rows(4242, 0);
+EXECUTE single_aggregated(4242, 0);
+
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE owner(4242);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE items_page(4242, 0);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE booking_pointers(:'page_ids');
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE comments(:'page_ids');
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE single_rows(4242, 0);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE single_aggregated(4242, 0);
+
+DROP SCHEMA bench CASCADE;
@@ -1,3 +1,5 @@
+-- schema.sql as created on startup before the schema moved to Flyway migrations, before the booking pointers
+-- and the booking lookup index were added to it
 CREATE TABLE IF NOT EXISTS users
 (
     id    BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,